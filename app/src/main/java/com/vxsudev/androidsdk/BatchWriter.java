@@ -0,0 +1,22 @@
+package com.vxsudev.androidsdk;
+
+import java.util.List;
+
+/**
+ * Commits one chunk of readings atomically — a Firestore WriteBatch in the app
+ * ({@link FirestoreBatchWriter}), an in-memory fake in tests.
+ * Implementations may complete the callback on any thread.
+ */
+public interface BatchWriter {
+
+    /** Firestore rejects batches with more operations than this. */
+    int MAX_BATCH_SIZE = 500;
+
+    void commit(List<SmartWatchData> chunk, Callback callback);
+
+    // ---------------- Callback interfaces ----------------
+    interface Callback {
+        void onSuccess();
+        void onFailure(Exception e);
+    }
+}
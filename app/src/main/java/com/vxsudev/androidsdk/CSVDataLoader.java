@@ -1,56 +1,156 @@
 package com.vxsudev.androidsdk;
 
 import android.content.Context;
+import android.content.SharedPreferences;
 import android.util.Log;
 
-import java.io.BufferedReader;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Executor;
 
 /**
  * Loads smartwatch data from a CSV file in the assets folder.
- * CSV format: heartRate,spO2,temperature,steps
+ * Columns are mapped from the header (see {@link CsvSchema}); a file without one is
+ * read as heartRate,spO2,temperature,steps.
+ *
+ * Parsing is delegated to {@link CsvStreamParser}; use {@link #streamFromCSV} to
+ * consume rows as they are scanned instead of building a list, or
+ * {@link #loadSeriesParallel} for large files in app storage.
+ *
+ * Files with a timestamp column keep their own time axis. Other rows are stamped from a
+ * base time fixed on an asset's first load, so the same row keeps the same timestamp —
+ * and therefore the same Firestore document ID — across loads.
  */
 public class CSVDataLoader {
     private static final String TAG = "CSVDataLoader";
+    private static final String PREFS_NAME = "csv_data_loader";
+    private static final String KEY_BASE_PREFIX = "base_timestamp_";
 
     public List<SmartWatchData> loadFromCSV(Context context, String fileName) {
         List<SmartWatchData> dataList = new ArrayList<>();
+        CsvStreamParser.Result result = streamFromCSV(context, fileName,
+                (timestamp, heartRate, spO2, temperature, steps) -> {
+                    SmartWatchData d = new SmartWatchData(timestamp, heartRate, spO2, temperature, steps);
+                    d.setSource(SmartWatchData.SOURCE_CSV);
+                    dataList.add(d);
+                });
 
-        try {
-            InputStream is = context.getAssets().open(fileName);
-            BufferedReader reader = new BufferedReader(new InputStreamReader(is));
+        if (result != null) {
+            Log.d(TAG, "✅ Loaded " + dataList.size() + " entries from CSV");
+            HealthRollups.ingest(context, dataList);
+        }
+        return dataList;
+    }
 
-            String line;
-            while ((line = reader.readLine()) != null) {
-                String[] tokens = line.split(",");
+    /**
+     * Loads the asset straight into primitive columns — no per-row objects.
+     */
+    public SmartWatchSeries loadSeries(Context context, String fileName) {
+        SmartWatchSeries series = new SmartWatchSeries(1024);
+        CsvStreamParser.Result result = streamFromCSV(context, fileName, series::append);
 
-                if (tokens.length < 4) continue;
+        if (result != null) {
+            series.trimToSize();
+            Log.d(TAG, "✅ Loaded " + series.size() + " entries from CSV");
+        }
+        return series;
+    }
+
+    /**
+     * Loads a large CSV from app storage (e.g. a research export copied into filesDir)
+     * into columns, parsing newline-aligned chunks of the mapped file on every core.
+     * Blocking; call it off the main thread.
+     */
+    public SmartWatchSeries loadSeriesParallel(Context context, File file) {
+        SmartWatchSeries series = new SmartWatchSeries(1024);
+        try {
+            long started = System.nanoTime();
+            CsvStreamParser.Result result = new ParallelCsvParser()
+                    .parse(file, baseTimestamp(context, file.getAbsolutePath()), series, null);
+            long ms = (System.nanoTime() - started) / 1_000_000;
+            if (result.getErrors() > 0) {
+                Log.w(TAG, "⚠️ Skipped " + result.getErrors() + " invalid rows (first at line "
+                        + result.getFirstErrorLine() + ", column " + result.getFirstErrorColumn()
+                        + ": " + result.getFirstErrorReason() + ")");
+            }
+            Log.d(TAG, "✅ Loaded " + series.size() + " entries from " + file.getName() + " in " + ms + " ms");
+        } catch (IOException e) {
+            Log.e(TAG, "❌ Failed to load CSV: " + file, e);
+        }
+        return series;
+    }
 
-                try {
-                    int heartRate = Integer.parseInt(tokens[0].trim());
-                    float spO2 = Float.parseFloat(tokens[1].trim());
-                    float temperature = Float.parseFloat(tokens[2].trim());
-                    int steps = Integer.parseInt(tokens[3].trim());
+    /**
+     * Streams every valid row of the asset to the handler without materializing a list.
+     * Invalid rows are counted and summarized in one log line rather than one per row.
+     *
+     * @return parse statistics, or null if the file could not be read
+     */
+    public CsvStreamParser.Result streamFromCSV(Context context, String fileName, CsvStreamParser.RowHandler handler) {
+        return streamFromCSV(context, fileName, handler, null);
+    }
 
-                    long timestamp = System.currentTimeMillis(); // auto timestamp
-                    dataList.add(new SmartWatchData(timestamp, heartRate, spO2, temperature, steps));
+    public CsvStreamParser.Result streamFromCSV(Context context, String fileName,
+                                                CsvStreamParser.RowHandler handler,
+                                                CsvStreamParser.ErrorHandler errors) {
+        try (InputStream is = context.getAssets().open(fileName)) {
+            CsvStreamParser.Result result = new CsvStreamParser()
+                    .parse(is, baseTimestamp(context, fileName), handler, errors);
 
-                } catch (NumberFormatException e) {
-                    Log.w(TAG, "⚠️ Skipping invalid row: " + line);
-                }
+            if (result.getErrors() > 0) {
+                Log.w(TAG, "⚠️ Skipped " + result.getErrors() + " invalid rows (first at line "
+                        + result.getFirstErrorLine() + ", column " + result.getFirstErrorColumn()
+                        + ": " + result.getFirstErrorReason() + ")");
             }
-
-            reader.close();
-            Log.d(TAG, "✅ Loaded " + dataList.size() + " entries from CSV");
+            return result;
 
         } catch (IOException e) {
             Log.e(TAG, "❌ Failed to load CSV: " + fileName, e);
+            return null;
         }
+    }
 
-        return dataList;
+    /**
+     * Pipeline source streaming the asset in batches straight from the parser on the given
+     * executor; the parse waits whenever the pipeline is full.
+     */
+    public ReadingPipeline.Publisher asSource(Context context, String fileName, Executor executor) {
+        ReadingPipeline.PushSource source = new ReadingPipeline.PushSource();
+        source.onStart(() -> executor.execute(() -> {
+            List<SmartWatchData> batch = new ArrayList<>(ReadingPipeline.DEFAULT_BATCH_SIZE);
+            CsvStreamParser.Result result = streamFromCSV(context, fileName,
+                    (timestamp, heartRate, spO2, temperature, steps) -> {
+                        if (source.isCancelled()) return;
+                        SmartWatchData d = new SmartWatchData(timestamp, heartRate, spO2, temperature, steps);
+                        d.setSource(SmartWatchData.SOURCE_CSV);
+                        batch.add(d);
+                        if (batch.size() == ReadingPipeline.DEFAULT_BATCH_SIZE) {
+                            source.emit(new ArrayList<>(batch));
+                            batch.clear();
+                        }
+                    });
+            if (result == null) {
+                source.error(new IOException("Failed to load CSV: " + fileName));
+                return;
+            }
+            source.emit(batch);
+            source.complete();
+        }));
+        return source;
+    }
+
+    /** The time of the asset's first load, persisted so row timestamps stay stable. */
+    private static long baseTimestamp(Context context, String fileName) {
+        SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        String key = KEY_BASE_PREFIX + fileName;
+        long base = prefs.getLong(key, -1L);
+        if (base < 0) {
+            base = System.currentTimeMillis();
+            prefs.edit().putLong(key, base).apply();
+        }
+        return base;
     }
 }
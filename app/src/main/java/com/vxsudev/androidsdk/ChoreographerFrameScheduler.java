@@ -0,0 +1,20 @@
+package com.vxsudev.androidsdk;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.view.Choreographer;
+
+/**
+ * Runs each scheduled task at the next display frame on the main thread, so work posted
+ * from background threads lands at most once per vsync.
+ */
+public class ChoreographerFrameScheduler implements RealtimeDeltaEngine.FrameScheduler {
+
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    @Override
+    public void scheduleFrame(Runnable frame) {
+        // Choreographer is per-looper: reach the main thread's instance from the main thread
+        mainHandler.post(() -> Choreographer.getInstance().postFrameCallback(frameTimeNanos -> frame.run()));
+    }
+}
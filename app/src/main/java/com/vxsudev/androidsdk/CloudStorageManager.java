@@ -1,7 +1,7 @@
 package com.vxsudev.androidsdk;
 
 import android.content.Context;
-import android.net.Uri;
+import android.content.SharedPreferences;
 import android.util.Log;
 
 import androidx.annotation.NonNull;
@@ -9,13 +9,22 @@ import androidx.annotation.NonNull;
 import com.google.firebase.FirebaseApp;
 import com.google.firebase.FirebaseOptions;
 import com.google.firebase.storage.FirebaseStorage;
+import com.google.firebase.storage.StorageMetadata;
 import com.google.firebase.storage.StorageReference;
 import com.google.firebase.storage.UploadTask;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.IOException;
 import java.io.InputStream;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * CloudStorageManager
@@ -23,14 +32,36 @@ import java.util.Map;
  * Handles uploads and downloads of files (CSV, logs, JSON, etc.)
  * to Firebase Storage, matching the current Firestore environment.
  *
+ * Readings are archived as {@link ColumnarBlob}s: uploadReadings encodes on a writer
+ * thread straight into a pipe that putStream reads, so no temp file is staged.
+ *
+ * Files go through a {@link ResumableUploader}: several at once, retried with backoff,
+ * resumed from the last session after a dropped connection or a restart (sessions persist
+ * in SharedPreferences when a Context is given). {@link #upload} leaves fetching the
+ * download URL to the caller.
+ *
  * Works seamlessly with FirebaseAppLoader + FirestoreEnv.
  */
 public class CloudStorageManager {
 
     private static final String TAG = "CloudStorageManager";
+    private static final int PIPE_BYTES = 64 * 1024;
+    private static final long MAX_BLOB_DOWNLOAD_BYTES = 64L * 1024 * 1024;
+    private static final String PREFS_NAME = "cloud_storage_uploads";
+    private static final String KEY_SESSION_PREFIX = "session_";
+
+    // Encodes blobs into upload pipes; one thread per concurrent upload
+    private static final ExecutorService BLOB_WRITER = Executors.newCachedThreadPool(r -> {
+        Thread t = new Thread(r, "BlobWriter");
+        t.setDaemon(true);
+        return t;
+    });
 
     private FirebaseStorage storage;
     private StorageReference storageRoot;
+    private final Context appContext; // null: upload sessions are kept in memory only
+    private ResumableUploader uploader;
+    private int maxConcurrentUploads = ResumableUploader.DEFAULT_MAX_CONCURRENT;
 
     // Cache for re-use between uploads
     private static final Map<String, FirebaseStorage> cachedStorages = new HashMap<>();
@@ -39,6 +70,14 @@ public class CloudStorageManager {
      * Initialize with default Firebase Storage (google-services.json)
      */
     public CloudStorageManager() {
+        this((Context) null);
+    }
+
+    /**
+     * Default Firebase Storage, persisting upload sessions in the app's private storage
+     */
+    public CloudStorageManager(Context context) {
+        appContext = context == null ? null : context.getApplicationContext();
         storage = FirebaseStorage.getInstance();
         storageRoot = storage.getReference();
         Log.d(TAG, "✅ Initialized default Firebase Storage");
@@ -48,6 +87,7 @@ public class CloudStorageManager {
      * Initialize with specific Firebase config (from assets/)
      */
     public CloudStorageManager(Context context, String configFile) {
+        appContext = context.getApplicationContext();
         try {
             if (cachedStorages.containsKey(configFile)) {
                 storage = cachedStorages.get(configFile);
@@ -74,7 +114,13 @@ public class CloudStorageManager {
         }
     }
 
-    // 🔹 Upload local file (e.g., CSV or snapshot)
+    // 🔹 Upload local file (e.g., CSV or snapshot), resumable; no download URL round trip
+    public ResumableUploader.Upload upload(File file, String remotePath, String contentType,
+                                           ResumableUploader.Callback callback) {
+        return uploader().enqueue(file, remotePath, contentType, callback);
+    }
+
+    // 🔹 Upload local file and report its download URL
     public void uploadFile(File file, String remotePath, UploadCallback callback) {
         if (file == null || !file.exists()) {
             if (callback != null) callback.onFailure(new Exception("File not found"));
@@ -82,34 +128,96 @@ public class CloudStorageManager {
             return;
         }
 
-        Uri uri = Uri.fromFile(file);
-        StorageReference ref = storageRoot.child(remotePath);
+        upload(file, remotePath, null, new ResumableUploader.Callback() {
+            @Override
+            public void onSuccess(ResumableUploader.Upload upload) {
+                // This callback promises a URL; callers of upload() fetch one only when needed
+                upload.getDownloadUrl(new StorageClient.UrlCallback() {
+                    @Override
+                    public void onSuccess(String downloadUrl) {
+                        Log.d(TAG, "✅ Uploaded: " + remotePath + " → " + downloadUrl);
+                        if (callback != null) callback.onSuccess(downloadUrl);
+                    }
 
-        UploadTask uploadTask = ref.putFile(uri);
-        uploadTask
-                .addOnSuccessListener(taskSnapshot -> {
-                    ref.getDownloadUrl().addOnSuccessListener(downloadUri -> {
-                        Log.d(TAG, "✅ Uploaded: " + remotePath + " → " + downloadUri);
-                        if (callback != null) callback.onSuccess(downloadUri.toString());
-                    });
-                })
-                .addOnFailureListener(e -> {
-                    Log.e(TAG, "❌ Upload failed", e);
-                    if (callback != null) callback.onFailure(e);
+                    @Override
+                    public void onFailure(Exception e) {
+                        Log.e(TAG, "❌ Failed to fetch download URL", e);
+                        if (callback != null) callback.onFailure(e);
+                    }
                 });
+            }
+
+            @Override
+            public void onFailure(ResumableUploader.Upload upload, Exception e) {
+                Log.e(TAG, "❌ Upload failed after " + upload.getAttempts() + " attempt(s)", e);
+                if (callback != null) callback.onFailure(e);
+            }
+        });
+    }
+
+    /** How many file uploads run at once; the rest wait their turn. */
+    public synchronized void setMaxConcurrentUploads(int maxConcurrent) {
+        maxConcurrentUploads = Math.max(maxConcurrent, 1);
+        if (uploader != null) uploader.setMaxConcurrent(maxConcurrentUploads);
+    }
+
+    /** Cancels running file uploads, keeping their sessions for a later resume. */
+    public synchronized void shutdownUploads() {
+        if (uploader != null) uploader.close();
+        uploader = null;
+    }
+
+    private synchronized ResumableUploader uploader() {
+        if (uploader == null) {
+            ResumableUploader.SessionStore sessions = appContext == null
+                    ? ResumableUploader.inMemorySessions() : prefsSessions(appContext);
+            uploader = new ResumableUploader(new FirebaseStorageClient(storageRoot), sessions,
+                    maxConcurrentUploads, ResumableUploader.DEFAULT_MAX_ATTEMPTS,
+                    ResumableUploader.DEFAULT_BASE_DELAY_MILLIS, ResumableUploader.DEFAULT_MAX_DELAY_MILLIS);
+        }
+        return uploader;
+    }
+
+    private static ResumableUploader.SessionStore prefsSessions(Context context) {
+        SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        return new ResumableUploader.SessionStore() {
+            @Override
+            public String getSession(String key) {
+                return prefs.getString(KEY_SESSION_PREFIX + key, null);
+            }
+
+            @Override
+            public void putSession(String key, String sessionUri) {
+                prefs.edit().putString(KEY_SESSION_PREFIX + key, sessionUri).apply();
+            }
+
+            @Override
+            public void removeSession(String key) {
+                prefs.edit().remove(KEY_SESSION_PREFIX + key).apply();
+            }
+        };
     }
 
     // 🔹 Upload InputStream directly (for in-memory data)
     public void uploadStream(InputStream stream, String remotePath, UploadCallback callback) {
+        uploadStream(stream, remotePath, null, callback);
+    }
+
+    // 🔹 Upload InputStream with a content type (null leaves it to Storage)
+    public void uploadStream(InputStream stream, String remotePath, String contentType, UploadCallback callback) {
         try {
             StorageReference ref = storageRoot.child(remotePath);
-            UploadTask uploadTask = ref.putStream(stream);
-            uploadTask
+            putStream(ref, stream, contentType)
                     .addOnSuccessListener(taskSnapshot -> {
-                        ref.getDownloadUrl().addOnSuccessListener(downloadUri -> {
-                            Log.d(TAG, "✅ Stream uploaded → " + downloadUri);
-                            if (callback != null) callback.onSuccess(downloadUri.toString());
-                        });
+                        ref.getDownloadUrl()
+                                .addOnSuccessListener(downloadUri -> {
+                                    Log.d(TAG, "✅ Stream uploaded → " + downloadUri);
+                                    if (callback != null) callback.onSuccess(downloadUri.toString());
+                                })
+                                .addOnFailureListener(e -> {
+                                    Log.e(TAG, "❌ Stream uploaded but its URL fetch failed", e);
+                                    if (callback != null) callback.onFailure(e);
+                                });
                     })
                     .addOnFailureListener(e -> {
                         Log.e(TAG, "❌ Stream upload failed", e);
@@ -121,6 +229,67 @@ public class CloudStorageManager {
         }
     }
 
+    private static UploadTask putStream(StorageReference ref, InputStream stream, String contentType) {
+        return contentType == null ? ref.putStream(stream)
+                : ref.putStream(stream, new StorageMetadata.Builder().setContentType(contentType).build());
+    }
+
+    // 🔹 Upload readings as a compressed columnar blob, encoded while it uploads
+    public void uploadReadings(SmartWatchSeries series, String source, String remotePath, UploadCallback callback) {
+        InputStream blob;
+        try {
+            // A failed encode makes the stream throw, so the upload fails instead of finishing short
+            blob = ColumnarBlob.encodeAsync(series, source, BLOB_WRITER, PIPE_BYTES);
+        } catch (IOException e) {
+            if (callback != null) callback.onFailure(e);
+            return;
+        }
+        uploadStream(blob, remotePath, ColumnarBlob.CONTENT_TYPE, new UploadCallback() {
+            @Override
+            public void onSuccess(String downloadUrl) {
+                if (callback != null) callback.onSuccess(downloadUrl);
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                closeQuietly(blob); // unblocks the writer if it is waiting on a full pipe
+                if (callback != null) callback.onFailure(e);
+            }
+        });
+    }
+
+    /** As above for readings of one source; a mixed list fails, see {@link #asSink}. */
+    public void uploadReadings(List<SmartWatchData> readings, String remotePath, UploadCallback callback) {
+        Map<String, List<SmartWatchData>> groups = ColumnarBlob.bySource(readings);
+        if (groups.size() > 1) {
+            // One blob keeps one source; merging them would lose provenance
+            if (callback != null) callback.onFailure(new IllegalArgumentException(
+                    "Readings from " + groups.size() + " sources; upload one blob per source"));
+            return;
+        }
+        String source = readings.isEmpty() ? null : readings.get(0).getSource();
+        uploadReadings(SmartWatchSeries.fromList(readings), source, remotePath, callback);
+    }
+
+    // 🔹 Download a readings blob and decode the given time range
+    public void downloadReadings(String remotePath, long fromMillis, long toMillis, ReadingsCallback callback) {
+        storageRoot.child(remotePath).getBytes(MAX_BLOB_DOWNLOAD_BYTES)
+                .addOnSuccessListener(bytes -> {
+                    try (ColumnarBlob.Reader reader = ColumnarBlob.Reader.open(bytes)) {
+                        SmartWatchSeries range = reader.range(fromMillis, toMillis);
+                        Log.d(TAG, "✅ Downloaded " + range.size() + " readings from " + remotePath);
+                        callback.onSuccess(range, reader.getSource());
+                    } catch (IOException e) {
+                        Log.e(TAG, "❌ Unreadable blob: " + remotePath, e);
+                        callback.onFailure(e);
+                    }
+                })
+                .addOnFailureListener(e -> {
+                    Log.e(TAG, "❌ Blob download failed", e);
+                    callback.onFailure(e);
+                });
+    }
+
     // 🔹 Download URL for an existing file
     public void getDownloadUrl(String remotePath, DownloadCallback callback) {
         StorageReference ref = storageRoot.child(remotePath);
@@ -135,6 +304,44 @@ public class CloudStorageManager {
                 });
     }
 
+    // 🔹 Pipeline sink: each batch becomes one readings blob per source under remotePrefix
+    public ReadingPipeline.Sink asSink(String remotePrefix) {
+        return batch -> {
+            for (Map.Entry<String, List<SmartWatchData>> group : ColumnarBlob.bySource(batch).entrySet()) {
+                putBlob(remotePrefix, group.getKey(), group.getValue());
+            }
+        };
+    }
+
+    /** Uploads readings of one source and waits for the upload to finish. */
+    private void putBlob(String remotePrefix, String source, List<SmartWatchData> readings) throws Exception {
+        ByteArrayOutputStream blob = new ByteArrayOutputStream();
+        try (ColumnarBlob.Writer writer = new ColumnarBlob.Writer(blob, source)) {
+            writer.addAll(readings);
+        }
+        // Time ranges of separate batches can repeat, so the suffix keeps names unique
+        String name = remotePrefix + "/" + readings.get(0).getTimestamp() + "-"
+                + readings.get(readings.size() - 1).getTimestamp() + "-" + UUID.randomUUID()
+                + ColumnarBlob.FILE_SUFFIX;
+
+        // The batch is stored once the upload succeeds; nobody needs its URL
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        putStream(storageRoot.child(name), new ByteArrayInputStream(blob.toByteArray()), ColumnarBlob.CONTENT_TYPE)
+                .addOnSuccessListener(taskSnapshot -> done.complete(null))
+                .addOnFailureListener(e -> {
+                    Log.e(TAG, "❌ Batch upload failed: " + name, e);
+                    done.completeExceptionally(e);
+                });
+        done.get();
+    }
+
+    private static void closeQuietly(InputStream in) {
+        try {
+            in.close();
+        } catch (IOException ignored) {
+        }
+    }
+
     // --------------------------------------------------------
     // Callback interfaces
     // --------------------------------------------------------
@@ -147,4 +354,9 @@ public class CloudStorageManager {
         void onSuccess(String downloadUrl);
         void onFailure(Exception e);
     }
+
+    public interface ReadingsCallback {
+        void onSuccess(SmartWatchSeries readings, String source);
+        void onFailure(Exception e);
+    }
 }
@@ -0,0 +1,572 @@
+package com.vxsudev.androidsdk;
+
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.zip.CRC32;
+
+/**
+ * Versioned binary archive of a range of readings, for uploads and downloads: compressed
+ * {@link GorillaCodec} column blocks plus a block time index at the end.
+ *
+ * Layout (big-endian):
+ * <pre>
+ * [int MAGIC][byte VERSION][byte codec][int blockRows][short sourceLength][source UTF-8]
+ * GorillaCodec blocks (64-byte header with row count, time/value ranges and two CRC32s)
+ * [int -1]                                      end of blocks
+ * [int count] count x [long offset][int rows][long minTs][long maxTs]   block index
+ * [long indexOffset][int crc32(index)][int MAGIC]                      trailer
+ * </pre>
+ * The writer only appends, so it can stream straight into a pipe or socket. A reader with
+ * random access ({@link Reader}) seeks to the trailer and decodes only the blocks whose
+ * time range overlaps the request; a plain InputStream ({@link #read}) is read front to
+ * back, skipping blocks on their headers.
+ *
+ * A blob carries one source in its header, so mixed batches are split with
+ * {@link #bySource} and written as one blob per source.
+ *
+ * Android-free.
+ */
+public final class ColumnarBlob {
+
+    public static final int MAGIC = 0x53574342; // "SWCB"
+    public static final byte VERSION = 2;
+    public static final byte CODEC_GORILLA = 1;
+    public static final String CONTENT_TYPE = "application/vnd.vxsudev.readings+swcb";
+    public static final String FILE_SUFFIX = ".swcb";
+
+    private static final int END_OF_BLOCKS = -1;
+    private static final int INDEX_ENTRY_BYTES = 28;
+    private static final int TRAILER_BYTES = 16;
+    private static final int MAX_SOURCE_BYTES = 1024;
+
+    private ColumnarBlob() {}
+
+    // ---------------- Writer ----------------
+
+    /**
+     * Appends readings and writes a block every blockRows rows; close() writes the index
+     * and closes the stream, which is what ends an upload reading from a pipe.
+     */
+    public static final class Writer implements Closeable {
+        private final CountingOutputStream out;
+        private final int blockRows;
+        private final GorillaCodec.BlockEncoder block = new GorillaCodec.BlockEncoder();
+        private final ByteArrayBuilder index = new ByteArrayBuilder();
+        private int blocks;
+        private long rows;
+        private boolean closed;
+
+        public Writer(OutputStream out, String source) throws IOException {
+            this(out, source, GorillaCodec.DEFAULT_BLOCK_ROWS);
+        }
+
+        public Writer(OutputStream out, String source, int blockRows) throws IOException {
+            this.out = new CountingOutputStream(out);
+            this.blockRows = Math.max(blockRows, 1);
+            byte[] src = source != null ? source.getBytes(StandardCharsets.UTF_8) : new byte[0];
+            if (src.length > MAX_SOURCE_BYTES) throw new IOException("Source name too long");
+            ByteBuffer header = ByteBuffer.allocate(12 + src.length)
+                    .putInt(MAGIC).put(VERSION).put(CODEC_GORILLA).putInt(this.blockRows)
+                    .putShort((short) src.length).put(src);
+            this.out.write(header.array());
+        }
+
+        public void add(long timestamp, int heartRate, float spO2, float temperature, int steps) throws IOException {
+            block.add(timestamp, heartRate, spO2, temperature, steps);
+            rows++;
+            if (block.rows() == blockRows) flushBlock();
+        }
+
+        public void add(SmartWatchData d) throws IOException {
+            add(d.getTimestamp(), d.getHeartRate(), d.getSpO2(), d.getTemperature(), d.getSteps());
+        }
+
+        public void addAll(List<SmartWatchData> list) throws IOException {
+            for (SmartWatchData d : list) add(d);
+        }
+
+        public void addAll(SmartWatchSeries series) throws IOException {
+            for (int i = 0; i < series.size(); i++) {
+                add(series.getTimestamp(i), series.getHeartRate(i), series.getSpO2(i),
+                        series.getTemperature(i), series.getSteps(i));
+            }
+        }
+
+        public long getRows() {
+            return rows;
+        }
+
+        public long getBytesWritten() {
+            return out.count;
+        }
+
+        private void flushBlock() throws IOException {
+            if (block.rows() == 0) return;
+            byte[] encoded = block.toBlock();
+            GorillaCodec.BlockHeader h = GorillaCodec.BlockHeader.parse(encoded, 0);
+            index.putLong(out.count).putInt(h.rows).putLong(h.minTimestamp).putLong(h.maxTimestamp);
+            out.write(encoded);
+            block.reset();
+            blocks++;
+        }
+
+        /** Writes the last block, the index and the trailer, then closes the stream. */
+        @Override
+        public void close() throws IOException {
+            if (closed) return;
+            closed = true;
+            try {
+                flushBlock();
+                out.write(ByteBuffer.allocate(4).putInt(END_OF_BLOCKS).array());
+                long indexOffset = out.count;
+                byte[] entries = index.toByteArray();
+                byte[] indexBytes = ByteBuffer.allocate(4 + entries.length).putInt(blocks).put(entries).array();
+                CRC32 crc = new CRC32();
+                crc.update(indexBytes, 0, indexBytes.length);
+                out.write(indexBytes);
+                out.write(ByteBuffer.allocate(TRAILER_BYTES)
+                        .putLong(indexOffset).putInt((int) crc.getValue()).putInt(MAGIC).array());
+                out.flush();
+            } finally {
+                out.close();
+            }
+        }
+
+        /** Closes the stream without the index and trailer, so readers reject what was written. */
+        public void abort() {
+            if (closed) return;
+            closed = true;
+            try {
+                out.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    // ---------------- Sources ----------------
+
+    /**
+     * Readings grouped by source (null included), groups in order of first appearance
+     * and readings in their original order.
+     */
+    public static Map<String, List<SmartWatchData>> bySource(List<SmartWatchData> readings) {
+        Map<String, List<SmartWatchData>> groups = new LinkedHashMap<>();
+        for (SmartWatchData d : readings) {
+            List<SmartWatchData> group = groups.get(d.getSource());
+            if (group == null) {
+                group = new ArrayList<>();
+                groups.put(d.getSource(), group);
+            }
+            group.add(d);
+        }
+        return groups;
+    }
+
+    // ---------------- Piped encoding ----------------
+
+    /**
+     * Encodes series on executor into a pipe and returns the read end, for putStream-style
+     * uploads with no temp file. If encoding fails the stream throws that error rather than
+     * ending, so a short blob is never uploaded as a whole one. Closing the stream early
+     * makes the writer fail and stop.
+     */
+    public static InputStream encodeAsync(SmartWatchSeries series, String source, Executor executor,
+                                          int pipeBytes) throws IOException {
+        PipedInputStream pipeIn = new PipedInputStream(pipeBytes);
+        PipedOutputStream pipeOut = new PipedOutputStream(pipeIn);
+        EncodedStream stream = new EncodedStream(pipeIn);
+        try {
+            executor.execute(() -> {
+                Writer writer = null;
+                try {
+                    writer = new Writer(pipeOut, source);
+                    writer.addAll(series);
+                    writer.close();
+                } catch (Throwable t) {
+                    // Fail the read end before the pipe ends, so the reader sees an error, not EOF
+                    stream.fail(t);
+                    if (writer != null) writer.abort();
+                    else closeQuietly(pipeOut);
+                    if (t instanceof Error) throw (Error) t;
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            closeQuietly(pipeOut);
+            closeQuietly(pipeIn);
+            throw new IOException("Blob encoder rejected", e);
+        }
+        return stream;
+    }
+
+    /** Read end of an encodeAsync pipe; rethrows the writer's failure. */
+    private static final class EncodedStream extends FilterInputStream {
+        private volatile IOException failure;
+
+        EncodedStream(InputStream in) {
+            super(in);
+        }
+
+        void fail(Throwable t) {
+            failure = t instanceof IOException ? (IOException) t : new IOException("Blob encoding failed", t);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            checkFailure();
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            checkFailure();
+            return n;
+        }
+
+        private void checkFailure() throws IOException {
+            IOException f = failure;
+            if (f != null) throw f;
+        }
+    }
+
+    private static void closeQuietly(Closeable c) {
+        try {
+            c.close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    // ---------------- Random-access reader ----------------
+
+    /** Reads a complete blob from a file or byte array through its block index. */
+    public static final class Reader implements Closeable {
+        private final RandomAccess data;
+        private final String source;
+        private final long[] offsets;
+        private final int[] rows;
+        private final long[] minTs;
+        private final long[] maxTs;
+        private final long totalRows;
+
+        private Reader(RandomAccess data) throws IOException {
+            this.data = data;
+            long size = data.size();
+            if (size < 12 + 4 + 4 + TRAILER_BYTES) throw new IOException("Not a readings blob");
+
+            ByteBuffer head = ByteBuffer.wrap(data.read(0, 12));
+            checkHeader(head);
+            int sourceLength = head.getShort() & 0xFFFF;
+            this.source = sourceLength == 0 ? null
+                    : new String(data.read(12, sourceLength), StandardCharsets.UTF_8);
+
+            ByteBuffer trailer = ByteBuffer.wrap(data.read(size - TRAILER_BYTES, TRAILER_BYTES));
+            long indexOffset = trailer.getLong();
+            int crc = trailer.getInt();
+            if (trailer.getInt() != MAGIC) throw new IOException("Truncated blob (no trailer)");
+            long indexBytes = size - TRAILER_BYTES - indexOffset;
+            if (indexOffset < 12 || indexBytes < 4 || indexBytes > Integer.MAX_VALUE) throw new IOException("Corrupt blob index");
+            byte[] index = data.read(indexOffset, (int) indexBytes);
+            CRC32 check = new CRC32();
+            check.update(index, 0, index.length);
+            if ((int) check.getValue() != crc) throw new IOException("Blob index checksum mismatch");
+
+            ByteBuffer b = ByteBuffer.wrap(index);
+            int count = b.getInt();
+            if (count < 0 || (long) count * INDEX_ENTRY_BYTES != indexBytes - 4) throw new IOException("Corrupt blob index");
+            offsets = new long[count];
+            rows = new int[count];
+            minTs = new long[count];
+            maxTs = new long[count];
+            long total = 0;
+            for (int i = 0; i < count; i++) {
+                offsets[i] = b.getLong();
+                rows[i] = b.getInt();
+                minTs[i] = b.getLong();
+                maxTs[i] = b.getLong();
+                total += rows[i];
+            }
+            this.totalRows = total;
+        }
+
+        public static Reader open(File file) throws IOException {
+            return new Reader(new FileAccess(file));
+        }
+
+        public static Reader open(byte[] blob) throws IOException {
+            return new Reader(new ArrayAccess(blob));
+        }
+
+        public String getSource() {
+            return source;
+        }
+
+        public long getRows() {
+            return totalRows;
+        }
+
+        public int getBlockCount() {
+            return offsets.length;
+        }
+
+        /** Earliest timestamp in the blob, or Long.MAX_VALUE when empty. */
+        public long getMinTimestamp() {
+            long min = Long.MAX_VALUE;
+            for (long t : minTs) min = Math.min(min, t);
+            return min;
+        }
+
+        /** Latest timestamp in the blob, or Long.MIN_VALUE when empty. */
+        public long getMaxTimestamp() {
+            long max = Long.MIN_VALUE;
+            for (long t : maxTs) max = Math.max(max, t);
+            return max;
+        }
+
+        /** Rows with fromInclusive <= timestamp < toExclusive; other blocks are never read. */
+        public SmartWatchSeries range(long fromInclusive, long toExclusive) throws IOException {
+            SmartWatchSeries out = new SmartWatchSeries();
+            for (int i = 0; i < offsets.length; i++) {
+                if (maxTs[i] >= fromInclusive && minTs[i] < toExclusive) {
+                    GorillaCodec.decodeBlock(readBlock(i), out, fromInclusive, toExclusive);
+                }
+            }
+            return out;
+        }
+
+        public SmartWatchSeries readAll() throws IOException {
+            SmartWatchSeries out = new SmartWatchSeries((int) Math.min(Math.max(totalRows, 1), Integer.MAX_VALUE - 8));
+            for (int i = 0; i < offsets.length; i++) GorillaCodec.decodeBlock(readBlock(i), out);
+            return out;
+        }
+
+        /** Round trip to objects, tagged with the blob's source. */
+        public List<SmartWatchData> toList() throws IOException {
+            SmartWatchSeries series = readAll();
+            List<SmartWatchData> out = new ArrayList<>(series.size());
+            for (int i = 0; i < series.size(); i++) {
+                SmartWatchData d = series.get(i);
+                d.setSource(source);
+                out.add(d);
+            }
+            return out;
+        }
+
+        private byte[] readBlock(int i) throws IOException {
+            byte[] head = data.read(offsets[i], GorillaCodec.BLOCK_HEADER_BYTES);
+            GorillaCodec.BlockHeader h = GorillaCodec.BlockHeader.parse(head, 0);
+            if (h.rows != rows[i]) throw new IOException("Block " + i + " does not match the index");
+            byte[] block = new byte[GorillaCodec.BLOCK_HEADER_BYTES + h.payloadBytes];
+            System.arraycopy(head, 0, block, 0, head.length);
+            data.readFully(offsets[i] + head.length, block, head.length, h.payloadBytes);
+            return block;
+        }
+
+        @Override
+        public void close() throws IOException {
+            data.close();
+        }
+    }
+
+    // ---------------- Streaming reader ----------------
+
+    /** Every row of a blob read front to back, e.g. straight from a download stream. */
+    public static SmartWatchSeries read(InputStream in) throws IOException {
+        return read(in, Long.MIN_VALUE, Long.MAX_VALUE, false);
+    }
+
+    /** Rows in [fromInclusive, toExclusive), skipping blocks outside it without decoding them. */
+    public static SmartWatchSeries read(InputStream in, long fromInclusive, long toExclusive) throws IOException {
+        return read(in, fromInclusive, toExclusive, true);
+    }
+
+    private static SmartWatchSeries read(InputStream stream, long fromInclusive, long toExclusive, boolean filter)
+            throws IOException {
+        DataInputStream in = new DataInputStream(stream);
+        byte[] head = new byte[12];
+        in.readFully(head);
+        ByteBuffer b = ByteBuffer.wrap(head);
+        checkHeader(b);
+        in.readFully(new byte[b.getShort() & 0xFFFF]); // source
+
+        SmartWatchSeries out = new SmartWatchSeries();
+        byte[] block = new byte[GorillaCodec.BLOCK_HEADER_BYTES];
+        while (true) {
+            int rows = in.readInt();
+            if (rows == END_OF_BLOCKS) return out; // the index adds nothing when reading it all
+            ByteBuffer.wrap(block, 0, 4).putInt(rows);
+            in.readFully(block, 4, GorillaCodec.BLOCK_HEADER_BYTES - 4);
+            GorillaCodec.BlockHeader h = GorillaCodec.BlockHeader.parse(block, 0);
+            if (filter && !h.overlaps(fromInclusive, toExclusive)) {
+                skipFully(in, h.payloadBytes);
+                continue;
+            }
+            if (block.length < GorillaCodec.BLOCK_HEADER_BYTES + h.payloadBytes) {
+                byte[] grown = new byte[GorillaCodec.BLOCK_HEADER_BYTES + h.payloadBytes];
+                System.arraycopy(block, 0, grown, 0, GorillaCodec.BLOCK_HEADER_BYTES);
+                block = grown;
+            }
+            in.readFully(block, GorillaCodec.BLOCK_HEADER_BYTES, h.payloadBytes);
+            if (filter) GorillaCodec.decodeBlock(block, out, fromInclusive, toExclusive);
+            else GorillaCodec.decodeBlock(block, out);
+        }
+    }
+
+    private static void checkHeader(ByteBuffer b) throws IOException {
+        if (b.getInt() != MAGIC) throw new IOException("Not a readings blob");
+        byte version = b.get();
+        if (version != VERSION) throw new IOException("Unsupported blob version " + version);
+        byte codec = b.get();
+        if (codec != CODEC_GORILLA) throw new IOException("Unsupported blob codec " + codec);
+        b.getInt(); // blockRows: informational
+    }
+
+    private static void skipFully(DataInputStream in, long n) throws IOException {
+        while (n > 0) {
+            long skipped = in.skip(n);
+            if (skipped <= 0) {
+                if (in.read() < 0) throw new EOFException("Truncated blob");
+                skipped = 1;
+            }
+            n -= skipped;
+        }
+    }
+
+    // ---------------- Internals ----------------
+
+    private interface RandomAccess extends Closeable {
+        long size() throws IOException;
+
+        void readFully(long position, byte[] into, int offset, int length) throws IOException;
+
+        default byte[] read(long position, int length) throws IOException {
+            byte[] out = new byte[length];
+            readFully(position, out, 0, length);
+            return out;
+        }
+    }
+
+    private static final class ArrayAccess implements RandomAccess {
+        private final byte[] blob;
+
+        ArrayAccess(byte[] blob) {
+            this.blob = blob;
+        }
+
+        @Override
+        public long size() {
+            return blob.length;
+        }
+
+        @Override
+        public void readFully(long position, byte[] into, int offset, int length) throws IOException {
+            if (position < 0 || position + length > blob.length) throw new EOFException("Truncated blob");
+            System.arraycopy(blob, (int) position, into, offset, length);
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    private static final class FileAccess implements RandomAccess {
+        private final RandomAccessFile file;
+        private final FileChannel channel;
+
+        FileAccess(File file) throws IOException {
+            this.file = new RandomAccessFile(file, "r");
+            this.channel = this.file.getChannel();
+        }
+
+        @Override
+        public long size() throws IOException {
+            return channel.size();
+        }
+
+        @Override
+        public void readFully(long position, byte[] into, int offset, int length) throws IOException {
+            ByteBuffer buf = ByteBuffer.wrap(into, offset, length);
+            long pos = position;
+            while (buf.hasRemaining()) {
+                int n = channel.read(buf, pos);
+                if (n < 0) throw new EOFException("Truncated blob");
+                pos += n;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            file.close();
+        }
+    }
+
+    private static final class CountingOutputStream extends FilterOutputStream {
+        long count;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+
+    /** Growable big-endian buffer for the index. */
+    private static final class ByteArrayBuilder {
+        private ByteBuffer buf = ByteBuffer.allocate(INDEX_ENTRY_BYTES * 16);
+
+        ByteArrayBuilder putLong(long v) {
+            ensure(8);
+            buf.putLong(v);
+            return this;
+        }
+
+        ByteArrayBuilder putInt(int v) {
+            ensure(4);
+            buf.putInt(v);
+            return this;
+        }
+
+        byte[] toByteArray() {
+            byte[] out = new byte[buf.position()];
+            System.arraycopy(buf.array(), 0, out, 0, out.length);
+            return out;
+        }
+
+        private void ensure(int n) {
+            if (buf.remaining() >= n) return;
+            ByteBuffer grown = ByteBuffer.allocate(Math.max(buf.capacity() * 2, buf.position() + n));
+            buf.flip();
+            grown.put(buf);
+            buf = grown;
+        }
+    }
+}
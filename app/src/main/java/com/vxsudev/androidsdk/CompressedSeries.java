@@ -0,0 +1,163 @@
+package com.vxsudev.androidsdk;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Resident, append-only store of readings kept compressed with {@link GorillaCodec}:
+ * millions of rows at a few bytes each instead of one {@link SmartWatchData} object per
+ * row. Sealed blocks are immutable byte arrays; the open block is encoded as rows arrive,
+ * so nothing is ever held uncompressed.
+ *
+ * Range reads decode only blocks whose header time range overlaps the request. Like
+ * {@link SmartWatchSeries} it stores no source, and rows are kept in append order (blocks
+ * need not be sorted). Android-free; not thread-safe.
+ */
+public class CompressedSeries {
+
+    private final int blockRows;
+    private final List<byte[]> blocks = new ArrayList<>();
+    private final List<GorillaCodec.BlockHeader> headers = new ArrayList<>();
+    private final GorillaCodec.BlockEncoder open = new GorillaCodec.BlockEncoder();
+    private long sealedBytes;
+    private long size;
+
+    public CompressedSeries() {
+        this(GorillaCodec.DEFAULT_BLOCK_ROWS);
+    }
+
+    public CompressedSeries(int blockRows) {
+        this.blockRows = Math.max(blockRows, 1);
+    }
+
+    public static CompressedSeries fromList(List<SmartWatchData> list) {
+        CompressedSeries out = new CompressedSeries();
+        for (SmartWatchData d : list) out.append(d);
+        return out;
+    }
+
+    public static CompressedSeries fromSeries(SmartWatchSeries series) {
+        CompressedSeries out = new CompressedSeries();
+        out.appendAll(series);
+        return out;
+    }
+
+    // ---------------- Append ----------------
+
+    /** Signature matches {@link CsvStreamParser.RowHandler} so {@code compressed::append} can be passed directly. */
+    public void append(long timestamp, int heartRate, float spO2, float temperature, int steps) {
+        open.add(timestamp, heartRate, spO2, temperature, steps);
+        size++;
+        if (open.rows() == blockRows) seal();
+    }
+
+    public void append(SmartWatchData d) {
+        append(d.getTimestamp(), d.getHeartRate(), d.getSpO2(), d.getTemperature(), d.getSteps());
+    }
+
+    public void appendAll(SmartWatchSeries series) {
+        for (int i = 0; i < series.size(); i++) {
+            append(series.getTimestamp(i), series.getHeartRate(i), series.getSpO2(i),
+                    series.getTemperature(i), series.getSteps(i));
+        }
+    }
+
+    private void seal() {
+        byte[] block = open.toBlock();
+        open.reset();
+        addSealed(block);
+    }
+
+    private void addSealed(byte[] block) {
+        try {
+            headers.add(GorillaCodec.BlockHeader.parse(block, 0));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // our own encoder's output
+        }
+        blocks.add(block);
+        sealedBytes += block.length;
+    }
+
+    // ---------------- Read ----------------
+
+    public long size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /** Bytes held for the encoded data, open block included. */
+    public long sizeBytes() {
+        return sealedBytes + (open.rows() > 0 ? open.sizeBytes() : 0);
+    }
+
+    public int blockCount() {
+        return blocks.size() + (open.rows() > 0 ? 1 : 0);
+    }
+
+    /** Rows with fromInclusive <= timestamp < toExclusive, in append order. */
+    public SmartWatchSeries range(long fromInclusive, long toExclusive) {
+        SmartWatchSeries out = new SmartWatchSeries();
+        try {
+            for (int i = 0; i < blocks.size(); i++) {
+                if (headers.get(i).overlaps(fromInclusive, toExclusive)) {
+                    GorillaCodec.decodeBlock(blocks.get(i), out, fromInclusive, toExclusive);
+                }
+            }
+            if (open.rows() > 0) GorillaCodec.decodeBlock(open.toBlock(), out, fromInclusive, toExclusive);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // in-memory blocks cannot be truncated
+        }
+        return out;
+    }
+
+    public SmartWatchSeries toSeries() {
+        SmartWatchSeries out = new SmartWatchSeries((int) Math.min(Math.max(size, 1), Integer.MAX_VALUE - 8));
+        try {
+            for (byte[] block : blocks) GorillaCodec.decodeBlock(block, out);
+            if (open.rows() > 0) GorillaCodec.decodeBlock(open.toBlock(), out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out;
+    }
+
+    /** Round trip to objects, each tagged with source (not stored in the blocks). */
+    public List<SmartWatchData> toList(String source) {
+        SmartWatchSeries series = toSeries();
+        List<SmartWatchData> out = new ArrayList<>(series.size());
+        for (int i = 0; i < series.size(); i++) {
+            SmartWatchData d = series.get(i);
+            d.setSource(source);
+            out.add(d);
+        }
+        return out;
+    }
+
+    // ---------------- Files ----------------
+
+    /** Writes a {@link GorillaCodec} stream and flushes it; the stream is not closed. */
+    public void writeTo(OutputStream out) throws IOException {
+        GorillaCodec.Encoder encoder = new GorillaCodec.Encoder(out, blockRows);
+        for (byte[] block : blocks) encoder.addBlock(block);
+        if (open.rows() > 0) encoder.addBlock(open.toBlock());
+        encoder.finish();
+    }
+
+    /** Reads a {@link GorillaCodec} stream, keeping its blocks compressed as they are. */
+    public static CompressedSeries readFrom(InputStream in) throws IOException {
+        CompressedSeries out = new CompressedSeries();
+        GorillaCodec.Decoder decoder = new GorillaCodec.Decoder(in);
+        for (byte[] block = decoder.nextBlock(); block != null; block = decoder.nextBlock()) {
+            out.addSealed(block);
+            out.size += out.headers.get(out.headers.size() - 1).rows;
+        }
+        return out;
+    }
+}
@@ -0,0 +1,121 @@
+package com.vxsudev.androidsdk;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Which CSV column holds which field, read from the header line.
+ *
+ * Header names are matched case-insensitively, ignoring spaces, underscores and other
+ * punctuation, against a few aliases per field (heartRate / heart_rate / hr / bpm, ...).
+ * Every field is optional and columns may come in any order; unknown columns are skipped.
+ * A missing metric reads as 0 ("not measured"). Without a timestamp column rows are
+ * stamped baseTimestamp + row index, as before.
+ *
+ * Files without a header, or whose header names no known field, use {@link #DEFAULT}:
+ * heartRate,spO2,temperature,steps by position.
+ */
+public final class CsvSchema {
+
+    public static final int IGNORED = -1;
+    public static final int TIMESTAMP = 0;
+    public static final int HEART_RATE = 1;
+    public static final int SPO2 = 2;
+    public static final int TEMPERATURE = 3;
+    public static final int STEPS = 4;
+
+    public static final CsvSchema DEFAULT = new CsvSchema(new int[]{HEART_RATE, SPO2, TEMPERATURE, STEPS});
+
+    private static final Map<String, Integer> ALIASES = new HashMap<>();
+
+    static {
+        alias(TIMESTAMP, "timestamp", "time", "ts", "datetime", "date", "epoch", "epochms", "timestampms", "timems");
+        alias(HEART_RATE, "heartrate", "hr", "bpm", "pulse", "heartratebpm");
+        alias(SPO2, "spo2", "oxygen", "oxygensaturation", "o2sat", "sao2");
+        alias(TEMPERATURE, "temperature", "temp", "bodytemperature", "skintemperature");
+        alias(STEPS, "steps", "step", "stepcount");
+    }
+
+    private final int[] roles; // field of each column, up to the last mapped one
+
+    private CsvSchema(int[] roles) {
+        this.roles = roles;
+    }
+
+    /** Field held by a column: one of the constants above, or {@link #IGNORED}. */
+    public int roleOf(int column) {
+        return column < roles.length ? roles[column] : IGNORED;
+    }
+
+    /** Columns a row must have: up to and including the last mapped one. */
+    public int width() {
+        return roles.length;
+    }
+
+    public boolean hasTimestamp() {
+        for (int role : roles) {
+            if (role == TIMESTAMP) return true;
+        }
+        return false;
+    }
+
+    // ---------------- Header ----------------
+
+    /** Maps header columns buf[from, to) to fields; falls back to {@link #DEFAULT}. */
+    public static CsvSchema fromHeader(byte[] buf, int from, int to) {
+        int[] roles = new int[16];
+        int columns = 0;
+        int lastMapped = -1;
+        boolean[] seen = new boolean[STEPS + 1];
+        StringBuilder name = new StringBuilder();
+
+        for (int i = from; i <= to; i++) {
+            if (i < to && buf[i] != ',') {
+                byte c = buf[i];
+                if (c >= 'A' && c <= 'Z') name.append((char) (c + ('a' - 'A')));
+                else if ((c >= 'a' && c <= 'z') || (c >= '0' && c <= '9')) name.append((char) c);
+                // Spaces, quotes, '_', '(', a BOM's bytes and other punctuation are dropped
+                continue;
+            }
+            Integer role = ALIASES.get(name.toString());
+            int r = role == null || seen[role] ? IGNORED : role; // first column of a field wins
+            if (r != IGNORED) {
+                seen[r] = true;
+                lastMapped = columns;
+            }
+            if (columns == roles.length) roles = Arrays.copyOf(roles, columns * 2);
+            roles[columns++] = r;
+            name.setLength(0);
+        }
+
+        boolean anyMetric = seen[HEART_RATE] || seen[SPO2] || seen[TEMPERATURE] || seen[STEPS];
+        return anyMetric ? new CsvSchema(Arrays.copyOf(roles, lastMapped + 1)) : DEFAULT;
+    }
+
+    /** True when the line starts with a letter (or a BOM), i.e. is a header rather than data. */
+    static boolean looksLikeHeader(byte[] buf, int from, int to) {
+        for (int i = from; i < to; i++) {
+            byte c = buf[i];
+            if (c == ' ' || c == '\t') continue;
+            // Letters, quotes, or a non-ASCII lead byte such as a UTF-8 BOM
+            return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || c == '"' || c < 0;
+        }
+        return false;
+    }
+
+    private static void alias(int role, String... names) {
+        for (String n : names) ALIASES.put(n, role);
+    }
+
+    @Override
+    public String toString() {
+        String[] names = {"timestamp", "heartRate", "spO2", "temperature", "steps"};
+        StringBuilder sb = new StringBuilder("CsvSchema{");
+        for (int i = 0; i < roles.length; i++) {
+            if (i > 0) sb.append(',');
+            sb.append(roles[i] == IGNORED ? "-" : names[roles[i]]);
+        }
+        return sb.append('}').toString();
+    }
+}
@@ -0,0 +1,381 @@
+package com.vxsudev.androidsdk;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Streaming, allocation-light CSV parser for smartwatch exports.
+ * Scans raw bytes straight into primitive fields (no per-token Strings, no trim())
+ * and emits every row through a {@link RowHandler} instead of materializing a list.
+ *
+ * A leading non-numeric line is the header and decides the column layout (see
+ * {@link CsvSchema}): columns in any order, extra ones skipped, missing metrics read as 0.
+ * A timestamp column (epoch millis or ISO-8601, see {@link TimestampParser}) gives each
+ * row its real time; without one each row is stamped baseTimestamp + row index (ms),
+ * which keeps file order intact through later merges. Without a header the layout is
+ * heartRate,spO2,temperature,steps.
+ *
+ * Instances reuse their read buffer and are not thread-safe.
+ */
+public class CsvStreamParser {
+
+    public static final int COLUMN_COUNT = 4;
+
+    // Reasons are constants so bad rows never allocate
+    public static final String ERR_MISSING_COLUMN = "missing column";
+    public static final String ERR_INVALID_NUMBER = "invalid number";
+    public static final String ERR_INVALID_TIMESTAMP = "invalid timestamp";
+
+    private static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    private static final double[] POW10 = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9,
+            1e10, 1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18
+    };
+
+    private byte[] buffer;
+    private final TimestampParser timestamps = new TimestampParser();
+    private CsvSchema schema;
+
+    // Cursor state of the field currently being scanned
+    private int pos;
+    private int lineEnd;
+    private boolean fieldError;
+
+    public CsvStreamParser() {
+        this(DEFAULT_BUFFER_SIZE);
+    }
+
+    public CsvStreamParser(int bufferSize) {
+        buffer = new byte[Math.max(bufferSize, 256)];
+    }
+
+    /**
+     * Parses the whole stream, emitting one callback per valid row. The stream is not closed.
+     *
+     * @param errors optional; receives the position of every rejected row
+     */
+    public Result parse(InputStream in, long baseTimestamp, RowHandler rows, ErrorHandler errors) throws IOException {
+        return parse(in, baseTimestamp, rows, errors, null);
+    }
+
+    /**
+     * As above with a known layout and no header detection, for a chunk cut from the middle
+     * of a file; a null schema detects the header as usual.
+     */
+    Result parse(InputStream in, long baseTimestamp, RowHandler rows, ErrorHandler errors,
+                 CsvSchema presetSchema) throws IOException {
+        Result result = new Result();
+        long lineNumber = 0;
+        boolean headerChecked = presetSchema != null;
+        schema = presetSchema != null ? presetSchema : CsvSchema.DEFAULT;
+
+        int start = 0;   // first unconsumed byte
+        int limit = 0;   // end of valid bytes in buffer
+        boolean eof = false;
+
+        while (true) {
+            // Locate the next line terminator in the buffered window
+            int nl = indexOf(buffer, (byte) '\n', start, limit);
+            if (nl < 0 && !eof) {
+                // Compact the partial line to the front and refill (growing for very long lines)
+                int pending = limit - start;
+                if (start > 0) {
+                    System.arraycopy(buffer, start, buffer, 0, pending);
+                } else if (pending == buffer.length) {
+                    byte[] grown = new byte[buffer.length * 2];
+                    System.arraycopy(buffer, 0, grown, 0, pending);
+                    buffer = grown;
+                }
+                start = 0;
+                limit = pending;
+                int n = in.read(buffer, limit, buffer.length - limit);
+                if (n < 0) eof = true;
+                else limit += n;
+                continue;
+            }
+
+            int end = nl < 0 ? limit : nl;
+            if (nl < 0 && start == end) break; // drained
+
+            lineNumber++;
+            if (end > start && buffer[end - 1] == '\r') end--;
+
+            if (!isBlank(buffer, start, end)) {
+                if (!headerChecked) {
+                    headerChecked = true;
+                    if (CsvSchema.looksLikeHeader(buffer, start, end)) {
+                        schema = CsvSchema.fromHeader(buffer, start, end);
+                        start = nl < 0 ? limit : nl + 1;
+                        continue;
+                    }
+                }
+                parseLine(start, end, lineNumber, baseTimestamp, rows, errors, result);
+            }
+
+            if (nl < 0) break;
+            start = nl + 1;
+        }
+
+        result.lines = lineNumber;
+        result.schema = schema;
+        return result;
+    }
+
+    // ---------------- Line & field scanning ----------------
+
+    private void parseLine(int start, int end, long lineNumber, long baseTimestamp,
+                           RowHandler rows, ErrorHandler errors, Result result) {
+        pos = start;
+        lineEnd = end;
+        fieldError = false;
+
+        long timestamp = baseTimestamp + result.rows;
+        int heartRate = 0;
+        float spO2 = 0f;
+        float temperature = 0f;
+        int steps = 0;
+
+        int width = schema.width();
+        for (int column = 0; column < width; column++) {
+            if (column > 0) {
+                if (pos >= lineEnd) {
+                    reject(lineNumber, column, ERR_MISSING_COLUMN, errors, result);
+                    return;
+                }
+                pos++; // skip ','
+            }
+            int role = schema.roleOf(column);
+            switch (role) {
+                case CsvSchema.TIMESTAMP: timestamp = parseTimestamp(); break;
+                case CsvSchema.HEART_RATE: heartRate = (int) parseLong(); break;
+                case CsvSchema.SPO2: spO2 = (float) parseDouble(); break;
+                case CsvSchema.TEMPERATURE: temperature = (float) parseDouble(); break;
+                case CsvSchema.STEPS: steps = (int) parseLong(); break;
+                default: skipField(); break;
+            }
+            if (fieldError || (pos < lineEnd && buffer[pos] != ',')) {
+                reject(lineNumber, column, role == CsvSchema.TIMESTAMP ? ERR_INVALID_TIMESTAMP : ERR_INVALID_NUMBER,
+                        errors, result);
+                return;
+            }
+        }
+        // Extra trailing columns are ignored, as before
+
+        rows.onRow(timestamp, heartRate, spO2, temperature, steps);
+        result.rows++;
+    }
+
+    /** Steps over an unmapped column, including a quoted one with commas inside. */
+    private void skipField() {
+        skipSpaces();
+        if (pos < lineEnd && buffer[pos] == '"') {
+            pos++;
+            while (pos < lineEnd && buffer[pos] != '"') pos++;
+            if (pos < lineEnd) pos++;
+        }
+        while (pos < lineEnd && buffer[pos] != ',') pos++;
+    }
+
+    private long parseTimestamp() {
+        skipSpaces();
+        int from = pos;
+        while (pos < lineEnd && buffer[pos] != ',') pos++;
+        int to = pos;
+        while (to > from && (buffer[to - 1] == ' ' || buffer[to - 1] == '\t')) to--;
+        if (to - from >= 2 && buffer[from] == '"' && buffer[to - 1] == '"') {
+            from++;
+            to--;
+        }
+        long t = timestamps.parse(buffer, from, to);
+        if (t == TimestampParser.INVALID) fieldError = true;
+        return t;
+    }
+
+    private void reject(long lineNumber, int column, String reason, ErrorHandler errors, Result result) {
+        if (result.errors == 0) {
+            result.firstErrorLine = lineNumber;
+            result.firstErrorColumn = column;
+            result.firstErrorReason = reason;
+        }
+        result.errors++;
+        if (errors != null) errors.onError(lineNumber, column, reason);
+    }
+
+    private void skipSpaces() {
+        while (pos < lineEnd && (buffer[pos] == ' ' || buffer[pos] == '\t')) pos++;
+    }
+
+    private long parseLong() {
+        skipSpaces();
+        boolean negative = false;
+        if (pos < lineEnd && (buffer[pos] == '-' || buffer[pos] == '+')) {
+            negative = buffer[pos] == '-';
+            pos++;
+        }
+        int digitsStart = pos;
+        long value = 0;
+        while (pos < lineEnd) {
+            int d = buffer[pos] - '0';
+            if (d < 0 || d > 9) break;
+            value = value * 10 + d;
+            pos++;
+        }
+        if (pos == digitsStart) fieldError = true;
+        skipSpaces();
+        return negative ? -value : value;
+    }
+
+    private double parseDouble() {
+        skipSpaces();
+        boolean negative = false;
+        if (pos < lineEnd && (buffer[pos] == '-' || buffer[pos] == '+')) {
+            negative = buffer[pos] == '-';
+            pos++;
+        }
+
+        long mantissa = 0;
+        int digits = 0;
+        int exponent = 0;
+        boolean seenDigit = false;
+
+        while (pos < lineEnd) {
+            int d = buffer[pos] - '0';
+            if (d < 0 || d > 9) break;
+            seenDigit = true;
+            if (digits < 18) {
+                mantissa = mantissa * 10 + d;
+                if (mantissa != 0) digits++;
+            } else {
+                exponent++;
+            }
+            pos++;
+        }
+        if (pos < lineEnd && buffer[pos] == '.') {
+            pos++;
+            while (pos < lineEnd) {
+                int d = buffer[pos] - '0';
+                if (d < 0 || d > 9) break;
+                seenDigit = true;
+                if (digits < 18) {
+                    mantissa = mantissa * 10 + d;
+                    if (mantissa != 0) digits++;
+                    exponent--;
+                }
+                pos++;
+            }
+        }
+        if (!seenDigit) {
+            fieldError = true;
+            return 0;
+        }
+        if (pos < lineEnd && (buffer[pos] == 'e' || buffer[pos] == 'E')) {
+            pos++;
+            boolean negExp = false;
+            if (pos < lineEnd && (buffer[pos] == '-' || buffer[pos] == '+')) {
+                negExp = buffer[pos] == '-';
+                pos++;
+            }
+            int expStart = pos;
+            int exp = 0;
+            while (pos < lineEnd) {
+                int d = buffer[pos] - '0';
+                if (d < 0 || d > 9) break;
+                if (exp < 1000) exp = exp * 10 + d;
+                pos++;
+            }
+            if (pos == expStart) fieldError = true;
+            exponent += negExp ? -exp : exp;
+        }
+        skipSpaces();
+
+        double value = mantissa;
+        if (exponent != 0) {
+            if (exponent > 0 && exponent < POW10.length) value *= POW10[exponent];
+            else if (exponent < 0 && -exponent < POW10.length) value /= POW10[-exponent];
+            else value *= Math.pow(10, exponent);
+        }
+        return negative ? -value : value;
+    }
+
+    // ---------------- Byte helpers ----------------
+
+    private static int indexOf(byte[] buf, byte b, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (buf[i] == b) return i;
+        }
+        return -1;
+    }
+
+    private static boolean isBlank(byte[] buf, int from, int to) {
+        for (int i = from; i < to; i++) {
+            byte c = buf[i];
+            if (c != ' ' && c != '\t') return false;
+        }
+        return true;
+    }
+
+    // ---------------- Callbacks & result ----------------
+
+    public interface RowHandler {
+        void onRow(long timestamp, int heartRate, float spO2, float temperature, int steps);
+    }
+
+    public interface ErrorHandler {
+        /**
+         * @param line   1-based line number in the file
+         * @param column 0-based column index that failed to parse
+         */
+        void onError(long line, int column, String reason);
+    }
+
+    /** Parse statistics; only the first error position is retained. */
+    public static class Result {
+        long rows;
+        long lines;
+        long errors;
+        long firstErrorLine = -1;
+        int firstErrorColumn = -1;
+        String firstErrorReason;
+        CsvSchema schema;
+
+        public long getRows() {
+            return rows;
+        }
+
+        public long getLines() {
+            return lines;
+        }
+
+        public long getErrors() {
+            return errors;
+        }
+
+        public long getFirstErrorLine() {
+            return firstErrorLine;
+        }
+
+        public int getFirstErrorColumn() {
+            return firstErrorColumn;
+        }
+
+        public String getFirstErrorReason() {
+            return firstErrorReason;
+        }
+
+        /** Column layout the rows were read with (from the header, or the default). */
+        public CsvSchema getSchema() {
+            return schema;
+        }
+
+        @Override
+        public String toString() {
+            return "Result{" +
+                    "rows=" + rows +
+                    ", lines=" + lines +
+                    ", errors=" + errors +
+                    (errors > 0 ? ", firstError=" + firstErrorLine + ":" + firstErrorColumn + " " + firstErrorReason : "") +
+                    '}';
+        }
+    }
+}
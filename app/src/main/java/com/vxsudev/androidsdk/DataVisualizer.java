@@ -2,6 +2,7 @@ package com.vxsudev.androidsdk;
 
 import android.content.Context;
 import android.graphics.Color;
+import android.view.MotionEvent;
 import android.widget.LinearLayout;
 
 import com.github.mikephil.charting.charts.LineChart;
@@ -11,45 +12,125 @@ import com.github.mikephil.charting.components.YAxis;
 import com.github.mikephil.charting.data.Entry;
 import com.github.mikephil.charting.data.LineData;
 import com.github.mikephil.charting.data.LineDataSet;
+import com.github.mikephil.charting.listener.ChartTouchListener;
+import com.github.mikephil.charting.listener.OnChartGestureListener;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.Executor;
 
 /**
  * Renders smartwatch metric charts dynamically.
+ *
+ * Charts never hold one Entry per sample: each series is reduced with {@link Lttb} to about
+ * one point per horizontal pixel of the visible range, and re-sampled when the user zooms
+ * or pans past the loaded range. Rendering cost follows the chart width, not the dataset size.
+ *
+ * After renderCharts, {@link #appendData} adds live samples to the same four charts without
+ * touching the container's layout. While a chart shows the newest samples it follows them
+ * in a sliding window of {@link #getLiveWindow()} samples.
  */
 public class DataVisualizer {
 
+    private static final int CHART_HEIGHT_PX = 500;
+    // Point markers only help when individual samples are distinguishable
+    private static final int MAX_VISIBLE_WITH_CIRCLES = 60;
+    private static final int DEFAULT_LIVE_WINDOW = 600;
+
+    // What the last renderCharts drew, so appends can extend it in place
+    private LinearLayout boundContainer;
+    private SmartWatchSeries boundSeries;
+    private final List<ChartSampler> samplers = new ArrayList<>(4);
+    private int liveWindow = DEFAULT_LIVE_WINDOW;
+
     public void renderCharts(Context context, LinearLayout container, List<SmartWatchData> dataList) {
+        renderCharts(context, container, SmartWatchSeries.fromList(dataList));
+    }
+
+    /**
+     * Renders directly from primitive columns. The series is kept (and appended to by
+     * appendData), so don't modify it afterwards.
+     */
+    public void renderCharts(Context context, LinearLayout container, SmartWatchSeries series) {
         container.removeAllViews();
+        samplers.clear();
+        boundContainer = container;
+        boundSeries = series;
 
-        List<Entry> hrEntries = new ArrayList<>();
-        List<Entry> spO2Entries = new ArrayList<>();
-        List<Entry> tempEntries = new ArrayList<>();
-        List<Entry> stepEntries = new ArrayList<>();
+        // Read through the series, not its arrays: appends may reallocate them
+        int n = series.size();
+        // Until laid out, charts are assumed to be as wide as the screen
+        int widthHint = context.getResources().getDisplayMetrics().widthPixels;
 
-        for (int i = 0; i < dataList.size(); i++) {
-            SmartWatchData d = dataList.get(i);
-            hrEntries.add(new Entry(i, d.getHeartRate()));
-            spO2Entries.add(new Entry(i, d.getSpO2()));
-            tempEntries.add(new Entry(i, d.getTemperature()));
-            stepEntries.add(new Entry(i, d.getSteps()));
+        container.addView(createChart(context, n, series::getHeartRate, "Heart Rate (bpm)", Color.MAGENTA, widthHint));
+        container.addView(createChart(context, n, series::getSpO2, "SpO₂ (%)", Color.BLUE, widthHint));
+        container.addView(createChart(context, n, series::getTemperature, "Temperature (°C)", Color.RED, widthHint));
+        container.addView(createChart(context, n, series::getSteps, "Steps", Color.GREEN, widthHint));
+    }
+
+    /**
+     * Renders [from, to) from pre-aggregated bucket means, using the coarsest
+     * {@link RollupIndex.Level} that still gives every horizontal pixel a bucket.
+     *
+     * @return false (nothing drawn) when the range is too short for minute buckets to fill
+     *         the chart — render raw samples instead
+     */
+    public boolean renderRange(Context context, LinearLayout container, RollupIndex rollups, long from, long to) {
+        int pixels = context.getResources().getDisplayMetrics().widthPixels;
+        RollupIndex.Level level = RollupIndex.levelFor(to - from, pixels);
+        if (level == null) return false;
+        renderCharts(context, container, rollups.means(level, from, to));
+        return true;
+    }
+
+    // ---------------- Incremental append ----------------
+    /**
+     * Appends samples (newer than everything shown) to the charts drawn by the last
+     * renderCharts into this container; falls back to renderCharts if there are none.
+     * Amortized O(1) per sample; the container is never re-laid out.
+     */
+    public void appendData(Context context, LinearLayout container, List<SmartWatchData> newData) {
+        if (newData == null || newData.isEmpty()) return;
+        if (container != boundContainer || samplers.isEmpty()) {
+            renderCharts(context, container, newData);
+            return;
+        }
+        for (SmartWatchData d : newData) {
+            if (d != null) boundSeries.append(d);
         }
+        for (ChartSampler sampler : samplers) sampler.extend(boundSeries.size(), liveWindow);
+    }
+
+    public void appendData(Context context, LinearLayout container, SmartWatchData data) {
+        appendData(context, container, Collections.singletonList(data));
+    }
+
+    /**
+     * Pipeline sink appending each batch to the charts in container. Chart calls are posted
+     * to mainThread (e.g. a main-looper Handler); the sink itself never touches views.
+     */
+    public ReadingPipeline.Sink asSink(Context context, LinearLayout container, Executor mainThread) {
+        return batch -> mainThread.execute(() -> appendData(context, container, batch));
+    }
+
+    /** Samples visible while following live appends. */
+    public int getLiveWindow() {
+        return liveWindow;
+    }
 
-        container.addView(createChart(context, hrEntries, "Heart Rate (bpm)", Color.MAGENTA));
-        container.addView(createChart(context, spO2Entries, "SpO₂ (%)", Color.BLUE));
-        container.addView(createChart(context, tempEntries, "Temperature (°C)", Color.RED));
-        container.addView(createChart(context, stepEntries, "Steps", Color.GREEN));
+    public void setLiveWindow(int samples) {
+        liveWindow = Math.max(samples, 2);
     }
 
-    private LineChart createChart(Context context, List<Entry> entries, String label, int color) {
+    private LineChart createChart(Context context, int n, Lttb.Values values, String label, int color, int widthHint) {
         LineChart chart = new LineChart(context);
         chart.setLayoutParams(new LinearLayout.LayoutParams(
                 LinearLayout.LayoutParams.MATCH_PARENT,
-                500
+                CHART_HEIGHT_PX
         ));
 
-        LineDataSet dataSet = new LineDataSet(entries, label);
+        LineDataSet dataSet = new LineDataSet(new ArrayList<>(), label);
         dataSet.setColor(color);
         dataSet.setLineWidth(2f);
         dataSet.setCircleColor(color);
@@ -62,15 +143,163 @@ public class DataVisualizer {
         XAxis xAxis = chart.getXAxis();
         xAxis.setPosition(XAxis.XAxisPosition.BOTTOM);
         xAxis.setDrawGridLines(false);
+        // Pin the axis to the full series so zoom/pan still spans it when only a window is loaded
+        xAxis.setAxisMinimum(0f);
+        xAxis.setAxisMaximum(Math.max(n - 1, 0));
 
         YAxis leftAxis = chart.getAxisLeft();
         leftAxis.setDrawGridLines(true);
         chart.getAxisRight().setEnabled(false);
+        chart.setAutoScaleMinMaxEnabled(true);
 
         Legend legend = chart.getLegend();
         legend.setEnabled(true);
 
+        ChartSampler sampler = new ChartSampler(chart, dataSet, values, n, widthHint);
+        sampler.load(0, n, n);
+        chart.setOnChartGestureListener(sampler);
+        samplers.add(sampler);
+
         chart.invalidate();
         return chart;
     }
+
+    // ---------------- Viewport sampling ----------------
+
+    /** Keeps one chart's data set at ~1 point per pixel of the visible x range. */
+    private static final class ChartSampler implements OnChartGestureListener {
+        private final LineChart chart;
+        private final LineDataSet dataSet;
+        private final Lttb.Values values;
+        private int n;
+        private final int widthHint;
+        private int loadedFrom;
+        private int loadedTo; // exclusive
+        private int cappedRange; // visible-range cap set for following, 0 when uncapped
+
+        ChartSampler(LineChart chart, LineDataSet dataSet, Lttb.Values values, int n, int widthHint) {
+            this.chart = chart;
+            this.dataSet = dataSet;
+            this.values = values;
+            this.n = n;
+            this.widthHint = widthHint;
+        }
+
+        /** Loads [from, to) at a density of one point per pixel for a visible span of visibleSpan samples. */
+        void load(int from, int to, float visibleSpan) {
+            int pixels = Math.max(chart.getWidth() > 0 ? chart.getWidth() : widthHint, 2);
+            int length = to - from;
+            int threshold = (int) Math.min(length, Math.ceil(pixels * (length / Math.max(visibleSpan, 1f))));
+            int[] picked = new int[Math.max(Math.min(length, threshold), 2)];
+            int count = Lttb.select(values, from, to, threshold, picked);
+
+            List<Entry> entries = new ArrayList<>(count);
+            for (int k = 0; k < count; k++) entries.add(new Entry(picked[k], values.get(picked[k])));
+            dataSet.setValues(entries);
+            dataSet.setDrawCircles(visibleSpan <= MAX_VISIBLE_WITH_CIRCLES);
+            loadedFrom = from;
+            loadedTo = to;
+
+            chart.getData().notifyDataChanged();
+            chart.notifyDataSetChanged();
+            chart.invalidate();
+        }
+
+        /**
+         * Takes in samples [n, newN). A chart showing the newest samples gets them as new entries
+         * and scrolls to keep the last liveWindow in view (capping the visible range when it
+         * starts following, until the user zooms or pans); other charts only grow their axis.
+         * The loaded window is re-sampled once it spans 3 live windows or holds 3 points per
+         * pixel, which keeps appends amortized O(1).
+         */
+        void extend(int newN, int liveWindow) {
+            int oldN = n;
+            if (newN <= oldN) return;
+            n = newN;
+            chart.getXAxis().setAxisMaximum(newN - 1);
+
+            boolean following = loadedTo == oldN
+                    && (chart.getWidth() == 0 || chart.getHighestVisibleX() >= oldN - 1.5f);
+            if (following) {
+                for (int i = oldN; i < newN; i++) dataSet.addEntry(new Entry(i, values.get(i)));
+                loadedTo = newN;
+                int pixels = Math.max(chart.getWidth() > 0 ? chart.getWidth() : widthHint, 2);
+                if (newN - loadedFrom > 3 * liveWindow || dataSet.getEntryCount() > 3 * pixels) {
+                    load(Math.max(0, newN - 2 * liveWindow), newN, liveWindow); // slide the window
+                } else {
+                    chart.getData().notifyDataChanged();
+                    chart.notifyDataSetChanged();
+                }
+                if (cappedRange != liveWindow) {
+                    chart.setVisibleXRangeMaximum(liveWindow);
+                    cappedRange = liveWindow;
+                }
+                chart.moveViewToX(Math.max(newN - 1 - liveWindow, 0));
+            } else {
+                if (cappedRange == 0) chart.setVisibleXRangeMaximum(newN); // the whole, longer axis
+                chart.notifyDataSetChanged();
+            }
+            chart.invalidate();
+        }
+
+        /** Loads the visible range plus one visible width either side, so short pans need no work. */
+        private void resampleVisible() {
+            float low = chart.getLowestVisibleX();
+            float high = chart.getHighestVisibleX();
+            float span = Math.max(high - low, 1f);
+            int from = Math.max(0, (int) Math.floor(low - span));
+            int to = Math.min(n, (int) Math.ceil(high + span) + 1);
+            if (to > from) load(from, to, span);
+        }
+
+        /** The user took over the viewport: lift the follow cap so they can zoom out again. */
+        private void releaseCap() {
+            if (cappedRange == 0) return;
+            chart.setVisibleXRangeMaximum(Math.max(n, 1));
+            cappedRange = 0;
+        }
+
+        private void resampleIfOutside() {
+            if (chart.getLowestVisibleX() < loadedFrom || chart.getHighestVisibleX() > loadedTo - 1) resampleVisible();
+        }
+
+        @Override
+        public void onChartScale(MotionEvent me, float scaleX, float scaleY) {
+            releaseCap();
+            resampleVisible(); // density changes with zoom
+        }
+
+        @Override
+        public void onChartTranslate(MotionEvent me, float dX, float dY) {
+            releaseCap();
+            resampleIfOutside();
+        }
+
+        @Override
+        public void onChartGestureEnd(MotionEvent me, ChartTouchListener.ChartGesture lastPerformedGesture) {
+            resampleIfOutside(); // flings keep moving after the last translate
+        }
+
+        @Override
+        public void onChartGestureStart(MotionEvent me, ChartTouchListener.ChartGesture lastPerformedGesture) {
+        }
+
+        @Override
+        public void onChartLongPressed(MotionEvent me) {
+        }
+
+        @Override
+        public void onChartDoubleTapped(MotionEvent me) {
+            releaseCap();
+            resampleVisible(); // double tap zooms
+        }
+
+        @Override
+        public void onChartSingleTapped(MotionEvent me) {
+        }
+
+        @Override
+        public void onChartFling(MotionEvent me1, MotionEvent me2, float velocityX, float velocityY) {
+        }
+    }
 }
@@ -0,0 +1,61 @@
+package com.vxsudev.androidsdk;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Content-addressed Firestore document IDs.
+ *
+ * A reading's ID is a 64-bit hash of (source, device, timestamp) rendered as 16 hex chars,
+ * so uploading the same reading twice writes the same document instead of a duplicate.
+ * Hashing (rather than concatenating the parts) also spreads IDs across the key space,
+ * avoiding the write hotspot Firestore warns about for monotonically increasing IDs.
+ */
+public final class DocumentIds {
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private DocumentIds() {}
+
+    public static long hash(SmartWatchData d, String deviceId) {
+        return hash(d.getSource(), deviceId, d.getTimestamp());
+    }
+
+    public static long hash(String source, String deviceId, long timestamp) {
+        long h = FNV_OFFSET;
+        h = mix(h, source);
+        h = mix(h, deviceId);
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            h = (h ^ ((timestamp >>> shift) & 0xff)) * FNV_PRIME;
+        }
+        return fmix64(h);
+    }
+
+    /** The Firestore document ID for a hash: 16 lowercase hex digits. */
+    public static String toDocumentId(long hash) {
+        String hex = Long.toHexString(hash);
+        return "0000000000000000".substring(hex.length()) + hex;
+    }
+
+    public static String of(SmartWatchData d, String deviceId) {
+        return toDocumentId(hash(d, deviceId));
+    }
+
+    // FNV-1a over the UTF-8 bytes, with a separator so ("ab","c") != ("a","bc")
+    private static long mix(long h, String part) {
+        if (part != null) {
+            for (byte b : part.getBytes(StandardCharsets.UTF_8)) h = (h ^ (b & 0xff)) * FNV_PRIME;
+        }
+        return (h ^ 0xff) * FNV_PRIME;
+    }
+
+    // MurmurHash3 finalizer: FNV alone leaves the low timestamp bits poorly avalanched
+    private static long fmix64(long k) {
+        k ^= k >>> 33;
+        k *= 0xff51afd7ed558ccdL;
+        k ^= k >>> 33;
+        k *= 0xc4ceb9fe1a85ec53L;
+        k ^= k >>> 33;
+        return k;
+    }
+}
@@ -0,0 +1,53 @@
+package com.vxsudev.androidsdk;
+
+import android.net.Uri;
+
+import com.google.firebase.storage.StorageMetadata;
+import com.google.firebase.storage.StorageReference;
+import com.google.firebase.storage.UploadTask;
+
+import java.io.File;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * {@link StorageClient} over Firebase Storage. Uploads use putFile's resumable sessions;
+ * the session URI is reported from the first progress snapshot that carries one.
+ * Callbacks run on the main thread.
+ */
+public class FirebaseStorageClient implements StorageClient {
+
+    private final StorageReference root;
+
+    public FirebaseStorageClient(StorageReference root) {
+        this.root = root;
+    }
+
+    @Override
+    public Transfer upload(File file, String remotePath, String contentType, String sessionUri,
+                           UploadListener listener) {
+        StorageMetadata metadata = contentType == null ? null
+                : new StorageMetadata.Builder().setContentType(contentType).build();
+        Uri session = sessionUri == null ? null : Uri.parse(sessionUri);
+        UploadTask task = root.child(remotePath).putFile(Uri.fromFile(file), metadata, session);
+
+        AtomicReference<String> reported = new AtomicReference<>(sessionUri);
+        task.addOnProgressListener(snapshot -> {
+            Uri current = snapshot.getUploadSessionUri();
+            if (current != null) {
+                String uri = current.toString();
+                if (!uri.equals(reported.getAndSet(uri))) listener.onSession(uri);
+            }
+            listener.onProgress(snapshot.getBytesTransferred(), snapshot.getTotalByteCount());
+        });
+        task.addOnSuccessListener(snapshot -> listener.onSuccess())
+                .addOnFailureListener(listener::onFailure);
+        return task::cancel;
+    }
+
+    @Override
+    public void getDownloadUrl(String remotePath, UrlCallback callback) {
+        root.child(remotePath).getDownloadUrl()
+                .addOnSuccessListener(uri -> callback.onSuccess(uri.toString()))
+                .addOnFailureListener(callback::onFailure);
+    }
+}
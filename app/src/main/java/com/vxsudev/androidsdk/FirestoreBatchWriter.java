@@ -0,0 +1,67 @@
+package com.vxsudev.androidsdk;
+
+import com.google.firebase.firestore.CollectionReference;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.SetOptions;
+import com.google.firebase.firestore.WriteBatch;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+/**
+ * {@link BatchWriter} backed by a Firestore WriteBatch.
+ *
+ * Each reading is upserted (set + merge) into the document named by {@link DocumentIds},
+ * so committing the same reading again overwrites rather than duplicates it. Committed
+ * IDs are recorded in the {@link SyncedIdSet} so callers can skip them next time; that
+ * append is file I/O, so commit results are handled on the given executor, not the main thread.
+ * Point it at the emulator by passing an instance configured with useEmulator().
+ */
+public class FirestoreBatchWriter implements BatchWriter {
+
+    private final FirebaseFirestore db;
+    private final String collection;
+    private final String deviceId;
+    private final SyncedIdSet synced;
+    private final Executor executor;
+
+    public FirestoreBatchWriter(FirebaseFirestore db, String collection, String deviceId, SyncedIdSet synced,
+                                Executor executor) {
+        this.db = db;
+        this.collection = collection;
+        this.deviceId = deviceId;
+        this.synced = synced;
+        this.executor = executor;
+    }
+
+    @Override
+    public void commit(List<SmartWatchData> chunk, Callback callback) {
+        if (chunk.size() > MAX_BATCH_SIZE) {
+            callback.onFailure(new IllegalArgumentException(
+                    "Batch of " + chunk.size() + " exceeds " + MAX_BATCH_SIZE + " operations"));
+            return;
+        }
+        WriteBatch batch = db.batch();
+        CollectionReference col = db.collection(collection);
+        long[] ids = new long[chunk.size()];
+        for (int i = 0; i < ids.length; i++) {
+            SmartWatchData item = chunk.get(i);
+            ids[i] = DocumentIds.hash(item, deviceId);
+            Map<String, Object> doc = item.toMap();
+            doc.put("deviceId", deviceId); // lets other devices' rollups tell the readings apart
+            batch.set(col.document(DocumentIds.toDocumentId(ids[i])), doc, SetOptions.merge());
+        }
+        batch.commit()
+                .addOnSuccessListener(executor, aVoid -> {
+                    try {
+                        synced.addAll(ids, ids.length);
+                    } catch (IOException ignored) {
+                        // Only costs a harmless re-send of these readings later
+                    }
+                    callback.onSuccess();
+                })
+                .addOnFailureListener(executor, callback::onFailure);
+    }
+}
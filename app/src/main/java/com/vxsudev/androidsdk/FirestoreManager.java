@@ -1,33 +1,52 @@
 package com.vxsudev.androidsdk;
 
+import android.content.Context;
+import android.content.SharedPreferences;
 import android.util.Log;
 
 import androidx.annotation.NonNull;
 
 import com.google.android.gms.tasks.OnFailureListener;
 import com.google.android.gms.tasks.OnSuccessListener;
-import com.google.firebase.firestore.CollectionReference;
 import com.google.firebase.firestore.DocumentChange;
-import com.google.firebase.firestore.DocumentReference;
 import com.google.firebase.firestore.DocumentSnapshot;
 import com.google.firebase.firestore.EventListener;
+import com.google.firebase.firestore.FieldPath;
 import com.google.firebase.firestore.FirebaseFirestore;
 import com.google.firebase.firestore.FirebaseFirestoreException;
 import com.google.firebase.firestore.ListenerRegistration;
 import com.google.firebase.firestore.Query;
 import com.google.firebase.firestore.QuerySnapshot;
-import com.google.firebase.firestore.WriteBatch;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 /**
  * FirestoreManager
- * - uploadHealthData(SmartWatchData, Callback) -> single upload
- * - uploadBatch(List<SmartWatchData>, Callback) -> batch upload (atomic-ish)
- * - fetchAllData(FirestoreCallback) -> one-shot fetch
- * - startRealtimeListener(RealtimeCallback) / stopRealtimeListener() -> live updates
+ * - uploadHealthData(SmartWatchData, Callback) -> buffered single upload (write-behind queue)
+ * - uploadBatch(List<SmartWatchData>, Callback) -> chunked batch upload (≤ 500 per WriteBatch)
+ *
+ * Uploads are idempotent: documents are keyed by {@link DocumentIds} (source, device, timestamp)
+ * and written with set + merge, and readings already in the synced-ID set are skipped
+ * before any network call. Use FirestoreManager(Context) to persist that set and the device ID;
+ * the set is read in the background, and the synced check runs off the calling thread.
+ * - fetchPages(int, PageCallback) -> cursor-paged fetch of the whole collection, page by page
+ * - fetchNewData(int, PageCallback) -> pages newer than the high-water mark, advancing it
+ * - fetchSince(long, int, PageCallback) -> pages from a timestamp on (HealthDataRepository's reconcile)
+ * - fetchAllData(FirestoreCallback) -> one-shot fetch (accumulates every page)
+ * - startRealtimeListener(RealtimeCallback) / stopRealtimeListener() -> live, frame-coalesced view
+ * - close() -> stops the listener and the write-behind queue's timer (e.g. from onDestroy)
  *
  * Note: Make sure firebase is initialized (google-services.json + init) in your app.
  */
@@ -35,134 +54,386 @@ public class FirestoreManager {
 
     private static final String TAG = "FirestoreManager";
     private static final String COLLECTION_NAME = "smartwatch_data";
+    private static final String PREFS_NAME = "firestore_manager";
+    private static final String KEY_DEVICE_ID = "device_id";
+    private static final String SYNCED_IDS_FILE = "synced_ids.bin";
+    private static final String KEY_MARK_TIMESTAMP = "high_water_timestamp";
+    private static final String KEY_MARK_DOC_ID = "high_water_doc_id";
+    private static final String DEFAULT_DEVICE_ID = "default";
+
+    public static final int DEFAULT_PAGE_SIZE = 500;
+
+    // Concurrent WriteBatch commits for uploadBatch and the upload queue
+    private static final int MAX_COMMITS_IN_FLIGHT = 2;
 
     private final FirebaseFirestore db;
+    private final BatchWriter batchWriter;
+    private final String deviceId;
+    private final SyncedIdSet syncedIds;
+    private final SharedPreferences prefs; // null: high-water mark kept in memory only
+    private UploadQueue uploadQueue = null;
+    private boolean closed = false; // guarded by this
     private ListenerRegistration realtimeListener = null;
 
+    // Synced-ID file reads and appends, and the synced check before each upload
+    private static final ExecutorService SYNC_EXECUTOR = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "FirestoreSyncedIds");
+        t.setDaemon(true);
+        return t;
+    });
+
+    // Pages are decoded and delivered here, never on the main thread. Process-wide like
+    // SYNC_EXECUTOR, so recreating the activity (and its manager) adds no threads
+    private static final ExecutorService FETCH_EXECUTOR = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "FirestoreFetch");
+        t.setDaemon(true);
+        return t;
+    });
+
+    // Realtime snapshots are decoded here, then handed to the engine for the next frame;
+    // process-wide too, each listener's events are told apart by its engine
+    private static final ExecutorService REALTIME_EXECUTOR = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "FirestoreRealtime");
+        t.setDaemon(true);
+        return t;
+    });
+    private volatile RealtimeDeltaEngine realtimeEngine = null;
+
+    // Last (timestamp, doc id) handed to a fetchNewData consumer; guarded by this
+    private long markTimestamp = Long.MIN_VALUE;
+    private String markDocId = null;
+
     public FirestoreManager() {
-        db = FirebaseFirestore.getInstance();
+        this(FirebaseFirestore.getInstance());
+    }
+
+    /** Persists the device ID, synced-ID set and high-water mark under the app's private storage. */
+    public FirestoreManager(Context context) {
+        this(FirebaseFirestore.getInstance(), loadDeviceId(context), loadSyncedIds(context),
+                context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE));
+    }
+
+    /** Use a specific instance, e.g. one pointed at the emulator with useEmulator(host, port). */
+    public FirestoreManager(FirebaseFirestore db) {
+        this(db, DEFAULT_DEVICE_ID, new SyncedIdSet(), null);
+    }
+
+    private FirestoreManager(FirebaseFirestore db, String deviceId, SyncedIdSet syncedIds, SharedPreferences prefs) {
+        this(db, new FirestoreBatchWriter(db, COLLECTION_NAME, deviceId, syncedIds, SYNC_EXECUTOR),
+                deviceId, syncedIds, prefs);
+    }
+
+    /** Uploads go through batchWriter — pass a fake to exercise the upload path offline. */
+    public FirestoreManager(FirebaseFirestore db, BatchWriter batchWriter) {
+        this(db, batchWriter, DEFAULT_DEVICE_ID, new SyncedIdSet(), null);
+    }
+
+    private FirestoreManager(FirebaseFirestore db, BatchWriter batchWriter, String deviceId,
+                             SyncedIdSet syncedIds, SharedPreferences prefs) {
+        this.db = db;
+        this.batchWriter = batchWriter;
+        this.deviceId = deviceId;
+        this.syncedIds = syncedIds;
+        this.prefs = prefs;
+        if (prefs != null && prefs.contains(KEY_MARK_TIMESTAMP)) {
+            markTimestamp = prefs.getLong(KEY_MARK_TIMESTAMP, Long.MIN_VALUE);
+            markDocId = prefs.getString(KEY_MARK_DOC_ID, null);
+        }
     }
 
     // ---------------- Single upload ----------------
+    /**
+     * Buffers the reading in the write-behind queue; it is committed with others when a
+     * chunk fills up or the oldest buffered reading is ~2 s old. Fails fast with the queue full.
+     */
     public void uploadHealthData(SmartWatchData data, Callback callback) {
         if (data == null) {
             Log.e(TAG, "⚠️ Cannot upload null data");
             if (callback != null) callback.onFailure(new Exception("Null data"));
             return;
         }
+        SYNC_EXECUTOR.execute(() -> {
+            if (isSynced(data)) {
+                if (callback != null) callback.onSuccess(); // already stored under the same ID
+                return;
+            }
+            enqueue(data, callback);
+        });
+    }
 
-        CollectionReference ref = db.collection(COLLECTION_NAME);
-        ref.add(data.toMap())
-                .addOnSuccessListener(documentReference -> {
-                    Log.d(TAG, "✅ Uploaded to Firestore: " + documentReference.getId());
-                    if (callback != null) callback.onSuccess();
-                })
-                .addOnFailureListener(e -> {
-                    Log.e(TAG, "❌ Upload failed", e);
-                    if (callback != null) callback.onFailure(e);
-                });
+    private void enqueue(SmartWatchData data, Callback callback) {
+        UploadQueue queue;
+        synchronized (this) {
+            queue = closed ? null : getUploadQueue();
+        }
+        if (queue == null) {
+            if (callback != null) callback.onFailure(new IllegalStateException("FirestoreManager is closed"));
+            return;
+        }
+        boolean queued = queue.offer(data, new BatchWriter.Callback() {
+            @Override
+            public void onSuccess() {
+                if (callback != null) callback.onSuccess();
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                Log.e(TAG, "❌ Upload failed", e);
+                if (callback != null) callback.onFailure(e);
+            }
+        });
+        if (!queued) {
+            Log.w(TAG, "⚠️ Upload queue full, rejecting reading");
+            if (callback != null) callback.onFailure(new Exception("Upload queue full"));
+        }
+    }
+
+    /** Commits whatever the write-behind queue is holding right away. */
+    public synchronized void flushUploads() {
+        if (uploadQueue != null) uploadQueue.flush();
+    }
+
+    public synchronized UploadQueue getUploadQueue() {
+        if (uploadQueue == null) {
+            uploadQueue = new UploadQueue(batchWriter, UploadQueue.DEFAULT_CAPACITY, BatchWriter.MAX_BATCH_SIZE,
+                    MAX_COMMITS_IN_FLIGHT, UploadQueue.DEFAULT_MAX_AGE_MILLIS, UploadQueue.DEFAULT_MAX_ATTEMPTS);
+            uploadQueue.setListener(new UploadQueue.Listener() {
+                @Override
+                public void onChunkCommitted(int size) {
+                    Log.d(TAG, "✅ Committed " + size + " queued readings");
+                }
+
+                @Override
+                public void onChunkFailed(int size, Exception e) {
+                    Log.e(TAG, "❌ Dropped " + size + " queued readings after retries", e);
+                }
+            });
+        }
+        return uploadQueue;
     }
 
     // ---------------- Batch upload ----------------
     /**
-     * Batch upload list of SmartWatchData. Creates new doc per entry with generated id.
-     * Calls callback.onSuccess() if overall succeeds, or onFailure on error.
+     * Batch upload list of SmartWatchData. Upserts one doc per entry under its content-addressed id,
+     * skipping entries already synced, in WriteBatches of at most 500 (Firestore's limit) with a bounded number committing at once.
+     * Calls callback.onSuccess() once every chunk is committed, or onFailure on the first error
+     * (chunks already committed stay written).
      */
     public void uploadBatch(List<SmartWatchData> list, Callback callback) {
+        uploadBatch(list, Long.MAX_VALUE, callback);
+    }
+
+    /**
+     * Like uploadBatch, but readings at or after upsertFromMillis are written even when
+     * already synced: pass the start of a Fit sync, whose overlap re-reads minutes that may
+     * have changed since they were committed.
+     */
+    public void uploadBatch(List<SmartWatchData> list, long upsertFromMillis, Callback callback) {
         if (list == null || list.isEmpty()) {
             Log.w(TAG, "⚠️ uploadBatch called with empty list");
             if (callback != null) callback.onSuccess(); // nothing to do
             return;
         }
 
-        WriteBatch batch = db.batch();
-        CollectionReference col = db.collection(COLLECTION_NAME);
+        List<SmartWatchData> items = new ArrayList<>(list); // the caller may reuse its list
+        SYNC_EXECUTOR.execute(() ->
+                commitUnsynced(items, syncedIds.toUpload(items, deviceId, upsertFromMillis), callback));
+    }
 
-        for (SmartWatchData item : list) {
-            DocumentReference newDoc = col.document(); // auto ID
-            batch.set(newDoc, item.toMap());
+    private void commitUnsynced(List<SmartWatchData> list, List<SmartWatchData> unsynced, Callback callback) {
+        if (unsynced.isEmpty()) {
+            Log.d(TAG, "✅ All " + list.size() + " items already synced");
+            if (callback != null) callback.onSuccess();
+            return;
         }
 
-        batch.commit()
-                .addOnSuccessListener(aVoid -> {
-                    Log.d(TAG, "✅ Batch upload successful (" + list.size() + " items)");
-                    if (callback != null) callback.onSuccess();
-                })
-                .addOnFailureListener(e -> {
-                    Log.e(TAG, "❌ Batch upload failed", e);
-                    if (callback != null) callback.onFailure(e);
+        UploadQueue.commitAll(batchWriter, unsynced, BatchWriter.MAX_BATCH_SIZE, MAX_COMMITS_IN_FLIGHT,
+                new BatchWriter.Callback() {
+                    @Override
+                    public void onSuccess() {
+                        Log.d(TAG, "✅ Batch upload successful (" + unsynced.size() + " new of "
+                                + list.size() + " items)");
+                        if (callback != null) callback.onSuccess();
+                    }
+
+                    @Override
+                    public void onFailure(Exception e) {
+                        Log.e(TAG, "❌ Batch upload failed", e);
+                        if (callback != null) callback.onFailure(e);
+                    }
                 });
     }
 
-    // ---------------- Fetch all (one-shot) ----------------
-    public void fetchAllData(FirestoreCallback callback) {
-        db.collection(COLLECTION_NAME)
+    // ---------------- Paged fetch ----------------
+    /**
+     * Streams the whole collection in timestamp order, pageSize documents per query, using
+     * the last document of each page as the cursor for the next. Only one page is held at a
+     * time, so memory stays flat and the first page arrives after one round trip however long
+     * the history is. Callbacks run on a background thread.
+     */
+    public void fetchPages(int pageSize, PageCallback callback) {
+        fetchPage(orderedQuery(), null, Math.max(pageSize, 1), false, 0, FETCH_EXECUTOR, callback);
+    }
+
+    /**
+     * Like fetchPages, but only for documents after the high-water mark — the last document
+     * delivered by a previous fetchNewData. The mark advances after each page is consumed
+     * (and is persisted when constructed with a Context), so an interrupted fetch resumes.
+     */
+    public void fetchNewData(int pageSize, PageCallback callback) {
+        Query query = orderedQuery();
+        synchronized (this) {
+            if (markDocId != null) query = query.startAfter(markTimestamp, markDocId);
+        }
+        fetchPage(query, null, Math.max(pageSize, 1), true, 0, FETCH_EXECUTOR, callback);
+    }
+
+    /**
+     * Pages of documents with timestamp >= fromInclusive, for callers that keep their own
+     * mark (such as {@link HealthDataCache}) and deduplicate the boundary themselves.
+     */
+    public void fetchSince(long fromInclusive, int pageSize, PageCallback callback) {
+        Query query = orderedQuery().whereGreaterThanOrEqualTo("timestamp", fromInclusive);
+        fetchPage(query, null, Math.max(pageSize, 1), false, 0, FETCH_EXECUTOR, callback);
+    }
+
+    /** Forgets the high-water mark so the next fetchNewData starts from the beginning. */
+    public synchronized void resetHighWaterMark() {
+        markTimestamp = Long.MIN_VALUE;
+        markDocId = null;
+        if (prefs != null) prefs.edit().remove(KEY_MARK_TIMESTAMP).remove(KEY_MARK_DOC_ID).apply();
+    }
+
+    public synchronized long getHighWaterMark() {
+        return markTimestamp;
+    }
+
+    // Document ID as tie-breaker: readings from different sources can share a timestamp
+    private Query orderedQuery() {
+        return db.collection(COLLECTION_NAME)
                 .orderBy("timestamp", Query.Direction.ASCENDING)
-                .get()
-                .addOnSuccessListener(querySnapshot -> {
-                    List<SmartWatchData> list = new ArrayList<>();
-                    for (DocumentSnapshot doc : querySnapshot.getDocuments()) {
-                        try {
-                            Map<String, Object> map = doc.getData();
-                            if (map == null) continue;
-                            SmartWatchData d = mapToSmartWatchData(map);
-                            if (d != null) list.add(d);
-                        } catch (Exception ex) {
-                            Log.w(TAG, "⚠️ Skipping malformed doc: " + doc.getId(), ex);
-                        }
+                .orderBy(FieldPath.documentId(), Query.Direction.ASCENDING);
+    }
+
+    private void fetchPage(Query query, DocumentSnapshot after, int pageSize, boolean advanceMark,
+                           int delivered, Executor executor, PageCallback callback) {
+        Query page = after != null ? query.startAfter(after) : query;
+        page.limit(pageSize).get()
+                .addOnSuccessListener(executor, querySnapshot -> {
+                    List<DocumentSnapshot> docs = querySnapshot.getDocuments();
+                    List<SmartWatchData> list = new ArrayList<>(docs.size());
+                    for (DocumentSnapshot doc : docs) {
+                        Map<String, Object> map = doc.getData();
+                        SmartWatchData d = map != null ? mapToSmartWatchData(map) : null;
+                        if (d != null) list.add(d);
+                        else Log.w(TAG, "⚠️ Skipping malformed doc: " + doc.getId());
+                    }
+
+                    boolean more = docs.size() == pageSize;
+                    if (!list.isEmpty() && !callback.onPage(list)) more = false;
+                    if (advanceMark && !docs.isEmpty()) advanceMark(docs.get(docs.size() - 1));
+
+                    int total = delivered + list.size();
+                    if (more) {
+                        fetchPage(query, docs.get(docs.size() - 1), pageSize, advanceMark, total, executor, callback);
+                    } else {
+                        Log.d(TAG, "✅ Retrieved " + total + " Firestore records");
+                        callback.onComplete(total);
                     }
-                    Log.d(TAG, "✅ Retrieved " + list.size() + " Firestore records");
-                    if (callback != null) callback.onSuccess(list);
                 })
-                .addOnFailureListener(e -> {
+                .addOnFailureListener(executor, e -> {
                     Log.e(TAG, "❌ Firestore fetch failed", e);
-                    if (callback != null) callback.onFailure(e);
+                    callback.onFailure(e);
                 });
     }
 
+    private synchronized void advanceMark(DocumentSnapshot last) {
+        Object ts = last.get("timestamp");
+        if (!(ts instanceof Number)) return;
+        markTimestamp = ((Number) ts).longValue();
+        markDocId = last.getId();
+        if (prefs != null) {
+            prefs.edit().putLong(KEY_MARK_TIMESTAMP, markTimestamp).putString(KEY_MARK_DOC_ID, markDocId).apply();
+        }
+    }
+
+    // ---------------- Fetch all (one-shot) ----------------
+    /**
+     * Collects every page into one list. Prefer fetchPages/fetchNewData for large collections;
+     * this holds the whole history in memory. The callback runs on a background thread.
+     */
+    public void fetchAllData(FirestoreCallback callback) {
+        List<SmartWatchData> list = new ArrayList<>();
+        fetchPages(DEFAULT_PAGE_SIZE, new PageCallback() {
+            @Override
+            public boolean onPage(List<SmartWatchData> page) {
+                list.addAll(page);
+                return true;
+            }
+
+            @Override
+            public void onComplete(int total) {
+                if (callback != null) callback.onSuccess(list);
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                if (callback != null) callback.onFailure(e);
+            }
+        });
+    }
+
     // ---------------- Realtime listener ----------------
     /**
-     * Start realtime listener. Caller should implement RealtimeCallback to receive adds/changes/removes.
+     * Start realtime listener. Snapshots are decoded on a background thread and applied to a
+     * {@link RealtimeView} keyed by document ID; bursts are coalesced so the callback runs on
+     * the main thread at most once per frame with the net delta since the previous call.
      * Only one listener managed per FirestoreManager instance (calls to start will replace previous).
      */
     public void startRealtimeListener(RealtimeCallback callback) {
+        startRealtimeListener(new ChoreographerFrameScheduler(), callback);
+    }
+
+    /** Same, with frames driven by the given scheduler (e.g. a test or non-UI consumer). */
+    public void startRealtimeListener(RealtimeDeltaEngine.FrameScheduler scheduler, RealtimeCallback callback) {
         stopRealtimeListener(); // ensure single listener
 
+        RealtimeDeltaEngine engine = new RealtimeDeltaEngine(scheduler, (view, delta) -> {
+            if (callback != null) callback.onUpdate(view, delta);
+        });
+        realtimeEngine = engine;
         realtimeListener = db.collection(COLLECTION_NAME)
                 .orderBy("timestamp", Query.Direction.ASCENDING)
-                .addSnapshotListener((querySnapshot, e) -> {
+                .addSnapshotListener(REALTIME_EXECUTOR, (querySnapshot, e) -> {
+                    if (realtimeEngine != engine) return; // stopped or replaced meanwhile
                     if (e != null) {
                         Log.e(TAG, "❌ Realtime listener error", e);
-                        if (callback != null) callback.onFailure(e);
+                        if (callback != null) scheduler.scheduleFrame(() -> callback.onFailure(e));
                         return;
                     }
                     if (querySnapshot == null) return;
 
-                    List<SmartWatchData> added = new ArrayList<>();
-                    List<SmartWatchData> modified = new ArrayList<>();
-                    List<SmartWatchData> removed = new ArrayList<>();
-
-                    for (DocumentChange dc : querySnapshot.getDocumentChanges()) {
+                    List<DocumentChange> docChanges = querySnapshot.getDocumentChanges();
+                    List<RealtimeView.Change> changes = new ArrayList<>(docChanges.size());
+                    for (DocumentChange dc : docChanges) {
                         DocumentSnapshot doc = dc.getDocument();
-                        SmartWatchData d = mapToSmartWatchData(doc.getData());
-                        switch (dc.getType()) {
-                            case ADDED:
-                                if (d != null) added.add(d);
-                                break;
-                            case MODIFIED:
-                                if (d != null) modified.add(d);
-                                break;
-                            case REMOVED:
-                                if (d != null) removed.add(d);
-                                break;
+                        SmartWatchData d = dc.getType() == DocumentChange.Type.REMOVED
+                                ? null : mapToSmartWatchData(doc.getData());
+                        if (d == null) {
+                            // Removed, or no longer readable: either way it leaves the view
+                            changes.add(new RealtimeView.Change(RealtimeView.ChangeType.REMOVED, doc.getId(), null));
+                            continue;
                         }
+                        RealtimeView.ChangeType type = dc.getType() == DocumentChange.Type.ADDED
+                                ? RealtimeView.ChangeType.ADDED : RealtimeView.ChangeType.MODIFIED;
+                        changes.add(new RealtimeView.Change(type, doc.getId(), d));
                     }
-
-                    if (callback != null) callback.onUpdate(added, modified, removed);
+                    engine.post(changes);
                 });
     }
 
     public void stopRealtimeListener() {
+        realtimeEngine = null;
         if (realtimeListener != null) {
             realtimeListener.remove();
             realtimeListener = null;
@@ -170,38 +441,143 @@ public class FirestoreManager {
         }
     }
 
-    // ---------------- Helpers ----------------
-    private SmartWatchData mapToSmartWatchData(Map<String, Object> map) {
-        if (map == null) return null;
-        try {
-            SmartWatchData d = new SmartWatchData();
-
-            Object tsObj = map.get("timestamp");
-            long ts = 0;
-            if (tsObj instanceof Number) {
-                ts = ((Number) tsObj).longValue();
-            } else if (tsObj instanceof String) {
-                ts = Long.parseLong((String) tsObj);
+    // ---------------- Lifecycle ----------------
+    /**
+     * Removes the realtime listener and closes the write-behind queue, which still commits
+     * what it holds. Uploads through the queue fail afterwards; call from onDestroy.
+     */
+    public void close() {
+        stopRealtimeListener();
+        UploadQueue queue;
+        synchronized (this) {
+            if (closed) return;
+            closed = true;
+            queue = uploadQueue;
+        }
+        if (queue != null) queue.close();
+    }
+
+    // ---------------- Pipeline adapters ----------------
+    // PushSource.emit blocks its thread while the pipeline is full, so every source below
+    // delivers on a thread of its own, never on FETCH_EXECUTOR or REALTIME_EXECUTOR: a stalled
+    // pipeline must not hold up fetchPages callers or the realtime view.
+
+    /**
+     * Pipeline source over the paged fetch. A full pipeline stalls this source's thread
+     * between pages, which is what keeps the next page from being requested.
+     */
+    public ReadingPipeline.Publisher asSource(int pageSize) {
+        ReadingPipeline.PushSource source = new ReadingPipeline.PushSource();
+        ExecutorService pages = newSourceExecutor("FirestorePipelinePages");
+        source.onStart(() -> fetchPage(orderedQuery(), null, Math.max(pageSize, 1), false, 0, pages, new PageCallback() {
+            @Override
+            public boolean onPage(List<SmartWatchData> page) {
+                return source.emit(page);
             }
-            d.setTimestamp(ts);
 
-            Object hrObj = map.get("heartRate");
-            if (hrObj instanceof Number) d.setHeartRate(((Number) hrObj).intValue());
-            else if (hrObj instanceof String) d.setHeartRate(Integer.parseInt((String) hrObj));
+            @Override
+            public void onComplete(int total) {
+                source.complete();
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                source.error(e);
+            }
+        }));
+        return source;
+    }
+
+    /**
+     * Pipeline source of live additions and modifications (removals are not readings).
+     * Runs its own snapshot listener, removed when the pipeline is cancelled; never completes.
+     */
+    public ReadingPipeline.Publisher realtimeSource() {
+        ReadingPipeline.PushSource source = new ReadingPipeline.PushSource();
+        ListenerRegistration[] registration = new ListenerRegistration[1];
+        ExecutorService snapshots = newSourceExecutor("FirestorePipelineRealtime");
+        source.onStart(() -> registration[0] = db.collection(COLLECTION_NAME)
+                .orderBy("timestamp", Query.Direction.ASCENDING)
+                .addSnapshotListener(snapshots, (querySnapshot, e) -> {
+                    if (e != null) {
+                        source.error(e);
+                        return;
+                    }
+                    if (querySnapshot == null || source.isCancelled()) return;
+                    List<SmartWatchData> batch = new ArrayList<>();
+                    for (DocumentChange dc : querySnapshot.getDocumentChanges()) {
+                        if (dc.getType() == DocumentChange.Type.REMOVED) continue;
+                        SmartWatchData d = mapToSmartWatchData(dc.getDocument().getData());
+                        if (d != null) batch.add(d);
+                    }
+                    source.emit(batch);
+                }));
+        source.onCancel(() -> {
+            if (registration[0] != null) registration[0].remove();
+        });
+        return source;
+    }
+
+    /** Pipeline sink: uploadBatch per batch, waiting for the commit before taking the next. */
+    public ReadingPipeline.Sink asSink() {
+        return asSink(Long.MAX_VALUE);
+    }
 
-            Object spo2Obj = map.get("spO2");
-            if (spo2Obj instanceof Number) d.setSpO2(((Number) spo2Obj).floatValue());
-            else if (spo2Obj instanceof String) d.setSpO2(Float.parseFloat((String) spo2Obj));
+    /** As {@link #asSink()}, upserting readings at or after upsertFromMillis even if synced. */
+    public ReadingPipeline.Sink asSink(long upsertFromMillis) {
+        return batch -> {
+            CompletableFuture<Void> done = new CompletableFuture<>();
+            uploadBatch(batch, upsertFromMillis, new Callback() {
+                @Override
+                public void onSuccess() {
+                    done.complete(null);
+                }
 
-            Object tempObj = map.get("temperature");
-            if (tempObj instanceof Number) d.setTemperature(((Number) tempObj).floatValue());
-            else if (tempObj instanceof String) d.setTemperature(Float.parseFloat((String) tempObj));
+                @Override
+                public void onFailure(Exception e) {
+                    done.completeExceptionally(e);
+                }
+            });
+            done.get();
+        };
+    }
 
-            Object stepsObj = map.get("steps");
-            if (stepsObj instanceof Number) d.setSteps(((Number) stepsObj).intValue());
-            else if (stepsObj instanceof String) d.setSteps(Integer.parseInt((String) stepsObj));
+    // ---------------- Helpers ----------------
+    // Never shut down (Firestore may still hand it a late event); its thread exits when idle
+    private static ExecutorService newSourceExecutor(String name) {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 30, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), r -> {
+                    Thread t = new Thread(r, name);
+                    t.setDaemon(true);
+                    return t;
+                });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
 
-            return d;
+    private boolean isSynced(SmartWatchData d) {
+        return syncedIds.contains(DocumentIds.hash(d, deviceId));
+    }
+
+    /** This install's device ID, created on first use; part of every document ID. */
+    static String loadDeviceId(Context context) {
+        SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        String id = prefs.getString(KEY_DEVICE_ID, null);
+        if (id == null) {
+            id = UUID.randomUUID().toString();
+            prefs.edit().putString(KEY_DEVICE_ID, id).apply();
+        }
+        return id;
+    }
+
+    // An unreadable file falls back to re-sending everything once, which the upserts make harmless
+    private static SyncedIdSet loadSyncedIds(Context context) {
+        return SyncedIdSet.loadAsync(new File(context.getFilesDir(), SYNCED_IDS_FILE), SYNC_EXECUTOR);
+    }
+
+    private SmartWatchData mapToSmartWatchData(Map<String, Object> map) {
+        try {
+            return SmartWatchData.fromMap(map);
         } catch (Exception ex) {
             Log.w(TAG, "⚠️ mapToSmartWatchData parse error", ex);
             return null;
@@ -219,8 +595,16 @@ public class FirestoreManager {
         void onFailure(Exception e);
     }
 
+    public interface PageCallback {
+        /** One page in timestamp order; return false to stop after this page. */
+        boolean onPage(List<SmartWatchData> page);
+        void onComplete(int total);
+        void onFailure(Exception e);
+    }
+
     public interface RealtimeCallback {
-        void onUpdate(List<SmartWatchData> added, List<SmartWatchData> modified, List<SmartWatchData> removed);
+        /** Main thread. view is live (valid until the next call); delta is the net change since the last call. */
+        void onUpdate(RealtimeView view, RealtimeView.Delta delta);
         void onFailure(Exception e);
     }
 }
@@ -0,0 +1,142 @@
+package com.vxsudev.androidsdk;
+
+import com.google.android.gms.fitness.data.Bucket;
+import com.google.android.gms.fitness.data.DataPoint;
+import com.google.android.gms.fitness.data.DataSet;
+import com.google.android.gms.fitness.data.DataType;
+import com.google.android.gms.fitness.data.Field;
+import com.google.android.gms.fitness.data.Value;
+import com.google.android.gms.fitness.result.DataReadResponse;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decodes Google Fit read responses (raw data sets or aggregate buckets) into readings.
+ *
+ * Field names are resolved once per DataType into a cached {@link FieldTable} — which
+ * fields to read, which metric each feeds and whether it is INT32 — so the per-point loop
+ * does no string switching. Each data set is decoded in a single pass into a
+ * {@link FitSampleJoiner}, which merges heart rate, steps, ... of the same time bucket into
+ * one reading instead of one record per data type.
+ */
+public final class FitDecoder {
+
+    /** Raw samples are joined per minute, the finest rollup level. */
+    public static final long DEFAULT_JOIN_MILLIS = 60_000;
+
+    private static final Map<String, FieldTable> TABLES = new ConcurrentHashMap<>();
+
+    private FitDecoder() {}
+
+    public static List<SmartWatchData> decode(DataReadResponse response) {
+        return decode(response, DEFAULT_JOIN_MILLIS);
+    }
+
+    /**
+     * Raw responses are joined into joinMillis buckets stamped with the bucket start;
+     * bucketed responses give one reading per Fit bucket, stamped with its start.
+     */
+    public static List<SmartWatchData> decode(DataReadResponse response, long joinMillis) {
+        FitSampleJoiner joiner = new FitSampleJoiner(joinMillis);
+        if (response != null) decodeInto(response, joiner);
+        return joiner.toList(SmartWatchData.SOURCE_FIT);
+    }
+
+    static void decodeInto(DataReadResponse response, FitSampleJoiner joiner) {
+        List<Bucket> buckets = response.getBuckets();
+        if (buckets != null && !buckets.isEmpty()) {
+            for (Bucket bucket : buckets) {
+                long start = bucket.getStartTime(TimeUnit.MILLISECONDS);
+                for (DataSet set : bucket.getDataSets()) decodeSet(set, start, joiner);
+            }
+            return;
+        }
+        List<DataSet> sets = response.getDataSets();
+        if (sets == null) return;
+        for (DataSet set : sets) decodeSet(set, Long.MIN_VALUE, joiner);
+    }
+
+    /** One pass over a data set; fixedTimestamp stamps every point unless Long.MIN_VALUE. */
+    private static void decodeSet(DataSet set, long fixedTimestamp, FitSampleJoiner joiner) {
+        List<DataPoint> points = set.getDataPoints();
+        if (points == null || points.isEmpty()) return;
+        FieldTable table = tableFor(set.getDataType());
+        int n = table.fields.length;
+        if (n == 0) return;
+
+        Field[] fields = table.fields;
+        int[] metrics = table.metrics;
+        boolean[] isInt = table.isInt;
+        for (DataPoint dp : points) {
+            long ts = fixedTimestamp != Long.MIN_VALUE ? fixedTimestamp : dp.getEndTime(TimeUnit.MILLISECONDS);
+            for (int i = 0; i < n; i++) {
+                Value value = dp.getValue(fields[i]);
+                if (value == null || !value.isSet()) continue;
+                joiner.add(metrics[i], ts, isInt[i] ? value.asInt() : value.asFloat());
+            }
+        }
+    }
+
+    static FieldTable tableFor(DataType type) {
+        String name = type.getName();
+        FieldTable table = TABLES.get(name);
+        if (table == null) {
+            table = FieldTable.build(type);
+            TABLES.put(name, table);
+        }
+        return table;
+    }
+
+    /** The fields of a DataType that map to a metric, in field order. */
+    static final class FieldTable {
+        final Field[] fields;
+        final int[] metrics;
+        final boolean[] isInt;
+
+        private FieldTable(Field[] fields, int[] metrics, boolean[] isInt) {
+            this.fields = fields;
+            this.metrics = metrics;
+            this.isInt = isInt;
+        }
+
+        static FieldTable build(DataType type) {
+            List<Field> all = type.getFields();
+            Field[] fields = new Field[all.size()];
+            int[] metrics = new int[all.size()];
+            boolean[] isInt = new boolean[all.size()];
+            int n = 0;
+            for (Field f : all) {
+                int metric = metricFor(f.getName());
+                if (metric < 0) continue;
+                fields[n] = f;
+                metrics[n] = metric;
+                // asFloat() throws on INT32 fields (steps), so the format decides the accessor
+                isInt[n] = f.getFormat() == Field.FORMAT_INT32;
+                n++;
+            }
+            return new FieldTable(Arrays.copyOf(fields, n), Arrays.copyOf(metrics, n), Arrays.copyOf(isInt, n));
+        }
+
+        /** Raw field names plus the aggregate ones ("average" of the heart-rate summary). */
+        private static int metricFor(String fieldName) {
+            switch (fieldName) {
+                case "bpm":
+                case "heart_rate.bpm":
+                case "average":
+                    return FitSampleJoiner.HEART_RATE;
+                case "steps":
+                    return FitSampleJoiner.STEPS;
+                case "oxygen_saturation":
+                    return FitSampleJoiner.SPO2;
+                case "body_temperature":
+                    return FitSampleJoiner.TEMPERATURE;
+                default:
+                    return -1;
+            }
+        }
+    }
+}
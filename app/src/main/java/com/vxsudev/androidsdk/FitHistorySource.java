@@ -0,0 +1,24 @@
+package com.vxsudev.androidsdk;
+
+import java.util.List;
+
+/**
+ * One window of Google Fit history, read and parsed into readings.
+ *
+ * The real implementation ({@link GoogleFitHistorySource}) wraps the Fit HistoryClient;
+ * tests drive {@link ShardedFitReader} with a local fake instead.
+ */
+public interface FitHistorySource {
+
+    /**
+     * Reads [startMillis, endMillis). bucketMillis == 0 asks for raw data points; otherwise
+     * the server aggregates into buckets of that length (bucketByTime), one reading each.
+     * The callback may run on any thread.
+     */
+    void read(long startMillis, long endMillis, long bucketMillis, Callback callback);
+
+    interface Callback {
+        void onSuccess(List<SmartWatchData> readings);
+        void onFailure(Exception e);
+    }
+}
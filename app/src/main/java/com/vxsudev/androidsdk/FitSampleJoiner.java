@@ -0,0 +1,181 @@
+package com.vxsudev.androidsdk;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Joins single-metric Fit samples into one row per time bucket.
+ *
+ * Google Fit returns one data set per data type (heart rate, steps, ...), so a naive decode
+ * produces a heart-rate-only record and a steps-only record for the same minute. Here every
+ * sample is folded into the row of its bucket (floor(timestamp / bucketMillis)): heart rate
+ * is averaged, steps are summed, SpO₂ and temperature keep the latest value.
+ *
+ * Rows live in primitive columns with an open-addressing bucket → row index; consecutive
+ * samples of one bucket (the common, time-ordered case) skip the lookup entirely.
+ * Android-free; not thread-safe — use one joiner per decode.
+ */
+public class FitSampleJoiner {
+
+    public static final int HEART_RATE = 0;
+    public static final int STEPS = 1;
+    public static final int SPO2 = 2;
+    public static final int TEMPERATURE = 3;
+
+    private static final long EMPTY = Long.MIN_VALUE;
+
+    private final long bucketMillis;
+
+    // Row columns, in first-seen order
+    private long[] buckets = new long[16];
+    private double[] heartRateSum = new double[16];
+    private int[] heartRateCount = new int[16];
+    private long[] steps = new long[16];
+    private float[] spO2 = new float[16];
+    private float[] temperature = new float[16];
+    private int size;
+
+    // Open-addressing index: slotKeys holds the bucket (EMPTY when free), slotRows its row + 1
+    private long[] slotKeys = new long[32];
+    private int[] slotRows = new int[32];
+
+    private long lastBucket = EMPTY;
+    private int lastRow = -1;
+
+    public FitSampleJoiner(long bucketMillis) {
+        this.bucketMillis = Math.max(bucketMillis, 1);
+        Arrays.fill(slotKeys, EMPTY);
+    }
+
+    /** Folds one sample of a metric into its bucket's row. Unknown metrics are ignored. */
+    public void add(int metric, long timestamp, float value) {
+        int row = rowFor(Math.floorDiv(timestamp, bucketMillis));
+        switch (metric) {
+            case HEART_RATE:
+                heartRateSum[row] += value;
+                heartRateCount[row]++;
+                break;
+            case STEPS:
+                steps[row] += (long) value;
+                break;
+            case SPO2:
+                spO2[row] = value;
+                break;
+            case TEMPERATURE:
+                temperature[row] = value;
+                break;
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // ---------------- Output ----------------
+
+    /** One reading per bucket, oldest first, stamped with the bucket start. */
+    public List<SmartWatchData> toList(String source) {
+        int[] order = sortedRows();
+        List<SmartWatchData> out = new ArrayList<>(size);
+        for (int row : order) {
+            SmartWatchData d = new SmartWatchData(buckets[row] * bucketMillis, heartRate(row), spO2[row], temperature[row], stepsOf(row));
+            d.setSource(source);
+            out.add(d);
+        }
+        return out;
+    }
+
+    /** Same rows straight into columns. */
+    public SmartWatchSeries toSeries() {
+        SmartWatchSeries series = new SmartWatchSeries(Math.max(size, 1));
+        for (int row : sortedRows()) {
+            series.append(buckets[row] * bucketMillis, heartRate(row), spO2[row], temperature[row], stepsOf(row));
+        }
+        return series;
+    }
+
+    // ---------------- Internals ----------------
+
+    private int heartRate(int row) {
+        return heartRateCount[row] == 0 ? 0 : (int) Math.round(heartRateSum[row] / heartRateCount[row]);
+    }
+
+    private int stepsOf(int row) {
+        return (int) Math.min(steps[row], Integer.MAX_VALUE);
+    }
+
+    private int rowFor(long bucket) {
+        if (bucket == lastBucket) return lastRow;
+        int mask = slotKeys.length - 1;
+        int i = (int) mix(bucket) & mask;
+        while (slotKeys[i] != EMPTY) {
+            if (slotKeys[i] == bucket) return remember(bucket, slotRows[i] - 1);
+            i = (i + 1) & mask;
+        }
+        int row = newRow(bucket);
+        slotKeys[i] = bucket;
+        slotRows[i] = row + 1;
+        if (size * 2 > slotKeys.length) rehash();
+        return remember(bucket, row);
+    }
+
+    private int remember(long bucket, int row) {
+        lastBucket = bucket;
+        lastRow = row;
+        return row;
+    }
+
+    private int newRow(long bucket) {
+        if (size == buckets.length) {
+            int cap = size * 2;
+            buckets = Arrays.copyOf(buckets, cap);
+            heartRateSum = Arrays.copyOf(heartRateSum, cap);
+            heartRateCount = Arrays.copyOf(heartRateCount, cap);
+            steps = Arrays.copyOf(steps, cap);
+            spO2 = Arrays.copyOf(spO2, cap);
+            temperature = Arrays.copyOf(temperature, cap);
+        }
+        buckets[size] = bucket;
+        return size++;
+    }
+
+    private void rehash() {
+        long[] keys = new long[slotKeys.length * 2];
+        int[] rows = new int[keys.length];
+        Arrays.fill(keys, EMPTY);
+        int mask = keys.length - 1;
+        for (int row = 0; row < size; row++) {
+            int i = (int) mix(buckets[row]) & mask;
+            while (keys[i] != EMPTY) i = (i + 1) & mask;
+            keys[i] = buckets[row];
+            rows[i] = row + 1;
+        }
+        slotKeys = keys;
+        slotRows = rows;
+    }
+
+    /** Rows in bucket order; no sort when they were created in order (the usual case). */
+    private int[] sortedRows() {
+        int[] order = new int[size];
+        boolean ascending = true;
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+            if (i > 0 && buckets[i] < buckets[i - 1]) ascending = false;
+        }
+        if (ascending) return order;
+
+        // Buckets are unique: sort the keys and look each row back up, no boxing
+        long[] keys = Arrays.copyOf(buckets, size);
+        Arrays.sort(keys);
+        for (int i = 0; i < size; i++) order[i] = rowFor(keys[i]);
+        return order;
+    }
+
+    private static long mix(long x) {
+        x ^= x >>> 33;
+        x *= 0xff51afd7ed558ccdL;
+        x ^= x >>> 33;
+        return x;
+    }
+}
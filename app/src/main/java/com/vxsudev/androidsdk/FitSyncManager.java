@@ -0,0 +1,149 @@
+package com.vxsudev.androidsdk;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Incremental Google Fit sync: remembers, per data type, the end of the last read that
+ * fully succeeded (its watermark) and only asks Fit for what came after it.
+ *
+ * Each sync reads [oldest watermark - overlap, now) through a {@link ShardedFitReader}, so
+ * a steady-state sync costs time proportional to the new data. The overlap re-reads the
+ * last few minutes because Fit accepts late points (a watch syncing after a gap); readings
+ * in it come back again with their updated values and the caller upserts them (Firestore
+ * document IDs are deterministic per timestamp). The read's start is the bound to pass as
+ * upsertFromMillis / replaceFromMillis ({@link SyncedIdSet#toUpload}, {@link RollupIndex#add(List, long)}),
+ * so those readings get past the "already synced" checks. A data type without a watermark —
+ * first run, or newly granted — is backfilled for initialBackfillMillis.
+ *
+ * Watermarks only move when every shard of the read succeeded, so a failed or cancelled
+ * sync is simply retried from the same point next time. Range edges are aligned to
+ * {@link FitDecoder#DEFAULT_JOIN_MILLIS} so no joined minute is ever split across syncs.
+ *
+ * Android-free; watermarks persist through a {@link WatermarkStore}.
+ */
+public class FitSyncManager {
+
+    public static final long DEFAULT_OVERLAP_MILLIS = 10L * 60 * 1000;
+    public static final long DEFAULT_INITIAL_BACKFILL_MILLIS = 24L * 60 * 60 * 1000;
+
+    private static final long ALIGN_MILLIS = FitDecoder.DEFAULT_JOIN_MILLIS;
+
+    private final ShardedFitReader reader;
+    private final WatermarkStore store;
+    private final List<String> dataTypes;
+    private final long overlapMillis;
+    private final long initialBackfillMillis;
+
+    private ShardedFitReader.Read running; // guarded by this
+
+    public FitSyncManager(FitHistorySource source, WatermarkStore store, List<String> dataTypes) {
+        this(source, store, dataTypes, DEFAULT_OVERLAP_MILLIS, DEFAULT_INITIAL_BACKFILL_MILLIS);
+    }
+
+    public FitSyncManager(FitHistorySource source, WatermarkStore store, List<String> dataTypes,
+                          long overlapMillis, long initialBackfillMillis) {
+        this(new ShardedFitReader(source), store, dataTypes, overlapMillis, initialBackfillMillis);
+    }
+
+    FitSyncManager(ShardedFitReader reader, WatermarkStore store, List<String> dataTypes,
+                   long overlapMillis, long initialBackfillMillis) {
+        this.reader = reader;
+        this.store = store;
+        this.dataTypes = new ArrayList<>(dataTypes);
+        this.overlapMillis = Math.max(overlapMillis, 0);
+        this.initialBackfillMillis = Math.max(initialBackfillMillis, ALIGN_MILLIS);
+    }
+
+    // ---------------- Sync ----------------
+
+    /**
+     * Reads everything since the watermarks (minus the overlap) up to nowMillis and, on full
+     * success, advances every data type's watermark to the end of the read. Only one sync
+     * runs at a time; a call while one is running fails fast.
+     *
+     * @return the running read (cancel() leaves the watermarks untouched), or null
+     */
+    public ShardedFitReader.Read syncSinceWatermark(long nowMillis, Callback callback) {
+        long end = alignUp(nowMillis);
+        long start = alignDown(planStart(end));
+        List<SmartWatchData> readings = new ArrayList<>();
+
+        synchronized (this) {
+            if (running != null && !running.isDone()) {
+                callback.onFailure(new IllegalStateException("Fit sync already running"));
+                return null;
+            }
+            running = reader.readRaw(start, end, new ShardedFitReader.Listener() {
+                @Override
+                public void onShard(long startMillis, long endMillis, List<SmartWatchData> shard) {
+                    synchronized (readings) {
+                        readings.addAll(shard);
+                    }
+                }
+
+                @Override
+                public void onShardFailed(long startMillis, long endMillis, Exception e) {
+                    // Reported once at completion; the watermark stays put
+                }
+
+                @Override
+                public void onComplete(int count, int failedShards, boolean cancelled) {
+                    if (failedShards > 0 || cancelled) {
+                        callback.onFailure(new Exception(cancelled ? "Fit sync cancelled"
+                                : "Fit sync failed (" + failedShards + " shards)"));
+                        return;
+                    }
+                    for (String type : dataTypes) store.putWatermark(type, end);
+                    readings.sort((a, b) -> Long.compare(a.getTimestamp(), b.getTimestamp()));
+                    callback.onSuccess(readings, start, end);
+                }
+            });
+            return running;
+        }
+    }
+
+    /** Start of the next read for a sync ending at endMillis. */
+    long planStart(long endMillis) {
+        long start = Long.MAX_VALUE;
+        for (String type : dataTypes) {
+            long mark = store.getWatermark(type);
+            long from = mark == Long.MIN_VALUE ? endMillis - initialBackfillMillis : mark - overlapMillis;
+            start = Math.min(start, from);
+        }
+        return start == Long.MAX_VALUE ? endMillis : Math.min(start, endMillis);
+    }
+
+    // ---------------- Watermarks ----------------
+
+    /** End of the last fully successful read of a data type, or Long.MIN_VALUE. */
+    public long getWatermark(String dataType) {
+        return store.getWatermark(dataType);
+    }
+
+    /** Forgets all watermarks; the next sync backfills again (e.g. after switching accounts). */
+    public void reset() {
+        for (String type : dataTypes) store.putWatermark(type, Long.MIN_VALUE);
+    }
+
+    private static long alignDown(long t) {
+        return Math.floorDiv(t, ALIGN_MILLIS) * ALIGN_MILLIS;
+    }
+
+    private static long alignUp(long t) {
+        return alignDown(t + ALIGN_MILLIS - 1);
+    }
+
+    // ---------------- Callback interfaces ----------------
+    /** Persistent per-data-type watermarks; Long.MIN_VALUE means "never synced". */
+    public interface WatermarkStore {
+        long getWatermark(String dataType);
+        void putWatermark(String dataType, long endMillis);
+    }
+
+    public interface Callback {
+        /** Readings of [startMillis, endMillis), oldest first; may run on any thread. */
+        void onSuccess(List<SmartWatchData> readings, long startMillis, long endMillis);
+        void onFailure(Exception e);
+    }
+}
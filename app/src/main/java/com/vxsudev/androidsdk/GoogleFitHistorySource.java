@@ -0,0 +1,59 @@
+package com.vxsudev.androidsdk;
+
+import android.content.Context;
+
+import com.google.android.gms.auth.api.signin.GoogleSignInAccount;
+import com.google.android.gms.fitness.Fitness;
+import com.google.android.gms.fitness.data.DataType;
+import com.google.android.gms.fitness.request.DataReadRequest;
+
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link FitHistorySource} over the Google Fit HistoryClient. Replies are parsed on the
+ * given executor, so shards parse in parallel and never on the main thread.
+ */
+public class GoogleFitHistorySource implements FitHistorySource {
+
+    private final Context context;
+    private final GoogleSignInAccount account;
+    private final Executor parseExecutor;
+
+    public GoogleFitHistorySource(Context context, GoogleSignInAccount account, Executor parseExecutor) {
+        this.context = context;
+        this.account = account;
+        this.parseExecutor = parseExecutor;
+    }
+
+    @Override
+    public void read(long startMillis, long endMillis, long bucketMillis, Callback callback) {
+        DataReadRequest.Builder builder = new DataReadRequest.Builder()
+                .setTimeRange(startMillis, endMillis, TimeUnit.MILLISECONDS);
+        if (bucketMillis > 0) {
+            builder.aggregate(DataType.TYPE_HEART_RATE_BPM)
+                    .aggregate(DataType.TYPE_STEP_COUNT_DELTA)
+                    .bucketByTime((int) Math.max(bucketMillis / 1000, 1), TimeUnit.SECONDS);
+        } else {
+            builder.read(DataType.TYPE_HEART_RATE_BPM)
+                    .read(DataType.TYPE_STEP_COUNT_DELTA);
+        }
+
+        Fitness.getHistoryClient(context, account)
+                .readData(builder.build())
+                .addOnSuccessListener(parseExecutor, response -> {
+                    List<SmartWatchData> readings;
+                    try {
+                        readings = bucketMillis > 0
+                                ? FitDecoder.decode(response, bucketMillis)
+                                : GoogleFitManager.parseFitResponse(response);
+                    } catch (RuntimeException e) {
+                        callback.onFailure(e);
+                        return;
+                    }
+                    callback.onSuccess(readings);
+                })
+                .addOnFailureListener(parseExecutor, callback::onFailure);
+    }
+}
@@ -1,23 +1,26 @@
 package com.vxsudev.androidsdk;
 
 import android.app.Activity;
+import android.content.Context;
 import android.content.Intent;
+import android.content.SharedPreferences;
 import android.util.Log;
 import android.widget.Toast;
 
 import com.google.android.gms.auth.api.signin.GoogleSignIn;
 import com.google.android.gms.auth.api.signin.GoogleSignInAccount;
-import com.google.android.gms.fitness.Fitness;
 import com.google.android.gms.fitness.FitnessOptions;
-import com.google.android.gms.fitness.data.DataPoint;
-import com.google.android.gms.fitness.data.DataSet;
 import com.google.android.gms.fitness.data.DataType;
-import com.google.android.gms.fitness.data.Field;
-import com.google.android.gms.fitness.request.DataReadRequest;
 import com.google.android.gms.fitness.result.DataReadResponse;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 
 public class GoogleFitManager {
@@ -26,6 +29,16 @@ public class GoogleFitManager {
     private GoogleSignInAccount account;
     private final FitnessOptions fitnessOptions;
     public static final int FIT_PERMISSIONS_REQUEST_CODE = 1001;
+    private static final String SYNC_PREFS_NAME = "google_fit_sync";
+    private FitSyncManager fitSync; // created on first sync, once the account is known
+
+    // Fit replies are parsed here, one thread per concurrent shard
+    private static final ExecutorService PARSE_EXECUTOR = Executors.newFixedThreadPool(
+            ShardedFitReader.DEFAULT_MAX_IN_FLIGHT, r -> {
+                Thread t = new Thread(r, "FitParse");
+                t.setDaemon(true);
+                return t;
+            });
 
     public GoogleFitManager(Activity activity) {
         this.activity = activity;
@@ -68,47 +81,144 @@ public class GoogleFitManager {
         }
     }
 
+    /**
+     * Last 24 hours of raw readings, read as parallel shards; the callback runs off the main
+     * thread once every shard has reported.
+     */
     public void fetchFitData(FitDataCallback callback) {
+        // Minute-aligned, so shard edges never split one joined minute into two readings
+        long minute = FitDecoder.DEFAULT_JOIN_MILLIS;
+        long end = (System.currentTimeMillis() / minute + 1) * minute;
+        long start = end - TimeUnit.HOURS.toMillis(24);
+        List<SmartWatchData> fitList = new ArrayList<>();
+
+        fetchFitHistory(start, end, 0, new ShardedFitReader.Listener() {
+            @Override
+            public void onShard(long startMillis, long endMillis, List<SmartWatchData> readings) {
+                synchronized (fitList) {
+                    fitList.addAll(readings);
+                }
+            }
+
+            @Override
+            public void onShardFailed(long startMillis, long endMillis, Exception e) {
+                Log.w(TAG, "⚠️ Fit shard " + startMillis + ".." + endMillis + " failed", e);
+            }
+
+            @Override
+            public void onComplete(int readings, int failedShards, boolean cancelled) {
+                if (failedShards > 0 && fitList.isEmpty()) {
+                    callback.onFailure(new Exception("Fit read failed (" + failedShards + " shards)"));
+                    return;
+                }
+                HealthRollups.ingest(activity, fitList, start); // the whole day was re-read
+                callback.onSuccess(fitList);
+            }
+        });
+    }
+
+    /**
+     * Incremental sync: only Fit data newer than the last successful sync (plus a short
+     * overlap for late points) is read. The first sync backfills the last 24 hours.
+     * The callback runs off the main thread.
+     */
+    public void syncFitData(FitDataCallback callback) {
         if (!hasPermission()) {
             callback.onFailure(new Exception("Permission not granted"));
             return;
         }
+        fitSync().syncSinceWatermark(System.currentTimeMillis(), new FitSyncManager.Callback() {
+            @Override
+            public void onSuccess(List<SmartWatchData> readings, long startMillis, long endMillis) {
+                Log.d(TAG, "🔄 Fit sync " + startMillis + ".." + endMillis + ": " + readings.size() + " readings");
+                HealthRollups.ingest(activity, readings, startMillis); // the overlap may have changed
+                callback.onSuccess(readings);
+            }
 
-        long end = System.currentTimeMillis();
-        long start = end - TimeUnit.HOURS.toMillis(24);
+            @Override
+            public void onFailure(Exception e) {
+                callback.onFailure(e);
+            }
+        });
+    }
 
-        DataReadRequest request = new DataReadRequest.Builder()
-                .read(DataType.TYPE_HEART_RATE_BPM)
-                .read(DataType.TYPE_STEP_COUNT_DELTA)
-                .setTimeRange(start, end, TimeUnit.MILLISECONDS)
-                .build();
+    /**
+     * syncFitData for worker threads: blocks until the sync reports. Never call it on the
+     * main thread.
+     */
+    public List<SmartWatchData> syncFitDataBlocking() throws ExecutionException, InterruptedException {
+        CompletableFuture<List<SmartWatchData>> future = new CompletableFuture<>();
+        syncFitData(new FitDataCallback() {
+            @Override
+            public void onSuccess(List<SmartWatchData> fitList) {
+                future.complete(fitList);
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                future.completeExceptionally(e);
+            }
+        });
+        return future.get();
+    }
 
-        Fitness.getHistoryClient(activity, account)
-                .readData(request)
-                .addOnSuccessListener(response -> callback.onSuccess(parseFitResponse(response)))
-                .addOnFailureListener(callback::onFailure);
+    /** Pipeline source emitting one incremental sync; the wait happens on the executor. */
+    public ReadingPipeline.Publisher asSource(Executor executor) {
+        return ReadingPipeline.fromList(this::syncFitDataBlocking, ReadingPipeline.DEFAULT_BATCH_SIZE, executor);
     }
 
-    private List<SmartWatchData> parseFitResponse(DataReadResponse response) {
-        List<SmartWatchData> list = new ArrayList<>();
-        for (DataSet set : response.getDataSets()) {
-            for (DataPoint dp : set.getDataPoints()) {
-                SmartWatchData d = new SmartWatchData();
-                d.setTimestamp(dp.getEndTime(TimeUnit.MILLISECONDS));
-
-                for (Field f : dp.getDataType().getFields()) {
-                    float v = dp.getValue(f).asFloat();
-                    switch (f.getName()) {
-                        case "heart_rate.bpm": d.setHeartRate((int) v); break;
-                        case "steps": d.setSteps((int) v); break;
-                        case "oxygen_saturation": d.setSpO2(v); break;
-                        case "body_temperature": d.setTemperature(v); break;
-                    }
+    /** Forgets the sync watermarks, so the next syncFitData backfills again. */
+    public void resetFitSync() {
+        if (hasPermission()) fitSync().reset();
+    }
+
+    private synchronized FitSyncManager fitSync() {
+        if (fitSync == null) {
+            SharedPreferences prefs = activity.getSharedPreferences(SYNC_PREFS_NAME, Context.MODE_PRIVATE);
+            FitSyncManager.WatermarkStore store = new FitSyncManager.WatermarkStore() {
+                @Override
+                public long getWatermark(String dataType) {
+                    return prefs.getLong("watermark_" + dataType, Long.MIN_VALUE);
                 }
-                list.add(d);
-            }
+
+                @Override
+                public void putWatermark(String dataType, long endMillis) {
+                    prefs.edit().putLong("watermark_" + dataType, endMillis).apply();
+                }
+            };
+            List<String> types = Arrays.asList(
+                    DataType.TYPE_HEART_RATE_BPM.getName(), DataType.TYPE_STEP_COUNT_DELTA.getName());
+            fitSync = new FitSyncManager(new GoogleFitHistorySource(activity, account, PARSE_EXECUTOR), store, types);
         }
-        return list;
+        return fitSync;
+    }
+
+    /**
+     * Reads [start, end) of Fit history in time-window shards with bounded concurrency,
+     * streaming each shard to the listener as it lands. bucketMillis == 0 reads raw points;
+     * otherwise the server aggregates per bucket (bucketByTime), which is far smaller for
+     * long backfills that only need e.g. hourly resolution.
+     *
+     * @return the running read (cancel() stops issuing shards), or null without permission
+     */
+    public ShardedFitReader.Read fetchFitHistory(long start, long end, long bucketMillis, ShardedFitReader.Listener listener) {
+        if (!hasPermission()) {
+            listener.onShardFailed(start, end, new Exception("Permission not granted"));
+            listener.onComplete(0, 1, false);
+            return null;
+        }
+        ShardedFitReader reader = new ShardedFitReader(new GoogleFitHistorySource(activity, account, PARSE_EXECUTOR));
+        return bucketMillis > 0
+                ? reader.readBucketed(start, end, bucketMillis, listener)
+                : reader.readRaw(start, end, listener);
+    }
+
+    /**
+     * Converts a Google Fit DataReadResponse into a list of SmartWatchData objects,
+     * one per minute with heart rate, steps, ... of that minute joined (see {@link FitDecoder}).
+     */
+    public static List<SmartWatchData> parseFitResponse(DataReadResponse response) {
+        return FitDecoder.decode(response);
     }
 
     public interface FitDataCallback {
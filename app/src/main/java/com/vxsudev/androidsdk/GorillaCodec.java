@@ -0,0 +1,608 @@
+package com.vxsudev.androidsdk;
+
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+/**
+ * Gorilla-style compression for smartwatch readings, in blocks of up to blockRows rows.
+ *
+ * Per row, each column is coded against the previous row of the same block:
+ * <ul>
+ *   <li>timestamp: delta-of-delta in variable-width buckets; a steady sampling rate costs
+ *       1 bit a row</li>
+ *   <li>spO2, temperature: XOR with the previous float's bits; an unchanged value costs
+ *       1 bit, a change only its meaningful bits</li>
+ *   <li>heartRate, steps: 1 bit when unchanged, else a zig-zag varint of the delta</li>
+ * </ul>
+ * Slowly changing vitals at a regular rate come to 2–4 bytes a row, against ~40 bytes for a
+ * {@link SmartWatchData} object and ~110 as JSON.
+ *
+ * Each block has a fixed 64-byte header:
+ * {@code [int rows][int payloadBytes][int crc32(payload)][long minTs][long maxTs]
+ * [int minHr][int maxHr][float minSpO2][float maxSpO2][float minTemp][float maxTemp]
+ * [int minSteps][int maxSteps][int crc32(the 60 bytes before)]}. The header has its own
+ * checksum, verified on parse, so a reader can trust the row count before allocating and
+ * skip a block on its time range or value bounds without decoding it. A stream is {@code [int MAGIC][byte VERSION]} followed by
+ * blocks up to EOF.
+ *
+ * Android-free. Encoders and decoders are not thread-safe.
+ */
+public final class GorillaCodec {
+
+    public static final int MAGIC = 0x47524C41; // "GRLA"
+    public static final byte VERSION = 2;
+    public static final int DEFAULT_BLOCK_ROWS = 1024;
+    public static final int BLOCK_HEADER_BYTES = 64;
+
+    private static final int HEADER_CRC_OFFSET = BLOCK_HEADER_BYTES - 4;
+    private static final int MIN_ROW_BITS = 5; // every column costs at least one bit
+
+    private static final int MAX_BLOCK_PAYLOAD = 64 * 1024 * 1024;
+
+    private GorillaCodec() {}
+
+    // ---------------- Whole blocks ----------------
+
+    /** Encodes rows [from, to) of a series as one block (header + payload). */
+    public static byte[] encodeBlock(SmartWatchSeries series, int from, int to) {
+        BlockEncoder block = new BlockEncoder();
+        for (int i = from; i < to; i++) {
+            block.add(series.getTimestamp(i), series.getHeartRate(i), series.getSpO2(i),
+                    series.getTemperature(i), series.getSteps(i));
+        }
+        return block.toBlock();
+    }
+
+    /** Appends every row of a block to into. */
+    public static void decodeBlock(byte[] block, SmartWatchSeries into) throws IOException {
+        BlockHeader header = BlockHeader.parse(block, 0);
+        decodePayload(header, block, BLOCK_HEADER_BYTES, into, false, 0, 0);
+    }
+
+    /** Appends the rows of a block with fromInclusive <= timestamp < toExclusive. */
+    public static void decodeBlock(byte[] block, SmartWatchSeries into, long fromInclusive, long toExclusive)
+            throws IOException {
+        decodeBlock(block, 0, into, fromInclusive, toExclusive);
+    }
+
+    /** Like decodeBlock, for a block starting at buf[offset] (e.g. inside a larger record). */
+    public static void decodeBlock(byte[] buf, int offset, SmartWatchSeries into, long fromInclusive,
+                                   long toExclusive) throws IOException {
+        BlockHeader header = BlockHeader.parse(buf, offset);
+        if (header.overlaps(fromInclusive, toExclusive)) {
+            decodePayload(header, buf, offset + BLOCK_HEADER_BYTES, into, true, fromInclusive, toExclusive);
+        }
+    }
+
+    private static void decodePayload(BlockHeader header, byte[] buf, int offset, SmartWatchSeries into,
+                                      boolean filter, long fromInclusive, long toExclusive) throws IOException {
+        if (buf.length - offset < header.payloadBytes) throw new EOFException("Truncated block");
+        CRC32 crc = new CRC32();
+        crc.update(buf, offset, header.payloadBytes);
+        if ((int) crc.getValue() != header.crc) throw new IOException("Block checksum mismatch");
+
+        BitReader in = new BitReader(buf, offset, header.payloadBytes);
+        into.ensureCapacity(into.size() + header.rows);
+        long ts = 0;
+        long delta = 0;
+        int hr = 0;
+        int steps = 0;
+        FloatXor spO2 = new FloatXor();
+        FloatXor temperature = new FloatXor();
+        for (int i = 0; i < header.rows; i++) {
+            delta += readDeltaOfDelta(in);
+            ts += delta;
+            hr += (int) readIntDelta(in);
+            float s = spO2.read(in);
+            float t = temperature.read(in);
+            steps += (int) readIntDelta(in);
+            if (!filter || (ts >= fromInclusive && ts < toExclusive)) into.append(ts, hr, s, t, steps);
+        }
+    }
+
+    // ---------------- Streaming ----------------
+
+    /** Writes the stream header, then a block every blockRows rows. */
+    public static final class Encoder implements Closeable {
+        private final OutputStream out;
+        private final int blockRows;
+        private final BlockEncoder block = new BlockEncoder();
+        private long rows;
+
+        public Encoder(OutputStream out) throws IOException {
+            this(out, DEFAULT_BLOCK_ROWS);
+        }
+
+        public Encoder(OutputStream out, int blockRows) throws IOException {
+            this.out = out;
+            this.blockRows = Math.max(blockRows, 1);
+            out.write(ByteBuffer.allocate(5).putInt(MAGIC).put(VERSION).array());
+        }
+
+        public void add(long timestamp, int heartRate, float spO2, float temperature, int steps) throws IOException {
+            block.add(timestamp, heartRate, spO2, temperature, steps);
+            rows++;
+            if (block.rows() == blockRows) flushBlock();
+        }
+
+        public void add(SmartWatchData d) throws IOException {
+            add(d.getTimestamp(), d.getHeartRate(), d.getSpO2(), d.getTemperature(), d.getSteps());
+        }
+
+        public void addAll(SmartWatchSeries series) throws IOException {
+            for (int i = 0; i < series.size(); i++) {
+                add(series.getTimestamp(i), series.getHeartRate(i), series.getSpO2(i),
+                        series.getTemperature(i), series.getSteps(i));
+            }
+        }
+
+        /** Writes an already encoded block, ending the open one first. */
+        public void addBlock(byte[] encoded) throws IOException {
+            flushBlock();
+            BlockHeader header = BlockHeader.parse(encoded, 0);
+            out.write(encoded, 0, BLOCK_HEADER_BYTES + header.payloadBytes);
+            rows += header.rows;
+        }
+
+        public long getRows() {
+            return rows;
+        }
+
+        /** Ends the open block early, e.g. before a sync; the next add starts a new one. */
+        public void flushBlock() throws IOException {
+            if (block.rows() == 0) return;
+            out.write(block.toBlock());
+            block.reset();
+        }
+
+        /** Writes the last block and flushes, leaving the stream open (e.g. to fsync it). */
+        public void finish() throws IOException {
+            flushBlock();
+            out.flush();
+        }
+
+        /** Finishes and closes the stream. */
+        @Override
+        public void close() throws IOException {
+            try {
+                finish();
+            } finally {
+                out.close();
+            }
+        }
+    }
+
+    /** Reads a stream block by block; skip() passes over a block without decoding it. */
+    public static final class Decoder implements Closeable {
+        private final DataInputStream in;
+        private final byte[] headerBytes = new byte[BLOCK_HEADER_BYTES];
+        private byte[] payload = new byte[0];
+        private BlockHeader current;
+        private boolean payloadPending;
+
+        public Decoder(InputStream in) throws IOException {
+            this.in = new DataInputStream(in);
+            if (this.in.readInt() != MAGIC) throw new IOException("Not a Gorilla stream");
+            byte version = this.in.readByte();
+            if (version != VERSION) throw new IOException("Unsupported version " + version);
+        }
+
+        /** Header of the next block, or null at the end of the stream. */
+        public BlockHeader next() throws IOException {
+            if (payloadPending) skip();
+            int n = 0;
+            while (n < BLOCK_HEADER_BYTES) {
+                int r = in.read(headerBytes, n, BLOCK_HEADER_BYTES - n);
+                if (r < 0) break;
+                n += r;
+            }
+            if (n == 0) return null;
+            if (n < BLOCK_HEADER_BYTES) throw new EOFException("Truncated block header");
+            current = BlockHeader.parse(headerBytes, 0);
+            payloadPending = true;
+            return current;
+        }
+
+        /** Decodes the block last returned by next() into the series. */
+        public void read(SmartWatchSeries into) throws IOException {
+            read(into, false, 0, 0);
+        }
+
+        /** Decodes the block, keeping rows with fromInclusive <= timestamp < toExclusive. */
+        public void read(SmartWatchSeries into, long fromInclusive, long toExclusive) throws IOException {
+            read(into, true, fromInclusive, toExclusive);
+        }
+
+        private void read(SmartWatchSeries into, boolean filter, long fromInclusive, long toExclusive)
+                throws IOException {
+            if (!payloadPending) throw new IllegalStateException("No block to read; call next()");
+            if (payload.length < current.payloadBytes) payload = new byte[current.payloadBytes];
+            in.readFully(payload, 0, current.payloadBytes);
+            payloadPending = false;
+            decodePayload(current, payload, 0, into, filter, fromInclusive, toExclusive);
+        }
+
+        /** The next block as bytes (header + payload, checksum verified), or null at the end. */
+        public byte[] nextBlock() throws IOException {
+            BlockHeader h = next();
+            if (h == null) return null;
+            byte[] block = new byte[BLOCK_HEADER_BYTES + h.payloadBytes];
+            System.arraycopy(headerBytes, 0, block, 0, BLOCK_HEADER_BYTES);
+            in.readFully(block, BLOCK_HEADER_BYTES, h.payloadBytes);
+            payloadPending = false;
+            CRC32 crc = new CRC32();
+            crc.update(block, BLOCK_HEADER_BYTES, h.payloadBytes);
+            if ((int) crc.getValue() != h.crc) throw new IOException("Block checksum mismatch");
+            return block;
+        }
+
+        /** Skips the block last returned by next(). */
+        public void skip() throws IOException {
+            if (!payloadPending) return;
+            long left = current.payloadBytes;
+            while (left > 0) {
+                long n = in.skip(left);
+                if (n <= 0) {
+                    if (in.read() < 0) throw new EOFException("Truncated block");
+                    n = 1;
+                }
+                left -= n;
+            }
+            payloadPending = false;
+        }
+
+        /** Every row with fromInclusive <= timestamp < toExclusive, skipping blocks outside it. */
+        public SmartWatchSeries readRange(long fromInclusive, long toExclusive) throws IOException {
+            SmartWatchSeries out = new SmartWatchSeries();
+            for (BlockHeader h = next(); h != null; h = next()) {
+                if (h.overlaps(fromInclusive, toExclusive)) read(out, fromInclusive, toExclusive);
+            }
+            return out;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+
+    // ---------------- Block header ----------------
+
+    /** Row count, payload size and checksum, plus each column's range for skipping. */
+    public static final class BlockHeader {
+        public final int rows;
+        public final int payloadBytes;
+        final int crc;
+        public final long minTimestamp;
+        public final long maxTimestamp;
+        public final int minHeartRate;
+        public final int maxHeartRate;
+        public final float minSpO2;
+        public final float maxSpO2;
+        public final float minTemperature;
+        public final float maxTemperature;
+        public final int minSteps;
+        public final int maxSteps;
+
+        private BlockHeader(ByteBuffer b) {
+            rows = b.getInt();
+            payloadBytes = b.getInt();
+            crc = b.getInt();
+            minTimestamp = b.getLong();
+            maxTimestamp = b.getLong();
+            minHeartRate = b.getInt();
+            maxHeartRate = b.getInt();
+            minSpO2 = b.getFloat();
+            maxSpO2 = b.getFloat();
+            minTemperature = b.getFloat();
+            maxTemperature = b.getFloat();
+            minSteps = b.getInt();
+            maxSteps = b.getInt();
+        }
+
+        /** Parses and verifies a header; rows and bounds are safe to use afterwards. */
+        public static BlockHeader parse(byte[] buf, int offset) throws IOException {
+            if (buf.length - offset < BLOCK_HEADER_BYTES) throw new EOFException("Truncated block header");
+            CRC32 crc = new CRC32();
+            crc.update(buf, offset, HEADER_CRC_OFFSET);
+            if ((int) crc.getValue() != ByteBuffer.wrap(buf, offset + HEADER_CRC_OFFSET, 4).getInt()) {
+                throw new IOException("Block header checksum mismatch");
+            }
+            BlockHeader h = new BlockHeader(ByteBuffer.wrap(buf, offset, BLOCK_HEADER_BYTES));
+            if (h.rows < 0 || h.payloadBytes < 0 || h.payloadBytes > MAX_BLOCK_PAYLOAD
+                    || h.rows > (long) h.payloadBytes * 8 / MIN_ROW_BITS) {
+                throw new IOException("Corrupt block header");
+            }
+            return h;
+        }
+
+        /** Whether any row can fall in [fromInclusive, toExclusive). */
+        public boolean overlaps(long fromInclusive, long toExclusive) {
+            return rows > 0 && maxTimestamp >= fromInclusive && minTimestamp < toExclusive;
+        }
+    }
+
+    // ---------------- Block encoder ----------------
+
+    /** Encodes rows incrementally; toBlock() snapshots the block so far. */
+    static final class BlockEncoder {
+        private final BitWriter bits = new BitWriter();
+        private final FloatXor spO2 = new FloatXor();
+        private final FloatXor temperature = new FloatXor();
+        private int rows;
+        private long lastTs;
+        private long lastDelta;
+        private int lastHr;
+        private int lastSteps;
+
+        private long minTs, maxTs;
+        private int minHr, maxHr, minSteps, maxSteps;
+        private float minSpO2, maxSpO2, minTemp, maxTemp;
+
+        BlockEncoder() {
+            reset();
+        }
+
+        void add(long timestamp, int heartRate, float spO2Value, float temperatureValue, int steps) {
+            long delta = timestamp - lastTs;
+            writeDeltaOfDelta(bits, delta - lastDelta);
+            lastDelta = delta;
+            lastTs = timestamp;
+            writeIntDelta(bits, (long) heartRate - lastHr);
+            lastHr = heartRate;
+            spO2.write(bits, spO2Value);
+            temperature.write(bits, temperatureValue);
+            writeIntDelta(bits, (long) steps - lastSteps);
+            lastSteps = steps;
+
+            minTs = Math.min(minTs, timestamp);
+            maxTs = Math.max(maxTs, timestamp);
+            minHr = Math.min(minHr, heartRate);
+            maxHr = Math.max(maxHr, heartRate);
+            minSpO2 = Math.min(minSpO2, spO2Value);
+            maxSpO2 = Math.max(maxSpO2, spO2Value);
+            minTemp = Math.min(minTemp, temperatureValue);
+            maxTemp = Math.max(maxTemp, temperatureValue);
+            minSteps = Math.min(minSteps, steps);
+            maxSteps = Math.max(maxSteps, steps);
+            rows++;
+        }
+
+        int rows() {
+            return rows;
+        }
+
+        /** Encoded size so far, header included. */
+        int sizeBytes() {
+            return BLOCK_HEADER_BYTES + bits.sizeBytes();
+        }
+
+        byte[] toBlock() {
+            int payloadBytes = bits.sizeBytes();
+            byte[] out = new byte[BLOCK_HEADER_BYTES + payloadBytes];
+            bits.copyTo(out, BLOCK_HEADER_BYTES);
+            CRC32 crc = new CRC32();
+            crc.update(out, BLOCK_HEADER_BYTES, payloadBytes);
+            ByteBuffer.wrap(out, 0, BLOCK_HEADER_BYTES)
+                    .putInt(rows).putInt(payloadBytes).putInt((int) crc.getValue())
+                    .putLong(minTs).putLong(maxTs)
+                    .putInt(minHr).putInt(maxHr)
+                    .putFloat(minSpO2).putFloat(maxSpO2)
+                    .putFloat(minTemp).putFloat(maxTemp)
+                    .putInt(minSteps).putInt(maxSteps);
+            crc.reset();
+            crc.update(out, 0, HEADER_CRC_OFFSET);
+            ByteBuffer.wrap(out, HEADER_CRC_OFFSET, 4).putInt((int) crc.getValue());
+            return out;
+        }
+
+        void reset() {
+            bits.reset();
+            spO2.reset();
+            temperature.reset();
+            rows = 0;
+            lastTs = 0;
+            lastDelta = 0;
+            lastHr = 0;
+            lastSteps = 0;
+            minTs = Long.MAX_VALUE;
+            maxTs = Long.MIN_VALUE;
+            minHr = minSteps = Integer.MAX_VALUE;
+            maxHr = maxSteps = Integer.MIN_VALUE;
+            minSpO2 = minTemp = Float.POSITIVE_INFINITY;
+            maxSpO2 = maxTemp = Float.NEGATIVE_INFINITY;
+        }
+    }
+
+    // ---------------- Column codings ----------------
+
+    // Delta-of-delta buckets: '0' | '10' 7 bits | '110' 9 bits | '1110' 16 bits | '11110' 32 bits | '11111' 64 bits
+    private static void writeDeltaOfDelta(BitWriter out, long dod) {
+        if (dod == 0) {
+            out.write(0, 1);
+        } else if (dod >= -63 && dod <= 64) {
+            out.write(0b10, 2);
+            out.write(dod + 63, 7);
+        } else if (dod >= -255 && dod <= 256) {
+            out.write(0b110, 3);
+            out.write(dod + 255, 9);
+        } else if (dod >= -32_767 && dod <= 32_768) {
+            out.write(0b1110, 4);
+            out.write(dod + 32_767, 16);
+        } else if (dod >= -2_147_483_647L && dod <= 2_147_483_648L) {
+            out.write(0b11110, 5);
+            out.write(dod + 2_147_483_647L, 32);
+        } else {
+            out.write(0b11111, 5);
+            out.write(dod, 64);
+        }
+    }
+
+    private static long readDeltaOfDelta(BitReader in) throws IOException {
+        if (in.read(1) == 0) return 0;
+        if (in.read(1) == 0) return in.read(7) - 63;
+        if (in.read(1) == 0) return in.read(9) - 255;
+        if (in.read(1) == 0) return in.read(16) - 32_767;
+        if (in.read(1) == 0) return in.read(32) - 2_147_483_647L;
+        return in.read(64);
+    }
+
+    // '0' when unchanged, else '1' and the zig-zag delta as 7-bit varint groups
+    private static void writeIntDelta(BitWriter out, long delta) {
+        if (delta == 0) {
+            out.write(0, 1);
+            return;
+        }
+        out.write(1, 1);
+        long v = (delta << 1) ^ (delta >> 63);
+        while ((v & ~0x7FL) != 0) {
+            out.write((v & 0x7F) | 0x80, 8);
+            v >>>= 7;
+        }
+        out.write(v, 8);
+    }
+
+    private static long readIntDelta(BitReader in) throws IOException {
+        if (in.read(1) == 0) return 0;
+        long v = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            long b = in.read(8);
+            v |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return (v >>> 1) ^ -(v & 1);
+        }
+        throw new IOException("Corrupt varint");
+    }
+
+    /**
+     * Gorilla XOR coding of one float column: '0' same bits; '10' meaningful bits inside the
+     * previous leading/trailing-zero window; '11' 5-bit leading zeros, 5-bit length - 1, bits.
+     */
+    private static final class FloatXor {
+        private int prevBits;
+        private int prevLeading = -1;
+        private int prevTrailing;
+
+        void reset() {
+            prevBits = 0;
+            prevLeading = -1;
+            prevTrailing = 0;
+        }
+
+        void write(BitWriter out, float value) {
+            int bits = Float.floatToIntBits(value); // canonical NaN
+            int xor = bits ^ prevBits;
+            prevBits = bits;
+            if (xor == 0) {
+                out.write(0, 1);
+                return;
+            }
+            int leading = Integer.numberOfLeadingZeros(xor);
+            int trailing = Integer.numberOfTrailingZeros(xor);
+            if (prevLeading >= 0 && leading >= prevLeading && trailing >= prevTrailing) {
+                out.write(0b10, 2);
+                out.write(xor >>> prevTrailing, 32 - prevLeading - prevTrailing);
+                return;
+            }
+            int meaningful = 32 - leading - trailing;
+            out.write(0b11, 2);
+            out.write(leading, 5);
+            out.write(meaningful - 1, 5);
+            out.write(xor >>> trailing, meaningful);
+            prevLeading = leading;
+            prevTrailing = trailing;
+        }
+
+        float read(BitReader in) throws IOException {
+            if (in.read(1) == 0) return Float.intBitsToFloat(prevBits);
+            int xor;
+            if (in.read(1) == 0) {
+                if (prevLeading < 0) throw new IOException("Corrupt float column");
+                xor = (int) in.read(32 - prevLeading - prevTrailing) << prevTrailing;
+            } else {
+                int leading = (int) in.read(5);
+                int meaningful = (int) in.read(5) + 1;
+                int trailing = 32 - leading - meaningful;
+                if (trailing < 0) throw new IOException("Corrupt float column");
+                xor = (int) in.read(meaningful) << trailing;
+                prevLeading = leading;
+                prevTrailing = trailing;
+            }
+            prevBits ^= xor;
+            return Float.intBitsToFloat(prevBits);
+        }
+    }
+
+    // ---------------- Bits ----------------
+
+    /** MSB-first bit buffer. */
+    static final class BitWriter {
+        private byte[] buf = new byte[256];
+        private long bitCount;
+
+        /** Writes the low n bits of value, 0 <= n <= 64. */
+        void write(long value, int n) {
+            if (n == 0) return;
+            ensure(bitCount + n);
+            for (int left = n; left > 0; ) {
+                int byteIndex = (int) (bitCount >>> 3);
+                int free = 8 - (int) (bitCount & 7);
+                int take = Math.min(free, left);
+                int chunk = (int) ((value >>> (left - take)) & ((1 << take) - 1));
+                buf[byteIndex] |= (byte) (chunk << (free - take));
+                bitCount += take;
+                left -= take;
+            }
+        }
+
+        int sizeBytes() {
+            return (int) ((bitCount + 7) >>> 3);
+        }
+
+        void copyTo(byte[] out, int offset) {
+            System.arraycopy(buf, 0, out, offset, sizeBytes());
+        }
+
+        void reset() {
+            Arrays.fill(buf, 0, sizeBytes(), (byte) 0);
+            bitCount = 0;
+        }
+
+        private void ensure(long bits) {
+            int bytes = (int) ((bits + 7) >>> 3);
+            if (bytes > buf.length) buf = Arrays.copyOf(buf, Math.max(bytes, buf.length * 2));
+        }
+    }
+
+    static final class BitReader {
+        private final byte[] buf;
+        private final long endBit;
+        private long bit;
+
+        BitReader(byte[] buf, int offset, int length) {
+            this.buf = buf;
+            this.bit = (long) offset << 3;
+            this.endBit = (long) (offset + length) << 3;
+        }
+
+        long read(int n) throws IOException {
+            if (bit + n > endBit) throw new EOFException("Truncated block payload");
+            long value = 0;
+            for (int left = n; left > 0; ) {
+                int b = buf[(int) (bit >>> 3)] & 0xFF;
+                int avail = 8 - (int) (bit & 7);
+                int take = Math.min(avail, left);
+                value = (value << take) | ((b >>> (avail - take)) & ((1 << take) - 1));
+                bit += take;
+                left -= take;
+            }
+            return value;
+        }
+    }
+}
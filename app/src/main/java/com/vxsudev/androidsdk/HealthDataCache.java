@@ -0,0 +1,412 @@
+package com.vxsudev.androidsdk;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Local, persistent copy of the smartwatch_data collection for offline range queries.
+ *
+ * Readings are stored in a {@link SnapshotLog} and queried through its memory-mapped,
+ * block-indexed {@link SnapshotLogReader}. Each appended page becomes one record per run
+ * of readings from one source and device within one {@link #BLOCK_SPAN_MILLIS} window,
+ * holding a {@link GorillaCodec} block (2–4 bytes a reading for regular vitals) and stamped
+ * with the run's last timestamp. Runs shorter than {@link #MIN_BLOCK_ROWS}, where a block
+ * header would cost more than it saves, are kept as one 18-byte record per reading, as were
+ * all readings cached before blocks existed.
+ *
+ * A reading is keyed like its Firestore document: (source, device, timestamp).
+ * {@link #append} takes pages in any order — Fit backfill, re-read overlap minutes, late
+ * uploads from another device — and stores each reading that is new or whose values
+ * changed; exact repeats are skipped, so a re-sent page costs nothing. A changed reading is
+ * appended again rather than rewritten in place, and queries return the newest write per
+ * key, oldest first.
+ *
+ * Size bound: once the log exceeds maxBytes the oldest segments (each ~1/8 of the budget)
+ * are deleted, evicting the earliest writes — for in-order pages, the oldest time ranges.
+ *
+ * Android-free; thread-safe through instance synchronization.
+ */
+public class HealthDataCache implements Closeable {
+
+    public static final long DEFAULT_MAX_BYTES = 16L * 1024 * 1024;
+
+    /** Shortest same-source run stored as a block rather than one record per reading. */
+    public static final int MIN_BLOCK_ROWS = 16;
+    /** Widest time range one record covers; bounds how far past a query's end records are read. */
+    public static final long BLOCK_SPAN_MILLIS = 3_600_000L;
+
+    private static final byte FORMAT_VERSION = 1;         // one reading per record
+    private static final byte BLOCK_FORMAT_VERSION = 2;   // a Gorilla block from one source
+    private static final byte DEVICE_BLOCK_VERSION = 3;   // ... and one device
+    private static final int FIXED_BYTES = 18;
+    private static final int SEGMENTS_PER_BUDGET = 8;
+    private static final String[] SOURCES = {null, SmartWatchData.SOURCE_CSV, SmartWatchData.SOURCE_FIT, SmartWatchData.SOURCE_MOCK};
+    private static final int SOURCE_OTHER = 0xff;
+
+    private final SnapshotLog log;
+    private final long maxBytes;
+
+    private long highWaterMark = Long.MIN_VALUE; // newest timestamp stored
+
+    private HealthDataCache(SnapshotLog log, long maxBytes) {
+        this.log = log;
+        this.maxBytes = maxBytes;
+    }
+
+    public static HealthDataCache open(File dir) throws IOException {
+        return open(dir, DEFAULT_MAX_BYTES);
+    }
+
+    public static HealthDataCache open(File dir, long maxBytes) throws IOException {
+        long segmentBytes = Math.max(maxBytes / SEGMENTS_PER_BUDGET, 4096);
+        HealthDataCache cache = new HealthDataCache(SnapshotLog.open(dir, segmentBytes), maxBytes);
+        cache.loadHighWaterMark();
+        return cache;
+    }
+
+    // ---------------- Write ----------------
+
+    /**
+     * Stores the readings not cached yet and those whose values changed, in any order;
+     * exact repeats of cached readings are skipped.
+     *
+     * @return the readings actually stored, oldest first
+     */
+    public synchronized List<SmartWatchData> append(List<SmartWatchData> page) throws IOException {
+        List<SmartWatchData> sorted = SeriesMerger.mergeLists(Collections.singletonList(page), false);
+        sorted.removeIf(Objects::isNull);
+        if (sorted.isEmpty()) return sorted;
+
+        // Readings up to the mark may repeat or update cached ones: look up what is stored
+        Map<Long, byte[]> known = new HashMap<>();
+        long first = sorted.get(0).getTimestamp();
+        if (first <= highWaterMark) {
+            long last = Math.min(sorted.get(sorted.size() - 1).getTimestamp(), highWaterMark);
+            Rows cached = collect(first, last + 1);
+            for (int r = 0; r < cached.series.size(); r++) {
+                known.put(cached.key(r), encode(cached.get(r)));
+            }
+        }
+
+        List<SmartWatchData> stored = new ArrayList<>();
+        for (SmartWatchData d : sorted) {
+            byte[] payload = encode(d);
+            byte[] old = known.put(DocumentIds.hash(d.getSource(), d.getDeviceId(), d.getTimestamp()), payload);
+            if (old != null && Arrays.equals(old, payload)) continue;
+            highWaterMark = Math.max(highWaterMark, d.getTimestamp());
+            stored.add(d);
+        }
+        if (!stored.isEmpty()) {
+            write(stored);
+            log.sync();
+            evict();
+        }
+        return stored;
+    }
+
+    /** Drops everything, e.g. after signing into another account. */
+    public synchronized void clear() throws IOException {
+        log.replaceAll(new ArrayList<>());
+        highWaterMark = Long.MIN_VALUE;
+    }
+
+    // ---------------- Read ----------------
+
+    /** Readings with fromInclusive <= timestamp < toExclusive, oldest first. */
+    public List<SmartWatchData> query(long fromInclusive, long toExclusive) throws IOException {
+        Rows rows = collect(fromInclusive, toExclusive);
+        List<SmartWatchData> out = new ArrayList<>(rows.series.size());
+        for (int r = 0; r < rows.series.size(); r++) out.add(rows.get(r));
+        return out;
+    }
+
+    /** Like query, straight into primitive columns. */
+    public SmartWatchSeries querySeries(long fromInclusive, long toExclusive) throws IOException {
+        return collect(fromInclusive, toExclusive).series;
+    }
+
+    /** Newest cached timestamp, or Long.MIN_VALUE when empty. */
+    public synchronized long getHighWaterMark() {
+        return highWaterMark;
+    }
+
+    public synchronized long getSizeBytes() {
+        return log.getSizeBytes();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        log.close();
+    }
+
+    // ---------------- Internals ----------------
+
+    private void loadHighWaterMark() throws IOException {
+        // Records are stamped with their newest reading
+        SnapshotLogReader.RangeView all = log.reader().all();
+        for (int i = 0; i < all.size(); i++) highWaterMark = Math.max(highWaterMark, all.timestampAt(i));
+    }
+
+    /**
+     * Rows in [fromInclusive, toExclusive), newest write per key, oldest first. Records are
+     * stamped with their last reading and span at most BLOCK_SPAN_MILLIS, so only stamps in
+     * [from, to + span) can hold rows in range.
+     */
+    private Rows collect(long fromInclusive, long toExclusive) throws IOException {
+        long stampTo = toExclusive > Long.MAX_VALUE - BLOCK_SPAN_MILLIS ? Long.MAX_VALUE : toExclusive + BLOCK_SPAN_MILLIS;
+        SnapshotLogReader.RangeView view = log.reader().range(fromInclusive, stampTo);
+        Rows rows = new Rows(Math.max(view.size(), 16));
+        String[] meta = new String[2];
+        boolean ordered = true;
+        for (int i = 0; i < view.size(); i++) {
+            int start = rows.series.size();
+            if (!readRecord(view.timestampAt(i), view.payloadAt(i), fromInclusive, toExclusive, rows.series, meta)) continue;
+            rows.addRecord(meta[0], meta[1], start);
+            for (int r = Math.max(start, 1); r < rows.series.size(); r++) {
+                if (rows.series.getTimestamp(r) <= rows.series.getTimestamp(r - 1)) ordered = false;
+            }
+        }
+        // Strictly increasing rows cannot repeat a key; anything else is deduped and sorted
+        return ordered ? rows : rows.newestPerKeyByTime();
+    }
+
+    /** Writes readings as a block per long run, one record each otherwise. */
+    private void write(List<SmartWatchData> readings) throws IOException {
+        int start = 0;
+        while (start < readings.size()) {
+            SmartWatchData head = readings.get(start);
+            long span = Math.floorDiv(head.getTimestamp(), BLOCK_SPAN_MILLIS);
+            int end = start + 1;
+            while (end < readings.size() && end - start < GorillaCodec.DEFAULT_BLOCK_ROWS) {
+                SmartWatchData d = readings.get(end);
+                if (!Objects.equals(head.getSource(), d.getSource()) || !Objects.equals(head.getDeviceId(), d.getDeviceId())
+                        || Math.floorDiv(d.getTimestamp(), BLOCK_SPAN_MILLIS) != span) {
+                    break;
+                }
+                end++;
+            }
+            if (end - start >= MIN_BLOCK_ROWS) {
+                List<SmartWatchData> run = readings.subList(start, end);
+                log.append(run.get(run.size() - 1).getTimestamp(), encodeBlock(run));
+            } else {
+                for (int i = start; i < end; i++) {
+                    SmartWatchData d = readings.get(i);
+                    log.append(d.getTimestamp(), encode(d));
+                }
+            }
+            start = end;
+        }
+    }
+
+    private void evict() throws IOException {
+        // Earliest writes go first; the high-water mark is unaffected
+        while (log.getSizeBytes() > maxBytes) {
+            if (!log.dropOldestSegment()) break;
+        }
+    }
+
+    /** Decoded rows in write order, with each row's source and device by record. */
+    private static final class Rows {
+        final SmartWatchSeries series;
+        final List<String> sources = new ArrayList<>();
+        final List<String> devices = new ArrayList<>();
+        int[] recordStarts = new int[16];
+
+        Rows(int capacity) {
+            series = new SmartWatchSeries(capacity);
+        }
+
+        void addRecord(String source, String device, int start) {
+            int n = sources.size();
+            if (n == recordStarts.length) recordStarts = Arrays.copyOf(recordStarts, n * 2);
+            recordStarts[n] = start;
+            sources.add(source);
+            devices.add(device);
+        }
+
+        int record(int row) {
+            int i = Arrays.binarySearch(recordStarts, 0, sources.size(), row);
+            if (i >= 0) {
+                // Records that decoded no rows in range share a start: take the last of them
+                while (i + 1 < sources.size() && recordStarts[i + 1] == row) i++;
+                return i;
+            }
+            return -i - 2;
+        }
+
+        long key(int row) {
+            int rec = record(row);
+            return DocumentIds.hash(sources.get(rec), devices.get(rec), series.getTimestamp(row));
+        }
+
+        SmartWatchData get(int row) {
+            int rec = record(row);
+            SmartWatchData d = series.get(row);
+            d.setSource(sources.get(rec));
+            d.setDeviceId(devices.get(rec));
+            return d;
+        }
+
+        /** The last row written for each key, stably sorted by time. */
+        Rows newestPerKeyByTime() {
+            int n = series.size();
+            Map<Long, Integer> newest = new HashMap<>(n * 2);
+            for (int r = 0; r < n; r++) newest.put(key(r), r);
+            Integer[] keep = newest.values().toArray(new Integer[0]);
+            Arrays.sort(keep, (a, b) -> {
+                int c = Long.compare(series.getTimestamp(a), series.getTimestamp(b));
+                return c != 0 ? c : Integer.compare(a, b);
+            });
+            Rows out = new Rows(Math.max(keep.length, 16));
+            for (int r : keep) {
+                int rec = record(r);
+                out.addRecord(sources.get(rec), devices.get(rec), out.series.size());
+                out.series.appendRange(series, r, r + 1);
+            }
+            return out;
+        }
+    }
+
+    // ---------------- Record format ----------------
+    // Version 1, one reading:
+    // [byte 1][int heartRate][float spO2][float temperature][int steps][byte source]
+    // [source UTF-8 only when source byte is 0xff, prefixed by its length byte]
+    // [device length byte + UTF-8, only when the reading has a device]
+    // Version 2, a run of readings from one source (written before devices were kept):
+    // [byte 2][byte source][length byte + UTF-8 only when 0xff][GorillaCodec block]
+    // Version 3, a run from one source and device:
+    // [byte 3][byte source][length byte + UTF-8 only when 0xff][device length byte + UTF-8][block]
+
+    static byte[] encodeBlock(List<SmartWatchData> run) {
+        GorillaCodec.BlockEncoder block = new GorillaCodec.BlockEncoder();
+        for (SmartWatchData d : run) {
+            block.add(d.getTimestamp(), d.getHeartRate(), d.getSpO2(), d.getTemperature(), d.getSteps());
+        }
+        byte[] encoded = block.toBlock();
+        byte[] source = sourceBytes(run.get(0).getSource());
+        byte[] device = deviceBytes(run.get(0).getDeviceId());
+        return ByteBuffer.allocate(2 + source.length + device.length + encoded.length)
+                .put(DEVICE_BLOCK_VERSION).put(source)
+                .put((byte) device.length).put(device).put(encoded).array();
+    }
+
+    /**
+     * Appends the record's readings in [fromInclusive, toExclusive) to into and puts their
+     * source and device in meta[0] and meta[1]. False for a CRC failure or an unknown format.
+     */
+    private static boolean readRecord(long timestamp, byte[] payload, long fromInclusive, long toExclusive,
+                                      SmartWatchSeries into, String[] meta) {
+        if (payload == null || payload.length == 0) return false;
+        if (payload[0] == BLOCK_FORMAT_VERSION || payload[0] == DEVICE_BLOCK_VERSION) {
+            if (payload.length < 2) return false;
+            int code = payload[1] & 0xff;
+            int offset = 2;
+            String name = code < SOURCES.length ? SOURCES[code] : null;
+            if (code == SOURCE_OTHER) {
+                if (payload.length < 3) return false;
+                int len = payload[2] & 0xff;
+                offset = 3 + len;
+                if (offset > payload.length) return false;
+                name = new String(payload, 3, len, StandardCharsets.UTF_8);
+            }
+            String device = null;
+            if (payload[0] == DEVICE_BLOCK_VERSION) {
+                if (offset >= payload.length) return false;
+                int len = payload[offset] & 0xff;
+                if (offset + 1 + len > payload.length) return false;
+                if (len > 0) device = new String(payload, offset + 1, len, StandardCharsets.UTF_8);
+                offset += 1 + len;
+            }
+            try {
+                GorillaCodec.decodeBlock(payload, offset, into, fromInclusive, toExclusive);
+            } catch (IOException e) {
+                return false; // corrupt block; its CRCs failed before anything was appended
+            }
+            meta[0] = name;
+            meta[1] = device;
+            return true;
+        }
+        if (timestamp < fromInclusive || timestamp >= toExclusive) return false;
+        SmartWatchData d = decode(timestamp, payload);
+        if (d == null) return false;
+        into.append(timestamp, d.getHeartRate(), d.getSpO2(), d.getTemperature(), d.getSteps());
+        meta[0] = d.getSource();
+        meta[1] = d.getDeviceId();
+        return true;
+    }
+
+    /** Source code byte, followed by length and UTF-8 for names outside SOURCES. */
+    private static byte[] sourceBytes(String source) {
+        int code = sourceCode(source);
+        byte[] other = code == SOURCE_OTHER ? source.getBytes(StandardCharsets.UTF_8) : null;
+        if (other == null || other.length > 0xff) return new byte[]{(byte) (other == null ? code : 0)};
+        return ByteBuffer.allocate(2 + other.length).put((byte) code).put((byte) other.length).put(other).array();
+    }
+
+    /** UTF-8 of the device ID; empty for none or an unreasonably long one. */
+    private static byte[] deviceBytes(String deviceId) {
+        byte[] bytes = deviceId != null ? deviceId.getBytes(StandardCharsets.UTF_8) : new byte[0];
+        return bytes.length <= 0xff ? bytes : new byte[0];
+    }
+
+    static byte[] encode(SmartWatchData d) {
+        String source = d.getSource();
+        int code = sourceCode(source);
+        byte[] other = code == SOURCE_OTHER ? source.getBytes(StandardCharsets.UTF_8) : null;
+        if (other != null && other.length > 0xff) {
+            other = null;
+            code = 0; // unreasonably long source names are not kept
+        }
+        byte[] device = deviceBytes(d.getDeviceId());
+        ByteBuffer b = ByteBuffer.allocate(FIXED_BYTES + (other != null ? 1 + other.length : 0)
+                + (device.length > 0 ? 1 + device.length : 0));
+        b.put(FORMAT_VERSION)
+                .putInt(d.getHeartRate())
+                .putFloat(d.getSpO2())
+                .putFloat(d.getTemperature())
+                .putInt(d.getSteps())
+                .put((byte) code);
+        if (other != null) b.put((byte) other.length).put(other);
+        if (device.length > 0) b.put((byte) device.length).put(device);
+        return b.array();
+    }
+
+    /** Decoded reading, or null for a CRC failure or an unknown format version. */
+    static SmartWatchData decode(long timestamp, byte[] payload) {
+        if (payload == null || payload.length < FIXED_BYTES || payload[0] != FORMAT_VERSION) return null;
+        ByteBuffer b = ByteBuffer.wrap(payload, 1, payload.length - 1);
+        SmartWatchData d = new SmartWatchData(timestamp, b.getInt(), b.getFloat(), b.getFloat(), b.getInt());
+        int code = b.get() & 0xff;
+        if (code == SOURCE_OTHER && b.remaining() > 0) {
+            int len = b.get() & 0xff;
+            if (len > b.remaining()) return d;
+            d.setSource(new String(payload, b.position(), len, StandardCharsets.UTF_8));
+            b.position(b.position() + len);
+        } else if (code < SOURCES.length) {
+            d.setSource(SOURCES[code]);
+        }
+        if (b.remaining() > 0) {
+            int len = b.get() & 0xff;
+            if (len > 0 && len <= b.remaining()) d.setDeviceId(new String(payload, b.position(), len, StandardCharsets.UTF_8));
+        }
+        return d;
+    }
+
+    private static int sourceCode(String source) {
+        if (source == null) return 0;
+        for (int i = 1; i < SOURCES.length; i++) {
+            if (SOURCES[i].equals(source)) return i;
+        }
+        return SOURCE_OTHER;
+    }
+}
@@ -0,0 +1,144 @@
+package com.vxsudev.androidsdk;
+
+import android.content.Context;
+import android.util.Log;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Read-through cache in front of {@link FirestoreManager}.
+ *
+ * load() answers from the local {@link HealthDataCache} first — no network — then pulls
+ * only documents from {@link #REFETCH_MILLIS} before the cache's high-water mark on, stores
+ * the new and changed ones and reports the new readings that fall in the requested range.
+ * The re-fetched stretch picks up Fit overlap re-reads and late uploads from other devices.
+ * Callbacks run on background threads.
+ */
+public class HealthDataRepository {
+
+    private static final String TAG = "HealthDataRepository";
+    private static final String CACHE_DIR = "health_cache";
+    /** Re-fetched behind the high-water mark on every sync; covers Fit's re-read overlap. */
+    public static final long REFETCH_MILLIS = RollupIndex.REPLACE_WINDOW_MILLIS;
+
+    private final Context appContext;
+    private final File cacheDir;
+    private final FirestoreManager firestoreManager;
+    private final ExecutorService io = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "HealthDataCache");
+        t.setDaemon(true);
+        return t;
+    });
+    private HealthDataCache cache; // opened lazily on the io thread
+
+    public HealthDataRepository(Context context, FirestoreManager firestoreManager) {
+        this.appContext = context.getApplicationContext();
+        this.cacheDir = new File(context.getFilesDir(), CACHE_DIR);
+        this.firestoreManager = firestoreManager;
+    }
+
+    // ---------------- Load ----------------
+    /** Cached readings in [fromInclusive, toExclusive) right away, then the server delta. */
+    public void load(long fromInclusive, long toExclusive, LoadCallback callback) {
+        io.execute(() -> {
+            HealthDataCache c = openCache();
+            if (c != null) {
+                try {
+                    List<SmartWatchData> cached = c.query(fromInclusive, toExclusive);
+                    Log.d(TAG, "📦 " + cached.size() + " readings from local cache");
+                    callback.onCached(cached);
+                } catch (IOException e) {
+                    Log.w(TAG, "⚠️ Cache read failed", e);
+                    callback.onCached(new ArrayList<>());
+                }
+            }
+            reconcile(c, fromInclusive, toExclusive, callback);
+        });
+    }
+
+    /**
+     * Cached readings in [fromInclusive, toExclusive) without touching the network, for worker
+     * threads: blocks until the cache thread has answered. Never call it on the main thread.
+     */
+    public List<SmartWatchData> loadCachedBlocking(long fromInclusive, long toExclusive)
+            throws ExecutionException, InterruptedException {
+        return io.submit(() -> {
+            HealthDataCache c = openCache();
+            return c != null ? c.query(fromInclusive, toExclusive) : new ArrayList<SmartWatchData>();
+        }).get();
+    }
+
+    /** Pulls and caches everything newer than the local copy without reading the cache. */
+    public void sync(LoadCallback callback) {
+        io.execute(() -> reconcile(openCache(), Long.MIN_VALUE, Long.MAX_VALUE, callback));
+    }
+
+    private void reconcile(HealthDataCache c, long fromInclusive, long toExclusive, LoadCallback callback) {
+        long mark = c != null ? c.getHighWaterMark() : Long.MIN_VALUE;
+        long refetchFrom = mark == Long.MIN_VALUE ? Long.MIN_VALUE : mark - REFETCH_MILLIS;
+        List<SmartWatchData> delta = new ArrayList<>();
+        FirestoreManager.PageCallback pages = new FirestoreManager.PageCallback() {
+            @Override
+            public boolean onPage(List<SmartWatchData> page) {
+                List<SmartWatchData> fresh = page;
+                if (c != null) {
+                    try {
+                        fresh = c.append(page);
+                    } catch (IOException e) {
+                        Log.w(TAG, "⚠️ Cache write failed", e);
+                    }
+                }
+                HealthRollups.ingest(appContext, fresh, refetchFrom); // re-fetched values replace
+                for (SmartWatchData d : fresh) {
+                    // Changed older readings are cached and rolled up; only newer ones are reported
+                    if (d.getTimestamp() < mark) continue;
+                    if (d.getTimestamp() >= fromInclusive && d.getTimestamp() < toExclusive) delta.add(d);
+                }
+                return true;
+            }
+
+            @Override
+            public void onComplete(int total) {
+                Log.d(TAG, "✅ Synced " + delta.size() + " new readings");
+                callback.onSynced(delta);
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                Log.e(TAG, "❌ Sync failed, serving cached data only", e);
+                callback.onFailure(e);
+            }
+        };
+
+        if (mark == Long.MIN_VALUE) {
+            firestoreManager.fetchPages(FirestoreManager.DEFAULT_PAGE_SIZE, pages);
+        } else {
+            firestoreManager.fetchSince(refetchFrom, FirestoreManager.DEFAULT_PAGE_SIZE, pages);
+        }
+    }
+
+    // ---------------- Helpers ----------------
+    private HealthDataCache openCache() {
+        if (cache == null) {
+            try {
+                cache = HealthDataCache.open(cacheDir);
+            } catch (IOException e) {
+                Log.e(TAG, "❌ Cannot open local cache", e);
+            }
+        }
+        return cache;
+    }
+
+    // ---------------- Callback interfaces ----------------
+    public interface LoadCallback {
+        void onCached(List<SmartWatchData> cached);
+        void onSynced(List<SmartWatchData> newer);
+        void onFailure(Exception e);
+    }
+}
@@ -0,0 +1,75 @@
+package com.vxsudev.androidsdk;
+
+import android.content.Context;
+import android.util.Log;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * App-wide {@link RollupIndex}, persisted in files/rollups.bin.
+ * - ingest(context, readings) is called wherever readings arrive (CSV, Fit, Firestore sync);
+ *   a reading already counted (same source, device and timestamp) is skipped.
+ * - ingest(context, readings, rereadFromMillis) for a Fit sync: readings from its start on
+ *   were re-read and replace the values counted before.
+ * - get(context) answers range aggregates and chart series from buckets, not samples.
+ *
+ * Saves run on a background thread and coalesce: a burst of ingests appends one delta.
+ */
+public class HealthRollups {
+
+    private static final String TAG = "HealthRollups";
+    private static final String FILE_NAME = "rollups.bin";
+
+    private static RollupIndex index;
+    private static final AtomicBoolean savePending = new AtomicBoolean();
+    private static final ExecutorService saver = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "HealthRollups");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public static synchronized RollupIndex get(Context context) {
+        if (index != null) return index;
+        String deviceId = FirestoreManager.loadDeviceId(context);
+        try {
+            index = RollupIndex.load(file(context), deviceId);
+        } catch (IOException e) {
+            // Readings already seen will be counted again as they re-arrive
+            Log.w(TAG, "⚠️ Unreadable " + FILE_NAME + ", starting over", e);
+            index = new RollupIndex(deviceId);
+        }
+        return index;
+    }
+
+    public static void ingest(Context context, List<SmartWatchData> readings) {
+        ingest(context, readings, Long.MAX_VALUE);
+    }
+
+    public static void ingest(Context context, List<SmartWatchData> readings, long rereadFromMillis) {
+        if (readings == null || readings.isEmpty()) return;
+        RollupIndex rollups = get(context);
+        int counted = rollups.add(readings, rereadFromMillis);
+        if (counted == 0) return;
+        Log.d(TAG, "📈 Rolled up " + counted + " readings");
+
+        File file = file(context);
+        if (!savePending.compareAndSet(false, true)) return;
+        saver.execute(() -> {
+            savePending.set(false);
+            try {
+                rollups.save(file);
+            } catch (IOException e) {
+                Log.e(TAG, "❌ Failed to save rollups", e);
+            }
+        });
+    }
+
+    private static File file(Context context) {
+        return new File(context.getFilesDir(), FILE_NAME);
+    }
+}
@@ -0,0 +1,254 @@
+package com.vxsudev.androidsdk;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs ingestion work (load → fetch → merge → upload) on dedicated, bounded pools so the
+ * main thread only ever sees the final result.
+ *
+ * Three pools keep unrelated work from queueing behind each other: {@link Pool#IO} for disk
+ * (asset/CSV reads, local files), {@link Pool#CPU} for parsing and merging (one thread per
+ * core but one) and {@link Pool#NETWORK} for requests that mostly wait. Each pool has a
+ * bounded queue; work that does not fit, or arrives after {@link #shutdown()}, is rejected
+ * rather than run on the submitting thread (which may be the main thread): the job fails
+ * through {@link Listener#onFailure} with a RejectedExecutionException.
+ *
+ * A {@link Job} is a chain of stages built with {@link #job()} and {@link Chain#then};
+ * each stage runs on its pool and hands its output to the next stage's pool queue.
+ * Progress, completion and failure are posted to the main-thread executor given at
+ * construction. {@link Job#cancel()} interrupts the running stage and skips the rest.
+ *
+ * Android-free: the activity passes a Handler-backed executor for the main thread.
+ */
+public class IngestionScheduler {
+
+    public enum Pool { IO, CPU, NETWORK }
+
+    private static final int QUEUE_CAPACITY = 64;
+
+    private final Executor mainThread;
+    private final ThreadPoolExecutor io;
+    private final ThreadPoolExecutor cpu;
+    private final ThreadPoolExecutor network;
+
+    public IngestionScheduler(Executor mainThread) {
+        this(mainThread, 2, Math.max(Runtime.getRuntime().availableProcessors() - 1, 1), 4);
+    }
+
+    public IngestionScheduler(Executor mainThread, int ioThreads, int cpuThreads, int networkThreads) {
+        this.mainThread = mainThread;
+        this.io = newPool("Ingest-IO", ioThreads);
+        this.cpu = newPool("Ingest-CPU", cpuThreads);
+        this.network = newPool("Ingest-Net", networkThreads);
+    }
+
+    // ---------------- Jobs ----------------
+
+    /** Starts building a job; the first stage receives null. */
+    public Chain<Void> job() {
+        return new Chain<>(Collections.emptyList());
+    }
+
+    /**
+     * Fire-and-forget task on a pool (e.g. an upload after the render). A rejected task is
+     * not run; the returned future holds the RejectedExecutionException.
+     */
+    public Future<?> execute(Pool pool, Runnable task) {
+        try {
+            return executor(pool).submit(task);
+        } catch (RejectedExecutionException e) {
+            CompletableFuture<Void> rejected = new CompletableFuture<>();
+            rejected.completeExceptionally(e);
+            return rejected;
+        }
+    }
+
+    /**
+     * The pool as a plain Executor, e.g. for ReadingPipeline stages. Like the jobs, execute
+     * throws RejectedExecutionException when the pool is full or shut down.
+     */
+    public Executor asExecutor(Pool pool) {
+        return executor(pool);
+    }
+
+    /** Posts to the main thread. */
+    public void postToMain(Runnable task) {
+        mainThread.execute(task);
+    }
+
+    /** Stops accepting work and interrupts running tasks, e.g. from onDestroy. */
+    public void shutdown() {
+        io.shutdownNow();
+        cpu.shutdownNow();
+        network.shutdownNow();
+    }
+
+    private ThreadPoolExecutor executor(Pool pool) {
+        switch (pool) {
+            case IO: return io;
+            case CPU: return cpu;
+            default: return network;
+        }
+    }
+
+    private static ThreadPoolExecutor newPool(String name, int threads) {
+        int n = Math.max(threads, 1);
+        AtomicInteger count = new AtomicInteger();
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(n, n, 30, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(QUEUE_CAPACITY), r -> {
+                    Thread t = new Thread(r, name + "-" + count.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                }, new ThreadPoolExecutor.AbortPolicy());
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+    /** Immutable list of stages; then() returns a longer chain, start() runs it. */
+    public final class Chain<T> {
+        private final List<StageSpec> stages;
+
+        private Chain(List<StageSpec> stages) {
+            this.stages = stages;
+        }
+
+        public <R> Chain<R> then(Pool pool, Stage<? super T, ? extends R> stage) {
+            List<StageSpec> next = new ArrayList<>(stages);
+            next.add(new StageSpec(pool, stage));
+            return new Chain<>(Collections.unmodifiableList(next));
+        }
+
+        public Job start(Listener<? super T> listener) {
+            Job job = new Job(stages, listener);
+            job.runStage(0, null);
+            return job;
+        }
+    }
+
+    private static final class StageSpec {
+        final Pool pool;
+        final Stage<Object, Object> stage;
+
+        @SuppressWarnings("unchecked")
+        StageSpec(Pool pool, Stage<?, ?> stage) {
+            this.pool = pool;
+            this.stage = (Stage<Object, Object>) stage;
+        }
+    }
+
+    /** One running chain. */
+    public final class Job implements Progress {
+        private final List<StageSpec> stages;
+        @SuppressWarnings("rawtypes")
+        private final Listener listener;
+        private final AtomicBoolean cancelled = new AtomicBoolean();
+        private final AtomicBoolean progressPosted = new AtomicBoolean();
+        private volatile Future<?> current;
+        private volatile int stageIndex;
+        private volatile int done;
+        private volatile int total;
+
+        private Job(List<StageSpec> stages, Listener<?> listener) {
+            this.stages = stages;
+            this.listener = listener;
+        }
+
+        /** Skips the remaining stages and interrupts the running one; onCancelled follows on main. */
+        public void cancel() {
+            if (!cancelled.compareAndSet(false, true)) return;
+            Future<?> f = current;
+            if (f != null) f.cancel(true);
+            mainThread.execute(listener::onCancelled);
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return cancelled.get();
+        }
+
+        /**
+         * Reports progress within the running stage. Updates are coalesced: at most one is
+         * queued on the main thread at a time, so tight loops can report freely.
+         */
+        @Override
+        public void update(int done, int total) {
+            this.done = done;
+            this.total = total;
+            postProgress();
+        }
+
+        private void postProgress() {
+            if (!progressPosted.compareAndSet(false, true)) return;
+            mainThread.execute(() -> {
+                progressPosted.set(false);
+                if (!cancelled.get()) listener.onProgress(stageIndex, stages.size(), done, total);
+            });
+        }
+
+        @SuppressWarnings("unchecked")
+        private void runStage(int index, Object input) {
+            if (cancelled.get()) return;
+            if (index == stages.size()) {
+                mainThread.execute(() -> {
+                    if (!cancelled.get()) listener.onComplete(input);
+                });
+                return;
+            }
+            StageSpec spec = stages.get(index);
+            stageIndex = index;
+            done = 0;
+            total = 0;
+            postProgress();
+            // Published before it can run, so cancel() always sees the live stage
+            FutureTask<Void> task = new FutureTask<>(() -> {
+                if (cancelled.get()) return;
+                Object output;
+                try {
+                    output = spec.stage.run(input, this);
+                } catch (Exception e) {
+                    if (cancelled.get()) return; // interrupted by cancel()
+                    mainThread.execute(() -> listener.onFailure(e));
+                    return;
+                }
+                runStage(index + 1, output);
+            }, null);
+            current = task;
+            try {
+                executor(spec.pool).execute(task);
+            } catch (RejectedExecutionException e) {
+                if (!cancelled.get()) mainThread.execute(() -> listener.onFailure(e));
+            }
+        }
+    }
+
+    // ---------------- Callback interfaces ----------------
+    /** One step of a job; runs on its pool and may block (it is interrupted on cancel). */
+    public interface Stage<I, O> {
+        O run(I input, Progress progress) throws Exception;
+    }
+
+    public interface Progress {
+        void update(int done, int total);
+        boolean isCancelled();
+    }
+
+    /** All methods run on the main thread. */
+    public interface Listener<T> {
+        default void onProgress(int stage, int stages, int done, int total) {}
+        void onComplete(T result);
+        void onFailure(Exception e);
+        default void onCancelled() {}
+    }
+}
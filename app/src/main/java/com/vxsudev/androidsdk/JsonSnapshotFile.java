@@ -0,0 +1,50 @@
+package com.vxsudev.androidsdk;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+/**
+ * Whole-file JSON storage. {@link SecureStore} keeps its single latest snapshot here;
+ * history lives in {@link SnapshotLog}.
+ */
+public class JsonSnapshotFile {
+
+    private final File file;
+
+    public JsonSnapshotFile(File file) {
+        this.file = file;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    // ---------------- Single snapshot ----------------
+
+    public void writeObject(JSONObject snapshot) throws IOException {
+        write(snapshot.toString());
+    }
+
+    public JSONObject readObject() throws IOException, JSONException {
+        return new JSONObject(read());
+    }
+
+    // ---------------- File I/O ----------------
+
+    private String read() throws IOException {
+        // Reads to EOF — available() is only an estimate and may truncate
+        return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+    }
+
+    private void write(String json) throws IOException {
+        try (FileOutputStream fos = new FileOutputStream(file)) {
+            fos.write(json.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+}
@@ -0,0 +1,323 @@
+package com.vxsudev.androidsdk;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Synthetic fleet of smartwatches for load tests: many devices, each a realistic stream
+ * (resting/active heart-rate phases, step bursts, slowly drifting SpO₂ and temperature)
+ * written straight into {@link SmartWatchSeries} columns — no per-reading objects.
+ *
+ * Every device has its own {@link SplittableRandom} derived from (seed, device index), so
+ * devices generate in parallel without sharing an RNG and a device's stream is identical
+ * however many threads run or in which order. Knobs (see {@link Builder}):
+ * <ul>
+ *   <li>rate: one sample per intervalMillis, samplesPerDevice slots per device</li>
+ *   <li>jitter: each timestamp moves by up to ±jitterMillis (order is kept)</li>
+ *   <li>gaps: with gapProbability a slot starts an outage of 1..maxGapSamples slots</li>
+ *   <li>anomalies: with anomalyProbability a slot is a heart-rate spike or dropout, an SpO₂
+ *       desaturation, a fever reading or a duplicate of the previous timestamp</li>
+ * </ul>
+ * Android-free.
+ */
+public class LoadGenerator {
+
+    private static final int CSV_CHUNK_CHARS = 64 * 1024;
+
+    private final int devices;
+    private final long startMillis;
+    private final int samplesPerDevice;
+    private final long intervalMillis;
+    private final long jitterMillis;
+    private final double gapProbability;
+    private final int maxGapSamples;
+    private final double anomalyProbability;
+    private final long seed;
+    private final int parallelism;
+
+    private LoadGenerator(Builder b) {
+        this.devices = b.devices;
+        this.startMillis = b.startMillis;
+        this.samplesPerDevice = b.samplesPerDevice;
+        this.intervalMillis = b.intervalMillis;
+        this.jitterMillis = Math.min(b.jitterMillis, b.intervalMillis / 2 - 1);
+        this.gapProbability = b.gapProbability;
+        this.maxGapSamples = b.maxGapSamples;
+        this.anomalyProbability = b.anomalyProbability;
+        this.seed = b.seed;
+        this.parallelism = b.parallelism;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public int getDevices() {
+        return devices;
+    }
+
+    /** Source string stamped on a device's readings; distinct per device so document IDs are too. */
+    public static String sourceOf(int device) {
+        return SmartWatchData.SOURCE_MOCK + "-" + device;
+    }
+
+    // ---------------- Generation ----------------
+
+    /** One device's stream, oldest first. Deterministic for (seed, device). */
+    public SmartWatchSeries device(int device) {
+        SplittableRandom rng = new SplittableRandom(mix(seed + 0x9E3779B97F4A7C15L * (device + 1)));
+        SmartWatchSeries series = new SmartWatchSeries(samplesPerDevice);
+
+        int baseHr = 56 + rng.nextInt(22);
+        double hr = baseHr;
+        double spO2 = 96.5 + rng.nextDouble() * 2;
+        double temperature = 36.3 + rng.nextDouble() * 0.6;
+        boolean active = false;
+        double stepsPerSlot = intervalMillis / 60_000.0; // ~1 at one sample a minute
+        long lastTs = Long.MIN_VALUE;
+
+        for (int slot = 0; slot < samplesPerDevice; slot++) {
+            if (gapProbability > 0 && rng.nextDouble() < gapProbability) {
+                slot += rng.nextInt(maxGapSamples); // this slot plus up to maxGapSamples - 1 more
+                continue;
+            }
+            if (rng.nextDouble() < (active ? 0.05 : 0.01)) active = !active;
+
+            // Heart rate relaxes towards the phase target; SpO₂ and temperature wander slowly
+            double target = active ? baseHr + 45 : baseHr;
+            hr += (target - hr) * 0.15 + (rng.nextDouble() - 0.5) * 4;
+            spO2 = clamp(spO2 + (rng.nextDouble() - 0.5) * 0.3 + (97.5 - spO2) * 0.05, 93, 100);
+            temperature = clamp(temperature + (rng.nextDouble() - 0.5) * 0.04 + (36.6 - temperature) * 0.01, 35.8, 37.6);
+            int steps = (int) Math.round((active ? 80 + rng.nextInt(50) : rng.nextInt(6)) * stepsPerSlot);
+
+            long ts = startMillis + slot * intervalMillis;
+            if (jitterMillis > 0) ts += rng.nextLong(-jitterMillis, jitterMillis + 1);
+            if (ts <= lastTs) ts = lastTs + 1;
+
+            int outHr = (int) Math.round(hr);
+            float outSpO2 = (float) spO2;
+            float outTemperature = (float) temperature;
+            if (anomalyProbability > 0 && rng.nextDouble() < anomalyProbability) {
+                switch (rng.nextInt(5)) {
+                    case 0: outHr = 180 + rng.nextInt(60); break;           // spike
+                    case 1: outHr = 0; break;                                 // sensor dropout
+                    case 2: outSpO2 = 80 + rng.nextInt(9); break;             // desaturation
+                    case 3: outTemperature = 38.5f + rng.nextInt(15) / 10f; break; // fever
+                    default: if (lastTs != Long.MIN_VALUE) ts = lastTs; break;    // duplicate timestamp
+                }
+            }
+            series.append(ts, outHr, outSpO2, outTemperature, steps);
+            lastTs = ts;
+        }
+        return series;
+    }
+
+    /** Every device, generated in parallel on a pool of the configured parallelism. */
+    public SmartWatchSeries[] generate() {
+        SmartWatchSeries[] out = new SmartWatchSeries[devices];
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            pool.submit(() -> IntStream.range(0, devices).parallel().forEach(i -> out[i] = device(i))).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+        return out;
+    }
+
+    // ---------------- Output ----------------
+
+    /**
+     * Writes one device as CSV: timestamp (epoch millis),heartRate,spO2,temperature,steps.
+     * {@link CsvSchema} maps the header, so gaps and jitter survive a parse back.
+     *
+     * @return rows written
+     */
+    public int writeCsv(SmartWatchSeries series, OutputStream out) throws IOException {
+        // Rows are formatted into a chunk and written 64 KB at a time
+        StringBuilder chunk = new StringBuilder(CSV_CHUNK_CHARS + 64);
+        chunk.append("timestamp,heartRate,spO2,temperature,steps\n");
+        for (int i = 0; i < series.size(); i++) {
+            chunk.append(series.getTimestamp(i)).append(',');
+            chunk.append(series.getHeartRate(i)).append(',');
+            appendOneDecimal(chunk, series.getSpO2(i)).append(',');
+            appendOneDecimal(chunk, series.getTemperature(i)).append(',');
+            chunk.append(series.getSteps(i)).append('\n');
+            if (chunk.length() >= CSV_CHUNK_CHARS) {
+                out.write(chunk.toString().getBytes(StandardCharsets.US_ASCII));
+                chunk.setLength(0);
+            }
+        }
+        out.write(chunk.toString().getBytes(StandardCharsets.US_ASCII));
+        out.flush();
+        return series.size();
+    }
+
+    /** One CSV per device (device-0000.csv, ...) written in parallel; returns total rows. */
+    public long writeCsvFiles(File dir) throws IOException {
+        if (!dir.isDirectory() && !dir.mkdirs()) throw new IOException("Cannot create " + dir);
+        long[] rows = new long[devices];
+        IOException[] failure = new IOException[1];
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            pool.submit(() -> IntStream.range(0, devices).parallel().forEach(i -> {
+                File file = new File(dir, String.format(Locale.US, "device-%04d.csv", i));
+                try (OutputStream out = new FileOutputStream(file)) {
+                    rows[i] = writeCsv(device(i), out);
+                } catch (IOException e) {
+                    synchronized (failure) {
+                        failure[0] = e;
+                    }
+                }
+            })).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IOException(e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+        if (failure[0] != null) throw failure[0];
+        long total = 0;
+        for (long r : rows) total += r;
+        return total;
+    }
+
+    /** Writes one device as a {@link ColumnarBlob} tagged with {@link #sourceOf}; the stream is closed. */
+    public int writeBlob(int device, OutputStream out) throws IOException {
+        SmartWatchSeries series = device(device);
+        try (ColumnarBlob.Writer writer = new ColumnarBlob.Writer(out, sourceOf(device))) {
+            writer.addAll(series);
+        }
+        return series.size();
+    }
+
+    /**
+     * Pipeline source streaming every device in turn, batchSize readings per batch, each
+     * reading tagged with {@link #sourceOf}. Generation happens on the executor, one device
+     * ahead of what the pipeline consumes.
+     */
+    public ReadingPipeline.Publisher asSource(int batchSize, Executor executor) {
+        int size = Math.max(batchSize, 1);
+        ReadingPipeline.PushSource source = new ReadingPipeline.PushSource();
+        source.onStart(() -> executor.execute(() -> {
+            for (int d = 0; d < devices; d++) {
+                SmartWatchSeries series = device(d);
+                String tag = sourceOf(d);
+                for (int from = 0; from < series.size(); from += size) {
+                    int to = Math.min(from + size, series.size());
+                    List<SmartWatchData> batch = new ArrayList<>(to - from);
+                    for (int i = from; i < to; i++) {
+                        SmartWatchData r = series.get(i);
+                        r.setSource(tag);
+                        batch.add(r);
+                    }
+                    if (!source.emit(batch)) return;
+                }
+            }
+            source.complete();
+        }));
+        return source;
+    }
+
+    // ---------------- Helpers ----------------
+
+    private static double clamp(double v, double min, double max) {
+        return v < min ? min : Math.min(v, max);
+    }
+
+    private static StringBuilder appendOneDecimal(StringBuilder sb, float value) {
+        int tenths = Math.round(value * 10f);
+        return sb.append(tenths / 10).append('.').append(tenths % 10);
+    }
+
+    private static long mix(long x) {
+        x = (x ^ (x >>> 33)) * 0xff51afd7ed558ccdL;
+        x = (x ^ (x >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return x ^ (x >>> 33);
+    }
+
+    // ---------------- Builder ----------------
+    public static final class Builder {
+        private int devices = 1;
+        private long startMillis = 1_700_000_000_000L;
+        private int samplesPerDevice = 1440;
+        private long intervalMillis = 60_000;
+        private long jitterMillis;
+        private double gapProbability;
+        private int maxGapSamples = 30;
+        private double anomalyProbability;
+        private long seed = 42;
+        private int parallelism = Runtime.getRuntime().availableProcessors();
+
+        private Builder() {}
+
+        public Builder devices(int devices) {
+            this.devices = Math.max(devices, 1);
+            return this;
+        }
+
+        public Builder start(long startMillis) {
+            this.startMillis = startMillis;
+            return this;
+        }
+
+        public Builder samplesPerDevice(int samples) {
+            this.samplesPerDevice = Math.max(samples, 0);
+            return this;
+        }
+
+        /** Sampling period; the rate is 1 / intervalMillis per device. */
+        public Builder interval(long intervalMillis) {
+            this.intervalMillis = Math.max(intervalMillis, 2);
+            return this;
+        }
+
+        /** Capped below half the interval so timestamps stay ordered. */
+        public Builder jitter(long jitterMillis) {
+            this.jitterMillis = Math.max(jitterMillis, 0);
+            return this;
+        }
+
+        public Builder gaps(double probability, int maxGapSamples) {
+            this.gapProbability = probability;
+            this.maxGapSamples = Math.max(maxGapSamples, 1);
+            return this;
+        }
+
+        public Builder anomalies(double probability) {
+            this.anomalyProbability = probability;
+            return this;
+        }
+
+        public Builder seed(long seed) {
+            this.seed = seed;
+            return this;
+        }
+
+        public Builder parallelism(int threads) {
+            this.parallelism = Math.max(threads, 1);
+            return this;
+        }
+
+        public LoadGenerator build() {
+            return new LoadGenerator(this);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.vxsudev.androidsdk;
+
+/**
+ * Largest-Triangle-Three-Buckets downsampling over evenly spaced samples (x = index).
+ *
+ * Picks threshold points from a range: the first and last are kept, the rest are split
+ * into threshold - 2 buckets and each contributes the point forming the largest triangle
+ * with the previously picked point and the next bucket's average. Peaks and dips survive,
+ * unlike plain striding. Linear in the range length, no allocation beyond the output.
+ */
+public final class Lttb {
+
+    private Lttb() {}
+
+    /** Sample value accessor, so int and float columns share one implementation. */
+    public interface Values {
+        float get(int index);
+    }
+
+    /**
+     * Writes the indices of the picked samples of [from, to) into out, ascending.
+     * When the range already fits (or threshold < 3) every index is written.
+     *
+     * @param out at least min(to - from, max(threshold, 2)) long
+     * @return number of indices written
+     */
+    public static int select(Values values, int from, int to, int threshold, int[] out) {
+        int n = to - from;
+        if (n <= 0) return 0;
+        if (threshold >= n || threshold < 3) {
+            if (threshold < 3 && n > 2) {
+                out[0] = from;
+                out[1] = to - 1;
+                return 2;
+            }
+            for (int i = 0; i < n; i++) out[i] = from + i;
+            return n;
+        }
+
+        double every = (double) (n - 2) / (threshold - 2);
+        int k = 0;
+        int a = from;
+        out[k++] = a;
+
+        for (int b = 0; b < threshold - 2; b++) {
+            // Average of the next bucket (the last point when this is the final bucket)
+            int avgStart = from + (int) ((b + 1) * every) + 1;
+            int avgEnd = Math.min(from + (int) ((b + 2) * every) + 1, to);
+            double avgX = 0, avgY = 0;
+            for (int i = avgStart; i < avgEnd; i++) {
+                avgX += i;
+                avgY += values.get(i);
+            }
+            int avgCount = avgEnd - avgStart;
+            if (avgCount > 0) {
+                avgX /= avgCount;
+                avgY /= avgCount;
+            } else {
+                avgX = to - 1;
+                avgY = values.get(to - 1);
+            }
+
+            int rangeStart = from + (int) (b * every) + 1;
+            int rangeEnd = from + (int) ((b + 1) * every) + 1;
+            double ax = a, ay = values.get(a);
+            double maxArea = -1;
+            int picked = rangeStart;
+            for (int i = rangeStart; i < rangeEnd; i++) {
+                // Twice the triangle area; the factor does not change the argmax
+                double area = Math.abs((ax - avgX) * (values.get(i) - ay) - (ax - i) * (avgY - ay));
+                if (area > maxArea) {
+                    maxArea = area;
+                    picked = i;
+                }
+            }
+            out[k++] = picked;
+            a = picked;
+        }
+
+        out[k++] = to - 1;
+        return k;
+    }
+}
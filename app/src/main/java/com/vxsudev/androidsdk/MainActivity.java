@@ -2,14 +2,19 @@ package com.vxsudev.androidsdk;
 
 import android.content.Intent;
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
 import android.util.Log;
 import android.widget.*;
 import androidx.appcompat.app.AppCompatActivity;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
 
 public class MainActivity extends AppCompatActivity {
 
     private static final String TAG = "MainActivity";
+    private static final long HISTORY_MILLIS = 7L * 24 * 60 * 60 * 1000;
 
     private Button btnGenerate;
     private TextView tvSource;
@@ -19,6 +24,11 @@ public class MainActivity extends AppCompatActivity {
     private DataVisualizer dataVisualizer;
     private FirestoreManager firestoreManager;
     private GoogleFitManager googleFitManager;
+    private HealthDataRepository healthDataRepository;
+    private IngestionScheduler ingestionScheduler;
+    private IngestionScheduler.Job generateJob;
+    private ReadingPipeline.Handle uploadPipeline;
+    private boolean historyFromRollups; // the charts show rollup means, not samples
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -31,64 +41,220 @@ public class MainActivity extends AppCompatActivity {
 
         csvDataLoader = new CSVDataLoader();
         dataVisualizer = new DataVisualizer();
-        firestoreManager = new FirestoreManager();
+        firestoreManager = new FirestoreManager(this);
         googleFitManager = new GoogleFitManager(this);
+        healthDataRepository = new HealthDataRepository(this, firestoreManager);
+        ingestionScheduler = new IngestionScheduler(new Handler(Looper.getMainLooper())::post);
 
         btnGenerate.setOnClickListener(v -> handleGenerateClick());
+        showCachedHistory();
     }
 
+    // Cold start: chart the local copy immediately, then whatever the server has that is newer
+    private void showCachedHistory() {
+        long from = System.currentTimeMillis() - HISTORY_MILLIS;
+        healthDataRepository.load(from, Long.MAX_VALUE,
+                new HealthDataRepository.LoadCallback() {
+                    @Override
+                    public void onCached(List<SmartWatchData> cached) {
+                        if (cached.isEmpty()) return;
+                        RollupIndex rollups = HealthRollups.get(MainActivity.this); // loads off the UI thread
+                        runOnUiThread(() -> {
+                            tvSource.setText("📦 Source: Local cache");
+                            if (!renderRollups(rollups, from)) {
+                                dataVisualizer.renderCharts(MainActivity.this, chartContainer, cached);
+                            }
+                        });
+                    }
+
+                    @Override
+                    public void onSynced(List<SmartWatchData> newer) {
+                        if (newer.isEmpty()) return;
+                        runOnUiThread(() -> {
+                            tvSource.setText("📦 Source: Local cache + Firestore");
+                            // The repository rolled the new readings up before reporting them
+                            if (!historyFromRollups || !renderRollups(HealthRollups.get(MainActivity.this), from)) {
+                                dataVisualizer.appendData(MainActivity.this, chartContainer, newer);
+                            }
+                        });
+                    }
+
+                    @Override
+                    public void onFailure(Exception e) {
+                        Log.w(TAG, "⚠️ History sync failed", e);
+                    }
+                });
+    }
+
+    /**
+     * Charts [from, now) from rollup means when the range is wide enough for minute buckets
+     * (a week on a phone). False when it is shorter or nothing is rolled up yet: draw samples.
+     */
+    private boolean renderRollups(RollupIndex rollups, long from) {
+        long to = System.currentTimeMillis();
+        historyFromRollups = rollups.aggregate(from, to).getCount() > 0
+                && dataVisualizer.renderRange(this, chartContainer, rollups, from, to);
+        return historyFromRollups;
+    }
+
+    // Load, sync and merge run on the ingestion pools; only the render comes back here
     private void handleGenerateClick() {
         Log.d(TAG, "▶️ Generate Watch Data clicked");
+        if (generateJob != null) generateJob.cancel();
+        if (uploadPipeline != null) uploadPipeline.cancel();
+
+        boolean fitGranted = googleFitManager.hasPermission();
+        String[] stageLabels = fitGranted
+                ? new String[]{"📂 Loading CSV...", "📡 Syncing Google Fit data...", "🔀 Merging..."}
+                : new String[]{"📂 Loading CSV..."};
+
+        IngestionScheduler.Chain<GenerateResult> chain = ingestionScheduler.job()
+                .then(IngestionScheduler.Pool.IO, (ignored, progress) -> {
+                    GenerateResult result = new GenerateResult();
+                    result.csv = csvDataLoader.loadFromCSV(this, "smartwatch_data.csv");
+                    try {
+                        result.history = healthDataRepository.loadCachedBlocking(
+                                System.currentTimeMillis() - HISTORY_MILLIS, Long.MAX_VALUE);
+                    } catch (ExecutionException e) {
+                        Log.w(TAG, "⚠️ Cache read failed, charting CSV + Fit only", e.getCause());
+                        result.history = new ArrayList<>();
+                    }
+                    return result;
+                });
+        if (fitGranted) {
+            chain = chain
+                    .then(IngestionScheduler.Pool.NETWORK, (result, progress) -> {
+                        if (result.csv == null || result.csv.isEmpty()) return result;
+                        try {
+                            result.fit = googleFitManager.syncFitDataBlocking();
+                        } catch (ExecutionException e) {
+                            Log.e(TAG, "❌ Fit fetch failed", e.getCause());
+                        }
+                        return result;
+                    })
+                    .then(IngestionScheduler.Pool.CPU, (result, progress) -> {
+                        if (result.fit != null) splitForChart(result);
+                        return result;
+                    });
+        }
+
+        generateJob = chain.start(new IngestionScheduler.Listener<GenerateResult>() {
+            @Override
+            public void onProgress(int stage, int stages, int done, int total) {
+                tvSource.setText(stageLabels[Math.min(stage, stageLabels.length - 1)]);
+            }
+
+            @Override
+            public void onComplete(GenerateResult result) {
+                renderGenerated(result, fitGranted);
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                Log.e(TAG, "❌ Ingestion failed", e);
+                tvSource.setText("⚠️ Loading failed");
+            }
+        });
+    }
 
-        // Load CSV first
-        List<SmartWatchData> csvList = csvDataLoader.loadFromCSV(this, "smartwatch_data.csv");
-        if (csvList == null || csvList.isEmpty()) {
+    private void renderGenerated(GenerateResult result, boolean fitGranted) {
+        if (result.csv == null || result.csv.isEmpty()) {
             Toast.makeText(this, "⚠️ No data in CSV file", Toast.LENGTH_SHORT).show();
             return;
         }
 
-        // Check Fit permission
-        if (!googleFitManager.hasPermission()) {
+        if (!fitGranted) {
             Log.d(TAG, "🔒 No Google Fit permission — showing CSV only.");
             tvSource.setText("📊 Source: CSV File (Fit not granted)");
-            dataVisualizer.renderCharts(this, chartContainer, csvList);
+            dataVisualizer.renderCharts(this, chartContainer, result.csv);
             Toast.makeText(this, "Grant Google Fit permission to use live data", Toast.LENGTH_LONG).show();
             googleFitManager.requestPermission();
             return;
         }
+        if (result.fit == null) {
+            tvSource.setText("📊 Source: CSV only (Fit failed)");
+            dataVisualizer.renderCharts(this, chartContainer, result.csv);
+            return;
+        }
 
-        // Fetch G-Fit data
-        tvSource.setText("📡 Fetching Google Fit data...");
-        googleFitManager.fetchFitData(new GoogleFitManager.FitDataCallback() {
-            @Override
-            public void onSuccess(List<SmartWatchData> fitList) {
-                List<SmartWatchData> merged = SmartWatchData.mergeAndSort(csvList, fitList);
-                runOnUiThread(() -> {
-                    tvSource.setText("📊 Source: CSV + Fit");
-                    dataVisualizer.renderCharts(MainActivity.this, chartContainer, merged);
-                    firestoreManager.uploadBatch(merged, new FirestoreManager.Callback() {
-                        @Override
-                        public void onSuccess() {
-                            Toast.makeText(MainActivity.this, "✅ Data uploaded", Toast.LENGTH_SHORT).show();
-                        }
+        // Charts start from what is stored; only this sync's new readings are appended
+        tvSource.setText("📊 Source: History + CSV + Fit");
+        historyFromRollups = false;
+        dataVisualizer.renderCharts(this, chartContainer, result.shown);
+        dataVisualizer.appendData(this, chartContainer, result.delta);
+        // Every Fit reading was just (re-)read, overlap minutes included: upsert them even if synced
+        long rereadFrom = result.fit.isEmpty() ? Long.MAX_VALUE : result.fit.get(0).getTimestamp();
+        uploadPipeline = startUpload(result, rereadFrom);
+    }
 
-                        @Override
-                        public void onFailure(Exception e) {
-                            Toast.makeText(MainActivity.this, "❌ Upload failed", Toast.LENGTH_SHORT).show();
-                        }
-                    });
-                });
-            }
+    /**
+     * CSV and Fit merged by time, validated and coalesced into full WriteBatches; each batch
+     * commits before the next is taken, so nothing here blocks and memory stays bounded.
+     */
+    private ReadingPipeline.Handle startUpload(GenerateResult result, long rereadFrom) {
+        Executor io = ingestionScheduler.asExecutor(IngestionScheduler.Pool.IO);
+        return ReadingPipeline.fromOrdered(
+                        ReadingPipeline.fromList(() -> sortedByTime(result.csv), ReadingPipeline.DEFAULT_BATCH_SIZE, io),
+                        ReadingPipeline.fromList(() -> sortedByTime(result.fit), ReadingPipeline.DEFAULT_BATCH_SIZE, io))
+                .on(ingestionScheduler.asExecutor(IngestionScheduler.Pool.CPU))
+                .through(ReadingOperators.validate())
+                .through(ReadingOperators.batch(BatchWriter.MAX_BATCH_SIZE))
+                .on(ingestionScheduler.asExecutor(IngestionScheduler.Pool.NETWORK))
+                .to(firestoreManager.asSink(rereadFrom))
+                .start(new ReadingPipeline.Listener() {
+                    @Override
+                    public void onComplete(long written) {
+                        Log.d(TAG, "✅ Uploaded " + written + " readings");
+                        ingestionScheduler.postToMain(() ->
+                                Toast.makeText(MainActivity.this, "✅ Data uploaded", Toast.LENGTH_SHORT).show());
+                    }
 
-            @Override
-            public void onFailure(Exception e) {
-                Log.e(TAG, "❌ Fit fetch failed", e);
-                runOnUiThread(() -> {
-                    tvSource.setText("📊 Source: CSV only (Fit failed)");
-                    dataVisualizer.renderCharts(MainActivity.this, chartContainer, csvList);
+                    @Override
+                    public void onFailure(Throwable t) {
+                        Log.e(TAG, "❌ Upload failed", t);
+                        ingestionScheduler.postToMain(() ->
+                                Toast.makeText(MainActivity.this, "❌ Upload failed", Toast.LENGTH_SHORT).show());
+                    }
                 });
-            }
-        });
+    }
+
+    private static List<SmartWatchData> sortedByTime(List<SmartWatchData> readings) {
+        return SeriesMerger.mergeLists(Collections.singletonList(readings), false);
+    }
+
+    @Override
+    protected void onDestroy() {
+        if (generateJob != null) generateJob.cancel();
+        if (uploadPipeline != null) uploadPipeline.cancel();
+        ingestionScheduler.shutdown();
+        firestoreManager.close();
+        super.onDestroy();
+    }
+
+    /**
+     * result.fit holds only what changed since the last sync. The chart base is the cached
+     * history plus the CSV plus any Fit readings inside it (overlap minutes); Fit readings
+     * past its end are the delta to append.
+     */
+    private static void splitForChart(GenerateResult result) {
+        List<SmartWatchData> stored = SeriesMerger.mergeLists(Arrays.asList(result.csv, result.history), true);
+        long last = stored.isEmpty() ? Long.MIN_VALUE : stored.get(stored.size() - 1).getTimestamp();
+        List<SmartWatchData> inside = new ArrayList<>();
+        result.delta = new ArrayList<>();
+        for (SmartWatchData d : result.fit) {
+            if (d.getTimestamp() <= last) inside.add(d);
+            else result.delta.add(d);
+        }
+        result.shown = SeriesMerger.mergeLists(Arrays.asList(stored, inside), true);
+    }
+
+    /** What the generate job hands from stage to stage. */
+    private static final class GenerateResult {
+        List<SmartWatchData> csv;
+        List<SmartWatchData> history; // cached readings of the last HISTORY_MILLIS
+        List<SmartWatchData> fit; // null when Fit failed or was skipped; else the sync's delta
+        List<SmartWatchData> shown;  // chart base, see splitForChart
+        List<SmartWatchData> delta;  // appended to the chart
     }
 
     @Override
@@ -1,12 +1,23 @@
 package com.vxsudev.androidsdk;
 
-import java.util.Random;
+import java.util.SplittableRandom;
 
 /**
- * Generates random smartwatch readings (for testing CSV + Fit fallback)
+ * Generates random smartwatch readings (for testing CSV + Fit fallback).
+ * For many devices or millions of readings use {@link LoadGenerator}.
  */
 public class MockDataGenerator {
-    private final Random random = new Random();
+    // Not shared across threads: SplittableRandom has no internal locking or CAS
+    private final SplittableRandom random;
+
+    public MockDataGenerator() {
+        this.random = new SplittableRandom();
+    }
+
+    // Fixed seed gives reproducible values (benchmarks, tests)
+    public MockDataGenerator(long seed) {
+        this.random = new SplittableRandom(seed);
+    }
 
     // Generate one fake reading
     public SmartWatchData generateData() {
@@ -14,23 +25,43 @@ public class MockDataGenerator {
 
         // Realistic ranges
         data.setHeartRate(70 + random.nextInt(20)); // 70–90 bpm
-        data.setSpO2(95f + random.nextFloat() * 4f); // 95–99%
-        data.setTemperature(36f + random.nextFloat() * 1f); // 36–37 °C
+        data.setSpO2(95f + (float) random.nextDouble() * 4f); // 95–99%
+        data.setTemperature(36f + (float) random.nextDouble() * 1f); // 36–37 °C
         data.setSteps(random.nextInt(200)); // random steps increment
         data.setTimestamp(System.currentTimeMillis());
+        data.setSource(SmartWatchData.SOURCE_MOCK);
 
         return data;
     }
 
-    // Generate multiple fake readings
+    // Generate multiple fake readings, oldest first, ending now
     public java.util.List<SmartWatchData> generateBatch(int count) {
-        java.util.List<SmartWatchData> list = new java.util.ArrayList<>();
-        long now = System.currentTimeMillis();
+        return generateBatch(count, System.currentTimeMillis() - (count - 1) * 60000L);
+    }
+
+    // Generate count readings 1 min apart from firstTimestamp on, ascending
+    private java.util.List<SmartWatchData> generateBatch(int count, long firstTimestamp) {
+        java.util.List<SmartWatchData> list = new java.util.ArrayList<>(Math.max(count, 0));
         for (int i = 0; i < count; i++) {
             SmartWatchData d = generateData();
-            d.setTimestamp(now - i * 60000L); // each 1 min apart
+            d.setTimestamp(firstTimestamp + i * 60000L);
             list.add(d);
         }
         return list;
     }
+
+    // Pipeline source: one ascending series of count readings ending now, in batches of
+    // batchSize generated on the executor; each batch continues where the last one stopped
+    public ReadingPipeline.Publisher asSource(int count, int batchSize, java.util.concurrent.Executor executor) {
+        int[] remaining = {count};
+        long[] next = {System.currentTimeMillis() - (count - 1) * 60000L};
+        return ReadingPipeline.fromGenerator(() -> {
+            if (remaining[0] <= 0) return null;
+            int n = Math.min(Math.max(batchSize, 1), remaining[0]);
+            remaining[0] -= n;
+            java.util.List<SmartWatchData> batch = generateBatch(n, next[0]);
+            next[0] += n * 60000L;
+            return batch;
+        }, executor);
+    }
 }
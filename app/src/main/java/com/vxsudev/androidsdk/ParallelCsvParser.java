@@ -0,0 +1,325 @@
+package com.vxsudev.androidsdk;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Parses a large CSV file (same format as {@link CsvStreamParser}) on every core.
+ *
+ * The file is cut into chunks of about chunkBytes, each boundary moved forward to just
+ * after the next '\n' so no line is split. A fork-join task per chunk memory-maps its
+ * range and runs a private {@link CsvStreamParser} over it into its own
+ * {@link SmartWatchSeries}. The chunks are then copied, in parallel, into their slots of
+ * the output in file order. Timestamps and line numbers come out exactly as a
+ * single-threaded parse would give them: the timestamp column, or baseTimestamp + row
+ * index, and 1-based file lines. The header is read up front so every chunk knows the
+ * column layout; only the first chunk may contain it.
+ *
+ * Chunks are mapped one at a time per worker, so files larger than 2 GB and larger than
+ * the heap work; the output series itself still needs ~24 bytes a row. Android-free.
+ */
+public class ParallelCsvParser {
+
+    public static final long DEFAULT_CHUNK_BYTES = 8L * 1024 * 1024;
+
+    private static final long MIN_CHUNK_BYTES = 64L * 1024;
+    private static final long MAX_CHUNK_BYTES = 512L * 1024 * 1024;
+    private static final int BOUNDARY_PROBE_BYTES = 4096;
+
+    private final ForkJoinPool pool;
+    private final long chunkBytes;
+
+    public ParallelCsvParser() {
+        this(ForkJoinPool.commonPool(), DEFAULT_CHUNK_BYTES);
+    }
+
+    public ParallelCsvParser(ForkJoinPool pool, long chunkBytes) {
+        this.pool = pool;
+        this.chunkBytes = Math.max(MIN_CHUNK_BYTES, Math.min(chunkBytes, MAX_CHUNK_BYTES));
+    }
+
+    /**
+     * Parses the whole file and appends every valid row to into, in file order.
+     *
+     * @param errors optional; called on the calling thread, in file order, once parsing is done
+     * @return parse statistics for the whole file
+     */
+    public CsvStreamParser.Result parse(File file, long baseTimestamp, SmartWatchSeries into,
+                                        CsvStreamParser.ErrorHandler errors) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            FileChannel channel = raf.getChannel();
+            long[] bounds = lineAlignedBounds(channel, channel.size(), chunkBytes);
+            CsvSchema schema = readSchema(channel);
+            Chunk[] chunks = new Chunk[bounds.length - 1];
+            for (int i = 0; i < chunks.length; i++) {
+                chunks[i] = new Chunk(i == 0 ? null : schema, bounds[i], bounds[i + 1], errors != null);
+            }
+
+            invoke(new ChunkTask(chunks, 0, chunks.length, chunk -> chunk.parse(channel)));
+            CsvStreamParser.Result total = combine(chunks, into.size());
+            total.schema = schema;
+            into.ensureCapacity((int) (into.size() + total.getRows()));
+            int firstRow = into.size();
+            invoke(new ChunkTask(chunks, 0, chunks.length, chunk -> chunk.copyInto(into, baseTimestamp, firstRow)));
+            into.setSize(firstRow + (int) total.getRows());
+
+            if (errors != null) {
+                for (Chunk chunk : chunks) chunk.replayErrors(errors);
+            }
+            return total;
+        }
+    }
+
+    // ---------------- Chunking ----------------
+
+    /**
+     * Boundaries [0, b1, ..., size]: every inner one is the byte after a '\n' at or past a
+     * multiple of chunkBytes. Long lines can swallow a nominal boundary, so there may be
+     * fewer chunks than size / chunkBytes.
+     */
+    static long[] lineAlignedBounds(FileChannel channel, long size, long chunkBytes) throws IOException {
+        List<Long> bounds = new ArrayList<>();
+        bounds.add(0L);
+        ByteBuffer probe = ByteBuffer.allocate(BOUNDARY_PROBE_BYTES);
+        long next = chunkBytes;
+        while (next < size) {
+            long afterNewline = nextLineStart(channel, next, size, probe);
+            if (afterNewline >= size) break;
+            bounds.add(afterNewline);
+            next = Math.max(afterNewline, next) + chunkBytes;
+        }
+        bounds.add(size);
+        long[] out = new long[bounds.size()];
+        for (int i = 0; i < out.length; i++) out[i] = bounds.get(i);
+        return out;
+    }
+
+    /** Layout from the first non-blank line if it is a header, else the default. */
+    static CsvSchema readSchema(FileChannel channel) throws IOException {
+        ByteBuffer head = ByteBuffer.allocate((int) Math.min(channel.size(), MIN_CHUNK_BYTES));
+        while (head.hasRemaining()) {
+            if (channel.read(head, head.position()) <= 0) break;
+        }
+        byte[] buf = head.array();
+        int limit = head.position();
+        int start = 0;
+        while (start < limit) {
+            int end = start;
+            while (end < limit && buf[end] != '\n') end++;
+            int lineEnd = end > start && buf[end - 1] == '\r' ? end - 1 : end;
+            for (int i = start; i < lineEnd; i++) {
+                if (buf[i] != ' ' && buf[i] != '\t') {
+                    return CsvSchema.looksLikeHeader(buf, start, lineEnd)
+                            ? CsvSchema.fromHeader(buf, start, lineEnd) : CsvSchema.DEFAULT;
+                }
+            }
+            start = end + 1;
+        }
+        return CsvSchema.DEFAULT;
+    }
+
+    private static long nextLineStart(FileChannel channel, long from, long size, ByteBuffer probe) throws IOException {
+        long pos = from;
+        while (pos < size) {
+            probe.clear();
+            int n = channel.read(probe, pos);
+            if (n <= 0) break;
+            for (int i = 0; i < n; i++) {
+                if (probe.get(i) == '\n') return pos + i + 1;
+            }
+            pos += n;
+        }
+        return size;
+    }
+
+    // ---------------- Fork-join ----------------
+
+    private void invoke(ChunkTask task) throws IOException {
+        try {
+            pool.submit(task).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof ChunkFailure) throw ((ChunkFailure) cause).io;
+            throw new IOException(cause);
+        }
+    }
+
+    /** Splits a range of chunks in halves down to single chunks, then runs the step. */
+    private static final class ChunkTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final Chunk[] chunks;
+        private final int from;
+        private final int to;
+        private final ChunkStep step;
+
+        ChunkTask(Chunk[] chunks, int from, int to, ChunkStep step) {
+            this.chunks = chunks;
+            this.from = from;
+            this.to = to;
+            this.step = step;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new ChunkTask(chunks, from, mid, step), new ChunkTask(chunks, mid, to, step));
+                return;
+            }
+            if (from == to) return;
+            try {
+                step.run(chunks[from]);
+            } catch (IOException e) {
+                throw new ChunkFailure(e);
+            }
+        }
+    }
+
+    private interface ChunkStep {
+        void run(Chunk chunk) throws IOException;
+    }
+
+    private static final class ChunkFailure extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        final IOException io;
+
+        ChunkFailure(IOException io) {
+            super(io);
+            this.io = io;
+        }
+    }
+
+    // ---------------- Chunks ----------------
+
+    private static final class Chunk {
+        final CsvSchema presetSchema; // null for the first chunk, which reads the header itself
+        final long start;
+        final long end;
+        final boolean keepErrors;
+
+        SmartWatchSeries rows;
+        CsvStreamParser.Result result;
+        long rowOffset;  // rows in earlier chunks
+        long lineOffset; // lines in earlier chunks
+
+        // Rejected rows, chunk-local lines; reasons are CsvStreamParser's constants
+        long[] errorLines = new long[0];
+        int[] errorColumns = new int[0];
+        String[] errorReasons = new String[0];
+        int errorCount;
+
+        Chunk(CsvSchema presetSchema, long start, long end, boolean keepErrors) {
+            this.presetSchema = presetSchema;
+            this.start = start;
+            this.end = end;
+            this.keepErrors = keepErrors;
+        }
+
+        void parse(FileChannel channel) throws IOException {
+            long length = end - start;
+            if (length > Integer.MAX_VALUE) throw new IOException("Line longer than 2 GB near byte " + start);
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+            // ~20 bytes a row in practice; the series grows if the guess is low
+            rows = new SmartWatchSeries((int) Math.max(length / 20, 16));
+            result = new CsvStreamParser().parse(new ByteBufferInputStream(mapped), 0L, rows::append,
+                    keepErrors ? this::recordError : null, presetSchema);
+        }
+
+        private void recordError(long line, int column, String reason) {
+            if (errorCount == errorLines.length) {
+                int cap = Math.max(errorCount * 2, 8);
+                errorLines = Arrays.copyOf(errorLines, cap);
+                errorColumns = Arrays.copyOf(errorColumns, cap);
+                errorReasons = Arrays.copyOf(errorReasons, cap);
+            }
+            errorLines[errorCount] = line;
+            errorColumns[errorCount] = column;
+            errorReasons[errorCount] = reason;
+            errorCount++;
+        }
+
+        /** Copies this chunk's rows into their slot of the output, re-stamping timestamps. */
+        void copyInto(SmartWatchSeries into, long baseTimestamp, int firstRow) {
+            int n = rows.size();
+            int at = firstRow + (int) rowOffset;
+            if (result.getSchema().hasTimestamp()) {
+                System.arraycopy(rows.timestamps(), 0, into.timestamps(), at, n);
+            } else {
+                long[] ts = into.timestamps();
+                long base = baseTimestamp + rowOffset;
+                for (int i = 0; i < n; i++) ts[at + i] = base + i;
+            }
+            System.arraycopy(rows.heartRates(), 0, into.heartRates(), at, n);
+            System.arraycopy(rows.spO2Values(), 0, into.spO2Values(), at, n);
+            System.arraycopy(rows.temperatures(), 0, into.temperatures(), at, n);
+            System.arraycopy(rows.stepCounts(), 0, into.stepCounts(), at, n);
+            rows = null;
+        }
+
+        void replayErrors(CsvStreamParser.ErrorHandler errors) {
+            for (int i = 0; i < errorCount; i++) {
+                errors.onError(lineOffset + errorLines[i], errorColumns[i], errorReasons[i]);
+            }
+        }
+    }
+
+    /** Sums chunk results and fixes each chunk's row and line offsets. */
+    private static CsvStreamParser.Result combine(Chunk[] chunks, int existingRows) throws IOException {
+        CsvStreamParser.Result total = new CsvStreamParser.Result();
+        for (Chunk chunk : chunks) {
+            CsvStreamParser.Result r = chunk.result;
+            chunk.rowOffset = total.rows;
+            chunk.lineOffset = total.lines;
+            if (r.errors > 0 && total.errors == 0) {
+                total.firstErrorLine = total.lines + r.firstErrorLine;
+                total.firstErrorColumn = r.firstErrorColumn;
+                total.firstErrorReason = r.firstErrorReason;
+            }
+            total.rows += r.rows;
+            total.lines += r.lines;
+            total.errors += r.errors;
+        }
+        if (existingRows + total.rows > Integer.MAX_VALUE - 8) {
+            throw new IOException("Too many rows for one series: " + total.rows);
+        }
+        return total;
+    }
+
+    /** Reads a mapped chunk in bulk; CsvStreamParser copies it into its own buffer. */
+    private static final class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (!buffer.hasRemaining()) return -1;
+            int n = Math.min(len, buffer.remaining());
+            buffer.get(b, off, n);
+            return n;
+        }
+    }
+}
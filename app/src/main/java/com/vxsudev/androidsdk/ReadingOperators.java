@@ -0,0 +1,99 @@
+package com.vxsudev.androidsdk;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Stock {@link ReadingPipeline.Operator}s. Each call returns a fresh operator, since the
+ * stateful ones (dedupe, batch) keep state for one pipeline run. Android-free.
+ */
+public final class ReadingOperators {
+
+    private ReadingOperators() {}
+
+    /**
+     * Drops physiologically impossible readings. Zero means "not measured" for SpO₂ and
+     * temperature (Fit minutes often carry only heart rate and steps) and is kept.
+     */
+    public static ReadingPipeline.Operator validate() {
+        return batch -> {
+            List<SmartWatchData> out = new ArrayList<>(batch.size());
+            for (SmartWatchData d : batch) {
+                if (isValid(d)) out.add(d);
+            }
+            return out.size() == batch.size() ? batch : out;
+        };
+    }
+
+    static boolean isValid(SmartWatchData d) {
+        if (d == null || d.getTimestamp() <= 0) return false;
+        if (d.getHeartRate() < 0 || d.getHeartRate() > 250) return false;
+        if (d.getSteps() < 0) return false;
+        float spO2 = d.getSpO2();
+        if (spO2 != 0f && !(spO2 >= 50f && spO2 <= 100f)) return false; // also rejects NaN
+        float temperature = d.getTemperature();
+        return temperature == 0f || (temperature >= 30f && temperature <= 45f);
+    }
+
+    /**
+     * Drops repeats of (source, timestamp) across the whole run — the same key Firestore
+     * document IDs are derived from, e.g. a CSV and a mock source replaying overlapping rows
+     * or a Fit overlap window re-reading minutes already passed through.
+     */
+    public static ReadingPipeline.Operator dedupe() {
+        SyncedIdSet seen = new SyncedIdSet(); // in-memory, exact
+        return batch -> {
+            List<SmartWatchData> out = new ArrayList<>(batch.size());
+            for (SmartWatchData d : batch) {
+                if (seen.addIfAbsent(DocumentIds.hash(d.getSource(), "", d.getTimestamp()))) out.add(d);
+            }
+            return out.size() == batch.size() ? batch : out;
+        };
+    }
+
+    /**
+     * Thins each batch to at most maxPerBatch readings with LTTB over heart rate, keeping
+     * peaks and dips (see {@link Lttb}). For chart sinks; never put it before storage sinks.
+     */
+    public static ReadingPipeline.Operator downsample(int maxPerBatch) {
+        return batch -> {
+            if (batch.size() <= maxPerBatch) return batch;
+            int[] picked = new int[Math.max(maxPerBatch, 2)];
+            int n = Lttb.select(i -> batch.get(i).getHeartRate(), 0, batch.size(), maxPerBatch, picked);
+            List<SmartWatchData> out = new ArrayList<>(n);
+            for (int i = 0; i < n; i++) out.add(batch.get(picked[i]));
+            return out;
+        };
+    }
+
+    /**
+     * Coalesces small batches into ones of at least size readings (whole multiples of it;
+     * the final one may be short), e.g. 500 before a Firestore sink so WriteBatches are full
+     * and each sink round trip carries as much as it can.
+     */
+    public static ReadingPipeline.Operator batch(int size) {
+        int target = Math.max(size, 1);
+        return new ReadingPipeline.Operator() {
+            private List<SmartWatchData> pending = new ArrayList<>(target);
+
+            @Override
+            public List<SmartWatchData> apply(List<SmartWatchData> batch) {
+                pending.addAll(batch);
+                if (pending.size() < target) return Collections.emptyList();
+                // Emit whole multiples; the remainder waits for the next batch
+                int whole = pending.size() / target * target;
+                List<SmartWatchData> out = new ArrayList<>(pending.subList(0, whole));
+                pending = new ArrayList<>(pending.subList(whole, pending.size()));
+                return out;
+            }
+
+            @Override
+            public List<SmartWatchData> finish() {
+                List<SmartWatchData> out = pending;
+                pending = new ArrayList<>();
+                return out;
+            }
+        };
+    }
+}
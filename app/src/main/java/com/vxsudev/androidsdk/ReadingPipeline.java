@@ -0,0 +1,740 @@
+package com.vxsudev.androidsdk;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Staged, backpressured pipeline of SmartWatchData batches: sources → operators → sink.
+ *
+ * Modeled on java.util.concurrent.Flow (API 30+, above this app's minSdk), with its own
+ * {@link Publisher} / {@link Subscriber} / {@link Subscription}; the element is a batch of
+ * readings, so hand-offs cost one queue operation per batch rather than per reading.
+ *
+ * Each operator and the sink is a stage with its own bounded buffer (bufferBatches) that
+ * drains serially on the executor set by the preceding {@link #on(Executor)} — so stages
+ * run concurrently, e.g. validation on the CPU pool while the previous batch uploads on the
+ * network pool. A stage only asks upstream for more after it has handed a batch on, so a
+ * slow sink stalls the whole chain instead of buffering without bound. Several sources
+ * passed to {@link #from} are merged in arrival order; {@link #fromOrdered} merges them by
+ * timestamp instead.
+ *
+ * <pre>
+ * ReadingPipeline.from(csv.asSource(ctx, file, io), fit.asSource())
+ *         .on(cpu).through(ReadingOperators.validate()).through(ReadingOperators.dedupe())
+ *         .on(network).to(firestore.asSink())
+ *         .start(listener);
+ * </pre>
+ *
+ * Android-free.
+ */
+public final class ReadingPipeline {
+
+    public static final int DEFAULT_BATCH_SIZE = 256;
+    public static final int DEFAULT_BUFFER_BATCHES = 4;
+
+    private final List<Publisher> sources;
+    private final List<StageSpec> stages = new ArrayList<>();
+    private Executor executor;
+    private int bufferBatches = DEFAULT_BUFFER_BATCHES;
+    private Sink sink;
+
+    private ReadingPipeline(List<Publisher> sources) {
+        this.sources = sources;
+    }
+
+    public static ReadingPipeline from(Publisher... sources) {
+        if (sources.length == 0) throw new IllegalArgumentException("No sources");
+        return new ReadingPipeline(Arrays.asList(sources.clone()));
+    }
+
+    /**
+     * Like {@link #from}, but the sources are merged into one time-ordered stream (ties keep
+     * source order). Each source must emit in time order; a reading is handed on once every
+     * unfinished source has shown one at least as new.
+     */
+    public static ReadingPipeline fromOrdered(Publisher... sources) {
+        if (sources.length == 0) throw new IllegalArgumentException("No sources");
+        if (sources.length == 1) return from(sources);
+        return new ReadingPipeline(Collections.singletonList(new OrderedMerge(sources.clone())));
+    }
+
+    // ---------------- Building ----------------
+
+    /** Executor for the stages added after this call. */
+    public ReadingPipeline on(Executor executor) {
+        this.executor = executor;
+        return this;
+    }
+
+    /** Batches each stage may buffer before it stops requesting from upstream. */
+    public ReadingPipeline buffer(int batches) {
+        this.bufferBatches = Math.max(batches, 1);
+        return this;
+    }
+
+    public ReadingPipeline through(Operator operator) {
+        stages.add(new StageSpec(operator, requireExecutor(), bufferBatches));
+        return this;
+    }
+
+    public ReadingPipeline to(Sink sink) {
+        if (this.sink != null) throw new IllegalStateException("Sink already set");
+        this.sink = sink;
+        stages.add(new StageSpec(new SinkOperator(sink), requireExecutor(), bufferBatches));
+        return this;
+    }
+
+    /** Subscribes every stage and starts the sources; the listener runs on the sink's executor. */
+    public Handle start(Listener listener) {
+        if (sink == null) throw new IllegalStateException("No sink");
+        List<Stage> built = new ArrayList<>(stages.size());
+        for (int i = 0; i < stages.size(); i++) built.add(new Stage(stages.get(i), i == 0 ? sources.size() : 1));
+
+        Stage last = built.get(built.size() - 1);
+        last.subscribe(new Terminal((SinkOperator) last.spec.operator, listener));
+        for (int i = built.size() - 1; i > 0; i--) built.get(i - 1).subscribe(built.get(i).upstreamSubscriber(0));
+        Stage first = built.get(0);
+        for (int i = 0; i < sources.size(); i++) sources.get(i).subscribe(first.upstreamSubscriber(i));
+        return () -> last.cancel();
+    }
+
+    private Executor requireExecutor() {
+        if (executor == null) throw new IllegalStateException("Call on(executor) before adding stages");
+        return executor;
+    }
+
+    // ---------------- Sources ----------------
+
+    /** Source that loads a whole list on the executor, then emits it in batches. */
+    public static Publisher fromList(Callable<List<SmartWatchData>> loader, int batchSize, Executor executor) {
+        PushSource source = new PushSource();
+        source.onStart(() -> executor.execute(() -> {
+            try {
+                List<SmartWatchData> all = loader.call();
+                int size = Math.max(batchSize, 1);
+                for (int i = 0; all != null && i < all.size(); i += size) {
+                    if (!source.emit(new ArrayList<>(all.subList(i, Math.min(i + size, all.size()))))) return;
+                }
+                source.complete();
+            } catch (Exception e) {
+                source.error(e);
+            }
+        }));
+        return source;
+    }
+
+    /** Source that pulls batches from a generator on the executor until it returns null. */
+    public static Publisher fromGenerator(Callable<List<SmartWatchData>> nextBatch, Executor executor) {
+        PushSource source = new PushSource();
+        source.onStart(() -> executor.execute(() -> {
+            try {
+                List<SmartWatchData> batch;
+                while ((batch = nextBatch.call()) != null) {
+                    if (!source.emit(batch)) return;
+                }
+                source.complete();
+            } catch (Exception e) {
+                source.error(e);
+            }
+        }));
+        return source;
+    }
+
+    /**
+     * Adapter for callback-driven producers (Fit, Firestore pages and snapshots). emit blocks
+     * the producing thread while downstream has no demand — that is the backpressure — so
+     * never emit from the main thread. Single subscriber.
+     */
+    public static final class PushSource implements Publisher {
+        private final Object lock = new Object();
+        private Subscriber subscriber; // guarded by lock
+        private long demand;           // guarded by lock
+        private boolean cancelled;     // guarded by lock
+        private boolean terminated;    // guarded by lock
+        private Runnable onStart;
+        private Runnable onCancel;
+
+        /** Runs once the subscriber is attached, e.g. to kick off the producer. */
+        public PushSource onStart(Runnable action) {
+            this.onStart = action;
+            return this;
+        }
+
+        /** Runs when downstream cancels, e.g. to remove a snapshot listener. */
+        public PushSource onCancel(Runnable action) {
+            this.onCancel = action;
+            return this;
+        }
+
+        @Override
+        public void subscribe(Subscriber s) {
+            synchronized (lock) {
+                if (subscriber != null) throw new IllegalStateException("PushSource supports one subscriber");
+                subscriber = s;
+            }
+            s.onSubscribe(new Subscription() {
+                @Override
+                public void request(long n) {
+                    synchronized (lock) {
+                        demand = addCap(demand, n);
+                        lock.notifyAll();
+                    }
+                }
+
+                @Override
+                public void cancel() {
+                    Runnable action;
+                    synchronized (lock) {
+                        if (cancelled) return;
+                        cancelled = true;
+                        lock.notifyAll();
+                        action = onCancel;
+                    }
+                    if (action != null) action.run();
+                }
+            });
+            if (onStart != null) onStart.run();
+        }
+
+        /**
+         * Hands one batch downstream, waiting for demand first.
+         *
+         * @return false once downstream cancelled or the wait was interrupted; stop producing
+         */
+        public boolean emit(List<SmartWatchData> batch) {
+            if (batch == null || batch.isEmpty()) return !isCancelled();
+            Subscriber s;
+            synchronized (lock) {
+                try {
+                    while (demand == 0 && !cancelled && !terminated) lock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+                if (cancelled || terminated) return false;
+                demand--;
+                s = subscriber;
+            }
+            s.onNext(batch);
+            return true;
+        }
+
+        public void complete() {
+            Subscriber s = terminate();
+            if (s != null) s.onComplete();
+        }
+
+        public void error(Throwable t) {
+            Subscriber s = terminate();
+            if (s != null) s.onError(t);
+        }
+
+        public boolean isCancelled() {
+            synchronized (lock) {
+                return cancelled;
+            }
+        }
+
+        private Subscriber terminate() {
+            synchronized (lock) {
+                if (terminated || cancelled || subscriber == null) return null;
+                terminated = true;
+                lock.notifyAll();
+                return subscriber;
+            }
+        }
+    }
+
+    // ---------------- Ordered merge ----------------
+
+    /**
+     * Watermark merge behind {@link #fromOrdered}. Holds at most one requested batch per
+     * source; each round releases everything up to the oldest "newest reading" among the
+     * unfinished sources and merges it with {@link SeriesMerger#mergeLists}, which drains at
+     * least that source so it is asked for its next batch. Signals are serialized through wip.
+     */
+    private static final class OrderedMerge implements Publisher, Subscription {
+        private final Publisher[] sources;
+        private final AtomicInteger wip = new AtomicInteger();
+
+        private final Object lock = new Object();
+        private final List<List<SmartWatchData>> pending; // guarded by lock; sorted per source
+        private final Subscription[] upstreams;          // guarded by lock
+        private final boolean[] requested;               // guarded by lock
+        private final boolean[] done;                    // guarded by lock
+        private Throwable error;                         // guarded by lock
+        private long demand;                             // guarded by lock
+        private volatile boolean cancelled;
+        private boolean finished;                        // drain only
+        private Subscriber downstream;
+
+        OrderedMerge(Publisher[] sources) {
+            this.sources = sources;
+            this.pending = new ArrayList<>(sources.length);
+            for (int i = 0; i < sources.length; i++) pending.add(new ArrayList<>());
+            this.upstreams = new Subscription[sources.length];
+            this.requested = new boolean[sources.length];
+            this.done = new boolean[sources.length];
+        }
+
+        @Override
+        public void subscribe(Subscriber s) {
+            synchronized (lock) {
+                if (downstream != null) throw new IllegalStateException("OrderedMerge supports one subscriber");
+                downstream = s;
+            }
+            s.onSubscribe(this);
+            for (int i = 0; i < sources.length; i++) sources[i].subscribe(upstreamSubscriber(i));
+        }
+
+        private Subscriber upstreamSubscriber(int index) {
+            return new Subscriber() {
+                @Override
+                public void onSubscribe(Subscription s) {
+                    synchronized (lock) {
+                        upstreams[index] = s;
+                    }
+                    if (cancelled) s.cancel();
+                    else drain();
+                }
+
+                @Override
+                public void onNext(List<SmartWatchData> batch) {
+                    List<SmartWatchData> sorted = SeriesMerger.mergeLists(Collections.singletonList(batch), false);
+                    synchronized (lock) {
+                        List<SmartWatchData> held = pending.get(index);
+                        if (held.isEmpty()) pending.set(index, sorted);
+                        else pending.set(index, SeriesMerger.mergeLists(Arrays.asList(held, sorted), false));
+                        requested[index] = false;
+                    }
+                    drain();
+                }
+
+                @Override
+                public void onError(Throwable t) {
+                    synchronized (lock) {
+                        if (error == null) error = t;
+                    }
+                    drain();
+                }
+
+                @Override
+                public void onComplete() {
+                    synchronized (lock) {
+                        done[index] = true;
+                    }
+                    drain();
+                }
+            };
+        }
+
+        @Override
+        public void request(long n) {
+            synchronized (lock) {
+                demand = addCap(demand, n);
+            }
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            if (cancelled) return;
+            cancelled = true;
+            cancelUpstreams();
+        }
+
+        private void cancelUpstreams() {
+            Subscription[] subs;
+            synchronized (lock) {
+                subs = upstreams.clone();
+            }
+            for (Subscription s : subs) {
+                if (s != null) s.cancel();
+            }
+        }
+
+        private void drain() {
+            if (wip.getAndIncrement() != 0) return;
+            int missed = 1;
+            do {
+                drainOnce();
+                missed = wip.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        private void drainOnce() {
+            while (!finished && !cancelled) {
+                Throwable failure;
+                List<Subscription> toRequest = new ArrayList<>();
+                List<List<SmartWatchData>> released = null;
+                boolean complete = true;
+                synchronized (lock) {
+                    failure = error;
+                    long bound = Long.MAX_VALUE;
+                    boolean waiting = false;
+                    for (int i = 0; i < sources.length; i++) {
+                        List<SmartWatchData> held = pending.get(i);
+                        if (!held.isEmpty()) complete = false;
+                        if (done[i]) continue;
+                        complete = false;
+                        if (held.isEmpty()) {
+                            // Nothing seen yet from this source: it may still send older readings
+                            waiting = true;
+                            if (!requested[i] && upstreams[i] != null) {
+                                requested[i] = true;
+                                toRequest.add(upstreams[i]);
+                            }
+                        } else {
+                            bound = Math.min(bound, held.get(held.size() - 1).getTimestamp());
+                        }
+                    }
+                    if (failure == null && !complete && !waiting && demand > 0) {
+                        released = new ArrayList<>(sources.length);
+                        for (int i = 0; i < sources.length; i++) {
+                            List<SmartWatchData> held = pending.get(i);
+                            int cut = 0;
+                            while (cut < held.size() && held.get(cut).getTimestamp() <= bound) cut++;
+                            if (cut == 0) continue;
+                            released.add(cut == held.size() ? held : held.subList(0, cut));
+                            pending.set(i, cut == held.size() ? new ArrayList<>() : new ArrayList<>(held.subList(cut, held.size())));
+                        }
+                        demand--;
+                    }
+                }
+                if (failure != null) {
+                    finished = true;
+                    cancelUpstreams();
+                    downstream.onError(failure);
+                    return;
+                }
+                if (complete) {
+                    finished = true;
+                    downstream.onComplete();
+                    return;
+                }
+                for (Subscription s : toRequest) s.request(1);
+                if (released == null) return;
+                downstream.onNext(SeriesMerger.mergeLists(released, false));
+            }
+        }
+    }
+
+    // ---------------- Stages ----------------
+
+    private static final class StageSpec {
+        final Operator operator;
+        final Executor executor;
+        final int buffer;
+
+        StageSpec(Operator operator, Executor executor, int buffer) {
+            this.operator = operator;
+            this.executor = executor;
+            this.buffer = buffer;
+        }
+    }
+
+    /**
+     * One operator between bounded input and output. Everything below runs in drain(),
+     * which is serialized through wip, so the operator never sees two batches at once.
+     */
+    private static final class Stage implements Publisher, Subscription {
+        final StageSpec spec;
+        private final AtomicInteger wip = new AtomicInteger();
+        private final Runnable drainTask = this::drain;
+
+        private final Object lock = new Object();
+        private final ArrayDeque<Input> inbox = new ArrayDeque<>();          // guarded by lock
+        private final ArrayDeque<List<SmartWatchData>> outbox = new ArrayDeque<>(); // drain only
+        private final Subscription[] upstreams;                              // guarded by lock
+        private int completedUpstreams;                                      // guarded by lock
+        private Throwable error;                                             // guarded by lock
+        private long demand;                                                 // guarded by lock
+        private volatile boolean cancelled;
+        private boolean flushed;                                             // drain only
+        private boolean finished;                                            // drain only
+        private Subscriber downstream;
+
+        Stage(StageSpec spec, int upstreamCount) {
+            this.spec = spec;
+            this.upstreams = new Subscription[upstreamCount];
+        }
+
+        Subscriber upstreamSubscriber(int index) {
+            return new Subscriber() {
+                @Override
+                public void onSubscribe(Subscription s) {
+                    boolean cancelNow;
+                    synchronized (lock) {
+                        upstreams[index] = s;
+                        cancelNow = cancelled;
+                    }
+                    if (cancelNow) s.cancel();
+                    else s.request(spec.buffer);
+                }
+
+                @Override
+                public void onNext(List<SmartWatchData> batch) {
+                    synchronized (lock) {
+                        inbox.add(new Input(index, batch));
+                    }
+                    schedule();
+                }
+
+                @Override
+                public void onError(Throwable t) {
+                    synchronized (lock) {
+                        if (error == null) error = t;
+                    }
+                    schedule();
+                }
+
+                @Override
+                public void onComplete() {
+                    synchronized (lock) {
+                        completedUpstreams++;
+                    }
+                    schedule();
+                }
+            };
+        }
+
+        @Override
+        public void subscribe(Subscriber s) {
+            downstream = s;
+            s.onSubscribe(this);
+        }
+
+        @Override
+        public void request(long n) {
+            synchronized (lock) {
+                demand = addCap(demand, n);
+            }
+            schedule();
+        }
+
+        @Override
+        public void cancel() {
+            if (cancelled) return;
+            cancelled = true;
+            cancelUpstreams();
+            schedule();
+        }
+
+        private void cancelUpstreams() {
+            Subscription[] subs;
+            synchronized (lock) {
+                subs = upstreams.clone();
+            }
+            for (Subscription s : subs) {
+                if (s != null) s.cancel();
+            }
+        }
+
+        private void schedule() {
+            if (wip.getAndIncrement() == 0) spec.executor.execute(drainTask);
+        }
+
+        private void drain() {
+            int missed = 1;
+            do {
+                drainOnce();
+                missed = wip.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        private void drainOnce() {
+            if (finished) return;
+            if (cancelled) {
+                finished = true;
+                synchronized (lock) {
+                    inbox.clear();
+                }
+                outbox.clear();
+                return;
+            }
+            while (true) {
+                Throwable failure;
+                boolean canEmit;
+                synchronized (lock) {
+                    failure = error;
+                    canEmit = demand > 0;
+                }
+                if (failure != null) {
+                    fail(failure);
+                    return;
+                }
+                if (!outbox.isEmpty()) {
+                    if (!canEmit) return;
+                    synchronized (lock) {
+                        demand--;
+                    }
+                    downstream.onNext(outbox.poll());
+                    continue;
+                }
+
+                Input next;
+                boolean upstreamDone;
+                Subscription from = null;
+                synchronized (lock) {
+                    next = inbox.poll();
+                    upstreamDone = completedUpstreams >= upstreams.length;
+                    if (next != null) from = upstreams[next.upstream];
+                }
+                if (next != null) {
+                    if (from != null) from.request(1); // its slot is free again
+                    try {
+                        List<SmartWatchData> out = spec.operator.apply(next.batch);
+                        if (out != null && !out.isEmpty()) outbox.add(out);
+                    } catch (Exception e) {
+                        fail(e);
+                        return;
+                    }
+                    continue;
+                }
+                if (!upstreamDone) return;
+
+                // All upstreams done and everything handed on: flush once, then complete
+                if (!flushed) {
+                    flushed = true;
+                    try {
+                        List<SmartWatchData> tail = spec.operator.finish();
+                        if (tail != null && !tail.isEmpty()) {
+                            outbox.add(tail);
+                            continue;
+                        }
+                    } catch (Exception e) {
+                        fail(e);
+                        return;
+                    }
+                }
+                finished = true;
+                downstream.onComplete();
+                return;
+            }
+        }
+
+        private void fail(Throwable t) {
+            finished = true;
+            cancelled = true;
+            cancelUpstreams();
+            downstream.onError(t);
+        }
+    }
+
+    private static final class Input {
+        final int upstream;
+        final List<SmartWatchData> batch;
+
+        Input(int upstream, List<SmartWatchData> batch) {
+            this.upstream = upstream;
+            this.batch = batch;
+        }
+    }
+
+    /** Operator face of the sink, counting what was written. */
+    private static final class SinkOperator implements Operator {
+        final Sink sink;
+        long written;
+
+        SinkOperator(Sink sink) {
+            this.sink = sink;
+        }
+
+        @Override
+        public List<SmartWatchData> apply(List<SmartWatchData> batch) throws Exception {
+            sink.write(batch);
+            written += batch.size();
+            return Collections.emptyList();
+        }
+
+        @Override
+        public List<SmartWatchData> finish() throws Exception {
+            sink.close();
+            return Collections.emptyList();
+        }
+    }
+
+    /** Unbounded subscriber after the sink stage; reports the outcome. */
+    private static final class Terminal implements Subscriber {
+        private final SinkOperator sink;
+        private final Listener listener;
+
+        Terminal(SinkOperator sink, Listener listener) {
+            this.sink = sink;
+            this.listener = listener;
+        }
+
+        @Override
+        public void onSubscribe(Subscription s) {
+            s.request(Long.MAX_VALUE);
+        }
+
+        @Override
+        public void onNext(List<SmartWatchData> batch) {}
+
+        @Override
+        public void onError(Throwable t) {
+            if (listener != null) listener.onFailure(t);
+        }
+
+        @Override
+        public void onComplete() {
+            if (listener != null) listener.onComplete(sink.written);
+        }
+    }
+
+    private static long addCap(long a, long b) {
+        long r = a + b;
+        return r < 0 ? Long.MAX_VALUE : r;
+    }
+
+    // ---------------- Interfaces ----------------
+    public interface Publisher {
+        void subscribe(Subscriber subscriber);
+    }
+
+    public interface Subscriber {
+        void onSubscribe(Subscription subscription);
+        void onNext(List<SmartWatchData> batch);
+        void onError(Throwable t);
+        void onComplete();
+    }
+
+    /** Demand is counted in batches. */
+    public interface Subscription {
+        void request(long n);
+        void cancel();
+    }
+
+    /** Batch transform; stateful operators keep state across batches and flush in finish(). */
+    public interface Operator {
+        List<SmartWatchData> apply(List<SmartWatchData> batch) throws Exception;
+
+        default List<SmartWatchData> finish() throws Exception {
+            return Collections.emptyList();
+        }
+    }
+
+    /** Terminal stage; write may block (that is what throttles the sources). */
+    public interface Sink {
+        void write(List<SmartWatchData> batch) throws Exception;
+
+        default void close() throws Exception {}
+    }
+
+    public interface Handle {
+        /** Stops the sources and drops buffered batches; the listener is not called. */
+        void cancel();
+    }
+
+    public interface Listener {
+        void onComplete(long written);
+        void onFailure(Throwable t);
+    }
+}
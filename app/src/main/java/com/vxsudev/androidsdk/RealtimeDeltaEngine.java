@@ -0,0 +1,82 @@
+package com.vxsudev.androidsdk;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Coalesces decoded realtime changes into at most one update per frame.
+ *
+ * {@link #post} may be called from any thread (the snapshot listener decodes on a background
+ * executor) and only queues the changes; the first post after an update asks the
+ * {@link FrameScheduler} for a frame. At the frame, everything queued since is applied to
+ * the {@link RealtimeView} in place and the listener gets the view plus the net
+ * {@link RealtimeView.Delta} — so a burst of snapshots costs the UI thread one update.
+ *
+ * The view and listener belong to the thread frames run on (the UI thread on Android).
+ */
+public class RealtimeDeltaEngine {
+
+    private final FrameScheduler scheduler;
+    private final Listener listener;
+    private final RealtimeView view = new RealtimeView();
+    private final Runnable frame = this::onFrame;
+
+    private final Object lock = new Object();
+    private List<RealtimeView.Change> queued = new ArrayList<>(); // guarded by lock
+    private boolean frameScheduled;                                // guarded by lock
+    private boolean resetRequested;                                // guarded by lock
+
+    public RealtimeDeltaEngine(FrameScheduler scheduler, Listener listener) {
+        this.scheduler = scheduler;
+        this.listener = listener;
+    }
+
+    /** Queues changes for the next frame. Thread-safe. */
+    public void post(List<RealtimeView.Change> changes) {
+        if (changes.isEmpty()) return;
+        synchronized (lock) {
+            queued.addAll(changes);
+            if (frameScheduled) return;
+            frameScheduled = true;
+        }
+        scheduler.scheduleFrame(frame);
+    }
+
+    /** Empties the view at the next frame, dropping anything still queued (e.g. on re-subscribe). */
+    public void reset() {
+        synchronized (lock) {
+            queued = new ArrayList<>();
+            resetRequested = true;
+        }
+    }
+
+    /** Only touch from the frame thread. */
+    public RealtimeView getView() {
+        return view;
+    }
+
+    private void onFrame() {
+        List<RealtimeView.Change> batch;
+        boolean reset;
+        synchronized (lock) {
+            batch = queued;
+            queued = new ArrayList<>();
+            reset = resetRequested;
+            resetRequested = false;
+            frameScheduled = false;
+        }
+        if (reset) view.clear();
+        RealtimeView.Delta delta = view.applyAll(batch);
+        if (!delta.isEmpty()) listener.onUpdate(view, delta);
+    }
+
+    // ---------------- Callback interfaces ----------------
+    /** Runs a task once at the next frame on the UI thread (Choreographer on Android). */
+    public interface FrameScheduler {
+        void scheduleFrame(Runnable frame);
+    }
+
+    public interface Listener {
+        void onUpdate(RealtimeView view, RealtimeView.Delta delta);
+    }
+}
@@ -0,0 +1,228 @@
+package com.vxsudev.androidsdk;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+
+/**
+ * Live rows of a realtime query, keyed by document ID and kept ordered by
+ * (timestamp, document ID) — the order the Firestore query returns them in.
+ *
+ * Deltas are applied in place: a lookup by ID plus a binary search for the position, so an
+ * append at the newest end costs O(1) and no full re-sort or copy ever happens.
+ * Not thread-safe; {@link RealtimeDeltaEngine} confines it to the UI thread.
+ */
+public class RealtimeView {
+
+    public enum ChangeType { ADDED, MODIFIED, REMOVED }
+
+    private final List<Row> rows = new ArrayList<>();
+    private final Map<String, Row> byId = new HashMap<>();
+    private final List<SmartWatchData> readOnly = new ReadingsList();
+
+    // ---------------- Queries ----------------
+
+    public int size() {
+        return rows.size();
+    }
+
+    public SmartWatchData get(int index) {
+        return rows.get(index).data;
+    }
+
+    public String getDocumentId(int index) {
+        return rows.get(index).id;
+    }
+
+    /** The row for a document, or null. */
+    public SmartWatchData find(String documentId) {
+        Row row = byId.get(documentId);
+        return row != null ? row.data : null;
+    }
+
+    /** Position of a document in timestamp order, or -1. */
+    public int indexOf(String documentId) {
+        Row row = byId.get(documentId);
+        return row != null ? search(row.data.getTimestamp(), row.id) : -1;
+    }
+
+    /** Live, read-only list of the readings in timestamp order (no copy). */
+    public List<SmartWatchData> asList() {
+        return readOnly;
+    }
+
+    // ---------------- Deltas ----------------
+
+    /**
+     * Applies a batch of changes and returns their net effect: a document added and then
+     * removed within the batch does not appear at all, added-then-modified is an add, and
+     * removed-then-added is a modify. Changes naming unknown documents are treated as adds.
+     */
+    public Delta applyAll(List<Change> changes) {
+        Map<String, ChangeType> net = new LinkedHashMap<>();
+        Map<String, SmartWatchData> removedRows = new HashMap<>();
+
+        for (Change c : changes) {
+            SmartWatchData previous = c.type == ChangeType.REMOVED ? remove(c.documentId) : put(c.documentId, c.data);
+            ChangeType effective = c.type == ChangeType.REMOVED ? ChangeType.REMOVED
+                    : previous == null ? ChangeType.ADDED : ChangeType.MODIFIED;
+            if (effective == ChangeType.REMOVED && previous == null) continue; // unknown, nothing to undo
+
+            ChangeType before = net.get(c.documentId);
+            if (before == null) {
+                net.put(c.documentId, effective);
+                if (effective == ChangeType.REMOVED) removedRows.put(c.documentId, previous);
+            } else if (before == ChangeType.ADDED) {
+                if (effective == ChangeType.REMOVED) net.remove(c.documentId);
+            } else if (before == ChangeType.MODIFIED) {
+                if (effective == ChangeType.REMOVED) {
+                    net.put(c.documentId, ChangeType.REMOVED);
+                    removedRows.putIfAbsent(c.documentId, previous);
+                }
+            } else if (effective != ChangeType.REMOVED) {
+                net.put(c.documentId, ChangeType.MODIFIED); // removed, then back
+                removedRows.remove(c.documentId);
+            }
+        }
+
+        Delta delta = new Delta();
+        for (Map.Entry<String, ChangeType> e : net.entrySet()) {
+            String id = e.getKey();
+            switch (e.getValue()) {
+                case ADDED:
+                    delta.added.put(id, find(id));
+                    break;
+                case MODIFIED:
+                    delta.modified.put(id, find(id));
+                    break;
+                case REMOVED:
+                    delta.removed.put(id, removedRows.get(id));
+                    break;
+            }
+        }
+        return delta;
+    }
+
+    public void clear() {
+        rows.clear();
+        byId.clear();
+    }
+
+    // ---------------- Internals ----------------
+
+    /** Inserts or replaces; returns the replaced reading or null. */
+    private SmartWatchData put(String id, SmartWatchData data) {
+        Row row = byId.get(id);
+        if (row != null) {
+            SmartWatchData previous = row.data;
+            if (previous.getTimestamp() == data.getTimestamp()) {
+                row.data = data; // same position
+                return previous;
+            }
+            rows.remove(search(previous.getTimestamp(), id));
+            row.data = data;
+            rows.add(insertionPoint(data.getTimestamp(), id), row);
+            return previous;
+        }
+        row = new Row(id, data);
+        byId.put(id, row);
+        rows.add(insertionPoint(data.getTimestamp(), id), row);
+        return null;
+    }
+
+    private SmartWatchData remove(String id) {
+        Row row = byId.remove(id);
+        if (row == null) return null;
+        rows.remove(search(row.data.getTimestamp(), id));
+        return row.data;
+    }
+
+    private int search(long timestamp, String id) {
+        int i = insertionPoint(timestamp, id);
+        return i < rows.size() && rows.get(i).id.equals(id) ? i : -1;
+    }
+
+    /** First index whose (timestamp, id) is >= the key; checks the end first for appends. */
+    private int insertionPoint(long timestamp, String id) {
+        int n = rows.size();
+        if (n == 0 || compare(rows.get(n - 1), timestamp, id) < 0) return n;
+        int lo = 0, hi = n - 1;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (compare(rows.get(mid), timestamp, id) < 0) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    private static int compare(Row row, long timestamp, String id) {
+        int c = Long.compare(row.data.getTimestamp(), timestamp);
+        return c != 0 ? c : row.id.compareTo(id);
+    }
+
+    private static final class Row {
+        final String id;
+        SmartWatchData data;
+
+        Row(String id, SmartWatchData data) {
+            this.id = id;
+            this.data = data;
+        }
+    }
+
+    private final class ReadingsList extends AbstractList<SmartWatchData> implements RandomAccess {
+        @Override
+        public SmartWatchData get(int index) {
+            return rows.get(index).data;
+        }
+
+        @Override
+        public int size() {
+            return rows.size();
+        }
+    }
+
+    // ---------------- Change / Delta ----------------
+
+    /** One decoded document change. data is ignored for REMOVED. */
+    public static final class Change {
+        final ChangeType type;
+        final String documentId;
+        final SmartWatchData data;
+
+        public Change(ChangeType type, String documentId, SmartWatchData data) {
+            this.type = type;
+            this.documentId = documentId;
+            this.data = data;
+        }
+    }
+
+    /** Net changes of one update, keyed by document ID in arrival order. */
+    public static final class Delta {
+        final Map<String, SmartWatchData> added = new LinkedHashMap<>();
+        final Map<String, SmartWatchData> modified = new LinkedHashMap<>();
+        final Map<String, SmartWatchData> removed = new LinkedHashMap<>();
+
+        public Map<String, SmartWatchData> getAdded() {
+            return Collections.unmodifiableMap(added);
+        }
+
+        public Map<String, SmartWatchData> getModified() {
+            return Collections.unmodifiableMap(modified);
+        }
+
+        /** Removed document IDs with the last reading each had. */
+        public Map<String, SmartWatchData> getRemoved() {
+            return Collections.unmodifiableMap(removed);
+        }
+
+        public boolean isEmpty() {
+            return added.isEmpty() && modified.isEmpty() && removed.isEmpty();
+        }
+    }
+}
@@ -0,0 +1,443 @@
+package com.vxsudev.androidsdk;
+
+import java.io.Closeable;
+import java.io.File;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * File uploads through a {@link StorageClient} with resumable sessions, retries and a
+ * limit on how many run at once.
+ *
+ * Up to maxConcurrent files transfer together; the rest wait in FIFO order. The session URI
+ * of each upload is saved in a {@link SessionStore} as soon as the client reports it, keyed
+ * by remote path plus the file's length and modification time. A retry, or enqueueing the
+ * same file again after the process died, resumes that session from the bytes the server
+ * already has instead of starting over. A session is dropped on success or cancel, and when
+ * resuming it fails twice without moving a byte (the server has expired it).
+ *
+ * A failed attempt is retried after exponential backoff with full jitter: a random delay in
+ * [0, min(maxDelay, baseDelay * 2^(failures-1))], so devices that lose the network together
+ * do not all come back at once. Success does not fetch a download URL; ask
+ * {@link Upload#getDownloadUrl} when one is actually needed.
+ *
+ * Android-free. Callbacks run on the client's callback thread or the retry timer.
+ */
+public class ResumableUploader implements Closeable {
+
+    public static final int DEFAULT_MAX_CONCURRENT = 2;
+    public static final int DEFAULT_MAX_ATTEMPTS = 6;
+    public static final long DEFAULT_BASE_DELAY_MILLIS = 1000;
+    public static final long DEFAULT_MAX_DELAY_MILLIS = 60_000;
+    private static final int MAX_RESUME_FAILURES = 2;
+
+    public enum State { QUEUED, RUNNING, WAITING_TO_RETRY, SUCCEEDED, FAILED, CANCELLED }
+
+    private final StorageClient client;
+    private final SessionStore sessions;
+    private final int maxAttempts;
+    private final long baseDelayMillis;
+    private final long maxDelayMillis;
+    private final ScheduledExecutorService timer;
+
+    // Guarded by this
+    private final ArrayDeque<Upload> queued = new ArrayDeque<>();
+    private final Set<Upload> unfinished = new LinkedHashSet<>();
+    private int maxConcurrent;
+    private int running; // started and not finished, including those waiting to retry
+    private boolean closed;
+
+    public ResumableUploader(StorageClient client, SessionStore sessions) {
+        this(client, sessions, DEFAULT_MAX_CONCURRENT, DEFAULT_MAX_ATTEMPTS,
+                DEFAULT_BASE_DELAY_MILLIS, DEFAULT_MAX_DELAY_MILLIS);
+    }
+
+    public ResumableUploader(StorageClient client, SessionStore sessions, int maxConcurrent,
+                             int maxAttempts, long baseDelayMillis, long maxDelayMillis) {
+        this.client = client;
+        this.sessions = sessions;
+        this.maxConcurrent = Math.max(maxConcurrent, 1);
+        this.maxAttempts = Math.max(maxAttempts, 1);
+        this.baseDelayMillis = Math.max(baseDelayMillis, 1);
+        this.maxDelayMillis = Math.max(maxDelayMillis, this.baseDelayMillis);
+        this.timer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "ResumableUploader");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    // ---------------- Enqueue ----------------
+
+    /** Queues file for upload to remotePath; contentType may be null. */
+    public Upload enqueue(File file, String remotePath, String contentType, Callback callback) {
+        String key = remotePath + "@" + file.length() + ":" + file.lastModified();
+        Upload upload = new Upload(file, remotePath, contentType, key, callback);
+        synchronized (this) {
+            if (closed) throw new IllegalStateException("ResumableUploader is closed");
+            queued.add(upload);
+            unfinished.add(upload);
+        }
+        startReady();
+        return upload;
+    }
+
+    /** Changes the concurrency limit; lowering it lets running uploads finish. */
+    public void setMaxConcurrent(int maxConcurrent) {
+        synchronized (this) {
+            this.maxConcurrent = Math.max(maxConcurrent, 1);
+        }
+        startReady();
+    }
+
+    public synchronized int getRunningCount() {
+        return running;
+    }
+
+    public synchronized int getQueuedCount() {
+        return queued.size();
+    }
+
+    /**
+     * Cancels every unfinished upload but keeps their sessions, so enqueueing the same
+     * files later resumes them. Callbacks get a CancellationException.
+     */
+    @Override
+    public void close() {
+        List<Upload> toCancel;
+        synchronized (this) {
+            if (closed) return;
+            closed = true;
+            toCancel = new ArrayList<>(unfinished);
+        }
+        for (Upload u : toCancel) cancel(u, false);
+        timer.shutdownNow();
+    }
+
+    // ---------------- Attempts ----------------
+
+    private void startReady() {
+        List<Upload> ready = null;
+        synchronized (this) {
+            while (!closed && running < maxConcurrent && !queued.isEmpty()) {
+                running++;
+                if (ready == null) ready = new ArrayList<>();
+                ready.add(queued.poll());
+            }
+        }
+        if (ready == null) return;
+        for (Upload u : ready) attempt(u);
+    }
+
+    private void attempt(Upload u) {
+        int attempt;
+        synchronized (u) {
+            if (u.isDone()) return;
+            attempt = ++u.attempts;
+            u.state = State.RUNNING;
+            u.retry = null;
+            u.transfer = null;
+            u.attemptStartBytes = -1;
+            u.progressed = false;
+        }
+        String session = sessions.getSession(u.key);
+        u.resumed = session != null;
+
+        StorageClient.Transfer transfer;
+        try {
+            transfer = client.upload(u.file, u.remotePath, u.contentType, session, new AttemptListener(u, attempt));
+        } catch (RuntimeException e) {
+            onAttemptFailed(u, attempt, e);
+            return;
+        }
+        boolean cancelNow;
+        synchronized (u) {
+            u.transfer = transfer;
+            cancelNow = u.state == State.CANCELLED;
+        }
+        if (cancelNow && transfer != null) transfer.cancel();
+    }
+
+    /** Listener for one attempt; callbacks from superseded attempts are ignored. */
+    private final class AttemptListener implements StorageClient.UploadListener {
+        private final Upload u;
+        private final int attempt;
+
+        AttemptListener(Upload u, int attempt) {
+            this.u = u;
+            this.attempt = attempt;
+        }
+
+        private boolean current() {
+            synchronized (u) {
+                return u.attempts == attempt && u.state == State.RUNNING;
+            }
+        }
+
+        @Override
+        public void onSession(String sessionUri) {
+            if (current() && sessionUri != null) sessions.putSession(u.key, sessionUri);
+        }
+
+        @Override
+        public void onProgress(long bytesTransferred, long totalBytes) {
+            synchronized (u) {
+                if (u.attempts != attempt || u.state != State.RUNNING) return;
+                long now = System.nanoTime();
+                if (u.attemptStartBytes < 0) {
+                    // A resumed attempt starts at the server's offset, not at zero
+                    u.attemptStartBytes = bytesTransferred;
+                    u.attemptStartNanos = now;
+                } else if (bytesTransferred > u.attemptStartBytes) {
+                    u.progressed = true;
+                    u.resumeFailures = 0;
+                    double seconds = (now - u.attemptStartNanos) / 1e9;
+                    if (seconds > 0) u.bytesPerSecond = (long) ((bytesTransferred - u.attemptStartBytes) / seconds);
+                }
+                u.bytesTransferred = bytesTransferred;
+                u.totalBytes = totalBytes;
+            }
+            Callback cb = u.callback;
+            if (cb != null) cb.onProgress(u);
+        }
+
+        @Override
+        public void onSuccess() {
+            if (!current()) return;
+            sessions.removeSession(u.key);
+            synchronized (u) {
+                if (u.totalBytes > 0) u.bytesTransferred = u.totalBytes;
+            }
+            finish(u, State.SUCCEEDED, null, true);
+        }
+
+        @Override
+        public void onFailure(Exception e) {
+            onAttemptFailed(u, attempt, e);
+        }
+    }
+
+    private void onAttemptFailed(Upload u, int attempt, Exception error) {
+        long delay;
+        synchronized (u) {
+            if (u.attempts != attempt || u.state != State.RUNNING) return;
+            if (u.resumed && !u.progressed && ++u.resumeFailures >= MAX_RESUME_FAILURES) {
+                sessions.removeSession(u.key); // the next attempt starts a fresh session
+                u.resumeFailures = 0;
+            }
+            if (u.attempts >= maxAttempts || timer.isShutdown()) {
+                delay = -1;
+            } else {
+                delay = backoffMillis(u.attempts, baseDelayMillis, maxDelayMillis, ThreadLocalRandom.current());
+                u.state = State.WAITING_TO_RETRY;
+            }
+        }
+        if (delay >= 0) {
+            try {
+                ScheduledFuture<?> retry = timer.schedule(() -> attempt(u), delay, TimeUnit.MILLISECONDS);
+                synchronized (u) {
+                    u.retry = retry;
+                }
+                return;
+            } catch (RuntimeException rejected) {
+                // timer shut down in between — give up below
+            }
+        }
+        finish(u, State.FAILED, error, true);
+    }
+
+    /** Full-jitter exponential backoff before the retry that follows the given failure count. */
+    static long backoffMillis(int failures, long baseDelayMillis, long maxDelayMillis, Random random) {
+        long cap = failures > 30 ? maxDelayMillis
+                : Math.min(maxDelayMillis, baseDelayMillis << Math.max(failures - 1, 0));
+        return (long) (random.nextDouble() * (cap + 1));
+    }
+
+    // ---------------- Finishing ----------------
+
+    private void cancel(Upload u, boolean dropSession) {
+        boolean wasQueued;
+        synchronized (this) {
+            wasQueued = queued.remove(u);
+        }
+        StorageClient.Transfer transfer;
+        ScheduledFuture<?> retry;
+        synchronized (u) {
+            if (u.isDone()) return;
+            transfer = u.state == State.RUNNING ? u.transfer : null;
+            retry = u.retry;
+        }
+        if (dropSession) sessions.removeSession(u.key);
+        if (!finish(u, State.CANCELLED, new CancellationException("Upload cancelled: " + u.remotePath), !wasQueued)) return;
+        if (retry != null) retry.cancel(false);
+        if (transfer != null) transfer.cancel();
+    }
+
+    /** Moves u to a final state once; false if it already had one. */
+    private boolean finish(Upload u, State state, Exception error, boolean releaseSlot) {
+        synchronized (u) {
+            if (u.isDone()) return false;
+            u.state = state;
+        }
+        synchronized (this) {
+            unfinished.remove(u);
+            if (releaseSlot) running--;
+        }
+        Callback cb = u.callback;
+        if (cb != null) {
+            if (error == null) cb.onSuccess(u);
+            else cb.onFailure(u, error);
+        }
+        startReady();
+        return true;
+    }
+
+    // ---------------- Uploads ----------------
+
+    /** Handle for one enqueued file. Getters are safe from any thread. */
+    public final class Upload {
+        private final File file;
+        private final String remotePath;
+        private final String contentType;
+        private final String key;
+        private final Callback callback;
+
+        // Guarded by this
+        private State state = State.QUEUED;
+        private int attempts;
+        private StorageClient.Transfer transfer;
+        private ScheduledFuture<?> retry;
+        private long bytesTransferred;
+        private long totalBytes;
+        private long bytesPerSecond;
+        private long attemptStartBytes;
+        private long attemptStartNanos;
+        private boolean progressed;
+        private int resumeFailures;
+        private volatile boolean resumed;
+        private String downloadUrl;
+
+        Upload(File file, String remotePath, String contentType, String key, Callback callback) {
+            this.file = file;
+            this.remotePath = remotePath;
+            this.contentType = contentType;
+            this.key = key;
+            this.callback = callback;
+        }
+
+        public File getFile() {
+            return file;
+        }
+
+        public String getRemotePath() {
+            return remotePath;
+        }
+
+        public synchronized State getState() {
+            return state;
+        }
+
+        public synchronized int getAttempts() {
+            return attempts;
+        }
+
+        public synchronized long getBytesTransferred() {
+            return bytesTransferred;
+        }
+
+        /** File size as reported by the client; 0 before the first progress report. */
+        public synchronized long getTotalBytes() {
+            return totalBytes;
+        }
+
+        /** Throughput of the current (or last) attempt. */
+        public synchronized long getBytesPerSecond() {
+            return bytesPerSecond;
+        }
+
+        /** Fetches the download URL on first call and caches it. */
+        public void getDownloadUrl(StorageClient.UrlCallback callback) {
+            String cached;
+            synchronized (this) {
+                cached = downloadUrl;
+            }
+            if (cached != null) {
+                callback.onSuccess(cached);
+                return;
+            }
+            client.getDownloadUrl(remotePath, new StorageClient.UrlCallback() {
+                @Override
+                public void onSuccess(String url) {
+                    synchronized (Upload.this) {
+                        downloadUrl = url;
+                    }
+                    callback.onSuccess(url);
+                }
+
+                @Override
+                public void onFailure(Exception e) {
+                    callback.onFailure(e);
+                }
+            });
+        }
+
+        /** Stops the upload and forgets its session. */
+        public void cancel() {
+            ResumableUploader.this.cancel(this, true);
+        }
+
+        private boolean isDone() {
+            return state == State.SUCCEEDED || state == State.FAILED || state == State.CANCELLED;
+        }
+    }
+
+    // ---------------- Session stores ----------------
+
+    /** A store that lives as long as the process: sessions survive retries, not restarts. */
+    public static SessionStore inMemorySessions() {
+        Map<String, String> map = new ConcurrentHashMap<>();
+        return new SessionStore() {
+            @Override
+            public String getSession(String key) {
+                return map.get(key);
+            }
+
+            @Override
+            public void putSession(String key, String sessionUri) {
+                map.put(key, sessionUri);
+            }
+
+            @Override
+            public void removeSession(String key) {
+                map.remove(key);
+            }
+        };
+    }
+
+    // ---------------- Callback interfaces ----------------
+    /** Persistent upload session URIs; getSession returns null when there is none. */
+    public interface SessionStore {
+        String getSession(String key);
+        void putSession(String key, String sessionUri);
+        void removeSession(String key);
+    }
+
+    public interface Callback {
+        default void onProgress(Upload upload) {}
+        void onSuccess(Upload upload);
+        /** The last attempt's error, or a CancellationException after cancel or close. */
+        void onFailure(Upload upload, Exception e);
+    }
+}
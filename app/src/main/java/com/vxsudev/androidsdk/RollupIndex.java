@@ -0,0 +1,644 @@
+package com.vxsudev.androidsdk;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Pre-aggregated min/max/sum/count of every metric at 1-minute, 1-hour and 1-day buckets
+ * (epoch-aligned, UTC), maintained incrementally as readings arrive.
+ *
+ * {@link #aggregate(long, long)} covers a range with the coarsest whole buckets that fit
+ * and finer ones only at the edges, so a month costs ~30 days + ≤ 46 hours + ≤ 118 minutes
+ * of buckets instead of every sample. Bounds have minute resolution: a bucket counts when
+ * its start lies in [from, to).
+ *
+ * Minute buckets are kept for {@link #MINUTE_RETENTION_MILLIS} behind the newest reading;
+ * older edges fall back to whole hours.
+ *
+ * Reloading the CSV or re-fetching Fit/Firestore data never double-counts, with state that
+ * grows with buckets rather than readings. Within {@link #REPLACE_WINDOW_MILLIS} of the
+ * newest reading each reading's key — its {@link DocumentIds} hash of (source, device,
+ * timestamp) — and values are kept, so late readings count once and a re-read one (e.g. Fit's
+ * sync overlap) passed to {@link #add(List, long)} replaces the values counted for it; its
+ * bucket sums and means are exact, min and max only widen. Leaving the window, a minute is
+ * sealed for each (source, device) that had readings in it: later readings from that pair
+ * for that minute are taken as already counted, while other sources and devices still count.
+ * Readings older than the retained minutes are ignored once the index is past them.
+ *
+ * A heart rate, SpO₂ or temperature of 0 means "not measured" (e.g. a Fit minute with steps
+ * only): it still counts as a reading but is left out of that metric's min, max and mean.
+ *
+ * {@link #save(File)} appends what changed since the last save — touched buckets, new seals
+ * and the window — to the file, and rewrites it whole only once the appended deltas outgrow
+ * the last full write.
+ *
+ * Android-free; thread-safe through instance synchronization.
+ */
+public class RollupIndex {
+
+    public enum Level {
+        MINUTE(60_000L), HOUR(3_600_000L), DAY(86_400_000L);
+
+        public final long millis;
+
+        Level(long millis) {
+            this.millis = millis;
+        }
+    }
+
+    public static final int HEART_RATE = 0;
+    public static final int SPO2 = 1;
+    public static final int TEMPERATURE = 2;
+    public static final int STEPS = 3;
+    public static final int METRICS = 4;
+
+    public static final long MINUTE_RETENTION_MILLIS = 31L * 86_400_000L;
+    /** How long reading keys and values are kept; covers FitSyncManager's overlap. */
+    public static final long REPLACE_WINDOW_MILLIS = 3_600_000L;
+
+    private static final int MAGIC = 0x524F4C4C; // "ROLL"
+    private static final int VERSION = 4;
+    private static final Level[] LEVELS = Level.values();
+
+    private final String localDeviceId;
+    private final Buckets[] levels = new Buckets[LEVELS.length];
+    private final Map<Long, Counted> recent = new HashMap<>(); // key -> values, within the window
+    private final Map<Long, long[]> sealed = new HashMap<>();  // minute -> (source, device) hashes
+    private final Set<Long> dirtySeals = new HashSet<>();      // minutes sealed since the last save
+    private long minuteHorizon = Long.MIN_VALUE; // minute buckets before this were dropped
+    private long newest = Long.MIN_VALUE;
+    private final float[] values = new float[METRICS];
+
+    private File savedTo;        // file the deltas are appended to; null until the first save
+    private long fullBytes;      // size of its last full write
+    private long appendedBytes;  // deltas appended since
+
+    public RollupIndex() {
+        this(null);
+    }
+
+    /** localDeviceId stands in for readings without a device, i.e. this device's own. */
+    public RollupIndex(String localDeviceId) {
+        this.localDeviceId = localDeviceId;
+        for (int i = 0; i < levels.length; i++) levels[i] = new Buckets();
+    }
+
+    // ---------------- Ingest ----------------
+
+    /**
+     * Adds the readings not counted before, in any order.
+     *
+     * @return number of readings counted
+     */
+    public synchronized int add(List<SmartWatchData> readings) {
+        return add(readings, Long.MAX_VALUE);
+    }
+
+    /**
+     * Like add, but readings at or after replaceFromMillis that were counted before were
+     * re-read from their source: their new values replace the counted ones.
+     *
+     * @return number of readings counted or changed
+     */
+    public synchronized int add(List<SmartWatchData> readings, long replaceFromMillis) {
+        int changed = 0;
+        for (SmartWatchData d : readings) {
+            if (d == null) continue;
+            long ts = d.getTimestamp();
+            String device = d.getDeviceId() != null ? d.getDeviceId() : localDeviceId;
+            long key = DocumentIds.hash(d.getSource(), device, ts);
+            values[HEART_RATE] = d.getHeartRate();
+            values[SPO2] = d.getSpO2();
+            values[TEMPERATURE] = d.getTemperature();
+            values[STEPS] = d.getSteps();
+
+            Counted old = recent.get(key);
+            long origin = 0;
+            if (old != null) {
+                if (ts < replaceFromMillis || Arrays.equals(old.values, values)) continue; // not re-read or unchanged
+                removeSample(ts, old.values);
+                origin = old.origin;
+            } else {
+                if (ts < minuteHorizon) continue; // too old to tell whether it was counted
+                origin = DocumentIds.hash(d.getSource(), device, 0L);
+                if (isSealed(floorTo(ts, Level.MINUTE.millis), origin)) continue;
+            }
+            addSample(ts, values);
+            recent.put(key, new Counted(ts, origin, values.clone()));
+            newest = Math.max(newest, ts);
+            changed++;
+        }
+        if (changed > 0) {
+            applyRetention(newest);
+            sealBefore(floorTo(newest - REPLACE_WINDOW_MILLIS, Level.MINUTE.millis));
+        }
+        return changed;
+    }
+
+    private void addSample(long ts, float[] v) {
+        for (int l = 0; l < LEVELS.length; l++) {
+            if (l == Level.MINUTE.ordinal() && ts < minuteHorizon) continue;
+            levels[l].add(floorTo(ts, LEVELS[l].millis), v);
+        }
+    }
+
+    private void removeSample(long ts, float[] v) {
+        for (int l = 0; l < LEVELS.length; l++) {
+            if (l == Level.MINUTE.ordinal() && ts < minuteHorizon) continue;
+            levels[l].remove(floorTo(ts, LEVELS[l].millis), v);
+        }
+    }
+
+    /** Forgets keys of whole minutes before cutoff, sealing those minutes for their origin. */
+    private void sealBefore(long cutoff) {
+        Iterator<Counted> it = recent.values().iterator();
+        while (it.hasNext()) {
+            Counted c = it.next();
+            if (c.timestamp >= cutoff) continue;
+            it.remove();
+            long minute = floorTo(c.timestamp, Level.MINUTE.millis);
+            if (minute < minuteHorizon || isSealed(minute, c.origin)) continue;
+            long[] origins = sealed.get(minute);
+            origins = origins == null ? new long[1] : Arrays.copyOf(origins, origins.length + 1);
+            origins[origins.length - 1] = c.origin;
+            sealed.put(minute, origins);
+            dirtySeals.add(minute);
+        }
+    }
+
+    private boolean isSealed(long minute, long origin) {
+        long[] origins = sealed.get(minute);
+        if (origins == null) return false;
+        for (long o : origins) {
+            if (o == origin) return true;
+        }
+        return false;
+    }
+
+    private void applyRetention(long newest) {
+        long horizon = floorTo(newest - MINUTE_RETENTION_MILLIS, Level.HOUR.millis);
+        if (horizon <= minuteHorizon) return;
+        minuteHorizon = horizon;
+        dropBefore(horizon);
+    }
+
+    private void dropBefore(long horizon) {
+        levels[Level.MINUTE.ordinal()].dropBefore(horizon);
+        sealed.keySet().removeIf(minute -> minute < horizon);
+        dirtySeals.removeIf(minute -> minute < horizon);
+    }
+
+    // ---------------- Queries ----------------
+
+    /** Aggregate over [from, to) from the coarsest buckets that fit; see the class comment. */
+    public synchronized Aggregate aggregate(long fromInclusive, long toExclusive) {
+        Aggregate out = new Aggregate();
+        if (fromInclusive < toExclusive) collect(LEVELS.length - 1, fromInclusive, toExclusive, out);
+        return out;
+    }
+
+    /** Aggregate of the level's buckets starting in [from, to). */
+    public synchronized Aggregate aggregate(Level level, long fromInclusive, long toExclusive) {
+        Aggregate out = new Aggregate();
+        levels[level.ordinal()].sum(fromInclusive, toExclusive, out);
+        return out;
+    }
+
+    /** Bucket means over [from, to) as a series stamped with bucket starts; for charting. */
+    public synchronized SmartWatchSeries means(Level level, long fromInclusive, long toExclusive) {
+        return levels[level.ordinal()].means(fromInclusive, toExclusive);
+    }
+
+    public synchronized int getBucketCount(Level level) {
+        return levels[level.ordinal()].size;
+    }
+
+    /** Reading keys currently held for dedupe and replacement; bounded by the window. */
+    synchronized int getKeyCount() {
+        return recent.size();
+    }
+
+    /**
+     * Coarsest level with at least minBuckets buckets across spanMillis — one per pixel fills
+     * a chart — or null when even minutes are too coarse and raw samples should be drawn.
+     */
+    public static Level levelFor(long spanMillis, int minBuckets) {
+        for (int l = LEVELS.length - 1; l >= 0; l--) {
+            if (spanMillis / LEVELS[l].millis >= minBuckets) return LEVELS[l];
+        }
+        return null;
+    }
+
+    private void collect(int level, long from, long to, Aggregate out) {
+        if (level == 0) {
+            levels[0].sum(from, to, out);
+            return;
+        }
+        long size = LEVELS[level].millis;
+        long a = ceilTo(from, size);
+        long b = floorTo(to, size);
+        // Minute edges no longer retained: widen to whole hours instead of losing them
+        if (level == Level.HOUR.ordinal()) {
+            if (from < minuteHorizon) a = floorTo(from, size);
+            if (to < minuteHorizon) b = ceilTo(to, size);
+        }
+        if (a >= b) {
+            collect(level - 1, from, to, out);
+            return;
+        }
+        levels[level].sum(a, b, out);
+        if (from < a) collect(level - 1, from, a, out);
+        if (b < to) collect(level - 1, b, to, out);
+    }
+
+    // ---------------- Persistence ----------------
+    // File: MAGIC, VERSION, then length-prefixed records applied in order. A record holds the
+    // horizon, the whole window, and the buckets and seals it touched; the first record of a
+    // full write holds them all. A torn last record is ignored and forces the next full write.
+
+    /** Appends the changes since the last save, or rewrites the file atomically (temp + rename). */
+    public synchronized void save(File file) throws IOException {
+        if (!file.equals(savedTo) || !file.isFile() || appendedBytes > fullBytes) {
+            File tmp = new File(file.getPath() + ".tmp");
+            byte[] record = record(true);
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp), 64 * 1024))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(record.length);
+                out.write(record);
+            }
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            savedTo = file;
+            fullBytes = record.length;
+            appendedBytes = 0;
+        } else {
+            byte[] record = record(false);
+            try (DataOutputStream out = new DataOutputStream(new FileOutputStream(file, true))) {
+                out.writeInt(record.length);
+                out.write(record);
+            }
+            appendedBytes += record.length;
+        }
+        for (Buckets b : levels) b.dirty.clear();
+        dirtySeals.clear();
+    }
+
+    private byte[] record(boolean full) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeLong(minuteHorizon);
+        out.writeInt(recent.size());
+        for (Map.Entry<Long, Counted> e : recent.entrySet()) {
+            Counted c = e.getValue();
+            out.writeLong(e.getKey());
+            out.writeLong(c.timestamp);
+            out.writeLong(c.origin);
+            for (float v : c.values) out.writeFloat(v);
+        }
+        for (Buckets b : levels) b.write(out, full);
+        Collection<Long> minutes = full ? sealed.keySet() : dirtySeals;
+        out.writeInt(minutes.size());
+        for (long minute : minutes) {
+            long[] origins = sealed.get(minute);
+            out.writeLong(minute);
+            out.writeInt(origins.length);
+            for (long o : origins) out.writeLong(o);
+        }
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    /** Reads a saved index; a missing file gives an empty one. */
+    public static RollupIndex load(File file) throws IOException {
+        return load(file, null);
+    }
+
+    public static RollupIndex load(File file, String localDeviceId) throws IOException {
+        RollupIndex index = new RollupIndex(localDeviceId);
+        if (!file.isFile()) return index;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 64 * 1024))) {
+            if (in.readInt() != MAGIC) throw new IOException("Not a rollup file: " + file);
+            int version = in.readInt();
+            if (version != VERSION) throw new IOException("Unsupported rollup version " + version);
+            long remaining = file.length() - 8;
+            boolean first = true;
+            while (remaining > 0) {
+                int length = remaining >= 4 ? in.readInt() : -1;
+                if (length < 0 || length > remaining - 4) {
+                    if (first) throw new IOException("Corrupt rollup file " + file);
+                    index.savedTo = null; // torn append: rewrite in full next time
+                    break;
+                }
+                byte[] record = new byte[length];
+                in.readFully(record);
+                index.apply(new DataInputStream(new ByteArrayInputStream(record)));
+                if (first) index.fullBytes = length;
+                else index.appendedBytes += length;
+                first = false;
+                remaining -= 4L + length;
+                index.savedTo = file;
+            }
+        }
+        for (Buckets b : index.levels) b.dirty.clear();
+        return index;
+    }
+
+    private void apply(DataInputStream in) throws IOException {
+        minuteHorizon = in.readLong();
+        int keys = in.readInt();
+        if (keys < 0) throw new IOException("Corrupt rollup key count " + keys);
+        recent.clear();
+        for (int i = 0; i < keys; i++) {
+            long key = in.readLong();
+            long ts = in.readLong();
+            long origin = in.readLong();
+            float[] v = new float[METRICS];
+            for (int m = 0; m < METRICS; m++) v[m] = in.readFloat();
+            recent.put(key, new Counted(ts, origin, v));
+            newest = Math.max(newest, ts);
+        }
+        for (Buckets b : levels) b.read(in);
+        int minutes = in.readInt();
+        if (minutes < 0) throw new IOException("Corrupt rollup seal count " + minutes);
+        for (int i = 0; i < minutes; i++) {
+            long minute = in.readLong();
+            int n = in.readInt();
+            if (n < 0) throw new IOException("Corrupt rollup seal " + n);
+            long[] origins = new long[n];
+            for (int j = 0; j < n; j++) origins[j] = in.readLong();
+            sealed.put(minute, origins);
+        }
+        dropBefore(minuteHorizon);
+        dirtySeals.clear();
+    }
+
+    // ---------------- Helpers ----------------
+
+    static long floorTo(long ts, long size) {
+        return Math.floorDiv(ts, size) * size;
+    }
+
+    static long ceilTo(long ts, long size) {
+        long f = floorTo(ts, size);
+        return f == ts ? ts : f + size;
+    }
+
+    /** 0 is "not measured" for the vitals; zero steps is a real count. */
+    private static boolean measured(int metric, float v) {
+        return v != 0f || metric == STEPS;
+    }
+
+    /**
+     * One level: buckets sorted by start, metric columns interleaved per bucket. counts holds
+     * readings per bucket, measured the readings per bucket and metric that had a value.
+     */
+    private static final class Buckets {
+        long[] starts = new long[64];
+        int[] counts = new int[64];
+        int[] measured = new int[64 * METRICS];
+        float[] min = new float[64 * METRICS];
+        float[] max = new float[64 * METRICS];
+        double[] sum = new double[64 * METRICS];
+        int size;
+        final Set<Long> dirty = new HashSet<>(); // starts changed since the last save
+
+
+        void add(long start, float[] v) {
+            int i = indexFor(start);
+            dirty.add(start);
+            counts[i]++;
+            int base = i * METRICS;
+            for (int m = 0; m < METRICS; m++) {
+                if (!measured(m, v[m])) continue;
+                measured[base + m]++;
+                if (v[m] < min[base + m]) min[base + m] = v[m];
+                if (v[m] > max[base + m]) max[base + m] = v[m];
+                sum[base + m] += v[m];
+            }
+        }
+
+        /** Takes a sample back out; min and max cannot be, so they keep it. */
+        void remove(long start, float[] v) {
+            int i = Arrays.binarySearch(starts, 0, size, start);
+            if (i < 0) return; // dropped by retention
+            dirty.add(start);
+            counts[i]--;
+            int base = i * METRICS;
+            for (int m = 0; m < METRICS; m++) {
+                if (!measured(m, v[m])) continue;
+                measured[base + m]--;
+                sum[base + m] -= v[m];
+            }
+        }
+
+        /** Index of the bucket starting at start, inserting an empty one if needed. */
+        private int indexFor(long start) {
+            // Readings mostly arrive in time order: check the newest bucket first
+            if (size > 0 && starts[size - 1] == start) return size - 1;
+            int i = size > 0 && starts[size - 1] < start ? size : Arrays.binarySearch(starts, 0, size, start);
+            if (i >= 0 && i < size) return i;
+            if (i < 0) i = -i - 1;
+            if (size == starts.length) grow();
+            if (i < size) {
+                System.arraycopy(starts, i, starts, i + 1, size - i);
+                System.arraycopy(counts, i, counts, i + 1, size - i);
+                System.arraycopy(measured, i * METRICS, measured, (i + 1) * METRICS, (size - i) * METRICS);
+                System.arraycopy(min, i * METRICS, min, (i + 1) * METRICS, (size - i) * METRICS);
+                System.arraycopy(max, i * METRICS, max, (i + 1) * METRICS, (size - i) * METRICS);
+                System.arraycopy(sum, i * METRICS, sum, (i + 1) * METRICS, (size - i) * METRICS);
+            }
+            starts[i] = start;
+            counts[i] = 0;
+            Arrays.fill(measured, i * METRICS, (i + 1) * METRICS, 0);
+            Arrays.fill(min, i * METRICS, (i + 1) * METRICS, Float.POSITIVE_INFINITY);
+            Arrays.fill(max, i * METRICS, (i + 1) * METRICS, Float.NEGATIVE_INFINITY);
+            Arrays.fill(sum, i * METRICS, (i + 1) * METRICS, 0d);
+            size++;
+            return i;
+        }
+
+        private void grow() {
+            int cap = starts.length * 2;
+            starts = Arrays.copyOf(starts, cap);
+            counts = Arrays.copyOf(counts, cap);
+            measured = Arrays.copyOf(measured, cap * METRICS);
+            min = Arrays.copyOf(min, cap * METRICS);
+            max = Arrays.copyOf(max, cap * METRICS);
+            sum = Arrays.copyOf(sum, cap * METRICS);
+        }
+
+        void dropBefore(long start) {
+            int i = lowerBound(start);
+            if (i == 0) return;
+            int keep = size - i;
+            System.arraycopy(starts, i, starts, 0, keep);
+            System.arraycopy(counts, i, counts, 0, keep);
+            System.arraycopy(measured, i * METRICS, measured, 0, keep * METRICS);
+            System.arraycopy(min, i * METRICS, min, 0, keep * METRICS);
+            System.arraycopy(max, i * METRICS, max, 0, keep * METRICS);
+            System.arraycopy(sum, i * METRICS, sum, 0, keep * METRICS);
+            size = keep;
+            dirty.removeIf(s -> s < start);
+        }
+
+        void sum(long from, long to, Aggregate out) {
+            for (int i = lowerBound(from); i < size && starts[i] < to; i++) {
+                out.add(counts[i], measured, min, max, sum, i * METRICS);
+            }
+        }
+
+        SmartWatchSeries means(long from, long to) {
+            int lo = lowerBound(from);
+            int hi = lowerBound(to);
+            SmartWatchSeries series = new SmartWatchSeries(Math.max(hi - lo, 1));
+            for (int i = lo; i < hi; i++) {
+                int base = i * METRICS;
+                series.append(starts[i],
+                        (int) Math.round(mean(base + HEART_RATE)),
+                        (float) mean(base + SPO2),
+                        (float) mean(base + TEMPERATURE),
+                        (int) Math.round(mean(base + STEPS)));
+            }
+            return series;
+        }
+
+        // 0, i.e. "not measured", when no reading in the bucket had the metric
+        private double mean(int slot) {
+            return measured[slot] > 0 ? sum[slot] / measured[slot] : 0d;
+        }
+
+        /** First index with starts[i] >= start. */
+        private int lowerBound(long start) {
+            int lo = 0, hi = size;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (starts[mid] < start) lo = mid + 1;
+                else hi = mid;
+            }
+            return lo;
+        }
+
+        /** All buckets, or only those changed since the last save. */
+        void write(DataOutputStream out, boolean all) throws IOException {
+            out.writeInt(all ? size : dirty.size());
+            if (all) {
+                for (int i = 0; i < size; i++) writeBucket(out, i);
+            } else {
+                for (long start : dirty) writeBucket(out, Arrays.binarySearch(starts, 0, size, start));
+            }
+        }
+
+        private void writeBucket(DataOutputStream out, int i) throws IOException {
+            out.writeLong(starts[i]);
+            out.writeInt(counts[i]);
+            for (int m = i * METRICS; m < (i + 1) * METRICS; m++) {
+                out.writeInt(measured[m]);
+                out.writeFloat(min[m]);
+                out.writeFloat(max[m]);
+                out.writeDouble(sum[m]);
+            }
+        }
+
+        /** Replaces the buckets a record holds, inserting the ones not seen yet. */
+        void read(DataInputStream in) throws IOException {
+            int n = in.readInt();
+            if (n < 0) throw new IOException("Corrupt rollup level size " + n);
+            for (int b = 0; b < n; b++) {
+                int i = indexFor(in.readLong());
+                counts[i] = in.readInt();
+                for (int m = i * METRICS; m < (i + 1) * METRICS; m++) {
+                    measured[m] = in.readInt();
+                    min[m] = in.readFloat();
+                    max[m] = in.readFloat();
+                    sum[m] = in.readDouble();
+                }
+            }
+        }
+    }
+
+    /** A counted reading's values, kept while it is within the window. */
+    private static final class Counted {
+        final long timestamp;
+        final long origin; // hash of (source, device), sealed into its minute on eviction
+        final float[] values;
+
+        Counted(long timestamp, long origin, float[] values) {
+            this.timestamp = timestamp;
+            this.origin = origin;
+            this.values = values;
+        }
+    }
+
+    // ---------------- Result ----------------
+
+    /**
+     * Per-metric min/max/sum/mean over a number of readings; index with HEART_RATE etc.
+     * Min, max and mean only cover the readings where the metric was measured.
+     */
+    public static final class Aggregate {
+        private long count;
+        private final long[] measured = new long[METRICS];
+        private final float[] min = new float[METRICS];
+        private final float[] max = new float[METRICS];
+        private final double[] sum = new double[METRICS];
+
+        Aggregate() {
+            Arrays.fill(min, Float.POSITIVE_INFINITY);
+            Arrays.fill(max, Float.NEGATIVE_INFINITY);
+        }
+
+        void add(int n, int[] bMeasured, float[] bMin, float[] bMax, double[] bSum, int base) {
+            count += n;
+            for (int m = 0; m < METRICS; m++) {
+                measured[m] += bMeasured[base + m];
+                min[m] = Math.min(min[m], bMin[base + m]);
+                max[m] = Math.max(max[m], bMax[base + m]);
+                sum[m] += bSum[base + m];
+            }
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        /** Readings that had a value for metric. */
+        public long getCount(int metric) {
+            return measured[metric];
+        }
+
+        /** NaN when no reading measured the metric. */
+        public float getMin(int metric) {
+            return measured[metric] > 0 ? min[metric] : Float.NaN;
+        }
+
+        public float getMax(int metric) {
+            return measured[metric] > 0 ? max[metric] : Float.NaN;
+        }
+
+        public double getSum(int metric) {
+            return sum[metric];
+        }
+
+        public double getMean(int metric) {
+            return measured[metric] > 0 ? sum[metric] / measured[metric] : Double.NaN;
+        }
+    }
+}
@@ -6,31 +6,56 @@ import android.util.Log;
 import org.json.JSONArray;
 import org.json.JSONObject;
 
-import java.io.FileOutputStream;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
 import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
 
+/**
+ * On-device snapshot storage.
+ * - History (appendRecord / loadAllSnapshots) lives in a {@link SnapshotLog} under
+ *   files/secure_store/, so appends are O(1) instead of rewriting the whole file.
+ * - loadSnapshots(from, to) reads a time range through a memory-mapped index
+ *   ({@link SnapshotLogReader}) instead of parsing the whole history.
+ * - The single latest snapshot (saveSnapshot / loadSnapshot) is its own small JSON file.
+ * - Bulk readings (saveSeries / loadSeries) are {@link GorillaCodec} files under
+ *   files/secure_series/, a few bytes a reading instead of a JSON record each.
+ *
+ * The old secure_store.json is migrated once, on first use: a JSON array becomes the log,
+ * a JSON object becomes the latest snapshot.
+ */
 public class SecureStore {
 
-    private static final String FILE_NAME = "secure_store.json";
+    private static final String TAG = "SecureStore";
+    private static final String LEGACY_FILE_NAME = "secure_store.json";
+    private static final String SNAPSHOT_FILE_NAME = "secure_snapshot.json";
+    private static final String LOG_DIR_NAME = "secure_store";
+    private static final String SERIES_DIR_NAME = "secure_series";
+    private static final String SERIES_SUFFIX = ".grl";
+
+    private static SnapshotLog log;
 
     public static void saveSnapshot(Context context, JSONObject snapshot) {
         try {
-            FileOutputStream fos = context.openFileOutput(FILE_NAME, Context.MODE_PRIVATE);
-            fos.write(snapshot.toString().getBytes());
-            fos.close();
-            Log.i("SecureStore", "✅ Snapshot saved securely");
+            openLog(context); // migrate first so a legacy snapshot cannot overwrite this one
+            snapshotFile(context).writeObject(snapshot);
+            Log.i(TAG, "✅ Snapshot saved securely");
         } catch (Exception e) {
-            Log.e("SecureStore", "Error saving snapshot", e);
+            Log.e(TAG, "Error saving snapshot", e);
         }
     }
 
     public static JSONObject loadSnapshot(Context context) {
         try {
-            FileInputStream fis = context.openFileInput(FILE_NAME);
-            byte[] data = new byte[fis.available()];
-            fis.read(data);
-            fis.close();
-            return new JSONObject(new String(data));
+            openLog(context);
+            return snapshotFile(context).readObject();
         } catch (Exception e) {
             return null;
         }
@@ -38,33 +63,153 @@ public class SecureStore {
 
     public static void appendRecord(Context context, JSONObject record) {
         try {
-            JSONArray history = loadAllSnapshots(context);
-            history.put(record);
-            saveAllSnapshots(context, history);
+            openLog(context).append(record);
         } catch (Exception e) {
-            Log.e("SecureStore", "Error appending snapshot", e);
+            Log.e(TAG, "Error appending snapshot", e);
         }
     }
 
     public static JSONArray loadAllSnapshots(Context context) {
         try {
-            FileInputStream fis = context.openFileInput(FILE_NAME);
-            byte[] data = new byte[fis.available()];
-            fis.read(data);
-            fis.close();
-            return new JSONArray(new String(data));
+            SnapshotLog history = openLog(context);
+            JSONArray all = history.readAll();
+            if (history.getCorruptRecords() > 0) {
+                Log.w(TAG, "⚠️ Skipped " + history.getCorruptRecords() + " corrupt records");
+            }
+            return all;
         } catch (Exception e) {
+            Log.e(TAG, "Error loading snapshots", e);
             return new JSONArray();
         }
     }
 
+    /**
+     * Snapshots with fromMillis <= timestamp < toMillis, without loading the rest of the
+     * history: the returned list is a lazy memory-mapped view that decodes on get().
+     * Elements that fail their checksum come back as null.
+     */
+    public static List<JSONObject> loadSnapshots(Context context, long fromMillis, long toMillis) {
+        try {
+            return openLog(context).reader().range(fromMillis, toMillis);
+        } catch (Exception e) {
+            Log.e(TAG, "Error loading snapshot range", e);
+            return new ArrayList<>();
+        }
+    }
+
     public static void saveAllSnapshots(Context context, JSONArray data) {
         try {
-            FileOutputStream fos = context.openFileOutput(FILE_NAME, Context.MODE_PRIVATE);
-            fos.write(data.toString().getBytes());
-            fos.close();
+            List<JSONObject> records = new ArrayList<>(data.length());
+            for (int i = 0; i < data.length(); i++) {
+                JSONObject o = data.optJSONObject(i);
+                if (o != null) records.add(o);
+            }
+            openLog(context).replaceAll(records);
+        } catch (Exception e) {
+            Log.e(TAG, "Error saving all snapshots", e);
+        }
+    }
+
+    /** Drops history older than the cutoff and merges sealed segments into one. */
+    public static void compact(Context context, long dropBeforeMillis) {
+        try {
+            openLog(context).compact(dropBeforeMillis);
+            Log.i(TAG, "🧹 History compacted");
         } catch (Exception e) {
-            Log.e("SecureStore", "Error saving all snapshots", e);
+            Log.e(TAG, "Error compacting history", e);
+        }
+    }
+
+    /** Pipeline sink: every reading becomes a history record; one fsync per batch. */
+    public static ReadingPipeline.Sink asSink(Context context) {
+        return batch -> {
+            SnapshotLog history = openLog(context);
+            for (SmartWatchData d : batch) history.append(new JSONObject(d.toMap()));
+            history.sync();
+        };
+    }
+
+    // ---------------- Compressed series ----------------
+
+    /** Replaces the named series file; written to a temp file and renamed into place. */
+    public static boolean saveSeries(Context context, String name, CompressedSeries series) {
+        File file = seriesFile(context, name);
+        File temp = new File(file.getPath() + ".tmp");
+        try {
+            File dir = file.getParentFile();
+            if (!dir.isDirectory() && !dir.mkdirs()) throw new IOException("Cannot create " + dir);
+            try (FileOutputStream out = new FileOutputStream(temp)) {
+                series.writeTo(new BufferedOutputStream(out, 64 * 1024));
+                out.getFD().sync();
+            }
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            Log.i(TAG, "✅ Saved " + series.size() + " readings to " + file.getName() + " (" + file.length() + " bytes)");
+            return true;
+        } catch (IOException e) {
+            Log.e(TAG, "Error saving series " + name, e);
+            if (temp.exists() && !temp.delete()) Log.w(TAG, "⚠️ Could not delete " + temp.getName());
+            return false;
         }
     }
+
+    /** The whole named series, still compressed, or an empty one when missing or unreadable. */
+    public static CompressedSeries loadSeries(Context context, String name) {
+        File file = seriesFile(context, name);
+        if (!file.isFile()) return new CompressedSeries();
+        try (InputStream in = new BufferedInputStream(new FileInputStream(file), 64 * 1024)) {
+            return CompressedSeries.readFrom(in);
+        } catch (IOException e) {
+            Log.e(TAG, "Error loading series " + name, e);
+            return new CompressedSeries();
+        }
+    }
+
+    /** Readings with fromMillis <= timestamp < toMillis; blocks outside the range are skipped unread. */
+    public static SmartWatchSeries loadSeries(Context context, String name, long fromMillis, long toMillis) {
+        File file = seriesFile(context, name);
+        if (!file.isFile()) return new SmartWatchSeries();
+        try (GorillaCodec.Decoder decoder = new GorillaCodec.Decoder(
+                new BufferedInputStream(new FileInputStream(file), 64 * 1024))) {
+            return decoder.readRange(fromMillis, toMillis);
+        } catch (IOException e) {
+            Log.e(TAG, "Error loading series range " + name, e);
+            return new SmartWatchSeries();
+        }
+    }
+
+    // ---------------- Internals ----------------
+
+    private static File seriesFile(Context context, String name) {
+        return new File(new File(context.getFilesDir(), SERIES_DIR_NAME), name + SERIES_SUFFIX);
+    }
+
+    private static synchronized SnapshotLog openLog(Context context) throws IOException {
+        if (log != null) return log;
+        File filesDir = context.getFilesDir();
+        SnapshotLog opened = SnapshotLog.open(new File(filesDir, LOG_DIR_NAME));
+        migrateLegacy(opened, new File(filesDir, LEGACY_FILE_NAME), snapshotFile(context));
+        log = opened;
+        return log;
+    }
+
+    private static void migrateLegacy(SnapshotLog history, File legacy, JsonSnapshotFile snapshot) throws IOException {
+        if (!legacy.isFile()) return;
+        int migrated = history.migrateFrom(legacy);
+        if (migrated >= 0) {
+            Log.i(TAG, "📦 Migrated " + migrated + " records from " + LEGACY_FILE_NAME);
+            return;
+        }
+        // Not an array: it held the latest snapshot written by saveSnapshot
+        try {
+            JSONObject latest = new JsonSnapshotFile(legacy).readObject();
+            if (!snapshot.getFile().exists()) snapshot.writeObject(latest);
+        } catch (Exception e) {
+            Log.w(TAG, "⚠️ Unreadable " + LEGACY_FILE_NAME + ", discarding", e);
+        }
+        if (!legacy.delete()) Log.w(TAG, "⚠️ Could not delete " + LEGACY_FILE_NAME);
+    }
+
+    private static JsonSnapshotFile snapshotFile(Context context) {
+        return new JsonSnapshotFile(new File(context.getFilesDir(), SNAPSHOT_FILE_NAME));
+    }
 }
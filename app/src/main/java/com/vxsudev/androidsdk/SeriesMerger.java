@@ -0,0 +1,369 @@
+package com.vxsudev.androidsdk;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Run-aware merge for time-ordered readings from any number of sources
+ * (CSV, Fit, Firestore, mock).
+ *
+ * Each source is checked for sortedness in one pass and used in place when sorted.
+ * Any other series is read through a stable index permutation, which is cheap for an
+ * almost-sorted source (a few late-arriving points), so no source is ever copied just
+ * to be sorted. Object lists get a stable copy-sort, which is already run-adaptive.
+ * The sorted sources are then combined with linear two-way merges.
+ *
+ * Ties keep source order, then original order, so the result matches a stable sort.
+ * With collapseDuplicates, readings that share a timestamp become one record where
+ * each field takes the last non-zero value seen (Fit emits one metric per point).
+ */
+public final class SeriesMerger {
+
+    // A source with more late points than 1/this of its size is simply index-sorted
+    private static final int MAX_LATE_FRACTION = 4;
+
+    // Up to this many readings in total, one stable sort of the concatenated lists
+    // beats sorting and merging each source (JMH crossover lies between 10k and 30k)
+    private static final int CONCAT_SORT_MAX = 16_384;
+
+    private SeriesMerger() {}
+
+    // ---------------- Series ----------------
+
+    public static SmartWatchSeries merge(boolean collapseDuplicates, SmartWatchSeries... sources) {
+        return merge(Arrays.asList(sources), collapseDuplicates);
+    }
+
+    public static SmartWatchSeries merge(List<SmartWatchSeries> sources, boolean collapseDuplicates) {
+        // Unsorted sources are read through their sorted order instead of being copied
+        // first (null order = already ascending), then left-to-right pairs are folded
+        // so ties stay in source order
+        List<SmartWatchSeries> runs = new ArrayList<>(sources.size());
+        List<int[]> orders = new ArrayList<>(sources.size());
+        for (SmartWatchSeries src : sources) {
+            if (src == null || src.isEmpty()) continue;
+            runs.add(src);
+            orders.add(sortedPermutation(src.timestamps(), src.size()));
+        }
+
+        SmartWatchSeries out;
+        if (runs.isEmpty()) {
+            out = new SmartWatchSeries();
+        } else if (runs.size() == 1) {
+            // Never hand back (or collapse) the caller's own series
+            out = new SmartWatchSeries(runs.get(0).size());
+            appendInOrder(out, runs.get(0), orders.get(0), 0, runs.get(0).size());
+        } else {
+            while (runs.size() > 1) {
+                List<SmartWatchSeries> next = new ArrayList<>((runs.size() + 1) / 2);
+                List<int[]> nextOrders = new ArrayList<>((runs.size() + 1) / 2);
+                for (int i = 0; i + 1 < runs.size(); i += 2) {
+                    next.add(mergeTwo(runs.get(i), orders.get(i), runs.get(i + 1), orders.get(i + 1)));
+                    nextOrders.add(null);
+                }
+                if ((runs.size() & 1) == 1) {
+                    next.add(runs.get(runs.size() - 1));
+                    nextOrders.add(orders.get(runs.size() - 1));
+                }
+                runs = next;
+                orders = nextOrders;
+            }
+            out = runs.get(0);
+        }
+
+        if (collapseDuplicates) collapse(out);
+        return out;
+    }
+
+    /**
+     * Stable two-way merge of a and b, each read in the given order (null = row order);
+     * ties take from a first.
+     */
+    private static SmartWatchSeries mergeTwo(SmartWatchSeries a, int[] aOrder, SmartWatchSeries b, int[] bOrder) {
+        int na = a.size(), nb = b.size();
+        SmartWatchSeries out = new SmartWatchSeries(na + nb);
+        long[] aTs = a.timestamps(), bTs = b.timestamps(), oTs = out.timestamps();
+        int[] aHr = a.heartRates(), bHr = b.heartRates(), oHr = out.heartRates();
+        float[] aSpO2 = a.spO2Values(), bSpO2 = b.spO2Values(), oSpO2 = out.spO2Values();
+        float[] aTemp = a.temperatures(), bTemp = b.temperatures(), oTemp = out.temperatures();
+        int[] aSteps = a.stepCounts(), bSteps = b.stepCounts(), oSteps = out.stepCounts();
+
+        int i = 0, j = 0, o = 0;
+        while (i < na && j < nb) {
+            int x = aOrder == null ? i : aOrder[i];
+            int y = bOrder == null ? j : bOrder[j];
+            if (bTs[y] < aTs[x]) {
+                oTs[o] = bTs[y];
+                oHr[o] = bHr[y];
+                oSpO2[o] = bSpO2[y];
+                oTemp[o] = bTemp[y];
+                oSteps[o++] = bSteps[y];
+                j++;
+            } else {
+                oTs[o] = aTs[x];
+                oHr[o] = aHr[x];
+                oSpO2[o] = aSpO2[x];
+                oTemp[o] = aTemp[x];
+                oSteps[o++] = aSteps[x];
+                i++;
+            }
+        }
+        out.setSize(o);
+        appendInOrder(out, a, aOrder, i, na);
+        appendInOrder(out, b, bOrder, j, nb);
+        return out;
+    }
+
+    /** Appends rows order[from..to) of src to out (rows from..to when order is null). */
+    private static void appendInOrder(SmartWatchSeries out, SmartWatchSeries src, int[] order, int from, int to) {
+        if (order == null) {
+            out.appendRange(src, from, to);
+            return;
+        }
+        long[] ts = src.timestamps();
+        int[] hr = src.heartRates();
+        float[] spO2 = src.spO2Values();
+        float[] temp = src.temperatures();
+        int[] steps = src.stepCounts();
+        out.ensureCapacity(out.size() + to - from);
+        for (int k = from; k < to; k++) {
+            int x = order[k];
+            out.append(ts[x], hr[x], spO2[x], temp[x], steps[x]);
+        }
+    }
+
+    /** Folds rows sharing a timestamp into one, in place. Requires time order. */
+    private static void collapse(SmartWatchSeries s) {
+        int n = s.size();
+        if (n < 2) return;
+        long[] ts = s.timestamps();
+        int[] hr = s.heartRates();
+        float[] spO2 = s.spO2Values();
+        float[] temp = s.temperatures();
+        int[] steps = s.stepCounts();
+
+        int size = 1;
+        for (int j = 1; j < n; j++) {
+            int r = size - 1;
+            if (ts[j] == ts[r]) {
+                if (hr[j] != 0) hr[r] = hr[j];
+                if (spO2[j] != 0f) spO2[r] = spO2[j];
+                if (temp[j] != 0f) temp[r] = temp[j];
+                if (steps[j] != 0) steps[r] = steps[j];
+            } else {
+                if (size != j) {
+                    ts[size] = ts[j];
+                    hr[size] = hr[j];
+                    spO2[size] = spO2[j];
+                    temp[size] = temp[j];
+                    steps[size] = steps[j];
+                }
+                size++;
+            }
+        }
+        s.setSize(size);
+    }
+
+    // ---------------- Lists ----------------
+
+    /**
+     * Merges lists of readings. Input objects are reused as-is; only collapsed
+     * duplicates produce new objects, so inputs are never mutated.
+     */
+    public static List<SmartWatchData> mergeLists(List<List<SmartWatchData>> sources, boolean collapseDuplicates) {
+        int total = 0;
+        for (List<SmartWatchData> src : sources) {
+            if (src != null) total += src.size();
+        }
+        if (total <= CONCAT_SORT_MAX) {
+            // Concatenated in source order, so the stable sort keeps the same tie order
+            List<SmartWatchData> merged = new ArrayList<>(total);
+            for (List<SmartWatchData> src : sources) {
+                if (src != null) merged.addAll(src);
+            }
+            merged.sort(BY_TIMESTAMP);
+            return collapseDuplicates ? collapse(merged) : merged;
+        }
+
+        // Sorted sources are merged in place; the rest get a stable copy-sort first,
+        // which is near-linear for almost-sorted input. Comparisons read timestamps
+        // straight off the objects so no key or index arrays are allocated.
+        List<List<SmartWatchData>> runs = new ArrayList<>(sources.size());
+        for (List<SmartWatchData> src : sources) {
+            if (src == null || src.isEmpty()) continue;
+            if (!isSortedByTime(src)) {
+                src = new ArrayList<>(src);
+                src.sort(BY_TIMESTAMP);
+            }
+            runs.add(src);
+        }
+
+        List<SmartWatchData> merged;
+        if (runs.isEmpty()) {
+            merged = new ArrayList<>();
+        } else if (runs.size() == 1) {
+            merged = new ArrayList<>(runs.get(0));
+        } else {
+            // Fold left-to-right pairs so ties stay in source order
+            while (runs.size() > 1) {
+                List<List<SmartWatchData>> next = new ArrayList<>((runs.size() + 1) / 2);
+                for (int i = 0; i + 1 < runs.size(); i += 2) {
+                    next.add(mergeTwo(runs.get(i), runs.get(i + 1)));
+                }
+                if ((runs.size() & 1) == 1) next.add(runs.get(runs.size() - 1));
+                runs = next;
+            }
+            merged = runs.get(0);
+        }
+
+        return collapseDuplicates ? collapse(merged) : merged;
+    }
+
+    private static final Comparator<SmartWatchData> BY_TIMESTAMP =
+            Comparator.comparingLong(SmartWatchData::getTimestamp);
+
+    private static boolean isSortedByTime(List<SmartWatchData> list) {
+        long prev = Long.MIN_VALUE;
+        for (int i = 0, n = list.size(); i < n; i++) {
+            long t = list.get(i).getTimestamp();
+            if (t < prev) return false;
+            prev = t;
+        }
+        return true;
+    }
+
+    /** Stable two-way merge of sorted lists; ties take from a first. */
+    private static List<SmartWatchData> mergeTwo(List<SmartWatchData> a, List<SmartWatchData> b) {
+        int na = a.size(), nb = b.size();
+        List<SmartWatchData> out = new ArrayList<>(na + nb);
+        int i = 0, j = 0;
+        SmartWatchData x = a.get(0), y = b.get(0);
+        long tx = x.getTimestamp(), ty = y.getTimestamp();
+        while (true) {
+            if (ty < tx) {
+                out.add(y);
+                if (++j == nb) break;
+                y = b.get(j);
+                ty = y.getTimestamp();
+            } else {
+                out.add(x);
+                if (++i == na) break;
+                x = a.get(i);
+                tx = x.getTimestamp();
+            }
+        }
+        if (i < na) out.addAll(a.subList(i, na));
+        if (j < nb) out.addAll(b.subList(j, nb));
+        return out;
+    }
+
+    /** Folds readings sharing a timestamp into fresh copies; untouched readings are reused. */
+    private static List<SmartWatchData> collapse(List<SmartWatchData> merged) {
+        List<SmartWatchData> out = new ArrayList<>(merged.size());
+        boolean lastOwned = false;
+        for (SmartWatchData d : merged) {
+            int last = out.size() - 1;
+            if (last >= 0 && out.get(last).getTimestamp() == d.getTimestamp()) {
+                SmartWatchData target = out.get(last);
+                if (!lastOwned) {
+                    target = new SmartWatchData(target.getTimestamp(), target.getHeartRate(),
+                            target.getSpO2(), target.getTemperature(), target.getSteps());
+                    target.setSource(out.get(last).getSource());
+                    out.set(last, target);
+                    lastOwned = true;
+                }
+                if (d.getHeartRate() != 0) target.setHeartRate(d.getHeartRate());
+                if (d.getSpO2() != 0f) target.setSpO2(d.getSpO2());
+                if (d.getTemperature() != 0f) target.setTemperature(d.getTemperature());
+                if (d.getSteps() != 0) target.setSteps(d.getSteps());
+            } else {
+                out.add(d);
+                lastOwned = false;
+            }
+        }
+        return out;
+    }
+
+    // ---------------- Run detection ----------------
+
+    /**
+     * Stable sorted order of t[0..n), or null when t is already ascending.
+     * Reversed input is walked backwards; an almost-sorted input is split into its
+     * non-decreasing backbone and the late points, which are sorted and merged back.
+     * Inputs far from sorted fall back to a full index merge sort.
+     */
+    static int[] sortedPermutation(long[] t, int n) {
+        return sortedPermutation(t, 0, n);
+    }
+
+    /** As above for t[from..from+n); returned indices are absolute. */
+    static int[] sortedPermutation(long[] t, int from, int n) {
+        int end = from + n;
+        boolean ascending = true;
+        boolean descending = true;
+        for (int i = from + 1; i < end && (ascending || descending); i++) {
+            if (t[i] < t[i - 1]) ascending = false;
+            if (t[i] >= t[i - 1]) descending = false;
+        }
+        if (ascending) return null;
+        if (descending) {
+            // Strictly descending has no ties, so walking it backwards is still stable
+            int[] perm = new int[n];
+            for (int j = 0; j < n; j++) perm[j] = end - 1 - j;
+            return perm;
+        }
+
+        // Late points are the ones below the running max; the backbone is everything
+        // else and is walked again below rather than stored
+        int[] late = new int[Math.max(n / MAX_LATE_FRACTION, 1)];
+        int lateCount = 0;
+        long max = Long.MIN_VALUE;
+        for (int i = from; i < end; i++) {
+            if (t[i] >= max) {
+                max = t[i];
+            } else if (lateCount < late.length) {
+                late[lateCount++] = i;
+            } else {
+                // Too disordered for the backbone split — sort all indices
+                int[] all = new int[n];
+                for (int j = 0; j < n; j++) all[j] = from + j;
+                sortIndices(all, n, t);
+                return all;
+            }
+        }
+        sortIndices(late, lateCount, t);
+
+        // Backbone wins ties: an equal late key always has a higher index
+        int[] perm = new int[n];
+        int b = 0, o = 0;
+        max = Long.MIN_VALUE;
+        for (int i = from; i < end; i++) {
+            if (t[i] < max) continue; // late, placed from the sorted list
+            max = t[i];
+            while (b < lateCount && t[late[b]] < t[i]) perm[o++] = late[b++];
+            perm[o++] = i;
+        }
+        while (b < lateCount) perm[o++] = late[b++];
+        return perm;
+    }
+
+    /** Stable bottom-up merge sort of idx[0..n) by t[idx]. */
+    private static void sortIndices(int[] idx, int n, long[] t) {
+        if (n < 2) return;
+        int[] tmp = new int[n];
+        for (int width = 1; width < n; width <<= 1) {
+            for (int lo = 0; lo < n - width; lo += width << 1) {
+                int mid = lo + width;
+                int hi = Math.min(lo + (width << 1), n);
+                if (t[idx[mid - 1]] <= t[idx[mid]]) continue; // already ordered
+                int i = lo, j = mid, o = lo;
+                while (i < mid && j < hi) tmp[o++] = t[idx[j]] < t[idx[i]] ? idx[j++] : idx[i++];
+                while (i < mid) tmp[o++] = idx[i++];
+                while (j < hi) tmp[o++] = idx[j++];
+                System.arraycopy(tmp, lo, idx, lo, hi - lo);
+            }
+        }
+    }
+}
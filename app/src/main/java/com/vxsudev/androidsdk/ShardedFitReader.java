@@ -0,0 +1,215 @@
+package com.vxsudev.androidsdk;
+
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads an arbitrary time range of Fit history as a series of windows ("shards") with at
+ * most maxInFlight requests outstanding, streaming each shard's readings to the listener as
+ * soon as it arrives instead of waiting for the whole range.
+ *
+ * Shards are issued newest first, so the most recent data — usually what is on screen —
+ * lands first. Completion order follows the server, not time order. A failed shard is
+ * retried once after a jittered backoff and then reported; the remaining shards still run.
+ */
+public class ShardedFitReader {
+
+    public static final long RAW_WINDOW_MILLIS = 6L * 60 * 60 * 1000;
+    public static final long BUCKETED_WINDOW_MILLIS = 7L * 24 * 60 * 60 * 1000;
+    public static final int DEFAULT_MAX_IN_FLIGHT = 3;
+    private static final int MAX_ATTEMPTS = 2;
+    private static final long RETRY_BASE_MILLIS = 1000;
+    private static final long RETRY_MAX_MILLIS = 10_000;
+
+    // Readers are made per read, so they share one timer for delayed retries
+    private static final ScheduledExecutorService RETRY_TIMER = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "FitShardRetry");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final FitHistorySource source;
+    private final int maxInFlight;
+    private final ScheduledExecutorService retryTimer;
+
+    public ShardedFitReader(FitHistorySource source) {
+        this(source, DEFAULT_MAX_IN_FLIGHT);
+    }
+
+    public ShardedFitReader(FitHistorySource source, int maxInFlight) {
+        this(source, maxInFlight, RETRY_TIMER);
+    }
+
+    ShardedFitReader(FitHistorySource source, int maxInFlight, ScheduledExecutorService retryTimer) {
+        this.source = source;
+        this.maxInFlight = Math.max(maxInFlight, 1);
+        this.retryTimer = retryTimer;
+    }
+
+    /**
+     * Reads [start, end) in windows of windowMillis (raw when bucketMillis == 0, else
+     * bucketed). Windows are multiples of the bucket length so no bucket is split.
+     */
+    public Read read(long start, long end, long windowMillis, long bucketMillis, Listener listener) {
+        long window = Math.max(windowMillis, 1);
+        if (bucketMillis > 0) window = Math.max(window / bucketMillis, 1) * bucketMillis;
+        Read read = new Read(start, end, window, bucketMillis, listener);
+        read.start();
+        return read;
+    }
+
+    /** Raw readings with the default window. */
+    public Read readRaw(long start, long end, Listener listener) {
+        return read(start, end, RAW_WINDOW_MILLIS, 0, listener);
+    }
+
+    /** Server-aggregated readings, one per bucketMillis, with the default window. */
+    public Read readBucketed(long start, long end, long bucketMillis, Listener listener) {
+        return read(start, end, BUCKETED_WINDOW_MILLIS, bucketMillis, listener);
+    }
+
+    /** A running read; cancel() stops issuing shards (ones already requested still report). */
+    public final class Read {
+        private final long start;
+        private final long end;
+        private final long window;
+        private final long bucketMillis;
+        private final Listener listener;
+        private final int shardCount;
+
+        // Guarded by this
+        private int nextShard;
+        private int running;
+        private int readings;
+        private int failed;
+        private boolean cancelled;
+        private boolean finished;
+
+        Read(long start, long end, long window, long bucketMillis, Listener listener) {
+            this.start = start;
+            this.window = window;
+            this.bucketMillis = bucketMillis;
+            this.listener = listener;
+            this.shardCount = end > start ? (int) Math.min((end - start + window - 1) / window, Integer.MAX_VALUE) : 0;
+            this.end = end;
+        }
+
+        void start() {
+            if (shardCount == 0) {
+                finish();
+                return;
+            }
+            for (int i = 0; i < maxInFlight; i++) issueNext();
+        }
+
+        public synchronized void cancel() {
+            cancelled = true;
+        }
+
+        public synchronized boolean isDone() {
+            return finished;
+        }
+
+        public int getShardCount() {
+            return shardCount;
+        }
+
+        private void issueNext() {
+            int shard;
+            synchronized (this) {
+                if (cancelled || nextShard >= shardCount) return;
+                shard = nextShard++;
+                running++;
+            }
+            // Newest first: shard 0 is the window ending at `end`
+            long shardEnd = end - (long) shard * window;
+            long shardStart = Math.max(shardEnd - window, start);
+            request(shardStart, shardEnd, 1);
+        }
+
+        private void request(long shardStart, long shardEnd, int attempt) {
+            FitHistorySource.Callback callback = new FitHistorySource.Callback() {
+                @Override
+                public void onSuccess(List<SmartWatchData> shardReadings) {
+                    synchronized (Read.this) {
+                        readings += shardReadings.size();
+                    }
+                    listener.onShard(shardStart, shardEnd, shardReadings);
+                    shardDone();
+                }
+
+                @Override
+                public void onFailure(Exception e) {
+                    if (attempt < MAX_ATTEMPTS && !isCancelled() && scheduleRetry(e)) return;
+                    fail(e);
+                }
+
+                /** Retries after a backoff, so a brief outage is not hit twice in a row. */
+                private boolean scheduleRetry(Exception e) {
+                    long delay = ResumableUploader.backoffMillis(attempt, RETRY_BASE_MILLIS, RETRY_MAX_MILLIS,
+                            ThreadLocalRandom.current());
+                    try {
+                        retryTimer.schedule(() -> {
+                            if (isCancelled()) fail(e);
+                            else request(shardStart, shardEnd, attempt + 1);
+                        }, delay, TimeUnit.MILLISECONDS);
+                        return true;
+                    } catch (RuntimeException rejected) {
+                        return false;
+                    }
+                }
+
+                private void fail(Exception e) {
+                    synchronized (Read.this) {
+                        failed++;
+                    }
+                    listener.onShardFailed(shardStart, shardEnd, e);
+                    shardDone();
+                }
+            };
+            try {
+                source.read(shardStart, shardEnd, bucketMillis, callback);
+            } catch (RuntimeException e) {
+                callback.onFailure(e);
+            }
+        }
+
+        private synchronized boolean isCancelled() {
+            return cancelled;
+        }
+
+        private void shardDone() {
+            boolean done;
+            synchronized (this) {
+                running--;
+                done = running == 0 && (cancelled || nextShard >= shardCount);
+            }
+            if (done) finish();
+            else issueNext();
+        }
+
+        private void finish() {
+            int total, failedShards;
+            boolean wasCancelled;
+            synchronized (this) {
+                if (finished) return;
+                finished = true;
+                total = readings;
+                failedShards = failed;
+                wasCancelled = cancelled;
+            }
+            listener.onComplete(total, failedShards, wasCancelled);
+        }
+    }
+
+    // ---------------- Callback interfaces ----------------
+    public interface Listener {
+        /** One finished window; may run on any thread, shards may complete out of order. */
+        void onShard(long startMillis, long endMillis, List<SmartWatchData> readings);
+        void onShardFailed(long startMillis, long endMillis, Exception e);
+        void onComplete(int readings, int failedShards, boolean cancelled);
+    }
+}
@@ -1,27 +1,30 @@
 package com.vxsudev.androidsdk;
 
-import com.google.android.gms.fitness.data.DataPoint;
-import com.google.android.gms.fitness.data.DataSet;
-import com.google.android.gms.fitness.data.Field;
-import com.google.android.gms.fitness.result.DataReadResponse;
-
 import java.io.Serializable;
-import java.util.ArrayList;
-import java.util.Comparator;
+import java.util.Arrays;
 import java.util.List;
-import java.util.concurrent.TimeUnit;
 
 /**
  * Represents smartwatch health metrics (heart rate, SpO₂, temperature, steps)
  * for a single timestamp — supports CSV + Google Fit hybrid data merging.
+ *
+ * Kept free of Android / Play Services types so it can be used from plain JVM code;
+ * Google Fit conversion lives in {@link FitDecoder}.
  */
 public class SmartWatchData implements Serializable {
 
+    // Where a reading came from; part of its Firestore document ID (see DocumentIds)
+    public static final String SOURCE_CSV = "csv";
+    public static final String SOURCE_FIT = "fit";
+    public static final String SOURCE_MOCK = "mock";
+
     private long timestamp;
     private int heartRate;
     private float spO2;
     private float temperature;
     private int steps;
+    private String source;
+    private String deviceId;
 
     // Empty constructor for Firestore & CSV loader
     public SmartWatchData() {}
@@ -76,12 +79,31 @@ public class SmartWatchData implements Serializable {
         this.steps = steps;
     }
 
+    /** SOURCE_CSV, SOURCE_FIT, SOURCE_MOCK, or null when unknown. */
+    public String getSource() {
+        return source;
+    }
+
+    public void setSource(String source) {
+        this.source = source;
+    }
+
+    /** Device that uploaded the reading, as read back from Firestore; null for local readings. */
+    public String getDeviceId() {
+        return deviceId;
+    }
+
+    public void setDeviceId(String deviceId) {
+        this.deviceId = deviceId;
+    }
+
     // ---------------- CSV Parsing Helper ----------------
     // Example CSV format:
     // timestamp,heartRate,spO2,temperature,steps
     public static SmartWatchData fromCSV(String[] columns) {
         try {
-            long ts = Long.parseLong(columns[0]);
+            long ts = new TimestampParser().parse(columns[0]); // epoch millis or ISO-8601
+            if (ts == TimestampParser.INVALID) return null;
             int hr = Integer.parseInt(columns[1]);
             float spo2 = Float.parseFloat(columns[2]);
             float temp = Float.parseFloat(columns[3]);
@@ -93,55 +115,14 @@ public class SmartWatchData implements Serializable {
         }
     }
 
-    // ---------------- Google Fit Data Parser ----------------
-    /**
-     * Converts a Google Fit DataReadResponse into a list of SmartWatchData objects.
-     */
-    public static List<SmartWatchData> fromFitResponse(DataReadResponse response) {
-        List<SmartWatchData> list = new ArrayList<>();
-
-        if (response == null) return list;
-
-        for (DataSet dataSet : response.getDataSets()) {
-            for (DataPoint dp : dataSet.getDataPoints()) {
-                SmartWatchData data = new SmartWatchData();
-                data.setTimestamp(dp.getEndTime(TimeUnit.MILLISECONDS));
-
-                for (Field field : dp.getDataType().getFields()) {
-                    String name = field.getName();
-                    float value = dp.getValue(field).asFloat();
-
-                    switch (name) {
-                        case "heart_rate.bpm":
-                            data.setHeartRate((int) value);
-                            break;
-                        case "oxygen_saturation":
-                            data.setSpO2(value);
-                            break;
-                        case "body_temperature":
-                            data.setTemperature(value);
-                            break;
-                        case "steps":
-                            data.setSteps((int) value);
-                            break;
-                    }
-                }
-                list.add(data);
-            }
-        }
-        return list;
-    }
-
     // ---------------- Merge Utility ----------------
     /**
-     * Combines CSV + Google Fit datasets and sorts them by timestamp.
+     * Combines CSV + Google Fit datasets ordered by timestamp.
+     * Both inputs are usually already sorted, so this is a linear run merge
+     * (see {@link SeriesMerger}) rather than a full re-sort; ties keep CSV first.
      */
     public static List<SmartWatchData> mergeAndSort(List<SmartWatchData> csvList, List<SmartWatchData> fitList) {
-        List<SmartWatchData> merged = new ArrayList<>();
-        if (csvList != null) merged.addAll(csvList);
-        if (fitList != null) merged.addAll(fitList);
-        merged.sort(Comparator.comparingLong(SmartWatchData::getTimestamp));
-        return merged;
+        return SeriesMerger.mergeLists(Arrays.asList(csvList, fitList), false);
     }
 
     // ---------------- Firestore Mapper ----------------
@@ -152,9 +133,50 @@ public class SmartWatchData implements Serializable {
         map.put("spO2", spO2);
         map.put("temperature", temperature);
         map.put("steps", steps);
+        if (source != null) map.put("source", source);
+        if (deviceId != null) map.put("deviceId", deviceId);
         return map;
     }
 
+    /**
+     * Inverse of {@link #toMap()}. Accepts numbers or numeric strings (older documents
+     * stored strings); missing fields stay 0.
+     *
+     * @throws NumberFormatException if a string field is not numeric
+     */
+    public static SmartWatchData fromMap(java.util.Map<String, Object> map) {
+        if (map == null) return null;
+        SmartWatchData d = new SmartWatchData();
+
+        Object tsObj = map.get("timestamp");
+        if (tsObj instanceof Number) d.setTimestamp(((Number) tsObj).longValue());
+        else if (tsObj instanceof String) d.setTimestamp(Long.parseLong((String) tsObj));
+
+        Object hrObj = map.get("heartRate");
+        if (hrObj instanceof Number) d.setHeartRate(((Number) hrObj).intValue());
+        else if (hrObj instanceof String) d.setHeartRate(Integer.parseInt((String) hrObj));
+
+        Object spo2Obj = map.get("spO2");
+        if (spo2Obj instanceof Number) d.setSpO2(((Number) spo2Obj).floatValue());
+        else if (spo2Obj instanceof String) d.setSpO2(Float.parseFloat((String) spo2Obj));
+
+        Object tempObj = map.get("temperature");
+        if (tempObj instanceof Number) d.setTemperature(((Number) tempObj).floatValue());
+        else if (tempObj instanceof String) d.setTemperature(Float.parseFloat((String) tempObj));
+
+        Object stepsObj = map.get("steps");
+        if (stepsObj instanceof Number) d.setSteps(((Number) stepsObj).intValue());
+        else if (stepsObj instanceof String) d.setSteps(Integer.parseInt((String) stepsObj));
+
+        Object sourceObj = map.get("source");
+        if (sourceObj instanceof String) d.setSource((String) sourceObj);
+
+        Object deviceObj = map.get("deviceId");
+        if (deviceObj instanceof String) d.setDeviceId((String) deviceObj);
+
+        return d;
+    }
+
     @Override
     public String toString() {
         return "SmartWatchData{" +
@@ -163,6 +185,7 @@ public class SmartWatchData implements Serializable {
                 ", spO2=" + spO2 +
                 ", temperature=" + temperature +
                 ", steps=" + steps +
+                (source != null ? ", source=" + source : "") +
                 '}';
     }
 }
@@ -0,0 +1,247 @@
+package com.vxsudev.androidsdk;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Columnar time series of smartwatch readings.
+ * Stores each metric in its own growable primitive array instead of one
+ * {@link SmartWatchData} object per sample, so large ranges cost ~24 bytes a row
+ * and no per-sample allocation.
+ *
+ * Row i is (timestamps[i], heartRate[i], spO2[i], temperature[i], steps[i]).
+ * The raw arrays are exposed for hot loops; only the first {@link #size()} slots are valid.
+ */
+public class SmartWatchSeries {
+
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private long[] timestamps;
+    private int[] heartRate;
+    private float[] spO2;
+    private float[] temperature;
+    private int[] steps;
+    private int size;
+
+    public SmartWatchSeries() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public SmartWatchSeries(int initialCapacity) {
+        int cap = Math.max(initialCapacity, 1);
+        timestamps = new long[cap];
+        heartRate = new int[cap];
+        spO2 = new float[cap];
+        temperature = new float[cap];
+        steps = new int[cap];
+    }
+
+    // ---------------- Append ----------------
+
+    /** Appends one row. Signature matches {@link CsvStreamParser.RowHandler} so {@code series::append} can be passed directly. */
+    public void append(long timestamp, int heartRate, float spO2, float temperature, int steps) {
+        if (size == timestamps.length) grow(size + 1);
+        this.timestamps[size] = timestamp;
+        this.heartRate[size] = heartRate;
+        this.spO2[size] = spO2;
+        this.temperature[size] = temperature;
+        this.steps[size] = steps;
+        size++;
+    }
+
+    public void append(SmartWatchData d) {
+        append(d.getTimestamp(), d.getHeartRate(), d.getSpO2(), d.getTemperature(), d.getSteps());
+    }
+
+    /** Appends rows [from, to) of another series. */
+    public void appendRange(SmartWatchSeries other, int from, int to) {
+        int n = to - from;
+        if (n <= 0) return;
+        ensureCapacity(size + n);
+        System.arraycopy(other.timestamps, from, timestamps, size, n);
+        System.arraycopy(other.heartRate, from, heartRate, size, n);
+        System.arraycopy(other.spO2, from, spO2, size, n);
+        System.arraycopy(other.temperature, from, temperature, size, n);
+        System.arraycopy(other.steps, from, steps, size, n);
+        size += n;
+    }
+
+    public void appendAll(SmartWatchSeries other) {
+        appendRange(other, 0, other.size);
+    }
+
+    public void ensureCapacity(int minCapacity) {
+        if (minCapacity > timestamps.length) grow(minCapacity);
+    }
+
+    private void grow(int minCapacity) {
+        int cap = Math.max(minCapacity, timestamps.length + (timestamps.length >> 1) + 1);
+        timestamps = Arrays.copyOf(timestamps, cap);
+        heartRate = Arrays.copyOf(heartRate, cap);
+        spO2 = Arrays.copyOf(spO2, cap);
+        temperature = Arrays.copyOf(temperature, cap);
+        steps = Arrays.copyOf(steps, cap);
+    }
+
+    /** Shrinks the backing arrays to exactly {@link #size()} rows. */
+    public void trimToSize() {
+        if (size == timestamps.length || size == 0) return;
+        timestamps = Arrays.copyOf(timestamps, size);
+        heartRate = Arrays.copyOf(heartRate, size);
+        spO2 = Arrays.copyOf(spO2, size);
+        temperature = Arrays.copyOf(temperature, size);
+        steps = Arrays.copyOf(steps, size);
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Sets the row count after filling the raw columns directly; rows beyond the
+     * current capacity must have been reserved with {@link #ensureCapacity(int)}.
+     */
+    public void setSize(int newSize) {
+        if (newSize < 0 || newSize > timestamps.length) {
+            throw new IndexOutOfBoundsException("Size " + newSize + ", capacity " + timestamps.length);
+        }
+        size = newSize;
+    }
+
+    // ---------------- Access ----------------
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public long getTimestamp(int i) {
+        checkIndex(i);
+        return timestamps[i];
+    }
+
+    public int getHeartRate(int i) {
+        checkIndex(i);
+        return heartRate[i];
+    }
+
+    public float getSpO2(int i) {
+        checkIndex(i);
+        return spO2[i];
+    }
+
+    public float getTemperature(int i) {
+        checkIndex(i);
+        return temperature[i];
+    }
+
+    public int getSteps(int i) {
+        checkIndex(i);
+        return steps[i];
+    }
+
+    public void set(int i, long timestamp, int heartRate, float spO2, float temperature, int steps) {
+        checkIndex(i);
+        this.timestamps[i] = timestamp;
+        this.heartRate[i] = heartRate;
+        this.spO2[i] = spO2;
+        this.temperature[i] = temperature;
+        this.steps[i] = steps;
+    }
+
+    // Raw column access for hot loops — valid up to size()
+    public long[] timestamps() {
+        return timestamps;
+    }
+
+    public int[] heartRates() {
+        return heartRate;
+    }
+
+    public float[] spO2Values() {
+        return spO2;
+    }
+
+    public float[] temperatures() {
+        return temperature;
+    }
+
+    public int[] stepCounts() {
+        return steps;
+    }
+
+    public long getFirstTimestamp() {
+        return size == 0 ? Long.MIN_VALUE : timestamps[0];
+    }
+
+    public long getLastTimestamp() {
+        return size == 0 ? Long.MIN_VALUE : timestamps[size - 1];
+    }
+
+    public boolean isSortedByTime() {
+        for (int i = 1; i < size; i++) {
+            if (timestamps[i] < timestamps[i - 1]) return false;
+        }
+        return true;
+    }
+
+    /** Index of the first row with timestamp >= t (binary search; requires time order). */
+    public int lowerBound(long t) {
+        int lo = 0, hi = size;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (timestamps[mid] < t) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    /** Copy of rows whose timestamp lies in [fromInclusive, toExclusive); requires time order. */
+    public SmartWatchSeries slice(long fromInclusive, long toExclusive) {
+        int from = lowerBound(fromInclusive);
+        int to = Math.max(from, lowerBound(toExclusive));
+        SmartWatchSeries out = new SmartWatchSeries(to - from);
+        out.appendRange(this, from, to);
+        return out;
+    }
+
+    private void checkIndex(int i) {
+        if (i < 0 || i >= size) throw new IndexOutOfBoundsException("Index " + i + ", size " + size);
+    }
+
+    // ---------------- List adapters ----------------
+
+    public SmartWatchData get(int i) {
+        checkIndex(i);
+        return new SmartWatchData(timestamps[i], heartRate[i], spO2[i], temperature[i], steps[i]);
+    }
+
+    public static SmartWatchSeries fromList(List<SmartWatchData> list) {
+        if (list == null) return new SmartWatchSeries();
+        SmartWatchSeries series = new SmartWatchSeries(list.size());
+        for (SmartWatchData d : list) {
+            if (d != null) series.append(d);
+        }
+        return series;
+    }
+
+    public List<SmartWatchData> toList() {
+        List<SmartWatchData> list = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            list.add(new SmartWatchData(timestamps[i], heartRate[i], spO2[i], temperature[i], steps[i]));
+        }
+        return list;
+    }
+
+    @Override
+    public String toString() {
+        return "SmartWatchSeries{" +
+                "size=" + size +
+                (size > 0 ? ", from=" + timestamps[0] + ", to=" + timestamps[size - 1] : "") +
+                '}';
+    }
+}
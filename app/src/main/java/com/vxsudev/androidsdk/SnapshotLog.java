@@ -0,0 +1,500 @@
+package com.vxsudev.androidsdk;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Segmented append-only record log behind {@link SecureStore}.
+ *
+ * Layout: one directory of segments named {@code <seq as 16 hex digits>.log}.
+ * Each segment starts with a 16-byte header (magic, version, first covered seq) followed by
+ * records of {@code [int length][long timestamp][int crc32(timestamp + payload)][payload]}.
+ * Appends go to the newest segment only and roll over once it reaches maxSegmentBytes,
+ * so an append is O(record) no matter how long the history is.
+ *
+ * Recovery: a torn tail on the active segment (crash mid-write) is truncated on open. In a
+ * sealed segment a record failing its CRC ends that segment's replay — lengths cannot be
+ * trusted past it — and is counted in {@link #getCorruptRecords()}.
+ *
+ * Rewrites (compaction, replaceAll) write a new segment to a temp file, rename it into place
+ * and then delete what it replaced. The header's "first covered seq" lets open() finish an
+ * interrupted rewrite by deleting segments already superseded.
+ *
+ * Android-free; thread-safe through instance synchronization.
+ */
+public class SnapshotLog implements Closeable {
+
+    public static final long DEFAULT_SEGMENT_BYTES = 4L * 1024 * 1024;
+
+    static final int MAGIC = 0x53534C47; // "SSLG"
+    static final int VERSION = 1;
+    static final int SEGMENT_HEADER_BYTES = 16;
+    static final int RECORD_HEADER_BYTES = 16;
+    static final int MAX_RECORD_BYTES = 16 * 1024 * 1024;
+
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private final File dir;
+    private final long maxSegmentBytes;
+
+    // Sealed + active segments, ascending seq; the last one is active
+    private final List<Long> segments = new ArrayList<>();
+    private FileChannel active;
+    private long activeSize;
+    private long corruptRecords;
+
+    // Bumped by every rewrite; readers of an older generation cannot be extended
+    private int generation;
+    private SnapshotLogReader reader;
+
+    private final ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER_BYTES);
+    private final CRC32 crc = new CRC32();
+
+    private SnapshotLog(File dir, long maxSegmentBytes) {
+        this.dir = dir;
+        this.maxSegmentBytes = maxSegmentBytes;
+    }
+
+    public static SnapshotLog open(File dir) throws IOException {
+        return open(dir, DEFAULT_SEGMENT_BYTES);
+    }
+
+    public static SnapshotLog open(File dir, long maxSegmentBytes) throws IOException {
+        if (!dir.isDirectory() && !dir.mkdirs()) throw new IOException("Cannot create " + dir);
+        SnapshotLog log = new SnapshotLog(dir, Math.max(maxSegmentBytes, SEGMENT_HEADER_BYTES + RECORD_HEADER_BYTES));
+        log.recover();
+        return log;
+    }
+
+    // ---------------- Append ----------------
+
+    /** Appends one record; rolls to a new segment first when the active one is full. */
+    public synchronized void append(long timestamp, byte[] payload) throws IOException {
+        checkOpen();
+        if (payload.length > MAX_RECORD_BYTES) throw new IOException("Record too large: " + payload.length);
+        long recordBytes = RECORD_HEADER_BYTES + payload.length;
+        if (activeSize > SEGMENT_HEADER_BYTES && activeSize + recordBytes > maxSegmentBytes) roll();
+
+        header.clear();
+        header.putInt(payload.length).putLong(timestamp).putInt(checksum(timestamp, payload, 0, payload.length));
+        header.flip();
+        ByteBuffer[] record = {header, ByteBuffer.wrap(payload)};
+        long written = 0;
+        while (written < recordBytes) written += active.write(record);
+        activeSize += recordBytes;
+    }
+
+    /** Appends a JSON record stamped with its "timestamp" field, or now when it has none. */
+    public void append(JSONObject record) throws IOException {
+        append(record.optLong("timestamp", System.currentTimeMillis()),
+                record.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /** Forces appended records to storage (appends are otherwise left to the OS page cache). */
+    public synchronized void sync() throws IOException {
+        checkOpen();
+        active.force(false);
+    }
+
+    // ---------------- Replay ----------------
+
+    /** Visits every valid record in append order; returns the number visited. */
+    public synchronized long replay(RecordVisitor visitor) throws IOException {
+        checkOpen();
+        long count = 0;
+        for (int i = 0; i < segments.size(); i++) {
+            boolean isActive = i == segments.size() - 1;
+            count += scan(segmentFile(segments.get(i)), isActive ? activeSize : Long.MAX_VALUE, visitor).records;
+        }
+        return count;
+    }
+
+    /** Whole history as JSON; records that are not valid JSON objects are skipped. */
+    public JSONArray readAll() throws IOException {
+        JSONArray out = new JSONArray();
+        replay((timestamp, payload) -> {
+            try {
+                out.put(new JSONObject(new String(payload, StandardCharsets.UTF_8)));
+            } catch (JSONException e) {
+                corruptRecords++;
+            }
+        });
+        return out;
+    }
+
+    /**
+     * Memory-mapped, indexed view of the history as of now. Cached: repeated calls without
+     * writes return the same reader, and after plain appends only the active segment and
+     * new segments are re-indexed.
+     */
+    public synchronized SnapshotLogReader reader() throws IOException {
+        checkOpen();
+        List<File> files = new ArrayList<>(segments.size());
+        for (long seq : segments) files.add(segmentFile(seq));
+        if (reader == null || reader.getGeneration() != generation) {
+            reader = SnapshotLogReader.build(null, files, activeSize, generation);
+        } else if (!reader.isCurrent(files, activeSize)) {
+            reader = SnapshotLogReader.build(reader, files, activeSize, generation);
+        }
+        return reader;
+    }
+
+    // ---------------- Rewrite ----------------
+
+    /**
+     * Merges all sealed segments into one, dropping records older than dropBefore
+     * (pass Long.MIN_VALUE to keep everything). The active segment is left alone.
+     */
+    public synchronized void compact(long dropBefore) throws IOException {
+        checkOpen();
+        if (segments.size() < 2) return;
+        List<Long> sealed = new ArrayList<>(segments.subList(0, segments.size() - 1));
+        long target = sealed.get(sealed.size() - 1);
+
+        File tmp = new File(dir, segmentName(target) + TEMP_SUFFIX);
+        try {
+            try (SegmentWriter writer = new SegmentWriter(tmp, sealed.get(0))) {
+                for (long seq : sealed) {
+                    scan(segmentFile(seq), Long.MAX_VALUE, (timestamp, payload) -> {
+                        if (timestamp >= dropBefore) writer.write(timestamp, payload);
+                    });
+                }
+            }
+            install(tmp, target);
+        } catch (IOException | RuntimeException e) {
+            tmp.delete();
+            throw e;
+        }
+        for (long seq : sealed) {
+            if (seq != target) delete(seq);
+        }
+        segments.removeAll(sealed);
+        segments.add(0, target);
+        generation++;
+    }
+
+    /** Replaces the whole history with the given records (SecureStore.saveAllSnapshots). */
+    public synchronized void replaceAll(Iterable<JSONObject> records) throws IOException {
+        checkOpen();
+        long now = System.currentTimeMillis();
+        long target = segments.get(segments.size() - 1) + 1;
+        File tmp = new File(dir, segmentName(target) + TEMP_SUFFIX);
+        try {
+            try (SegmentWriter writer = new SegmentWriter(tmp, 0)) {
+                for (JSONObject record : records) {
+                    writer.write(record.optLong("timestamp", now), record.toString().getBytes(StandardCharsets.UTF_8));
+                }
+            }
+            install(tmp, target);
+        } catch (IOException | RuntimeException e) {
+            tmp.delete(); // the old history is untouched and stays writable
+            throw e;
+        }
+
+        // The new segment covers [0, target]; from here a crash is finished by recover()
+        try {
+            active.close();
+            for (long seq : segments) delete(seq);
+            segments.clear();
+            segments.add(target);
+        } finally {
+            active = null; // stays closed if reopening fails, so checkOpen() reports it
+            openActive(segments.get(segments.size() - 1));
+            generation++;
+        }
+    }
+
+    /**
+     * Deletes the oldest sealed segment — size-based retention for caches, where dropping
+     * whole segments is far cheaper than compact()'s rewrite.
+     *
+     * @return false if only the active segment is left
+     */
+    public synchronized boolean dropOldestSegment() throws IOException {
+        checkOpen();
+        if (segments.size() < 2) return false;
+        long oldest = segments.remove(0);
+        if (!segmentFile(oldest).delete()) {
+            segments.add(0, oldest);
+            throw new IOException("Cannot delete " + segmentFile(oldest));
+        }
+        generation++;
+        return true;
+    }
+
+    /**
+     * One-time import of a legacy JSON array file (the old secure_store.json). The import is a
+     * single atomic replaceAll, so an interrupted migration is simply redone on the next open;
+     * the legacy file is deleted only afterwards.
+     *
+     * @return number of records imported, or -1 if the file is missing or not a JSON array
+     */
+    public synchronized int migrateFrom(File legacyJson) throws IOException {
+        if (!legacyJson.isFile()) return -1;
+        JSONArray legacy;
+        try {
+            legacy = new JSONArray(new String(Files.readAllBytes(legacyJson.toPath()), StandardCharsets.UTF_8));
+        } catch (JSONException e) {
+            return -1;
+        }
+        List<JSONObject> records = new ArrayList<>(legacy.length());
+        for (int i = 0; i < legacy.length(); i++) {
+            JSONObject o = legacy.optJSONObject(i);
+            if (o != null) records.add(o);
+        }
+        replaceAll(records);
+        if (!legacyJson.delete()) throw new IOException("Migrated but could not delete " + legacyJson);
+        return records.size();
+    }
+
+    // ---------------- State ----------------
+
+    public synchronized int getSegmentCount() {
+        return segments.size();
+    }
+
+    /** Bytes on disk across all segments, headers included. */
+    public synchronized long getSizeBytes() {
+        long total = 0;
+        for (int i = 0; i < segments.size() - 1; i++) total += segmentFile(segments.get(i)).length();
+        return total + activeSize;
+    }
+
+    /** Records skipped so far because of CRC, length or JSON errors. */
+    public synchronized long getCorruptRecords() {
+        return corruptRecords;
+    }
+
+    public File getDirectory() {
+        return dir;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (active != null) {
+            active.close();
+            active = null;
+        }
+    }
+
+    // ---------------- Internals ----------------
+
+    private void recover() throws IOException {
+        File[] files = dir.listFiles();
+        if (files == null) throw new IOException("Cannot list " + dir);
+
+        List<Long> found = new ArrayList<>();
+        for (File f : files) {
+            String name = f.getName();
+            if (name.endsWith(TEMP_SUFFIX)) {
+                // Unfinished rewrite — the segments it would have replaced are still intact
+                f.delete();
+            } else if (name.endsWith(SEGMENT_SUFFIX)) {
+                try {
+                    found.add(Long.parseUnsignedLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()), 16));
+                } catch (NumberFormatException ignored) {
+                    // not ours
+                }
+            }
+        }
+        Long[] sorted = found.toArray(new Long[0]);
+        Arrays.sort(sorted);
+
+        // Finish interrupted rewrites: a segment whose header covers [first, seq]
+        // supersedes every older segment in that range
+        long coveredFrom = Long.MAX_VALUE;
+        for (int i = sorted.length - 1; i >= 0; i--) {
+            long seq = sorted[i];
+            if (seq >= coveredFrom) {
+                delete(seq);
+                continue;
+            }
+            segments.add(0, seq);
+            coveredFrom = Math.min(coveredFrom, readCoversFrom(segmentFile(seq), seq));
+        }
+
+        if (segments.isEmpty()) {
+            File first = segmentFile(0);
+            writeHeader(first, 0);
+            segments.add(0L);
+        }
+        long last = segments.get(segments.size() - 1);
+        File activeFile = segmentFile(last);
+        if (activeFile.length() < SEGMENT_HEADER_BYTES) writeHeader(activeFile, last);
+
+        // Truncate a torn tail so new appends start at a record boundary
+        long validEnd = scan(activeFile, Long.MAX_VALUE, null).validEnd;
+        openActive(last);
+        if (validEnd < active.size()) active.truncate(validEnd);
+        activeSize = validEnd;
+        active.position(activeSize);
+    }
+
+    private void openActive(long seq) throws IOException {
+        active = FileChannel.open(segmentFile(seq).toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        activeSize = active.size();
+        active.position(activeSize);
+    }
+
+    private void roll() throws IOException {
+        active.force(false);
+        active.close();
+        long next = segments.get(segments.size() - 1) + 1;
+        writeHeader(segmentFile(next), next);
+        segments.add(next);
+        openActive(next);
+    }
+
+    private void install(File tmp, long seq) throws IOException {
+        Files.move(tmp.toPath(), segmentFile(seq).toPath(),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void delete(long seq) {
+        segmentFile(seq).delete();
+    }
+
+    private void checkOpen() throws IOException {
+        if (active == null) throw new IOException("SnapshotLog is closed");
+    }
+
+    private int checksum(long timestamp, byte[] payload, int off, int len) {
+        return checksum(crc, timestamp, payload, off, len);
+    }
+
+    static int checksum(CRC32 crc, long timestamp, byte[] payload, int off, int len) {
+        crc.reset();
+        for (int shift = 56; shift >= 0; shift -= 8) crc.update((int) (timestamp >>> shift));
+        crc.update(payload, off, len);
+        return (int) crc.getValue();
+    }
+
+    private static long readCoversFrom(File f, long seq) {
+        try (DataInputStream in = new DataInputStream(new FileInputStream(f))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) return seq;
+            return in.readLong();
+        } catch (IOException e) {
+            return seq;
+        }
+    }
+
+    private static void writeHeader(File f, long coversFrom) throws IOException {
+        try (FileOutputStream out = new FileOutputStream(f)) {
+            out.write(ByteBuffer.allocate(SEGMENT_HEADER_BYTES)
+                    .putInt(MAGIC).putInt(VERSION).putLong(coversFrom).array());
+            out.getFD().sync();
+        }
+    }
+
+    private static final class ScanResult {
+        long records;
+        long validEnd;
+    }
+
+    /** Reads records up to limit bytes, stopping at the first invalid one. */
+    private ScanResult scan(File f, long limit, RecordVisitor visitor) throws IOException {
+        ScanResult result = new ScanResult();
+        result.validEnd = SEGMENT_HEADER_BYTES;
+        long fileLength = Math.min(f.length(), limit);
+        if (fileLength < SEGMENT_HEADER_BYTES) return result;
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(f), 64 * 1024))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                corruptRecords++;
+                return result;
+            }
+            in.readLong();
+            long pos = SEGMENT_HEADER_BYTES;
+            byte[] payload = new byte[256];
+            while (pos + RECORD_HEADER_BYTES <= fileLength) {
+                int length = in.readInt();
+                long timestamp = in.readLong();
+                int expected = in.readInt();
+                if (length < 0 || length > MAX_RECORD_BYTES) {
+                    corruptRecords++;
+                    break;
+                }
+                if (pos + RECORD_HEADER_BYTES + length > fileLength) break; // torn tail
+                if (payload.length < length) payload = new byte[Math.max(length, payload.length * 2)];
+                in.readFully(payload, 0, length);
+                if (checksum(timestamp, payload, 0, length) != expected) {
+                    corruptRecords++;
+                    break;
+                }
+                pos += RECORD_HEADER_BYTES + length;
+                result.validEnd = pos;
+                result.records++;
+                if (visitor != null) visitor.onRecord(timestamp, Arrays.copyOf(payload, length));
+            }
+        } catch (EOFException e) {
+            // file shrank underneath us; keep what was valid
+        }
+        return result;
+    }
+
+    private File segmentFile(long seq) {
+        return new File(dir, segmentName(seq) + SEGMENT_SUFFIX);
+    }
+
+    private static String segmentName(long seq) {
+        String hex = Long.toHexString(seq);
+        return "0000000000000000".substring(hex.length()) + hex;
+    }
+
+    /** Buffered writer for a fresh segment; synced to disk on close. */
+    private final class SegmentWriter implements Closeable {
+        private final FileOutputStream file;
+        private final BufferedOutputStream out;
+        private final ByteBuffer recordHeader = ByteBuffer.allocate(RECORD_HEADER_BYTES);
+
+        SegmentWriter(File f, long coversFrom) throws IOException {
+            file = new FileOutputStream(f);
+            out = new BufferedOutputStream(file, 64 * 1024);
+            out.write(ByteBuffer.allocate(SEGMENT_HEADER_BYTES)
+                    .putInt(MAGIC).putInt(VERSION).putLong(coversFrom).array());
+        }
+
+        void write(long timestamp, byte[] payload) throws IOException {
+            recordHeader.clear();
+            recordHeader.putInt(payload.length).putLong(timestamp)
+                    .putInt(checksum(timestamp, payload, 0, payload.length));
+            out.write(recordHeader.array());
+            out.write(payload);
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.flush();
+            file.getFD().sync();
+            out.close();
+        }
+    }
+
+    // ---------------- Callback interfaces ----------------
+
+    public interface RecordVisitor {
+        void onRecord(long timestamp, byte[] payload) throws IOException;
+    }
+}
@@ -0,0 +1,289 @@
+package com.vxsudev.androidsdk;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.zip.CRC32;
+
+/**
+ * Point-in-time, memory-mapped reader over {@link SnapshotLog} segments.
+ *
+ * Segments are mapped read-only, so record bytes live in the page cache rather than on the
+ * heap. Opening walks only the 16-byte record headers and keeps a sparse index: one entry per
+ * block of {@link #BLOCK_RECORDS} records with the block's offset and min/max timestamp.
+ * A range query binary-searches the index, walks only blocks that can overlap the range and
+ * returns a lazy {@link RangeView}; payloads are CRC-checked and decoded on access.
+ *
+ * Get one from {@link SnapshotLog#reader()}. Instances are immutable and thread-safe; appends
+ * made afterwards are not visible (ask the log for a fresh reader).
+ */
+public class SnapshotLogReader {
+
+    public static final int BLOCK_RECORDS = 64;
+
+    private static final int RECORD_HEADER = SnapshotLog.RECORD_HEADER_BYTES;
+
+    private final int generation;
+    private final List<File> files;
+    private final MappedByteBuffer[] maps;
+    private final int[] limits;
+
+    // Sparse index, one entry per block, in log order
+    private final int blockCount;
+    private final int[] blockSegment;
+    private final int[] blockOffset;
+    private final int[] blockRecords;
+    private final long[] blockMin;
+    private final long[] blockMax;
+    // Running max from the front / min from the back, so a range query can binary-search
+    // its first block and stop early even when timestamps are only roughly ordered
+    private final long[] prefixMax;
+    private final long[] suffixMin;
+    private final long recordCount;
+
+    private SnapshotLogReader(int generation, List<File> files, MappedByteBuffer[] maps, int[] limits, Index index) {
+        this.generation = generation;
+        this.files = files;
+        this.maps = maps;
+        this.limits = limits;
+        this.blockCount = index.count;
+        this.blockSegment = index.segment;
+        this.blockOffset = index.offset;
+        this.blockRecords = index.records;
+        this.blockMin = index.min;
+        this.blockMax = index.max;
+
+        long records = 0;
+        prefixMax = new long[blockCount];
+        suffixMin = new long[blockCount];
+        long max = Long.MIN_VALUE;
+        for (int b = 0; b < blockCount; b++) {
+            max = Math.max(max, blockMax[b]);
+            prefixMax[b] = max;
+            records += blockRecords[b];
+        }
+        long min = Long.MAX_VALUE;
+        for (int b = blockCount - 1; b >= 0; b--) {
+            min = Math.min(min, blockMin[b]);
+            suffixMin[b] = min;
+        }
+        this.recordCount = records;
+    }
+
+    /**
+     * Maps and indexes the given segments (the last one up to activeLimit bytes).
+     * Segments of previous that are unchanged are reused without re-reading them.
+     */
+    static SnapshotLogReader build(SnapshotLogReader previous, List<File> files, long activeLimit, int generation)
+            throws IOException {
+        int n = files.size();
+        MappedByteBuffer[] maps = new MappedByteBuffer[n];
+        int[] limits = new int[n];
+        Index index = new Index();
+
+        for (int s = 0; s < n; s++) {
+            File f = files.get(s);
+            long limit = s == n - 1 ? activeLimit : f.length();
+            if (limit > Integer.MAX_VALUE) throw new IOException("Segment too large to map: " + f);
+
+            int reuse = previous == null ? -1 : previous.files.indexOf(f);
+            if (reuse >= 0 && previous.limits[reuse] == limit) {
+                maps[s] = previous.maps[reuse];
+                limits[s] = previous.limits[reuse];
+                previous.copyBlocks(reuse, s, index);
+                continue;
+            }
+            try (FileChannel channel = FileChannel.open(f.toPath(), StandardOpenOption.READ)) {
+                limit = Math.min(limit, channel.size());
+                maps[s] = channel.map(FileChannel.MapMode.READ_ONLY, 0, limit);
+            }
+            limits[s] = (int) limit;
+            indexSegment(maps[s], limits[s], s, index);
+        }
+        return new SnapshotLogReader(generation, new ArrayList<>(files), maps, limits, index);
+    }
+
+    private static void indexSegment(MappedByteBuffer map, int limit, int segment, Index index) {
+        int pos = SnapshotLog.SEGMENT_HEADER_BYTES;
+        if (limit < pos || map.getInt(0) != SnapshotLog.MAGIC) return;
+        int inBlock = 0;
+        while (pos + RECORD_HEADER <= limit) {
+            int length = map.getInt(pos);
+            if (length < 0 || length > SnapshotLog.MAX_RECORD_BYTES || pos + RECORD_HEADER + length > limit) break;
+            long timestamp = map.getLong(pos + 4);
+            if (inBlock == 0) index.open(segment, pos, timestamp);
+            index.add(timestamp);
+            if (++inBlock == BLOCK_RECORDS) inBlock = 0;
+            pos += RECORD_HEADER + length;
+        }
+    }
+
+    private void copyBlocks(int fromSegment, int toSegment, Index index) {
+        for (int b = 0; b < blockCount; b++) {
+            if (blockSegment[b] != fromSegment) continue;
+            index.open(toSegment, blockOffset[b], blockMin[b]);
+            index.records[index.count - 1] = blockRecords[b];
+            index.max[index.count - 1] = blockMax[b];
+        }
+    }
+
+    // ---------------- Queries ----------------
+
+    /** Records with fromInclusive <= timestamp < toExclusive, in log (append) order. */
+    public RangeView range(long fromInclusive, long toExclusive) {
+        long[] positions = new long[16];
+        int size = 0;
+        if (fromInclusive >= toExclusive) return new RangeView(positions, 0);
+
+        // First block whose running max reaches the range
+        int lo = 0, hi = blockCount;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (prefixMax[mid] < fromInclusive) lo = mid + 1;
+            else hi = mid;
+        }
+        for (int b = lo; b < blockCount && suffixMin[b] < toExclusive; b++) {
+            if (blockMax[b] < fromInclusive || blockMin[b] >= toExclusive) continue;
+            MappedByteBuffer map = maps[blockSegment[b]];
+            int pos = blockOffset[b];
+            for (int r = 0; r < blockRecords[b]; r++) {
+                long timestamp = map.getLong(pos + 4);
+                if (timestamp >= fromInclusive && timestamp < toExclusive) {
+                    if (size == positions.length) positions = Arrays.copyOf(positions, size * 2);
+                    positions[size++] = ((long) blockSegment[b] << 32) | pos;
+                }
+                pos += RECORD_HEADER + map.getInt(pos);
+            }
+        }
+        return new RangeView(positions, size);
+    }
+
+    public RangeView all() {
+        return range(Long.MIN_VALUE, Long.MAX_VALUE);
+    }
+
+    public long getRecordCount() {
+        return recordCount;
+    }
+
+    public int getBlockCount() {
+        return blockCount;
+    }
+
+    int getGeneration() {
+        return generation;
+    }
+
+    /** True if this reader already covers exactly these segments and active length. */
+    boolean isCurrent(List<File> currentFiles, long activeLimit) {
+        return files.equals(currentFiles) && limits[limits.length - 1] == activeLimit;
+    }
+
+    // ---------------- Lazy view ----------------
+
+    /**
+     * Matching records as a random-access list. Only record positions are held; each
+     * get() reads the payload from the mapping, verifies its CRC and parses it.
+     */
+    public class RangeView extends AbstractList<JSONObject> implements RandomAccess {
+        private final long[] positions;
+        private final int size;
+
+        RangeView(long[] positions, int size) {
+            this.positions = positions;
+            this.size = size;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        /** Decoded record, or null if it fails its CRC or is not a JSON object. */
+        @Override
+        public JSONObject get(int i) {
+            byte[] payload = payloadAt(i);
+            if (payload == null) return null;
+            try {
+                return new JSONObject(new String(payload, StandardCharsets.UTF_8));
+            } catch (JSONException e) {
+                return null;
+            }
+        }
+
+        public long timestampAt(int i) {
+            long p = position(i);
+            return maps[(int) (p >>> 32)].getLong((int) p + 4);
+        }
+
+        /** Raw record bytes, or null if they fail the CRC. */
+        public byte[] payloadAt(int i) {
+            long p = position(i);
+            MappedByteBuffer map = maps[(int) (p >>> 32)];
+            int pos = (int) p;
+            int length = map.getInt(pos);
+            long timestamp = map.getLong(pos + 4);
+            int expected = map.getInt(pos + 12);
+
+            byte[] payload = new byte[length];
+            // Absolute bulk get needs API 33; a duplicate keeps the shared mapping's position untouched
+            ByteBuffer view = map.duplicate();
+            view.position(pos + RECORD_HEADER);
+            view.get(payload);
+            if (SnapshotLog.checksum(new CRC32(), timestamp, payload, 0, length) != expected) return null;
+            return payload;
+        }
+
+        private long position(int i) {
+            if (i < 0 || i >= size) throw new IndexOutOfBoundsException("Index " + i + ", size " + size);
+            return positions[i];
+        }
+    }
+
+    // ---------------- Index builder ----------------
+
+    private static final class Index {
+        int count;
+        int[] segment = new int[16];
+        int[] offset = new int[16];
+        int[] records = new int[16];
+        long[] min = new long[16];
+        long[] max = new long[16];
+
+        void open(int seg, int pos, long timestamp) {
+            if (count == segment.length) {
+                int cap = count * 2;
+                segment = Arrays.copyOf(segment, cap);
+                offset = Arrays.copyOf(offset, cap);
+                records = Arrays.copyOf(records, cap);
+                min = Arrays.copyOf(min, cap);
+                max = Arrays.copyOf(max, cap);
+            }
+            segment[count] = seg;
+            offset[count] = pos;
+            records[count] = 0;
+            min[count] = timestamp;
+            max[count] = timestamp;
+            count++;
+        }
+
+        void add(long timestamp) {
+            int b = count - 1;
+            records[b]++;
+            if (timestamp < min[b]) min[b] = timestamp;
+            if (timestamp > max[b]) max[b] = timestamp;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.vxsudev.androidsdk;
+
+import java.io.File;
+
+/**
+ * Object storage as {@link ResumableUploader} sees it: resumable file uploads and
+ * download URLs.
+ *
+ * The real implementation ({@link FirebaseStorageClient}) wraps a Firebase StorageReference;
+ * tests drive the uploader with a local fake instead.
+ */
+public interface StorageClient {
+
+    /**
+     * Uploads file to remotePath. With a sessionUri reported by an earlier attempt the
+     * server continues that session from the bytes it already has; null starts a new one.
+     * Exactly one of onSuccess / onFailure ends the transfer. Callbacks may run on any thread.
+     */
+    Transfer upload(File file, String remotePath, String contentType, String sessionUri, UploadListener listener);
+
+    void getDownloadUrl(String remotePath, UrlCallback callback);
+
+    /** A running upload. */
+    interface Transfer {
+        /** Stops the transfer; the listener then gets onFailure. */
+        void cancel();
+    }
+
+    interface UploadListener {
+        /** The session to resume this upload with; may be reported more than once. */
+        void onSession(String sessionUri);
+        void onProgress(long bytesTransferred, long totalBytes);
+        void onSuccess();
+        void onFailure(Exception e);
+    }
+
+    interface UrlCallback {
+        void onSuccess(String downloadUrl);
+        void onFailure(Exception e);
+    }
+}
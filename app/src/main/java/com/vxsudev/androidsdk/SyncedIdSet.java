@@ -0,0 +1,213 @@
+package com.vxsudev.androidsdk;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+
+/**
+ * Exact set of document-ID hashes ({@link DocumentIds}) already committed to Firestore,
+ * so known readings are skipped before any network call.
+ *
+ * Deliberately not a bloom filter: a false positive there would silently skip an unsynced
+ * reading. An open-addressing long set costs ~11 bytes per ID (1M readings ≈ 11 MB) and
+ * can only err the other way — re-sending, which deterministic IDs make harmless.
+ *
+ * Persistence is an append-only file of raw longs, optional (file may be null).
+ * A torn trailing write only loses the last partial ID. Thread-safe; a set from
+ * {@link #loadAsync} blocks its callers only until the load finishes.
+ */
+public class SyncedIdSet {
+
+    private static final long EMPTY = 0L;
+    private static final int MIN_CAPACITY = 64;
+
+    private final File file;
+    private final CountDownLatch loaded = new CountDownLatch(1);
+    private long[] table;
+    private int size;
+    private boolean containsZero; // 0 marks empty slots, so it is tracked separately
+
+    public SyncedIdSet() {
+        this(null);
+    }
+
+    private SyncedIdSet(File file) {
+        this.file = file;
+        this.table = new long[MIN_CAPACITY];
+        if (file == null) loaded.countDown();
+    }
+
+    /** Loads the set persisted at file (missing file = empty set); later adds append to it. */
+    public static SyncedIdSet load(File file) throws IOException {
+        SyncedIdSet set = new SyncedIdSet(file);
+        try {
+            set.readFile();
+        } finally {
+            set.loaded.countDown();
+        }
+        return set;
+    }
+
+    /**
+     * Like load, but reads the file on executor so the caller (e.g. the UI thread) never
+     * waits on it. An unreadable file leaves the set empty, which only costs re-sends.
+     */
+    public static SyncedIdSet loadAsync(File file, Executor executor) {
+        SyncedIdSet set = new SyncedIdSet(file);
+        executor.execute(() -> {
+            try {
+                set.readFile();
+            } catch (IOException e) {
+                synchronized (set) {
+                    set.table = new long[MIN_CAPACITY];
+                    set.size = 0;
+                    set.containsZero = false;
+                }
+            } finally {
+                set.loaded.countDown();
+            }
+        });
+        return set;
+    }
+
+    private synchronized void readFile() throws IOException {
+        if (!file.isFile()) return;
+        ensureCapacity((int) Math.min(file.length() / 8, Integer.MAX_VALUE / 2));
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 64 * 1024))) {
+            long n = file.length() / 8;
+            for (long i = 0; i < n; i++) insert(in.readLong());
+        } catch (EOFException ignored) {
+            // truncated underneath us; keep what was read
+        }
+    }
+
+    public boolean contains(long id) {
+        awaitLoaded();
+        synchronized (this) {
+            if (id == EMPTY) return containsZero;
+            int mask = table.length - 1;
+            for (int i = slot(id, mask); ; i = (i + 1) & mask) {
+                long v = table[i];
+                if (v == id) return true;
+                if (v == EMPTY) return false;
+            }
+        }
+    }
+
+    /** Adds the IDs and appends the new ones to the backing file. */
+    public void addAll(long[] ids, int count) throws IOException {
+        awaitLoaded();
+        synchronized (this) {
+            appendAll(ids, count);
+        }
+    }
+
+    private void appendAll(long[] ids, int count) throws IOException {
+        long[] added = new long[count];
+        int n = 0;
+        ensureCapacity(size + count);
+        for (int i = 0; i < count; i++) {
+            if (insert(ids[i])) added[n++] = ids[i];
+        }
+        if (file == null || n == 0) return;
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file, true)))) {
+            for (int i = 0; i < n; i++) out.writeLong(added[i]);
+        }
+    }
+
+    /** Adds one ID; true if it was new. Only for sets without a backing file (no I/O). */
+    public synchronized boolean addIfAbsent(long id) {
+        if (file != null) throw new IllegalStateException("Use addAll for persisted sets");
+        ensureCapacity(size + 1);
+        return insert(id);
+    }
+
+    public int size() {
+        awaitLoaded();
+        synchronized (this) {
+            return size;
+        }
+    }
+
+    private void awaitLoaded() {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                loaded.await();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) Thread.currentThread().interrupt();
+    }
+
+    /**
+     * The readings deviceId still has to upload: those not in the set, plus every one at or
+     * after upsertFromMillis — freshly re-read from their source (e.g. a Fit sync's overlap
+     * window), so their values may have changed since they were committed.
+     */
+    public List<SmartWatchData> toUpload(List<SmartWatchData> readings, String deviceId, long upsertFromMillis) {
+        List<SmartWatchData> out = new ArrayList<>(readings.size());
+        for (SmartWatchData d : readings) {
+            if (d == null) continue;
+            if (d.getTimestamp() >= upsertFromMillis || !contains(DocumentIds.hash(d, deviceId))) out.add(d);
+        }
+        return out;
+    }
+
+    // ---------------- Hash table ----------------
+
+    private boolean insert(long id) {
+        if (id == EMPTY) {
+            if (containsZero) return false;
+            containsZero = true;
+            size++;
+            return true;
+        }
+        if ((size + 1) * 4L > table.length * 3L) rehash(table.length * 2);
+        int mask = table.length - 1;
+        for (int i = slot(id, mask); ; i = (i + 1) & mask) {
+            long v = table[i];
+            if (v == id) return false;
+            if (v == EMPTY) {
+                table[i] = id;
+                size++;
+                return true;
+            }
+        }
+    }
+
+    private void ensureCapacity(int expected) {
+        int needed = MIN_CAPACITY;
+        while (needed * 3L < expected * 4L) needed <<= 1;
+        if (needed > table.length) rehash(needed);
+    }
+
+    private void rehash(int capacity) {
+        long[] old = table;
+        table = new long[capacity];
+        int mask = capacity - 1;
+        for (long v : old) {
+            if (v == EMPTY) continue;
+            int i = slot(v, mask);
+            while (table[i] != EMPTY) i = (i + 1) & mask;
+            table[i] = v;
+        }
+    }
+
+    // IDs are already well-mixed hashes
+    private static int slot(long id, int mask) {
+        return (int) (id ^ (id >>> 32)) & mask;
+    }
+}
@@ -0,0 +1,182 @@
+package com.vxsudev.androidsdk;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Parses CSV timestamp fields straight from bytes to epoch millis, without creating
+ * java.time objects or Strings per row.
+ *
+ * Accepted forms:
+ * <ul>
+ *   <li>epoch millis: all digits, e.g. 1700000000000</li>
+ *   <li>ISO-8601: 2024-03-01, 2024-03-01T07:30, 2024-03-01 07:30:15.250 and the like,
+ *       with an optional Z, ±hh, ±hh:mm or ±hhmm offset; no offset means UTC</li>
+ * </ul>
+ * The date part is converted with integer arithmetic and the last one seen is cached, so
+ * a file of consecutive readings pays for the calendar math once per day, not per row.
+ *
+ * Instances keep that cache and are not thread-safe; use one per parser.
+ */
+public class TimestampParser {
+
+    /** Returned for fields that are neither epoch millis nor ISO-8601. */
+    public static final long INVALID = Long.MIN_VALUE;
+
+    private static final long MILLIS_PER_DAY = 86_400_000L;
+    private static final int DATE_LENGTH = 10; // yyyy-MM-dd
+
+    // Last date prefix seen and its epoch millis at midnight UTC
+    private final byte[] cachedDate = new byte[DATE_LENGTH];
+    private boolean hasCachedDate;
+    private long cachedDateMillis;
+
+    /** Parses buf[from, to); surrounding spaces are not allowed. */
+    public long parse(byte[] buf, int from, int to) {
+        int length = to - from;
+        if (length <= 0) return INVALID;
+        if (isDigit(buf[to - 1]) && length <= 18 && allDigits(buf, from, to)) {
+            return parseDigits(buf, from, to);
+        }
+        if (length < DATE_LENGTH || buf[from + 4] != '-' || buf[from + 7] != '-') return INVALID;
+
+        long dayMillis = dateMillis(buf, from);
+        if (dayMillis == INVALID) return INVALID;
+        int pos = from + DATE_LENGTH;
+        if (pos == to) return dayMillis;
+
+        // Time of day: [T ]hh:mm[:ss[.fraction]]
+        if (buf[pos] != 'T' && buf[pos] != 't' && buf[pos] != ' ') return INVALID;
+        pos++;
+        if (to - pos < 5 || buf[pos + 2] != ':') return INVALID;
+        int hour = twoDigits(buf, pos);
+        int minute = twoDigits(buf, pos + 3);
+        if (hour < 0 || hour > 23 || minute < 0 || minute > 59) return INVALID;
+        pos += 5;
+        int second = 0;
+        int millis = 0;
+        if (pos < to && buf[pos] == ':') {
+            if (to - pos < 3) return INVALID;
+            second = twoDigits(buf, pos + 1);
+            if (second < 0 || second > 60) return INVALID; // 60: leap second
+            pos += 3;
+            if (pos < to && (buf[pos] == '.' || buf[pos] == ',')) {
+                pos++;
+                int digits = 0;
+                while (pos < to && isDigit(buf[pos])) {
+                    if (digits < 3) millis = millis * 10 + (buf[pos] - '0');
+                    digits++;
+                    pos++;
+                }
+                if (digits == 0) return INVALID;
+                for (int i = digits; i < 3; i++) millis *= 10;
+            }
+        }
+
+        long offsetMillis = 0;
+        if (pos < to) {
+            byte sign = buf[pos];
+            if ((sign == 'Z' || sign == 'z') && pos + 1 == to) {
+                pos++;
+            } else if (sign == '+' || sign == '-') {
+                offsetMillis = offsetMillis(buf, pos + 1, to);
+                if (offsetMillis == INVALID) return INVALID;
+                if (sign == '+') offsetMillis = -offsetMillis;
+                pos = to;
+            } else {
+                return INVALID;
+            }
+        }
+        if (pos != to) return INVALID;
+        return dayMillis + ((hour * 60L + minute) * 60 + second) * 1000 + millis + offsetMillis;
+    }
+
+    /** Convenience for String fields, e.g. {@link SmartWatchData#fromCSV}. */
+    public long parse(String text) {
+        byte[] bytes = text.trim().getBytes(StandardCharsets.US_ASCII);
+        return parse(bytes, 0, bytes.length);
+    }
+
+    // ---------------- Date ----------------
+
+    private long dateMillis(byte[] buf, int from) {
+        if (hasCachedDate && sameDate(buf, from)) return cachedDateMillis;
+
+        int year = fourDigits(buf, from);
+        int month = twoDigits(buf, from + 5);
+        int day = twoDigits(buf, from + 8);
+        if (year < 0 || month < 1 || month > 12 || day < 1 || day > daysInMonth(year, month)) return INVALID;
+
+        System.arraycopy(buf, from, cachedDate, 0, DATE_LENGTH);
+        cachedDateMillis = daysFromCivil(year, month, day) * MILLIS_PER_DAY;
+        hasCachedDate = true;
+        return cachedDateMillis;
+    }
+
+    private boolean sameDate(byte[] buf, int from) {
+        for (int i = DATE_LENGTH - 1; i >= 0; i--) { // the day changes first
+            if (buf[from + i] != cachedDate[i]) return false;
+        }
+        return true;
+    }
+
+    /** Days since 1970-01-01 in the proleptic Gregorian calendar (Hinnant's algorithm). */
+    static long daysFromCivil(int year, int month, int day) {
+        long y = month <= 2 ? year - 1 : year;
+        long era = Math.floorDiv(y, 400);
+        long yearOfEra = y - era * 400;
+        long dayOfYear = (153L * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146_097 + dayOfEra - 719_468;
+    }
+
+    private static int daysInMonth(int year, int month) {
+        switch (month) {
+            case 2: return (year % 4 == 0 && (year % 100 != 0 || year % 400 == 0)) ? 29 : 28;
+            case 4: case 6: case 9: case 11: return 30;
+            default: return 31;
+        }
+    }
+
+    /** hh, hh:mm or hhmm after the sign, as positive millis; INVALID otherwise. */
+    private static long offsetMillis(byte[] buf, int from, int to) {
+        int length = to - from;
+        int hours = length >= 2 ? twoDigits(buf, from) : -1;
+        int minutes;
+        if (length == 2) minutes = 0;
+        else if (length == 4) minutes = twoDigits(buf, from + 2);
+        else if (length == 5 && buf[from + 2] == ':') minutes = twoDigits(buf, from + 3);
+        else return INVALID;
+        if (hours < 0 || hours > 18 || minutes < 0 || minutes > 59) return INVALID;
+        return (hours * 60L + minutes) * 60_000L;
+    }
+
+    // ---------------- Digits ----------------
+
+    private static long parseDigits(byte[] buf, int from, int to) {
+        long value = 0;
+        for (int i = from; i < to; i++) value = value * 10 + (buf[i] - '0');
+        return value;
+    }
+
+    private static boolean allDigits(byte[] buf, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (!isDigit(buf[i])) return false;
+        }
+        return true;
+    }
+
+    private static int twoDigits(byte[] buf, int at) {
+        if (!isDigit(buf[at]) || !isDigit(buf[at + 1])) return -1;
+        return (buf[at] - '0') * 10 + (buf[at + 1] - '0');
+    }
+
+    private static int fourDigits(byte[] buf, int at) {
+        int hi = twoDigits(buf, at);
+        int lo = twoDigits(buf, at + 2);
+        return hi < 0 || lo < 0 ? -1 : hi * 100 + lo;
+    }
+
+    private static boolean isDigit(byte b) {
+        return b >= '0' && b <= '9';
+    }
+}
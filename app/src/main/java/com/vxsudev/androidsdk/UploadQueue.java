@@ -0,0 +1,381 @@
+package com.vxsudev.androidsdk;
+
+import java.io.Closeable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded write-behind queue in front of a {@link BatchWriter}.
+ *
+ * Readings are buffered and committed in chunks of at most chunkSize (≤ 500, Firestore's
+ * batch limit) when a full chunk is ready, when the oldest buffered reading reaches
+ * maxAgeMillis, or on {@link #flush()}. At most maxInFlight chunks are committing at once.
+ *
+ * Backpressure: a reading occupies capacity from enqueue until its chunk is committed (or
+ * finally fails), so a slow network fills the queue. {@link #offer} then returns false and
+ * {@link #put} blocks — call put only off the main thread.
+ *
+ * Failed chunks are retried with exponential backoff up to maxAttempts, then reported to
+ * the item callbacks and the {@link Listener}. {@link #close()} does not cut that short:
+ * the timer keeps running until every buffered and committing reading has settled.
+ */
+public class UploadQueue implements Closeable {
+
+    public static final int DEFAULT_CAPACITY = 5000;
+    public static final int DEFAULT_MAX_IN_FLIGHT = 2;
+    public static final long DEFAULT_MAX_AGE_MILLIS = 2000;
+    public static final int DEFAULT_MAX_ATTEMPTS = 3;
+    private static final long RETRY_BASE_MILLIS = 500;
+
+    private final BatchWriter writer;
+    private final int capacity;
+    private final int chunkSize;
+    private final int maxInFlight;
+    private final long maxAgeMillis;
+    private final int maxAttempts;
+    private final ScheduledExecutorService timer;
+    private volatile Listener listener;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notFull = lock.newCondition();
+    private final Condition idle = lock.newCondition();
+
+    // Guarded by lock
+    private final ArrayDeque<Entry> pending = new ArrayDeque<>();
+    private int occupied;          // pending + committing readings
+    private int inFlight;          // chunks committing or waiting to retry
+    private boolean flushRequested;
+    private boolean closed;
+
+    public UploadQueue(BatchWriter writer) {
+        this(writer, DEFAULT_CAPACITY, BatchWriter.MAX_BATCH_SIZE, DEFAULT_MAX_IN_FLIGHT,
+                DEFAULT_MAX_AGE_MILLIS, DEFAULT_MAX_ATTEMPTS);
+    }
+
+    public UploadQueue(BatchWriter writer, int capacity, int chunkSize, int maxInFlight,
+                       long maxAgeMillis, int maxAttempts) {
+        if (chunkSize < 1 || chunkSize > BatchWriter.MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException("chunkSize must be 1.." + BatchWriter.MAX_BATCH_SIZE);
+        }
+        this.writer = writer;
+        this.capacity = Math.max(capacity, chunkSize);
+        this.chunkSize = chunkSize;
+        this.maxInFlight = Math.max(maxInFlight, 1);
+        this.maxAgeMillis = maxAgeMillis;
+        this.maxAttempts = Math.max(maxAttempts, 1);
+        this.timer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "UploadQueue");
+            t.setDaemon(true);
+            return t;
+        });
+        long tick = Math.max(maxAgeMillis / 2, 10);
+        timer.scheduleWithFixedDelay(this::checkAge, tick, tick, TimeUnit.MILLISECONDS);
+    }
+
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    // ---------------- Enqueue ----------------
+
+    /** Enqueues without blocking; false when the queue is full or closed. */
+    public boolean offer(SmartWatchData data, BatchWriter.Callback callback) {
+        List<List<Entry>> ready;
+        lock.lock();
+        try {
+            if (closed || occupied >= capacity) return false;
+            add(data, callback);
+            ready = takeReadyChunks();
+        } finally {
+            lock.unlock();
+        }
+        start(ready);
+        return true;
+    }
+
+    /** Enqueues, waiting for space while the queue is full. Not for the main thread. */
+    public void put(SmartWatchData data, BatchWriter.Callback callback) throws InterruptedException {
+        List<List<Entry>> ready;
+        lock.lock();
+        try {
+            while (!closed && occupied >= capacity) notFull.await();
+            if (closed) throw new IllegalStateException("UploadQueue is closed");
+            add(data, callback);
+            ready = takeReadyChunks();
+        } finally {
+            lock.unlock();
+        }
+        start(ready);
+    }
+
+    public void putAll(List<SmartWatchData> list) throws InterruptedException {
+        for (SmartWatchData d : list) put(d, null);
+    }
+
+    /** Commits everything buffered now, in partial chunks if necessary. */
+    public void flush() {
+        List<List<Entry>> ready;
+        lock.lock();
+        try {
+            if (!pending.isEmpty()) flushRequested = true;
+            ready = takeReadyChunks();
+        } finally {
+            lock.unlock();
+        }
+        start(ready);
+    }
+
+    /** Waits until nothing is buffered or committing; false on timeout. */
+    public boolean awaitIdle(long timeout, TimeUnit unit) throws InterruptedException {
+        long nanos = unit.toNanos(timeout);
+        lock.lock();
+        try {
+            while (occupied > 0) {
+                if (nanos <= 0) return false;
+                nanos = idle.awaitNanos(nanos);
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return occupied;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Flushes what is buffered and stops accepting readings. Does not block: commits and their
+     * retries carry on, and the timer stops once the last one settles (see awaitIdle).
+     */
+    @Override
+    public void close() {
+        flush();
+        boolean drained;
+        lock.lock();
+        try {
+            closed = true;
+            notFull.signalAll();
+            drained = occupied == 0;
+        } finally {
+            lock.unlock();
+        }
+        if (drained) timer.shutdown();
+    }
+
+    // ---------------- Dispatch ----------------
+
+    private void add(SmartWatchData data, BatchWriter.Callback callback) {
+        pending.add(new Entry(data, callback, System.nanoTime()));
+        occupied++;
+    }
+
+    private void checkAge() {
+        List<List<Entry>> ready;
+        lock.lock();
+        try {
+            if (pending.isEmpty()) return;
+            if (System.nanoTime() - pending.peek().enqueuedNanos >= TimeUnit.MILLISECONDS.toNanos(maxAgeMillis)) {
+                flushRequested = true;
+            }
+            ready = takeReadyChunks();
+        } finally {
+            lock.unlock();
+        }
+        start(ready);
+    }
+
+    /** Cuts chunks while commit slots are free: full ones always, partial ones when flushing. */
+    private List<List<Entry>> takeReadyChunks() {
+        List<List<Entry>> ready = null;
+        while (inFlight < maxInFlight && !pending.isEmpty()
+                && (pending.size() >= chunkSize || flushRequested)) {
+            int n = Math.min(chunkSize, pending.size());
+            List<Entry> chunk = new ArrayList<>(n);
+            for (int i = 0; i < n; i++) chunk.add(pending.poll());
+            inFlight++;
+            if (ready == null) ready = new ArrayList<>();
+            ready.add(chunk);
+        }
+        if (pending.isEmpty()) flushRequested = false;
+        return ready;
+    }
+
+    private void start(List<List<Entry>> chunks) {
+        if (chunks == null) return;
+        for (List<Entry> chunk : chunks) commit(chunk, 1);
+    }
+
+    private void commit(List<Entry> chunk, int attempt) {
+        List<SmartWatchData> data = new ArrayList<>(chunk.size());
+        for (Entry e : chunk) data.add(e.data);
+        try {
+            writer.commit(data, new BatchWriter.Callback() {
+                @Override
+                public void onSuccess() {
+                    finish(chunk, null);
+                }
+
+                @Override
+                public void onFailure(Exception e) {
+                    retryOrFail(chunk, attempt, e);
+                }
+            });
+        } catch (RuntimeException e) {
+            retryOrFail(chunk, attempt, e);
+        }
+    }
+
+    private void retryOrFail(List<Entry> chunk, int attempt, Exception error) {
+        // The timer outlives close() until this chunk settles, so retries are not cut short
+        if (attempt < maxAttempts) {
+            long delay = RETRY_BASE_MILLIS << (attempt - 1);
+            try {
+                timer.schedule(() -> commit(chunk, attempt + 1), delay, TimeUnit.MILLISECONDS);
+                return;
+            } catch (RuntimeException rejected) {
+                // cannot happen while the chunk is in flight; give up below rather than lose it
+            }
+        }
+        finish(chunk, error);
+    }
+
+    private void finish(List<Entry> chunk, Exception error) {
+        // Callbacks first, so awaitIdle() returning means every callback has run
+        for (Entry e : chunk) {
+            if (e.callback == null) continue;
+            if (error == null) e.callback.onSuccess();
+            else e.callback.onFailure(error);
+        }
+        Listener l = listener;
+        if (l != null) {
+            if (error == null) l.onChunkCommitted(chunk.size());
+            else l.onChunkFailed(chunk.size(), error);
+        }
+
+        List<List<Entry>> ready;
+        boolean drained;
+        lock.lock();
+        try {
+            inFlight--;
+            occupied -= chunk.size();
+            notFull.signalAll();
+            if (occupied == 0) idle.signalAll();
+            ready = takeReadyChunks();
+            drained = closed && occupied == 0;
+        } finally {
+            lock.unlock();
+        }
+        start(ready);
+        if (drained) timer.shutdown();
+    }
+
+    // ---------------- One-shot chunked commit ----------------
+
+    /**
+     * Commits a list in chunks of chunkSize with at most maxInFlight commits running.
+     * callback.onSuccess fires once every chunk is committed; on the first failure
+     * onFailure fires and no further chunks are started.
+     */
+    public static void commitAll(BatchWriter writer, List<SmartWatchData> list, int chunkSize,
+                                 int maxInFlight, BatchWriter.Callback callback) {
+        new ChunkedCommit(writer, list, chunkSize, callback).start(Math.max(maxInFlight, 1));
+    }
+
+    private static final class ChunkedCommit {
+        private final BatchWriter writer;
+        private final List<SmartWatchData> list;
+        private final int chunkSize;
+        private final BatchWriter.Callback callback;
+        private int nextFrom;
+        private int running;
+        private boolean failed;
+
+        ChunkedCommit(BatchWriter writer, List<SmartWatchData> list, int chunkSize, BatchWriter.Callback callback) {
+            this.writer = writer;
+            this.list = list;
+            this.chunkSize = Math.min(Math.max(chunkSize, 1), BatchWriter.MAX_BATCH_SIZE);
+            this.callback = callback;
+        }
+
+        void start(int slots) {
+            if (list.isEmpty()) {
+                callback.onSuccess();
+                return;
+            }
+            for (int i = 0; i < slots; i++) startNext();
+        }
+
+        private void startNext() {
+            List<SmartWatchData> chunk;
+            synchronized (this) {
+                if (failed || nextFrom >= list.size()) return;
+                int to = Math.min(nextFrom + chunkSize, list.size());
+                chunk = new ArrayList<>(list.subList(nextFrom, to));
+                nextFrom = to;
+                running++;
+            }
+            try {
+                writer.commit(chunk, new BatchWriter.Callback() {
+                    @Override
+                    public void onSuccess() {
+                        boolean done;
+                        synchronized (ChunkedCommit.this) {
+                            running--;
+                            done = !failed && running == 0 && nextFrom >= list.size();
+                        }
+                        if (done) callback.onSuccess();
+                        else startNext();
+                    }
+
+                    @Override
+                    public void onFailure(Exception e) {
+                        fail(e);
+                    }
+                });
+            } catch (RuntimeException e) {
+                // e.g. batch.set rejecting a document before the commit started
+                fail(e);
+            }
+        }
+
+        private void fail(Exception e) {
+            boolean first;
+            synchronized (this) {
+                running--;
+                first = !failed;
+                failed = true;
+            }
+            if (first) callback.onFailure(e);
+        }
+    }
+
+    private static final class Entry {
+        final SmartWatchData data;
+        final BatchWriter.Callback callback;
+        final long enqueuedNanos;
+
+        Entry(SmartWatchData data, BatchWriter.Callback callback, long enqueuedNanos) {
+            this.data = data;
+            this.callback = callback;
+            this.enqueuedNanos = enqueuedNanos;
+        }
+    }
+
+    // ---------------- Callback interfaces ----------------
+    public interface Listener {
+        void onChunkCommitted(int size);
+        void onChunkFailed(int size, Exception e);
+    }
+}
@@ -0,0 +1,177 @@
+package com.vxsudev.androidsdk;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static com.vxsudev.androidsdk.SeriesAssert.assertSameRows;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ColumnarBlobTest {
+
+    private static final LoadGenerator WEEK = LoadGenerator.builder()
+            .samplesPerDevice(7 * 1440).jitter(3_000).gaps(0.002, 20).seed(11).build();
+
+    private static byte[] blob(SmartWatchSeries series, String source, int blockRows) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ColumnarBlob.Writer writer = new ColumnarBlob.Writer(out, source, blockRows)) {
+            writer.addAll(series);
+        }
+        return out.toByteArray();
+    }
+
+
+    @Test
+    public void randomAccessReaderUsesTheIndex() throws IOException {
+        SmartWatchSeries week = WEEK.device(0);
+        byte[] bytes = blob(week, LoadGenerator.sourceOf(0), 500);
+        File file = File.createTempFile("readings", ColumnarBlob.FILE_SUFFIX);
+        file.deleteOnExit();
+        Files.write(file.toPath(), bytes);
+
+        try (ColumnarBlob.Reader reader = ColumnarBlob.Reader.open(file)) {
+            assertEquals("mock-0", reader.getSource());
+            assertEquals(week.size(), reader.getRows());
+            assertEquals((week.size() + 499) / 500, reader.getBlockCount());
+            assertEquals(week.getFirstTimestamp(), reader.getMinTimestamp());
+            assertEquals(week.getLastTimestamp(), reader.getMaxTimestamp());
+            assertSameRows(week, reader.readAll());
+
+            long from = week.getTimestamp(3_000);
+            long to = week.getTimestamp(3_700);
+            assertSameRows(week.slice(from, to), reader.range(from, to));
+            assertEquals(week.size(), reader.toList().size());
+        }
+    }
+
+    @Test
+    public void streamingReaderMatchesAndSkipsBlocks() throws IOException {
+        SmartWatchSeries week = WEEK.device(1);
+        byte[] bytes = blob(week, null, 1024);
+        assertSameRows(week, ColumnarBlob.read(new ByteArrayInputStream(bytes)));
+
+        long from = week.getTimestamp(9_000);
+        long to = Long.MAX_VALUE;
+        assertSameRows(week.slice(from, to), ColumnarBlob.read(new ByteArrayInputStream(bytes), from, to));
+        assertNull(ColumnarBlob.Reader.open(bytes).getSource());
+    }
+
+    @Test
+    public void streamsThroughAPipeWithoutStaging() throws Exception {
+        SmartWatchSeries week = WEEK.device(2);
+        ExecutorService encoder = Executors.newSingleThreadExecutor();
+        try (InputStream in = ColumnarBlob.encodeAsync(week, "mock-2", encoder, 4096)) {
+            // Stands in for putStream: consumes the pipe to EOF as the writer produces it
+            assertSameRows(week, ColumnarBlob.Reader.open(drain(in)).readAll());
+        } finally {
+            encoder.shutdown();
+        }
+    }
+
+    @Test
+    public void failedEncodingFailsTheStreamInsteadOfEndingIt() throws Exception {
+        SmartWatchSeries week = WEEK.device(5);
+        SmartWatchSeries broken = new SmartWatchSeries(week.size()) {
+            @Override
+            public int getHeartRate(int i) {
+                if (i == 3_000) throw new IllegalStateException("bad row");
+                return super.getHeartRate(i);
+            }
+        };
+        for (int i = 0; i < week.size(); i++) broken.append(week.get(i));
+
+        ExecutorService encoder = Executors.newSingleThreadExecutor();
+        try (InputStream in = ColumnarBlob.encodeAsync(broken, "mock-5", encoder, 4096)) {
+            drain(in);
+            fail("Expected the encoder's failure");
+        } catch (IOException expected) {
+            assertTrue(expected.getCause() instanceof IllegalStateException);
+        } finally {
+            encoder.shutdown();
+        }
+    }
+
+    private static byte[] drain(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buf = new byte[1000];
+        for (int n; (n = in.read(buf)) > 0; ) out.write(buf, 0, n);
+        return out.toByteArray();
+    }
+
+    @Test
+    public void mixedBatchesSplitIntoOneBlobPerSource() throws IOException {
+        List<SmartWatchData> batch = new ArrayList<>();
+        String[] sources = {SmartWatchData.SOURCE_CSV, SmartWatchData.SOURCE_FIT, null};
+        for (int i = 0; i < 30; i++) {
+            SmartWatchData d = new SmartWatchData(1_000L * i, 60 + i, 97f, 36.5f, i);
+            d.setSource(sources[i % 3]);
+            batch.add(d);
+        }
+
+        Map<String, List<SmartWatchData>> groups = ColumnarBlob.bySource(batch);
+        assertEquals(Arrays.asList(SmartWatchData.SOURCE_CSV, SmartWatchData.SOURCE_FIT, null),
+                new ArrayList<>(groups.keySet()));
+        for (Map.Entry<String, List<SmartWatchData>> group : groups.entrySet()) {
+            assertEquals(10, group.getValue().size());
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            try (ColumnarBlob.Writer writer = new ColumnarBlob.Writer(out, group.getKey())) {
+                writer.addAll(group.getValue());
+            }
+            ColumnarBlob.Reader reader = ColumnarBlob.Reader.open(out.toByteArray());
+            assertEquals(group.getKey(), reader.getSource());
+            assertSameRows(SmartWatchSeries.fromList(group.getValue()), reader.readAll());
+        }
+    }
+
+    @Test
+    public void muchSmallerThanCsvAndJson() throws IOException {
+        SmartWatchSeries week = WEEK.device(3);
+        int blobBytes = blob(week, "mock-3", 1024).length;
+
+        ByteArrayOutputStream csv = new ByteArrayOutputStream();
+        WEEK.writeCsv(week, csv);
+        JSONArray json = new JSONArray();
+        for (int i = 0; i < week.size(); i++) json.put(new JSONObject(week.get(i).toMap()));
+        int jsonBytes = json.toString().getBytes(StandardCharsets.UTF_8).length;
+
+        // LoadGenerator's floats are unrounded, the worst case for XOR coding, while the
+        // CSV rounds them to one decimal
+        assertTrue(blobBytes + " vs csv " + csv.size(), blobBytes * 2 < csv.size());
+        assertTrue(blobBytes + " vs json " + jsonBytes, blobBytes * 5 < jsonBytes);
+    }
+
+    @Test
+    public void truncatedOrCorruptBlobsAreRejected() throws IOException {
+        byte[] bytes = blob(WEEK.device(4), "mock-4", 1024);
+        try {
+            ColumnarBlob.Reader.open(Arrays.copyOf(bytes, bytes.length - 10));
+            fail("Expected a missing trailer");
+        } catch (IOException expected) {
+            // no trailer
+        }
+        bytes[200] ^= 0x01; // inside the first block's payload
+        try {
+            ColumnarBlob.Reader.open(bytes).readAll();
+            fail("Expected a checksum failure");
+        } catch (IOException expected) {
+            assertTrue(expected.getMessage().contains("checksum"));
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.vxsudev.androidsdk;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class CsvStreamParserTest {
+
+    private static CsvStreamParser.Result parse(String csv, List<SmartWatchData> out, List<String> errors) throws IOException {
+        return new CsvStreamParser(256).parse(
+                new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), 1000L,
+                (ts, hr, spo2, temp, steps) -> out.add(new SmartWatchData(ts, hr, spo2, temp, steps)),
+                (line, column, reason) -> errors.add(line + ":" + column + " " + reason));
+    }
+
+    @Test
+    public void parsesRowsAndSkipsHeader() throws IOException {
+        List<SmartWatchData> rows = new ArrayList<>();
+        List<String> errors = new ArrayList<>();
+        CsvStreamParser.Result result = parse("heartRate,spo2,temperature,steps\r\n78,97,36.6,1250\r\n 81 , 98.5 ,37.0, 1320\n", rows, errors);
+
+        assertEquals(2, result.getRows());
+        assertEquals(0, errors.size());
+        assertEquals(78, rows.get(0).getHeartRate());
+        assertEquals(36.6f, rows.get(0).getTemperature(), 0f);
+        assertEquals(98.5f, rows.get(1).getSpO2(), 0f);
+        assertEquals(1320, rows.get(1).getSteps());
+        assertEquals(1000L, rows.get(0).getTimestamp());
+        assertEquals(1001L, rows.get(1).getTimestamp());
+    }
+
+    @Test
+    public void reportsErrorPositionsWithoutStopping() throws IOException {
+        List<SmartWatchData> rows = new ArrayList<>();
+        List<String> errors = new ArrayList<>();
+        CsvStreamParser.Result result = parse("78,97,36.6,1250\n80,abc,36.1,10\n\n81,98\n82,99,1e1,5", rows, errors);
+
+        assertEquals(2, result.getRows());
+        assertEquals(2, result.getErrors());
+        assertEquals("2:1 " + CsvStreamParser.ERR_INVALID_NUMBER, errors.get(0));
+        assertEquals("4:2 " + CsvStreamParser.ERR_MISSING_COLUMN, errors.get(1));
+        assertEquals(10f, rows.get(1).getTemperature(), 0f);
+    }
+
+    @Test
+    public void handlesLinesLongerThanBuffer() throws IOException {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 2000; i++) sb.append(60 + i % 40).append(",97.25,36.5,").append(i).append('\n');
+        List<SmartWatchData> rows = new ArrayList<>();
+        List<String> errors = new ArrayList<>();
+        parse(sb.toString(), rows, errors);
+
+        assertEquals(2000, rows.size());
+        assertEquals(1999, rows.get(1999).getSteps());
+        assertEquals(97.25f, rows.get(1234).getSpO2(), 0f);
+    }
+
+    @Test
+    public void mapsColumnsFromTheHeaderAndReadsTimestamps() throws IOException {
+        List<SmartWatchData> rows = new ArrayList<>();
+        List<String> errors = new ArrayList<>();
+        CsvStreamParser.Result result = parse("\uFEFFSteps,Time,device,\"Heart Rate (bpm)\"\n"
+                + "120,2024-03-01T07:30:00Z,\"watch, left\",72\n"
+                + "5,1709278260000,x,70\n"
+                + "7,yesterday,x,71\n", rows, errors);
+
+        assertEquals(2, result.getRows());
+        assertEquals("CsvSchema{steps,timestamp,-,heartRate}", result.getSchema().toString());
+        assertEquals(1709278200000L, rows.get(0).getTimestamp());
+        assertEquals(120, rows.get(0).getSteps());
+        assertEquals(72, rows.get(0).getHeartRate());
+        assertEquals(0f, rows.get(0).getSpO2(), 0f); // not in the file
+        assertEquals(1709278260000L, rows.get(1).getTimestamp());
+        assertEquals("4:1 " + CsvStreamParser.ERR_INVALID_TIMESTAMP, errors.get(0));
+    }
+
+    @Test
+    public void unknownHeaderKeepsThePositionalLayout() throws IOException {
+        List<SmartWatchData> rows = new ArrayList<>();
+        CsvStreamParser.Result result = parse("a,b,c,d\n78,97,36.6,1250\n", rows, new ArrayList<>());
+        assertEquals(CsvSchema.DEFAULT, result.getSchema());
+        assertEquals(1250, rows.get(0).getSteps());
+        assertEquals(1000L, rows.get(0).getTimestamp());
+    }
+}
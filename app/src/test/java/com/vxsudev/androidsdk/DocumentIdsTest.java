@@ -0,0 +1,91 @@
+package com.vxsudev.androidsdk;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+public class DocumentIdsTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void idsAreStableAndDistinguishSourceDeviceAndTimestamp() {
+        SmartWatchData a = new SmartWatchData(1_700_000_000_000L, 70, 98f, 36.5f, 10);
+        a.setSource(SmartWatchData.SOURCE_CSV);
+        SmartWatchData sameReading = new SmartWatchData(1_700_000_000_000L, 90, 95f, 37f, 20);
+        sameReading.setSource(SmartWatchData.SOURCE_CSV);
+
+        String id = DocumentIds.of(a, "device-1");
+        assertEquals(16, id.length());
+        assertEquals(id, DocumentIds.of(sameReading, "device-1")); // values don't matter, identity does
+        assertNotEquals(id, DocumentIds.of(a, "device-2"));
+        assertNotEquals(DocumentIds.hash("ab", "c", 1), DocumentIds.hash("a", "bc", 1));
+        assertNotEquals(DocumentIds.hash("csv", "d", 1), DocumentIds.hash("fit", "d", 1));
+
+        Set<Long> seen = new HashSet<>();
+        for (long ts = 0; ts < 100_000; ts++) seen.add(DocumentIds.hash("fit", "device-1", ts));
+        assertEquals(100_000, seen.size());
+    }
+
+    @Test
+    public void syncedIdSetPersistsAcrossLoads() throws Exception {
+        File file = new File(tmp.getRoot(), "synced_ids.bin");
+        SyncedIdSet set = SyncedIdSet.load(file);
+        long[] ids = new long[1000];
+        for (int i = 0; i < ids.length; i++) ids[i] = DocumentIds.hash("csv", "d", i);
+        ids[0] = 0L; // the empty-slot marker is still a valid ID
+        set.addAll(ids, ids.length);
+        set.addAll(ids, 10); // duplicates are not appended again
+
+        SyncedIdSet reloaded = SyncedIdSet.load(file);
+        assertEquals(1000, reloaded.size());
+        assertEquals(1000 * 8L, file.length());
+        for (long id : ids) assertTrue(reloaded.contains(id));
+        assertFalse(reloaded.contains(DocumentIds.hash("csv", "d", 5000)));
+    }
+
+    @Test
+    public void asyncLoadReturnsAtOnceAndCallersWaitForTheFile() throws Exception {
+        File file = new File(tmp.getRoot(), "synced_ids.bin");
+        long id = DocumentIds.hash("fit", "d", 42);
+        SyncedIdSet.load(file).addAll(new long[]{id}, 1);
+
+        ExecutorService io = Executors.newSingleThreadExecutor();
+        ExecutorService caller = Executors.newSingleThreadExecutor();
+        try {
+            CountDownLatch ioBusy = new CountDownLatch(1);
+            io.execute(() -> {
+                try {
+                    ioBusy.await();
+                } catch (InterruptedException ignored) {
+                }
+            });
+            SyncedIdSet set = SyncedIdSet.loadAsync(file, io); // must not read the file here
+            Future<Boolean> contains = caller.submit(() -> set.contains(id));
+            Thread.sleep(100);
+            assertFalse(contains.isDone());
+
+            ioBusy.countDown();
+            assertTrue(contains.get(5, TimeUnit.SECONDS));
+            assertEquals(1, set.size());
+        } finally {
+            io.shutdownNow();
+            caller.shutdownNow();
+        }
+    }
+}
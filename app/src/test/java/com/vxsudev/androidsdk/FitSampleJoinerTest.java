@@ -0,0 +1,57 @@
+package com.vxsudev.androidsdk;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class FitSampleJoinerTest {
+
+    private static final long MINUTE = 60_000;
+
+    @Test
+    public void metricsOfOneBucketJoinIntoOneReading() {
+        FitSampleJoiner joiner = new FitSampleJoiner(MINUTE);
+        // Heart-rate data set first, then the steps data set, as Fit returns them
+        joiner.add(FitSampleJoiner.HEART_RATE, 10_000, 70);
+        joiner.add(FitSampleJoiner.HEART_RATE, 40_000, 75);
+        joiner.add(FitSampleJoiner.HEART_RATE, MINUTE + 5_000, 90);
+        joiner.add(FitSampleJoiner.STEPS, 30_000, 12);
+        joiner.add(FitSampleJoiner.STEPS, 59_999, 8);
+        joiner.add(FitSampleJoiner.SPO2, 20_000, 97f);
+        joiner.add(FitSampleJoiner.SPO2, 50_000, 98f);
+
+        List<SmartWatchData> list = joiner.toList(SmartWatchData.SOURCE_FIT);
+        assertEquals(2, list.size());
+
+        SmartWatchData first = list.get(0);
+        assertEquals(0, first.getTimestamp());
+        assertEquals(73, first.getHeartRate()); // 72.5 rounded
+        assertEquals(20, first.getSteps());
+        assertEquals(98f, first.getSpO2(), 0f);
+        assertEquals(SmartWatchData.SOURCE_FIT, first.getSource());
+
+        SmartWatchData second = list.get(1);
+        assertEquals(MINUTE, second.getTimestamp());
+        assertEquals(90, second.getHeartRate());
+        assertEquals(0, second.getSteps());
+    }
+
+    @Test
+    public void outOfOrderBucketsComeOutSortedAcrossRehash() {
+        FitSampleJoiner joiner = new FitSampleJoiner(MINUTE);
+        int n = 1000;
+        for (int i = n - 1; i >= 0; i--) joiner.add(FitSampleJoiner.STEPS, i * MINUTE, i);
+        for (int i = 0; i < n; i++) joiner.add(FitSampleJoiner.HEART_RATE, i * MINUTE + 1, 60 + i % 40);
+
+        assertEquals(n, joiner.size());
+        SmartWatchSeries series = joiner.toSeries();
+        assertEquals(n, series.size());
+        for (int i = 0; i < n; i++) {
+            assertEquals(i * MINUTE, series.getTimestamp(i));
+            assertEquals(i, series.getSteps(i));
+            assertEquals(60 + i % 40, series.getHeartRate(i));
+        }
+    }
+}
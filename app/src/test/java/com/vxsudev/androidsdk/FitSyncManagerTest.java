@@ -0,0 +1,194 @@
+package com.vxsudev.androidsdk;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+public class FitSyncManagerTest {
+
+    private static final long MINUTE = 60_000;
+    private static final long HOUR = 60 * MINUTE;
+    private static final long NOW = 1_000 * HOUR; // minute-aligned
+
+    static class MemoryStore implements FitSyncManager.WatermarkStore {
+        final Map<String, Long> marks = new HashMap<>();
+
+        @Override
+        public long getWatermark(String dataType) {
+            Long mark = marks.get(dataType);
+            return mark != null ? mark : Long.MIN_VALUE;
+        }
+
+        @Override
+        public void putWatermark(String dataType, long endMillis) {
+            marks.put(dataType, endMillis);
+        }
+    }
+
+    /** Answers synchronously with one reading per window; records the windows read. */
+    static class RecordingSource implements FitHistorySource {
+        final List<long[]> windows = new ArrayList<>();
+        boolean fail;
+
+        @Override
+        public void read(long startMillis, long endMillis, long bucketMillis, Callback callback) {
+            windows.add(new long[]{startMillis, endMillis});
+            if (fail) callback.onFailure(new Exception("offline"));
+            else callback.onSuccess(Collections.singletonList(new SmartWatchData(startMillis, 70, 0f, 0f, 0)));
+        }
+
+        long earliestStart() {
+            long min = Long.MAX_VALUE;
+            for (long[] w : windows) min = Math.min(min, w[0]);
+            return min;
+        }
+    }
+
+    static class Result implements FitSyncManager.Callback {
+        List<SmartWatchData> readings;
+        long start, end;
+        Exception error;
+
+        @Override
+        public void onSuccess(List<SmartWatchData> readings, long startMillis, long endMillis) {
+            this.readings = readings;
+            this.start = startMillis;
+            this.end = endMillis;
+        }
+
+        @Override
+        public void onFailure(Exception e) {
+            error = e;
+        }
+    }
+
+    @Test
+    public void firstSyncBackfillsThenOnlyReadsSinceWatermarkWithOverlap() {
+        RecordingSource source = new RecordingSource();
+        MemoryStore store = new MemoryStore();
+        FitSyncManager sync = new FitSyncManager(source, store, Arrays.asList("hr", "steps"), 10 * MINUTE, 24 * HOUR);
+
+        Result first = new Result();
+        sync.syncSinceWatermark(NOW, first);
+        assertNull(first.error);
+        assertEquals(NOW - 24 * HOUR, first.start);
+        assertEquals(NOW, first.end);
+        assertEquals(NOW, sync.getWatermark("hr"));
+        assertEquals(NOW, sync.getWatermark("steps"));
+
+        source.windows.clear();
+        Result second = new Result();
+        sync.syncSinceWatermark(NOW + 30 * MINUTE + 1, second);
+        assertEquals(NOW - 10 * MINUTE, second.start);
+        assertEquals(NOW + 31 * MINUTE, second.end); // rounded up to the minute
+        assertEquals(1, source.windows.size());
+        assertEquals(NOW - 10 * MINUTE, source.earliestStart());
+        assertEquals(NOW + 31 * MINUTE, sync.getWatermark("hr"));
+    }
+
+    @Test
+    public void newDataTypeBackfillsFromItsOwnMissingWatermark() {
+        RecordingSource source = new RecordingSource();
+        MemoryStore store = new MemoryStore();
+        store.putWatermark("hr", NOW - HOUR);
+        FitSyncManager sync = new FitSyncManager(source, store, Arrays.asList("hr", "spo2"), 0, 6 * HOUR);
+
+        Result result = new Result();
+        sync.syncSinceWatermark(NOW, result);
+        assertEquals(NOW - 6 * HOUR, result.start);
+        assertEquals(NOW, sync.getWatermark("spo2"));
+    }
+
+    @Test
+    public void failedSyncKeepsWatermark() {
+        RecordingSource source = new RecordingSource();
+        MemoryStore store = new MemoryStore();
+        store.putWatermark("hr", NOW - HOUR);
+        ShardedFitReaderTest.ManualTimer timer = new ShardedFitReaderTest.ManualTimer();
+        FitSyncManager sync = new FitSyncManager(
+                new ShardedFitReader(source, ShardedFitReader.DEFAULT_MAX_IN_FLIGHT, timer), store,
+                Collections.singletonList("hr"), FitSyncManager.DEFAULT_OVERLAP_MILLIS,
+                FitSyncManager.DEFAULT_INITIAL_BACKFILL_MILLIS);
+
+        source.fail = true;
+        Result result = new Result();
+        sync.syncSinceWatermark(NOW, result);
+        while (!timer.tasks.isEmpty()) timer.runNext(); // retries fail as well
+        assertNotNull(result.error);
+        assertNull(result.readings);
+        assertEquals(NOW - HOUR, sync.getWatermark("hr"));
+
+        sync.reset();
+        assertEquals(Long.MIN_VALUE, sync.getWatermark("hr"));
+    }
+
+    /** Answers from a mutable minute -> heart rate map, like Fit with late points arriving. */
+    static class MapSource implements FitHistorySource {
+        final Map<Long, Integer> heartRates = new HashMap<>();
+
+        @Override
+        public void read(long startMillis, long endMillis, long bucketMillis, Callback callback) {
+            List<SmartWatchData> out = new ArrayList<>();
+            for (Map.Entry<Long, Integer> e : heartRates.entrySet()) {
+                if (e.getKey() >= startMillis && e.getKey() < endMillis) {
+                    SmartWatchData d = new SmartWatchData(e.getKey(), e.getValue(), 0f, 0f, 0);
+                    d.setSource(SmartWatchData.SOURCE_FIT);
+                    out.add(d);
+                }
+            }
+            callback.onSuccess(out);
+        }
+    }
+
+    @Test
+    public void changedOverlapMinuteIsCommittedAndRolledUpAgain() throws IOException {
+        MapSource source = new MapSource();
+        FitSyncManager sync = new FitSyncManager(source, new MemoryStore(), Collections.singletonList("hr"),
+                10 * MINUTE, HOUR);
+        SyncedIdSet synced = new SyncedIdSet();
+        RollupIndex rollups = new RollupIndex();
+        long late = NOW - 5 * MINUTE;
+
+        source.heartRates.put(late, 70);
+        Result first = new Result();
+        sync.syncSinceWatermark(NOW, first);
+        assertEquals(1, synced.toUpload(first.readings, "device", first.start).size());
+        commit(synced, first.readings);
+        rollups.add(first.readings, first.start);
+
+        // The watch syncs a late point: the minute's value changes after it was committed
+        source.heartRates.put(late, 90);
+        source.heartRates.put(NOW, 80);
+        Result second = new Result();
+        sync.syncSinceWatermark(NOW + MINUTE, second);
+        assertEquals(NOW - 10 * MINUTE, second.start);
+        assertEquals(1, synced.toUpload(second.readings, "device", Long.MAX_VALUE).size()); // would skip it
+        List<SmartWatchData> upload = synced.toUpload(second.readings, "device", second.start);
+        assertEquals(2, upload.size());
+        assertEquals(late, upload.get(0).getTimestamp());
+        assertEquals(90, upload.get(0).getHeartRate());
+
+        assertEquals(2, rollups.add(second.readings, second.start));
+        RollupIndex.Aggregate minute = rollups.aggregate(RollupIndex.Level.MINUTE, late, late + MINUTE);
+        assertEquals(1, minute.getCount());
+        assertEquals(90.0, minute.getMean(RollupIndex.HEART_RATE), 1e-9);
+        assertEquals(0, rollups.add(second.readings, second.start)); // unchanged now
+    }
+
+    // What FirestoreBatchWriter records once a commit succeeds
+    private static void commit(SyncedIdSet synced, List<SmartWatchData> readings) throws IOException {
+        long[] ids = new long[readings.size()];
+        for (int i = 0; i < ids.length; i++) ids[i] = DocumentIds.hash(readings.get(i), "device");
+        synced.addAll(ids, ids.length);
+    }
+}
@@ -0,0 +1,167 @@
+package com.vxsudev.androidsdk;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static com.vxsudev.androidsdk.SeriesAssert.assertSameRows;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class GorillaCodecTest {
+
+    private static final long MINUTE = 60_000;
+
+    /** A day per minute as a watch reports it: integer SpO₂, 0.1 °C, mostly resting. */
+    private static SmartWatchSeries realisticDay(long seed) {
+        SplittableRandom rng = new SplittableRandom(seed);
+        SmartWatchSeries s = new SmartWatchSeries(1440);
+        int hr = 68;
+        int spO2 = 97;
+        int tenths = 366;
+        for (int i = 0; i < 1440; i++) {
+            if (rng.nextInt(3) == 0) hr = Math.max(50, Math.min(140, hr + rng.nextInt(5) - 2));
+            if (rng.nextInt(20) == 0) spO2 = Math.max(94, Math.min(99, spO2 + rng.nextInt(3) - 1));
+            if (rng.nextInt(30) == 0) tenths += rng.nextInt(3) - 1;
+            int steps = rng.nextInt(10) == 0 ? rng.nextInt(120) : 0;
+            s.append(1_700_000_000_000L + i * MINUTE, hr, spO2, tenths / 10f, steps);
+        }
+        return s;
+    }
+
+
+    @Test
+    public void streamRoundTripIsExactIncludingEdgeValues() throws IOException {
+        SmartWatchSeries rows = realisticDay(1);
+        rows.append(Long.MAX_VALUE, Integer.MIN_VALUE, Float.NaN, -0f, Integer.MAX_VALUE);
+        rows.append(0L, -1, Float.MIN_VALUE, Float.POSITIVE_INFINITY, -5); // time goes backwards
+        rows.append(3L, 200, 99.99f, 36.6f, 0);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GorillaCodec.Encoder encoder = new GorillaCodec.Encoder(bytes, 100)) {
+            encoder.addAll(rows);
+        }
+        SmartWatchSeries back = new SmartWatchSeries();
+        GorillaCodec.Decoder decoder = new GorillaCodec.Decoder(new ByteArrayInputStream(bytes.toByteArray()));
+        int blocks = 0;
+        for (GorillaCodec.BlockHeader h = decoder.next(); h != null; h = decoder.next()) {
+            decoder.read(back);
+            blocks++;
+        }
+        assertEquals(15, blocks); // 1443 rows / 100
+        assertSameRows(rows, back);
+    }
+
+    @Test
+    public void realisticVitalsCompressTenfoldAgainstObjects() {
+        SmartWatchSeries day = realisticDay(7);
+        byte[] block = GorillaCodec.encodeBlock(day, 0, day.size());
+        double bytesPerRow = (double) block.length / day.size();
+        // ~40 bytes per SmartWatchData object (header, fields, list slot), ~110 per JSON record
+        assertTrue("bytes/row " + bytesPerRow, bytesPerRow * 10 < 40);
+    }
+
+    @Test
+    public void headersBoundEachBlockAndRangeReadsSkipTheRest() throws IOException {
+        SmartWatchSeries day = realisticDay(3);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GorillaCodec.Encoder encoder = new GorillaCodec.Encoder(bytes, 60)) {
+            encoder.addAll(day);
+        }
+
+        GorillaCodec.Decoder decoder = new GorillaCodec.Decoder(new ByteArrayInputStream(bytes.toByteArray()));
+        GorillaCodec.BlockHeader first = decoder.next();
+        assertEquals(60, first.rows);
+        assertEquals(day.getTimestamp(0), first.minTimestamp);
+        assertEquals(day.getTimestamp(59), first.maxTimestamp);
+        int maxHr = 0;
+        for (int i = 0; i < 60; i++) maxHr = Math.max(maxHr, day.getHeartRate(i));
+        assertEquals(maxHr, first.maxHeartRate);
+
+        long from = day.getTimestamp(500);
+        long to = day.getTimestamp(530);
+        SmartWatchSeries range = new GorillaCodec.Decoder(new ByteArrayInputStream(bytes.toByteArray()))
+                .readRange(from, to);
+        assertSameRows(day.slice(from, to), range);
+    }
+
+    @Test
+    public void corruptPayloadIsDetected() {
+        SmartWatchSeries day = realisticDay(5);
+        byte[] block = GorillaCodec.encodeBlock(day, 0, 100);
+        block[GorillaCodec.BLOCK_HEADER_BYTES + 10] ^= 0x10;
+        try {
+            GorillaCodec.decodeBlock(block, new SmartWatchSeries());
+            fail("Expected a checksum failure");
+        } catch (IOException expected) {
+            assertTrue(expected.getMessage().contains("checksum"));
+        }
+    }
+
+    @Test
+    public void corruptHeaderIsDetectedBeforeItIsTrusted() throws IOException {
+        SmartWatchSeries day = realisticDay(6);
+        byte[] block = GorillaCodec.encodeBlock(day, 0, 100);
+
+        byte[] hugeRows = block.clone();
+        ByteBuffer.wrap(hugeRows).putInt(0, Integer.MAX_VALUE); // would size the output series
+        byte[] shiftedTime = block.clone();
+        ByteBuffer.wrap(shiftedTime).putLong(12, day.getTimestamp(0) + 86_400_000L); // minTs
+        for (byte[] corrupt : new byte[][]{hugeRows, shiftedTime}) {
+            try {
+                GorillaCodec.BlockHeader.parse(corrupt, 0);
+                fail("Expected a header checksum failure");
+            } catch (IOException expected) {
+                assertTrue(expected.getMessage().contains("header checksum"));
+            }
+        }
+
+        // A stream whose only block lies about its time range is rejected, not skipped
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GorillaCodec.Encoder encoder = new GorillaCodec.Encoder(out)) {
+            encoder.addBlock(block);
+        }
+        byte[] stream = out.toByteArray();
+        ByteBuffer.wrap(stream).putLong(5 + 12, day.getTimestamp(0) + 86_400_000L);
+        try {
+            new GorillaCodec.Decoder(new ByteArrayInputStream(stream)).readRange(day.getTimestamp(0), day.getTimestamp(1));
+            fail("Expected a header checksum failure");
+        } catch (IOException expected) {
+            assertTrue(expected.getMessage().contains("header checksum"));
+        }
+    }
+
+    @Test
+    public void compressedSeriesAppendsRangesAndPersists() throws IOException {
+        SmartWatchSeries day = realisticDay(9);
+        CompressedSeries compressed = new CompressedSeries(256);
+        for (int i = 0; i < day.size(); i++) compressed.append(day.get(i));
+        assertEquals(day.size(), compressed.size());
+        assertEquals(6, compressed.blockCount()); // 5 sealed + the open one
+
+        // A range that spans a sealed block and the open block
+        long from = day.getTimestamp(1200);
+        long to = day.getTimestamp(1300);
+        assertSameRows(day.slice(from, to), compressed.range(from, to));
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        compressed.writeTo(bytes);
+        assertEquals(compressed.sizeBytes() + 5, bytes.size()); // plus the stream header
+        CompressedSeries reread = CompressedSeries.readFrom(new ByteArrayInputStream(bytes.toByteArray()));
+        assertSameRows(day, reread.toSeries());
+
+        List<SmartWatchData> list = reread.toList(SmartWatchData.SOURCE_CSV);
+        assertEquals(day.getSteps(77), list.get(77).getSteps());
+        assertEquals(SmartWatchData.SOURCE_CSV, list.get(77).getSource());
+        assertArrayEquals(Arrays.copyOf(day.timestamps(), day.size()),
+                Arrays.copyOf(CompressedSeries.fromList(list).toSeries().timestamps(), day.size()));
+    }
+}
@@ -0,0 +1,148 @@
+package com.vxsudev.androidsdk;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class HealthDataCacheTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private static List<SmartWatchData> readings(long from, long to, String source) {
+        List<SmartWatchData> list = new ArrayList<>();
+        for (long ts = from; ts < to; ts++) {
+            SmartWatchData d = new SmartWatchData(ts, 60 + (int) (ts % 40), 97.5f, 36.6f, (int) ts);
+            d.setSource(source);
+            list.add(d);
+        }
+        return list;
+    }
+
+    @Test
+    public void rangeQueriesSurviveReopenAndBoundaryPagesAreDeduplicated() throws Exception {
+        File dir = tmp.newFolder("cache");
+        try (HealthDataCache cache = HealthDataCache.open(dir)) {
+            assertEquals(1000, cache.append(readings(0, 1000, SmartWatchData.SOURCE_FIT)).size());
+            SmartWatchData csv = new SmartWatchData(999, 80, 99f, 36.9f, 5);
+            csv.setSource(SmartWatchData.SOURCE_CSV);
+            List<SmartWatchData> sameTimestamp = new ArrayList<>();
+            sameTimestamp.add(csv);
+            assertEquals(1, cache.append(sameTimestamp).size());
+        }
+
+        try (HealthDataCache cache = HealthDataCache.open(dir)) {
+            assertEquals(999, cache.getHighWaterMark());
+            // Reconcile re-sends everything from the mark (inclusive) plus new readings
+            List<SmartWatchData> page = readings(999, 1100, SmartWatchData.SOURCE_FIT);
+            assertEquals(100, cache.append(page).size());
+
+            List<SmartWatchData> range = cache.query(990, 1010);
+            assertEquals(21, range.size());
+            assertEquals(990, range.get(0).getTimestamp());
+            assertEquals(SmartWatchData.SOURCE_CSV, range.get(10).getSource());
+            assertEquals(60 + 1009 % 40, range.get(20).getHeartRate());
+            assertEquals(1100 + 1, cache.querySeries(Long.MIN_VALUE, Long.MAX_VALUE).size());
+        }
+    }
+
+    @Test
+    public void backfillAndChangedReadingsAreStoredAndTheNewestWriteWins() throws Exception {
+        File dir = tmp.newFolder("cache");
+        try (HealthDataCache cache = HealthDataCache.open(dir)) {
+            cache.append(readings(10_000, 20_000, SmartWatchData.SOURCE_FIT));
+            assertEquals(5000, cache.append(readings(0, 5000, SmartWatchData.SOURCE_FIT)).size()); // backfill
+
+            // Re-read overlap: one minute changed, the rest are repeats
+            List<SmartWatchData> overlap = readings(19_000, 20_000, SmartWatchData.SOURCE_FIT);
+            overlap.get(500).setHeartRate(150);
+            assertEquals(1, cache.append(overlap).size());
+            assertTrue(cache.append(overlap).isEmpty());
+
+            // Another device's late upload at the same times is a different reading
+            List<SmartWatchData> partner = readings(12_000, 12_010, SmartWatchData.SOURCE_FIT);
+            for (SmartWatchData d : partner) d.setDeviceId("partner");
+            assertEquals(10, cache.append(partner).size());
+            assertEquals(19_999, cache.getHighWaterMark());
+        }
+        try (HealthDataCache cache = HealthDataCache.open(dir)) {
+            List<SmartWatchData> all = cache.query(Long.MIN_VALUE, Long.MAX_VALUE);
+            assertEquals(15_000 + 10, all.size());
+            for (int i = 1; i < all.size(); i++) {
+                assertTrue(all.get(i - 1).getTimestamp() <= all.get(i).getTimestamp());
+            }
+            List<SmartWatchData> minute = cache.query(19_500, 19_501);
+            assertEquals(1, minute.size());
+            assertEquals(150, minute.get(0).getHeartRate());
+            List<SmartWatchData> shared = cache.query(12_000, 12_001);
+            assertEquals(2, shared.size());
+            assertEquals("partner", shared.get(1).getDeviceId());
+
+            SmartWatchSeries series = cache.querySeries(4990, 10_010);
+            assertEquals(20, series.size());
+            assertEquals(4999, series.getTimestamp(9));
+            assertEquals(10_000, series.getTimestamp(10));
+        }
+    }
+
+    @Test
+    public void oldestRangesAreEvictedPastTheSizeBound() throws Exception {
+        long maxBytes = 64 * 1024;
+        try (HealthDataCache cache = HealthDataCache.open(tmp.newFolder("cache"), maxBytes)) {
+            for (long from = 0; from < 200_000; from += 5000) {
+                cache.append(readings(from, from + 5000, SmartWatchData.SOURCE_MOCK));
+            }
+            assertTrue(cache.getSizeBytes() <= maxBytes);
+            assertEquals(199_999, cache.getHighWaterMark());
+            List<SmartWatchData> kept = cache.query(Long.MIN_VALUE, Long.MAX_VALUE);
+            assertTrue(kept.size() > 10_000);
+            assertEquals(199_999, kept.get(kept.size() - 1).getTimestamp());
+            assertTrue(cache.query(0, 10_000).isEmpty());
+        }
+    }
+
+    @Test
+    public void pagesAreStoredAsCompressedBlocks() throws Exception {
+        try (HealthDataCache cache = HealthDataCache.open(tmp.newFolder("cache"))) {
+            for (long from = 0; from < 10_000; from += 1000) {
+                cache.append(readings(from, from + 1000, SmartWatchData.SOURCE_FIT));
+            }
+            // 34 bytes a reading as one record each
+            assertTrue(cache.getSizeBytes() + " bytes", cache.getSizeBytes() < 34 * 10_000 / 8);
+            SmartWatchSeries all = cache.querySeries(Long.MIN_VALUE, Long.MAX_VALUE);
+            assertEquals(10_000, all.size());
+            assertEquals(60 + 4321 % 40, all.getHeartRate(4321));
+        }
+    }
+
+    @Test
+    public void shortRunsAndBlocksReadBackInOrder() throws Exception {
+        File dir = tmp.newFolder("cache");
+        try (HealthDataCache cache = HealthDataCache.open(dir)) {
+            cache.append(readings(0, 5, SmartWatchData.SOURCE_CSV));       // one record each
+            cache.append(readings(5, 105, SmartWatchData.SOURCE_FIT));     // a block
+            cache.append(readings(105, 110, "partner-watch"));              // unknown source, short run
+            cache.append(readings(110, 200, "partner-watch"));              // unknown source, block
+        }
+        try (HealthDataCache cache = HealthDataCache.open(dir)) {
+            assertEquals(199, cache.getHighWaterMark());
+            assertTrue(cache.append(readings(199, 200, "partner-watch")).isEmpty());
+
+            List<SmartWatchData> range = cache.query(3, 120);
+            assertEquals(117, range.size());
+            assertEquals(SmartWatchData.SOURCE_CSV, range.get(0).getSource());
+            assertEquals(SmartWatchData.SOURCE_FIT, range.get(2).getSource());
+            assertEquals("partner-watch", range.get(116).getSource());
+            for (int i = 0; i < range.size(); i++) {
+                assertEquals(3 + i, range.get(i).getTimestamp());
+            }
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package com.vxsudev.androidsdk;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class IngestionSchedulerTest {
+
+    /** Stands in for the main looper: tasks wait until the test drains them. */
+    private final BlockingQueue<Runnable> main = new LinkedBlockingQueue<>();
+    private final IngestionScheduler scheduler = new IngestionScheduler(main::add, 1, 2, 1);
+
+    @After
+    public void tearDown() {
+        scheduler.shutdown();
+    }
+
+    static class Recorder<T> implements IngestionScheduler.Listener<T> {
+        final CountDownLatch finished = new CountDownLatch(1);
+        final List<Integer> stagesSeen = Collections.synchronizedList(new ArrayList<>());
+        T result;
+        Exception error;
+        boolean cancelled;
+
+        @Override
+        public void onProgress(int stage, int stages, int done, int total) {
+            stagesSeen.add(stage);
+        }
+
+        @Override
+        public void onComplete(T result) {
+            this.result = result;
+            finished.countDown();
+        }
+
+        @Override
+        public void onFailure(Exception e) {
+            error = e;
+            finished.countDown();
+        }
+
+        @Override
+        public void onCancelled() {
+            cancelled = true;
+            finished.countDown();
+        }
+    }
+
+    /** Runs main-thread tasks until the listener reports. */
+    private void drainMainUntil(CountDownLatch latch) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (latch.getCount() > 0 && System.nanoTime() < deadline) {
+            Runnable r = main.poll(10, TimeUnit.MILLISECONDS);
+            if (r != null) r.run();
+        }
+        assertEquals("listener never called", 0, latch.getCount());
+    }
+
+    @Test
+    public void stagesRunOnTheirPoolsAndResultLandsOnMain() throws Exception {
+        Recorder<String> rec = new Recorder<>();
+        scheduler.job()
+                .then(IngestionScheduler.Pool.IO, (in, p) -> Thread.currentThread().getName())
+                .then(IngestionScheduler.Pool.CPU, (in, p) -> in + "|" + Thread.currentThread().getName())
+                .then(IngestionScheduler.Pool.NETWORK, (in, p) -> {
+                    p.update(1, 1);
+                    return in + "|" + Thread.currentThread().getName();
+                })
+                .start(rec);
+
+        drainMainUntil(rec.finished);
+        String[] threads = rec.result.split("\\|");
+        assertTrue(threads[0].startsWith("Ingest-IO"));
+        assertTrue(threads[1].startsWith("Ingest-CPU"));
+        assertTrue(threads[2].startsWith("Ingest-Net"));
+        assertNull(rec.error);
+        assertTrue(rec.stagesSeen.size() >= 1);
+    }
+
+    @Test
+    public void failureSkipsRemainingStages() throws Exception {
+        Recorder<Integer> rec = new Recorder<>();
+        List<String> ran = Collections.synchronizedList(new ArrayList<>());
+        scheduler.job()
+                .then(IngestionScheduler.Pool.IO, (in, p) -> {
+                    throw new IllegalStateException("disk");
+                })
+                .then(IngestionScheduler.Pool.CPU, (in, p) -> {
+                    ran.add("cpu");
+                    return 1;
+                })
+                .start(rec);
+
+        drainMainUntil(rec.finished);
+        assertEquals("disk", rec.error.getMessage());
+        assertTrue(ran.isEmpty());
+    }
+
+    @Test
+    public void cancelInterruptsRunningStage() throws Exception {
+        Recorder<Integer> rec = new Recorder<>();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch interrupted = new CountDownLatch(1);
+        IngestionScheduler.Job job = scheduler.job()
+                .then(IngestionScheduler.Pool.NETWORK, (in, p) -> {
+                    started.countDown();
+                    try {
+                        Thread.sleep(10_000);
+                    } catch (InterruptedException e) {
+                        interrupted.countDown();
+                        throw e;
+                    }
+                    return 1;
+                })
+                .start(rec);
+
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        job.cancel();
+        assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+        drainMainUntil(rec.finished);
+        assertTrue(rec.cancelled);
+        assertTrue(job.isCancelled());
+        assertNull(rec.error);
+        assertNull(rec.result);
+    }
+
+    @Test
+    public void fullPoolRejectsInsteadOfRunningOnTheCaller() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            // One IO thread busy and its queue full
+            for (int i = 0; i <= 64; i++) {
+                scheduler.execute(IngestionScheduler.Pool.IO, () -> {
+                    try {
+                        release.await();
+                    } catch (InterruptedException ignored) {
+                    }
+                });
+            }
+            Future<?> overflow = scheduler.execute(IngestionScheduler.Pool.IO, () -> { });
+            assertTrue(overflow.isDone());
+            try {
+                overflow.get();
+                fail("expected the task to be rejected");
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof RejectedExecutionException);
+            }
+
+            Recorder<String> rec = new Recorder<>();
+            scheduler.job()
+                    .then(IngestionScheduler.Pool.IO, (in, p) -> Thread.currentThread().getName())
+                    .start(rec);
+            drainMainUntil(rec.finished);
+            assertNull(rec.result);
+            assertTrue(rec.error instanceof RejectedExecutionException);
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    public void jobsFailAfterShutdown() throws Exception {
+        scheduler.shutdown();
+        Recorder<Integer> rec = new Recorder<>();
+        scheduler.job().then(IngestionScheduler.Pool.CPU, (in, p) -> 1).start(rec);
+        drainMainUntil(rec.finished);
+        assertTrue(rec.error instanceof RejectedExecutionException);
+    }
+}
@@ -0,0 +1,98 @@
+package com.vxsudev.androidsdk;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LoadGeneratorTest {
+
+    private static final long MINUTE = 60_000;
+
+    @Test
+    public void devicesAreIdenticalWhateverTheParallelism() {
+        LoadGenerator.Builder b = LoadGenerator.builder()
+                .devices(8).samplesPerDevice(500).jitter(5_000).gaps(0.01, 10).anomalies(0.02).seed(7);
+        SmartWatchSeries[] single = b.parallelism(1).build().generate();
+        SmartWatchSeries[] parallel = b.parallelism(4).build().generate();
+
+        for (int d = 0; d < single.length; d++) {
+            assertArrayEquals(single[d].timestamps(), parallel[d].timestamps());
+            assertArrayEquals(single[d].heartRates(), parallel[d].heartRates());
+        }
+        // Different devices, different streams
+        assertTrue(single[0].getHeartRate(100) != single[1].getHeartRate(100)
+                || single[0].getHeartRate(200) != single[1].getHeartRate(200));
+    }
+
+    @Test
+    public void jitteredTimestampsStayOrderedAndNearTheirSlot() {
+        SmartWatchSeries s = LoadGenerator.builder()
+                .start(0).samplesPerDevice(2_000).interval(MINUTE).jitter(10_000).build().device(0);
+        assertEquals(2_000, s.size());
+        for (int i = 0; i < s.size(); i++) {
+            if (i > 0) assertTrue(s.getTimestamp(i) > s.getTimestamp(i - 1));
+            assertTrue(Math.abs(s.getTimestamp(i) - i * MINUTE) <= 10_000);
+        }
+    }
+
+    @Test
+    public void gapsDropSlotsAndAnomaliesShowUp() {
+        SmartWatchSeries gappy = LoadGenerator.builder()
+                .start(0).samplesPerDevice(5_000).gaps(0.02, 20).build().device(0);
+        assertTrue(gappy.size() < 5_000);
+        boolean sawGap = false;
+        for (int i = 1; i < gappy.size(); i++) {
+            if (gappy.getTimestamp(i) - gappy.getTimestamp(i - 1) > MINUTE) sawGap = true;
+        }
+        assertTrue(sawGap);
+
+        SmartWatchSeries odd = LoadGenerator.builder()
+                .samplesPerDevice(5_000).anomalies(0.05).build().device(0);
+        int invalid = 0;
+        int duplicates = 0;
+        for (int i = 0; i < odd.size(); i++) {
+            if (!ReadingOperators.isValid(odd.get(i)) || odd.getHeartRate(i) == 0) invalid++;
+            if (i > 0 && odd.getTimestamp(i) == odd.getTimestamp(i - 1)) duplicates++;
+        }
+        assertTrue(invalid > 0);
+        assertTrue(duplicates > 0);
+    }
+
+    @Test
+    public void csvKeepsTimestampsThroughAParse() throws Exception {
+        LoadGenerator gen = LoadGenerator.builder().samplesPerDevice(300).jitter(5_000).gaps(0.05, 5).build();
+        SmartWatchSeries s = gen.device(0);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertEquals(s.size(), gen.writeCsv(s, out));
+
+        String[] lines = out.toString(StandardCharsets.US_ASCII.name()).split("\n");
+        assertEquals(s.size() + 1, lines.length);
+        assertEquals("timestamp,heartRate,spO2,temperature,steps", lines[0]);
+
+        SmartWatchSeries parsed = new SmartWatchSeries(s.size());
+        CsvStreamParser.Result result = new CsvStreamParser().parse(
+                new ByteArrayInputStream(out.toByteArray()), 0L, parsed::append, null);
+        assertEquals(0, result.getErrors());
+        assertTrue(result.getSchema().hasTimestamp());
+        assertArrayEquals(Arrays.copyOf(s.timestamps(), s.size()), Arrays.copyOf(parsed.timestamps(), parsed.size()));
+        assertEquals(s.getHeartRate(0), parsed.getHeartRate(0));
+        assertEquals(s.getSpO2(0), parsed.getSpO2(0), 0.051f);
+        assertEquals(s.getSteps(0), parsed.getSteps(0));
+    }
+
+    @Test
+    public void generateBatchIsOldestFirst() {
+        List<SmartWatchData> batch = new MockDataGenerator(3).generateBatch(10);
+        for (int i = 1; i < batch.size(); i++) {
+            assertEquals(MINUTE, batch.get(i).getTimestamp() - batch.get(i - 1).getTimestamp());
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.vxsudev.androidsdk;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LttbTest {
+
+    @Test
+    public void keepsEndpointsAndSpikesWithinThreshold() {
+        float[] y = new float[100_000];
+        for (int i = 0; i < y.length; i++) y[i] = (float) Math.sin(i / 500.0);
+        y[31_337] = 50f; // a single-sample spike plain striding would miss
+
+        int[] out = new int[1000];
+        int count = Lttb.select(i -> y[i], 0, y.length, 1000, out);
+
+        assertEquals(1000, count);
+        assertEquals(0, out[0]);
+        assertEquals(y.length - 1, out[count - 1]);
+        boolean spike = false;
+        for (int k = 0; k < count; k++) {
+            if (k > 0) assertTrue(out[k] > out[k - 1]);
+            spike |= out[k] == 31_337;
+        }
+        assertTrue(spike);
+    }
+
+    @Test
+    public void shortRangesAreReturnedWhole() {
+        int[] out = new int[10];
+        assertEquals(5, Lttb.select(i -> i, 20, 25, 10, out));
+        assertEquals(20, out[0]);
+        assertEquals(24, out[4]);
+        assertEquals(0, Lttb.select(i -> i, 5, 5, 10, out));
+    }
+}
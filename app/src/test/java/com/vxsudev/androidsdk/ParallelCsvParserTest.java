@@ -0,0 +1,103 @@
+package com.vxsudev.androidsdk;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class ParallelCsvParserTest {
+
+    @Test
+    public void matchesTheSequentialParserAcrossManyChunks() throws IOException {
+        // ~600 KB: about ten 64 KB chunks, with bad and blank lines scattered through
+        StringBuilder sb = new StringBuilder("heartRate,spo2,temperature,steps\r\n");
+        for (int i = 0; i < 30_000; i++) {
+            if (i % 997 == 0) sb.append("80,abc,36.1,10\n");
+            else if (i % 1499 == 0) sb.append("\n");
+            else if (i % 2003 == 0) sb.append("81,98\r\n");
+            else sb.append(60 + i % 40).append(",97.").append(i % 10).append(",36.5,").append(i).append("\r\n");
+        }
+        sb.append("70,96,36.4,7"); // no trailing newline
+        byte[] csv = sb.toString().getBytes(StandardCharsets.US_ASCII);
+        File file = File.createTempFile("parallel", ".csv");
+        file.deleteOnExit();
+        Files.write(file.toPath(), csv);
+
+        SmartWatchSeries expected = new SmartWatchSeries();
+        List<String> expectedErrors = new ArrayList<>();
+        CsvStreamParser.Result sequential = new CsvStreamParser().parse(new ByteArrayInputStream(csv), 1000L,
+                expected::append, (line, column, reason) -> expectedErrors.add(line + ":" + column + " " + reason));
+
+        SmartWatchSeries actual = new SmartWatchSeries();
+        List<String> actualErrors = new ArrayList<>();
+        ForkJoinPool pool = new ForkJoinPool(4);
+        CsvStreamParser.Result parallel;
+        try {
+            parallel = new ParallelCsvParser(pool, 1).parse(file, 1000L, actual,
+                    (line, column, reason) -> actualErrors.add(line + ":" + column + " " + reason));
+        } finally {
+            pool.shutdown();
+        }
+
+        assertEquals(sequential.toString(), parallel.toString());
+        assertEquals(expectedErrors, actualErrors);
+        assertEquals(expected.size(), actual.size());
+        assertArrayEquals(Arrays.copyOf(expected.timestamps(), expected.size()),
+                Arrays.copyOf(actual.timestamps(), actual.size()));
+        assertArrayEquals(Arrays.copyOf(expected.stepCounts(), expected.size()),
+                Arrays.copyOf(actual.stepCounts(), actual.size()));
+        assertEquals(expected.getSpO2(12_345), actual.getSpO2(12_345), 0f);
+    }
+
+    @Test
+    public void handlesEmptyAndTinyFiles() throws IOException {
+        File file = File.createTempFile("parallel", ".csv");
+        file.deleteOnExit();
+        SmartWatchSeries series = new SmartWatchSeries();
+        assertEquals(0, new ParallelCsvParser().parse(file, 0L, series, null).getRows());
+
+        Files.write(file.toPath(), "78,97,36.6,1250\n".getBytes(StandardCharsets.US_ASCII));
+        series.append(5L, 1, 2f, 3f, 4); // appends after existing rows
+        assertEquals(1, new ParallelCsvParser().parse(file, 100L, series, null).getRows());
+        assertEquals(2, series.size());
+        assertEquals(100L, series.getTimestamp(1));
+        assertEquals(1250, series.getSteps(1));
+    }
+
+    @Test
+    public void everyChunkUsesTheHeaderLayout() throws IOException {
+        StringBuilder sb = new StringBuilder("steps,timestamp,hr\n");
+        long t = 1_709_251_200_000L; // 2024-03-01T00:00:00Z
+        for (int i = 0; i < 20_000; i++) {
+            String iso = java.time.Instant.ofEpochMilli(t + i * 15_000L).toString();
+            sb.append(i).append(',').append(iso).append(',').append(60 + i % 50).append('\n');
+        }
+        File file = File.createTempFile("parallel", ".csv");
+        file.deleteOnExit();
+        Files.write(file.toPath(), sb.toString().getBytes(StandardCharsets.US_ASCII));
+
+        SmartWatchSeries series = new SmartWatchSeries();
+        ForkJoinPool pool = new ForkJoinPool(3);
+        try {
+            CsvStreamParser.Result result = new ParallelCsvParser(pool, 1).parse(file, 0L, series, null);
+            assertEquals(0, result.getErrors());
+            assertEquals(20_000, result.getRows());
+        } finally {
+            pool.shutdown();
+        }
+        for (int i = 0; i < series.size(); i++) {
+            assertEquals(t + i * 15_000L, series.getTimestamp(i));
+            assertEquals(i, series.getSteps(i));
+        }
+    }
+}
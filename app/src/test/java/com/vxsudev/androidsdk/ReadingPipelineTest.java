@@ -0,0 +1,241 @@
+package com.vxsudev.androidsdk;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ReadingPipelineTest {
+
+    private final ExecutorService sources = Executors.newCachedThreadPool();
+    private final ExecutorService cpu = Executors.newFixedThreadPool(2);
+    private final ExecutorService io = Executors.newSingleThreadExecutor();
+
+    @After
+    public void tearDown() {
+        sources.shutdownNow();
+        cpu.shutdownNow();
+        io.shutdownNow();
+    }
+
+    private static List<SmartWatchData> readings(String source, long from, int count) {
+        List<SmartWatchData> list = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            SmartWatchData d = new SmartWatchData(from + i * 1000L, 70, 98f, 36.5f, i);
+            d.setSource(source);
+            list.add(d);
+        }
+        return list;
+    }
+
+    static class CollectingSink implements ReadingPipeline.Sink {
+        final List<SmartWatchData> written = Collections.synchronizedList(new ArrayList<>());
+        final List<Integer> batchSizes = Collections.synchronizedList(new ArrayList<>());
+        volatile boolean closed;
+
+        @Override
+        public void write(List<SmartWatchData> batch) {
+            written.addAll(batch);
+            batchSizes.add(batch.size());
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+
+    static class Outcome implements ReadingPipeline.Listener {
+        final CountDownLatch done = new CountDownLatch(1);
+        volatile long written = -1;
+        final AtomicReference<Throwable> error = new AtomicReference<>();
+
+        @Override
+        public void onComplete(long written) {
+            this.written = written;
+            done.countDown();
+        }
+
+        @Override
+        public void onFailure(Throwable t) {
+            error.set(t);
+            done.countDown();
+        }
+
+        void await() throws InterruptedException {
+            assertTrue("pipeline did not finish", done.await(5, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    public void mergesSourcesValidatesAndDedupes() throws Exception {
+        List<SmartWatchData> csv = readings(SmartWatchData.SOURCE_CSV, 1_000_000, 1000);
+        csv.get(10).setHeartRate(400); // impossible, dropped
+        List<SmartWatchData> replay = readings(SmartWatchData.SOURCE_CSV, 1_000_000 + 500_000, 1000); // 500 overlap
+        List<SmartWatchData> mock = readings(SmartWatchData.SOURCE_MOCK, 1_000_000, 300); // same times, other source
+
+        CollectingSink sink = new CollectingSink();
+        Outcome outcome = new Outcome();
+        ReadingPipeline.from(
+                        ReadingPipeline.fromList(() -> csv, 64, sources),
+                        ReadingPipeline.fromList(() -> replay, 64, sources),
+                        ReadingPipeline.fromList(() -> mock, 64, sources))
+                .on(cpu).through(ReadingOperators.validate()).through(ReadingOperators.dedupe())
+                .on(io).to(sink)
+                .start(outcome);
+        outcome.await();
+
+        assertEquals(null, outcome.error.get());
+        assertEquals(999 + 500 + 300, outcome.written);
+        assertEquals(outcome.written, sink.written.size());
+        assertTrue(sink.closed);
+        Set<String> keys = new HashSet<>();
+        for (SmartWatchData d : sink.written) assertTrue(keys.add(d.getSource() + d.getTimestamp()));
+    }
+
+    @Test
+    public void orderedMergeInterleavesSourcesByTime() throws Exception {
+        List<SmartWatchData> csv = new ArrayList<>();
+        List<SmartWatchData> fit = new ArrayList<>();
+        for (int i = 0; i < 900; i++) csv.addAll(readings(SmartWatchData.SOURCE_CSV, 1_000_000 + i * 2000L, 1));
+        for (int i = 0; i < 700; i++) fit.addAll(readings(SmartWatchData.SOURCE_FIT, 1_000_000 + i * 3000L, 1));
+
+        CollectingSink sink = new CollectingSink();
+        Outcome outcome = new Outcome();
+        ReadingPipeline.fromOrdered(
+                        ReadingPipeline.fromList(() -> csv, 64, sources),
+                        ReadingPipeline.fromList(() -> {
+                            Thread.sleep(50); // the slow source holds the fast one back, not the reverse
+                            return fit;
+                        }, 7, sources))
+                .buffer(2)
+                .on(io).to(sink)
+                .start(outcome);
+        outcome.await();
+
+        assertEquals(null, outcome.error.get());
+        assertEquals(900 + 700, sink.written.size());
+        for (int i = 1; i < sink.written.size(); i++) {
+            SmartWatchData prev = sink.written.get(i - 1);
+            SmartWatchData cur = sink.written.get(i);
+            assertTrue("out of order at " + i, prev.getTimestamp() <= cur.getTimestamp());
+            if (prev.getTimestamp() == cur.getTimestamp()) {
+                // Ties keep the order the sources were passed in
+                assertEquals(SmartWatchData.SOURCE_CSV, prev.getSource());
+                assertEquals(SmartWatchData.SOURCE_FIT, cur.getSource());
+            }
+        }
+    }
+
+    @Test
+    public void mockSourceIsOneAscendingSeriesAcrossBatches() throws Exception {
+        CollectingSink sink = new CollectingSink();
+        Outcome outcome = new Outcome();
+        ReadingPipeline.from(new MockDataGenerator(5).asSource(1000, 64, sources))
+                .on(io).to(sink)
+                .start(outcome);
+        outcome.await();
+
+        assertEquals(1000, sink.written.size());
+        assertTrue(sink.batchSizes.size() > 1);
+        for (int i = 1; i < sink.written.size(); i++) {
+            assertTrue("not ascending at " + i,
+                    sink.written.get(i).getTimestamp() > sink.written.get(i - 1).getTimestamp());
+        }
+    }
+
+    @Test
+    public void slowSinkBoundsWhatTheSourceProduces() throws Exception {
+        AtomicInteger produced = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch sinkEntered = new CountDownLatch(1);
+        ReadingPipeline.Sink gated = batch -> {
+            sinkEntered.countDown();
+            release.await();
+        };
+        Outcome outcome = new Outcome();
+        ReadingPipeline.from(ReadingPipeline.fromGenerator(() -> {
+                    int n = produced.incrementAndGet();
+                    return n > 1000 ? null : readings(SmartWatchData.SOURCE_MOCK, n * 10_000L, 10);
+                }, sources))
+                .buffer(2)
+                .on(cpu).through(ReadingOperators.validate())
+                .on(io).to(gated)
+                .start(outcome);
+
+        assertTrue(sinkEntered.await(5, TimeUnit.SECONDS));
+        Thread.sleep(200); // give an unbounded pipeline time to run away
+        // Two stages with two-batch buffers plus one in each outbox and one in the sink
+        assertTrue("produced " + produced.get(), produced.get() <= 10);
+
+        release.countDown();
+        outcome.await();
+        assertEquals(1000 * 10, outcome.written);
+    }
+
+    @Test
+    public void operatorFailureCancelsSourcesAndReports() throws Exception {
+        ReadingPipeline.PushSource source = new ReadingPipeline.PushSource();
+        source.onStart(() -> sources.execute(() -> {
+            for (int i = 0; i < 100 && source.emit(readings("s", i * 100_000L, 10)); i++) {
+                // keep producing until cancelled
+            }
+        }));
+        Outcome outcome = new Outcome();
+        ReadingPipeline.from(source)
+                .on(cpu).through(batch -> {
+                    throw new IllegalStateException("bad batch");
+                })
+                .on(io).to(new CollectingSink())
+                .start(outcome);
+        outcome.await();
+
+        assertEquals("bad batch", outcome.error.get().getMessage());
+        assertTrue(source.isCancelled());
+    }
+
+    @Test
+    public void batchOperatorCoalescesAndFlushesTail() throws Exception {
+        List<SmartWatchData> all = readings("s", 1_000, 1050);
+        CollectingSink sink = new CollectingSink();
+        Outcome outcome = new Outcome();
+        ReadingPipeline.from(ReadingPipeline.fromList(() -> all, 100, sources))
+                .on(cpu).through(ReadingOperators.batch(500))
+                .on(io).to(sink)
+                .start(outcome);
+        outcome.await();
+
+        assertEquals(Arrays.asList(500, 500, 50), sink.batchSizes);
+    }
+
+    @Test
+    public void cancelStopsSourceWithoutCallingListener() throws Exception {
+        ReadingPipeline.PushSource source = new ReadingPipeline.PushSource();
+        CountDownLatch cancelled = new CountDownLatch(1);
+        source.onCancel(cancelled::countDown);
+        Outcome outcome = new Outcome();
+        ReadingPipeline.Handle handle = ReadingPipeline.from(source)
+                .on(io).to(new CollectingSink())
+                .start(outcome);
+        assertTrue(source.emit(readings("s", 1_000, 5)));
+
+        handle.cancel();
+        assertTrue(cancelled.await(5, TimeUnit.SECONDS));
+        assertTrue(!source.emit(readings("s", 10_000, 5)));
+        assertTrue(!outcome.done.await(100, TimeUnit.MILLISECONDS));
+    }
+}
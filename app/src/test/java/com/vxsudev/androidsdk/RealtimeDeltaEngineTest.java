@@ -0,0 +1,93 @@
+package com.vxsudev.androidsdk;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class RealtimeDeltaEngineTest {
+
+    /** Frames run only when the test says so. */
+    static class ManualFrames implements RealtimeDeltaEngine.FrameScheduler {
+        final List<Runnable> scheduled = new ArrayList<>();
+
+        @Override
+        public synchronized void scheduleFrame(Runnable frame) {
+            scheduled.add(frame);
+        }
+
+        void runFrame() {
+            List<Runnable> due;
+            synchronized (this) {
+                due = new ArrayList<>(scheduled);
+                scheduled.clear();
+            }
+            for (Runnable r : due) r.run();
+        }
+    }
+
+    private static RealtimeView.Change added(String id, long ts) {
+        return new RealtimeView.Change(RealtimeView.ChangeType.ADDED, id, new SmartWatchData(ts, 70, 98f, 36.5f, 0));
+    }
+
+    private static RealtimeView.Change modified(String id, long ts, int heartRate) {
+        return new RealtimeView.Change(RealtimeView.ChangeType.MODIFIED, id, new SmartWatchData(ts, heartRate, 98f, 36.5f, 0));
+    }
+
+    private static RealtimeView.Change removed(String id) {
+        return new RealtimeView.Change(RealtimeView.ChangeType.REMOVED, id, null);
+    }
+
+    @Test
+    public void burstsCoalesceIntoOneUpdatePerFrame() {
+        ManualFrames frames = new ManualFrames();
+        List<RealtimeView.Delta> updates = new ArrayList<>();
+        RealtimeDeltaEngine engine = new RealtimeDeltaEngine(frames, (view, delta) -> updates.add(delta));
+
+        for (int i = 0; i < 100; i++) engine.post(Arrays.asList(added("doc" + i, 1000 - i)));
+        assertEquals(1, frames.scheduled.size());
+        frames.runFrame();
+
+        assertEquals(1, updates.size());
+        assertEquals(100, updates.get(0).getAdded().size());
+        RealtimeView view = engine.getView();
+        assertEquals(100, view.size());
+        assertEquals(901, view.get(0).getTimestamp()); // ordered despite arrival order
+        assertEquals("doc99", view.getDocumentId(0));
+    }
+
+    @Test
+    public void deltasApplyInPlaceWithNetEffectPerDocument() {
+        ManualFrames frames = new ManualFrames();
+        List<RealtimeView.Delta> updates = new ArrayList<>();
+        RealtimeDeltaEngine engine = new RealtimeDeltaEngine(frames, (view, delta) -> updates.add(delta));
+        engine.post(Arrays.asList(added("a", 10), added("b", 20), added("c", 30)));
+        frames.runFrame();
+
+        engine.post(Arrays.asList(
+                modified("a", 40, 90),   // moves to the end
+                removed("b"),
+                added("d", 25), removed("d"), // never visible
+                removed("c"), added("c", 30)));
+        frames.runFrame();
+
+        RealtimeView.Delta delta = updates.get(1);
+        assertTrue(delta.getAdded().isEmpty());
+        assertEquals(2, delta.getModified().size());          // a, and c which came back
+        assertEquals(90, delta.getModified().get("a").getHeartRate());
+        assertEquals(20, delta.getRemoved().get("b").getTimestamp()); // removed rows keep their ID and last value
+
+        RealtimeView view = engine.getView();
+        assertEquals(2, view.size());
+        assertEquals("c", view.getDocumentId(0));
+        assertEquals("a", view.getDocumentId(1));
+        assertEquals(1, view.indexOf("a"));
+        assertNull(view.find("b"));
+        assertEquals(2, view.asList().size());
+    }
+}
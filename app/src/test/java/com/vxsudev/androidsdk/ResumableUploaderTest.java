@@ -0,0 +1,287 @@
+package com.vxsudev.androidsdk;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ResumableUploaderTest {
+
+    /** Hands every transfer to the test, which plays the server through its listener. */
+    static class FakeStorageClient implements StorageClient {
+        final BlockingQueue<Call> calls = new LinkedBlockingQueue<>();
+        final AtomicInteger urlRequests = new AtomicInteger();
+
+        @Override
+        public Transfer upload(File file, String remotePath, String contentType, String sessionUri,
+                               UploadListener listener) {
+            Call call = new Call(remotePath, sessionUri, listener);
+            calls.add(call);
+            return call;
+        }
+
+        @Override
+        public void getDownloadUrl(String remotePath, UrlCallback callback) {
+            urlRequests.incrementAndGet();
+            callback.onSuccess("https://storage.example/" + remotePath);
+        }
+
+        Call next() throws InterruptedException {
+            Call call = calls.poll(5, TimeUnit.SECONDS);
+            assertNotNull("expected another upload attempt", call);
+            return call;
+        }
+    }
+
+    static class Call implements StorageClient.Transfer {
+        final String remotePath;
+        final String sessionUri;
+        final StorageClient.UploadListener listener;
+        volatile boolean cancelled;
+
+        Call(String remotePath, String sessionUri, StorageClient.UploadListener listener) {
+            this.remotePath = remotePath;
+            this.sessionUri = sessionUri;
+            this.listener = listener;
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            listener.onFailure(new Exception("cancelled by client"));
+        }
+    }
+
+    static class MemorySessions implements ResumableUploader.SessionStore {
+        final Map<String, String> sessions = new HashMap<>();
+
+        @Override
+        public synchronized String getSession(String key) {
+            return sessions.get(key);
+        }
+
+        @Override
+        public synchronized void putSession(String key, String sessionUri) {
+            sessions.put(key, sessionUri);
+        }
+
+        @Override
+        public synchronized void removeSession(String key) {
+            sessions.remove(key);
+        }
+    }
+
+    static class Result implements ResumableUploader.Callback {
+        final CountDownLatch done = new CountDownLatch(1);
+        final AtomicInteger progressEvents = new AtomicInteger();
+        final AtomicReference<Exception> error = new AtomicReference<>();
+
+        @Override
+        public void onProgress(ResumableUploader.Upload upload) {
+            progressEvents.incrementAndGet();
+        }
+
+        @Override
+        public void onSuccess(ResumableUploader.Upload upload) {
+            done.countDown();
+        }
+
+        @Override
+        public void onFailure(ResumableUploader.Upload upload, Exception e) {
+            error.set(e);
+            done.countDown();
+        }
+
+        void await() throws InterruptedException {
+            assertTrue("upload did not finish", done.await(5, TimeUnit.SECONDS));
+        }
+    }
+
+    private final FakeStorageClient client = new FakeStorageClient();
+    private final MemorySessions sessions = new MemorySessions();
+    private File file;
+
+    @Before
+    public void setUp() throws IOException {
+        file = File.createTempFile("archive", ".swcb");
+        Files.write(file.toPath(), new byte[1000]);
+    }
+
+    @After
+    public void tearDown() {
+        file.delete();
+    }
+
+    private ResumableUploader uploader(int maxConcurrent, int maxAttempts) {
+        return new ResumableUploader(client, sessions, maxConcurrent, maxAttempts, 1, 2);
+    }
+
+    @Test
+    public void retryResumesTheSessionAndUrlIsFetchedOnlyOnDemand() throws Exception {
+        ResumableUploader uploader = uploader(1, 3);
+        Result result = new Result();
+        ResumableUploader.Upload upload = uploader.enqueue(file, "archive/a.swcb", null, result);
+
+        Call first = client.next();
+        assertNull(first.sessionUri);
+        first.listener.onSession("session-1");
+        first.listener.onProgress(0, 1000);
+        first.listener.onProgress(400, 1000);
+        first.listener.onFailure(new IOException("connection reset"));
+
+        Call second = client.next();
+        assertEquals("session-1", second.sessionUri);
+        second.listener.onProgress(400, 1000);
+        second.listener.onProgress(1000, 1000);
+        second.listener.onSuccess();
+        result.await();
+
+        assertNull(result.error.get());
+        assertEquals(ResumableUploader.State.SUCCEEDED, upload.getState());
+        assertEquals(2, upload.getAttempts());
+        assertEquals(1000, upload.getBytesTransferred());
+        assertEquals(4, result.progressEvents.get());
+        assertTrue(sessions.sessions.isEmpty());
+
+        assertEquals(0, client.urlRequests.get());
+        AtomicReference<String> url = new AtomicReference<>();
+        StorageClient.UrlCallback capture = new StorageClient.UrlCallback() {
+            @Override
+            public void onSuccess(String downloadUrl) {
+                url.set(downloadUrl);
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+            }
+        };
+        upload.getDownloadUrl(capture);
+        upload.getDownloadUrl(capture);
+        assertEquals("https://storage.example/archive/a.swcb", url.get());
+        assertEquals(1, client.urlRequests.get());
+        uploader.close();
+    }
+
+    @Test
+    public void sessionSurvivesCloseAndIsResumedByTheNextUploader() throws Exception {
+        ResumableUploader before = uploader(1, 3);
+        Result interrupted = new Result();
+        before.enqueue(file, "archive/b.swcb", null, interrupted);
+        Call call = client.next();
+        call.listener.onSession("session-b");
+        call.listener.onProgress(500, 1000);
+        before.close(); // e.g. the process is going away
+        interrupted.await();
+        assertTrue(interrupted.error.get() instanceof CancellationException);
+        assertTrue(call.cancelled);
+
+        ResumableUploader after = uploader(1, 3);
+        Result resumed = new Result();
+        after.enqueue(file, "archive/b.swcb", null, resumed);
+        Call again = client.next();
+        assertEquals("session-b", again.sessionUri);
+        again.listener.onSuccess();
+        resumed.await();
+        assertNull(resumed.error.get());
+        after.close();
+    }
+
+    @Test
+    public void runsAtMostMaxConcurrentInOrder() throws Exception {
+        ResumableUploader uploader = uploader(2, 1);
+        List<Result> results = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            Result r = new Result();
+            results.add(r);
+            uploader.enqueue(file, "archive/" + i, null, r);
+        }
+        assertEquals(2, uploader.getRunningCount());
+        assertEquals(3, uploader.getQueuedCount());
+
+        for (int i = 0; i < 5; i++) {
+            Call call = client.next();
+            assertEquals("archive/" + i, call.remotePath);
+            assertTrue(uploader.getRunningCount() <= 2);
+            call.listener.onSuccess();
+        }
+        for (Result r : results) r.await();
+        assertEquals(0, uploader.getRunningCount());
+        assertEquals(0, uploader.getQueuedCount());
+        uploader.close();
+    }
+
+    @Test
+    public void givesUpAfterMaxAttemptsAndDropsASessionTheServerForgot() throws Exception {
+        sessions.putSession("archive/c.swcb@1000:" + file.lastModified(), "expired");
+        ResumableUploader uploader = uploader(1, 4);
+        Result result = new Result();
+        ResumableUploader.Upload upload = uploader.enqueue(file, "archive/c.swcb", null, result);
+
+        Call first = client.next();
+        assertEquals("expired", first.sessionUri);
+        first.listener.onFailure(new IOException("offline 1"));
+        Call second = client.next();
+        assertEquals("expired", second.sessionUri);
+        second.listener.onFailure(new IOException("offline 2"));
+        // Two resumes failed without moving a byte, so the third attempt starts afresh
+        Call third = client.next();
+        assertNull(third.sessionUri);
+        third.listener.onSession("session-c");
+        third.listener.onFailure(new IOException("offline 3"));
+        client.next().listener.onFailure(new IOException("offline 4"));
+        result.await();
+        assertEquals(ResumableUploader.State.FAILED, upload.getState());
+        assertEquals(4, upload.getAttempts());
+        assertEquals("offline 4", result.error.get().getMessage());
+        uploader.close();
+    }
+
+    @Test
+    public void cancelForgetsTheSession() throws Exception {
+        ResumableUploader uploader = uploader(1, 3);
+        Result result = new Result();
+        ResumableUploader.Upload upload = uploader.enqueue(file, "archive/d.swcb", null, result);
+        Call call = client.next();
+        call.listener.onSession("session-d");
+        upload.cancel();
+        result.await();
+
+        assertTrue(call.cancelled);
+        assertEquals(ResumableUploader.State.CANCELLED, upload.getState());
+        assertTrue(sessions.sessions.isEmpty());
+        assertEquals(0, uploader.getRunningCount());
+        uploader.close();
+    }
+
+    @Test
+    public void backoffIsJitteredWithinTheCappedExponential() {
+        Random random = new Random(1);
+        for (int failures = 1; failures <= 70; failures++) {
+            long cap = Math.min(60_000, 1000L << Math.min(failures - 1, 20));
+            for (int i = 0; i < 50; i++) {
+                long delay = ResumableUploader.backoffMillis(failures, 1000, 60_000, random);
+                assertTrue(failures + ": " + delay, delay >= 0 && delay <= cap);
+            }
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package com.vxsudev.androidsdk;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class RollupIndexTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private static final long START = 1_700_000_000_000L;
+
+    private static List<SmartWatchData> readings(int n, long stepMillis, String source) {
+        Random random = new Random(7);
+        List<SmartWatchData> list = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            SmartWatchData d = new SmartWatchData(START + i * stepMillis, 50 + random.nextInt(100),
+                    90 + random.nextInt(10), 36f + random.nextInt(20) / 10f, random.nextInt(200));
+            d.setSource(source);
+            list.add(d);
+        }
+        return list;
+    }
+
+    @Test
+    public void rangeAggregatesMatchRawSamples() {
+        List<SmartWatchData> data = readings(20_000, 37_000, SmartWatchData.SOURCE_FIT); // ~8.5 days
+        RollupIndex index = new RollupIndex();
+        assertEquals(data.size(), index.add(data));
+
+        long from = RollupIndex.floorTo(START + 3_600_000L * 5 + 17 * 60_000L, 60_000L);
+        long to = RollupIndex.floorTo(START + 86_400_000L * 7 + 123 * 60_000L, 60_000L);
+        RollupIndex.Aggregate agg = index.aggregate(from, to);
+
+        long count = 0;
+        double sum = 0;
+        float max = Float.NEGATIVE_INFINITY;
+        for (SmartWatchData d : data) {
+            if (d.getTimestamp() < from || d.getTimestamp() >= to) continue;
+            count++;
+            sum += d.getHeartRate();
+            max = Math.max(max, d.getHeartRate());
+        }
+        assertEquals(count, agg.getCount());
+        assertEquals(sum, agg.getSum(RollupIndex.HEART_RATE), 1e-6);
+        assertEquals(max, agg.getMax(RollupIndex.HEART_RATE), 0f);
+        assertEquals(sum / count, agg.getMean(RollupIndex.HEART_RATE), 1e-9);
+    }
+
+    @Test
+    public void reloadedReadingsAreNotCountedTwiceAndStateSurvivesSave() throws Exception {
+        RollupIndex index = new RollupIndex();
+        List<SmartWatchData> csv = readings(500, 1000, SmartWatchData.SOURCE_CSV);
+        index.add(csv);
+        assertEquals(0, index.add(csv)); // same CSV loaded again
+        assertEquals(500, index.add(readings(500, 1000, SmartWatchData.SOURCE_FIT))); // other source
+
+        File file = new File(tmp.getRoot(), "rollups.bin");
+        index.save(file);
+        RollupIndex loaded = RollupIndex.load(file);
+        assertEquals(1000, loaded.aggregate(Long.MIN_VALUE / 2, Long.MAX_VALUE / 2).getCount());
+        assertEquals(index.getBucketCount(RollupIndex.Level.MINUTE), loaded.getBucketCount(RollupIndex.Level.MINUTE));
+        assertEquals(0, loaded.add(csv));
+    }
+
+    @Test
+    public void lateReadingsAreCountedOnceWhateverTheirOrder() {
+        RollupIndex index = new RollupIndex();
+        List<SmartWatchData> fit = readings(600, 60_000, SmartWatchData.SOURCE_FIT);
+        assertEquals(300, index.add(fit.subList(300, 600)));
+        assertEquals(300, index.add(fit.subList(0, 300))); // an older Fit page arriving late
+        assertEquals(0, index.add(fit));
+
+        RollupIndex.Aggregate agg = index.aggregate(RollupIndex.Level.MINUTE, START - 60_000, START + 600 * 60_000L);
+        assertEquals(600, agg.getCount());
+        assertEquals(600, index.getBucketCount(RollupIndex.Level.MINUTE));
+    }
+
+    @Test
+    public void keysAreForgottenOutsideTheWindowYetReplaysStayCountedOnce() {
+        RollupIndex index = new RollupIndex("this-device");
+        List<SmartWatchData> fit = readings(3 * 1440, 60_000, SmartWatchData.SOURCE_FIT); // 3 days
+        assertEquals(fit.size(), index.add(fit));
+        assertTrue("keys held: " + index.getKeyCount(), index.getKeyCount() <= 61);
+        assertEquals(0, index.add(fit));
+
+        // Same source and times from another device are different readings
+        List<SmartWatchData> other = readings(3 * 1440, 60_000, SmartWatchData.SOURCE_FIT);
+        for (SmartWatchData d : other) d.setDeviceId("other-device");
+        assertEquals(other.size(), index.add(other));
+        assertEquals(0, index.add(other));
+        // This device's own readings read back from Firestore carry its ID
+        for (SmartWatchData d : fit) d.setDeviceId("this-device");
+        assertEquals(0, index.add(fit));
+
+        assertEquals(2L * fit.size(), index.aggregate(Long.MIN_VALUE / 2, Long.MAX_VALUE / 2).getCount());
+    }
+
+    @Test
+    public void saveAppendsOnlyWhatChanged() throws Exception {
+        File file = new File(tmp.getRoot(), "rollups.bin");
+        RollupIndex index = new RollupIndex();
+        List<SmartWatchData> fit = readings(20 * 1440, 60_000, SmartWatchData.SOURCE_FIT); // 20 days
+        index.add(fit.subList(0, fit.size() - 10));
+        index.save(file);
+        long full = file.length();
+
+        for (int i = fit.size() - 10; i < fit.size(); i++) {
+            index.add(fit.subList(i, i + 1));
+            long before = file.length();
+            index.save(file);
+            assertTrue("appended " + (file.length() - before), file.length() - before < full / 20);
+        }
+
+        RollupIndex loaded = RollupIndex.load(file);
+        assertEquals(fit.size(), loaded.aggregate(Long.MIN_VALUE / 2, Long.MAX_VALUE / 2).getCount());
+        assertEquals(index.getBucketCount(RollupIndex.Level.MINUTE), loaded.getBucketCount(RollupIndex.Level.MINUTE));
+        assertEquals(0, loaded.add(fit));
+
+        // A torn append is dropped and the next save rewrites the file whole
+        try (FileOutputStream out = new FileOutputStream(file, true)) {
+            out.write(new byte[]{0, 0, 1, 0, 42});
+        }
+        RollupIndex torn = RollupIndex.load(file);
+        assertEquals(fit.size(), torn.aggregate(Long.MIN_VALUE / 2, Long.MAX_VALUE / 2).getCount());
+        assertEquals(1, torn.add(readings(20 * 1440 + 1, 60_000, SmartWatchData.SOURCE_FIT).subList(20 * 1440, 20 * 1440 + 1)));
+        torn.save(file);
+        assertEquals(fit.size() + 1, RollupIndex.load(file).aggregate(Long.MIN_VALUE / 2, Long.MAX_VALUE / 2).getCount());
+    }
+
+    @Test
+    public void unmeasuredMetricsAreLeftOutOfMinAndMean() {
+        RollupIndex index = new RollupIndex();
+        long minute = RollupIndex.floorTo(START, 60_000L);
+        List<SmartWatchData> data = new ArrayList<>();
+        data.add(new SmartWatchData(minute, 70, 98f, 0f, 0));
+        data.add(new SmartWatchData(minute + 1000, 0, 0f, 0f, 120)); // steps only
+        data.add(new SmartWatchData(minute + 2000, 80, 96f, 0f, 30));
+        index.add(data);
+
+        RollupIndex.Aggregate agg = index.aggregate(minute, minute + 60_000);
+        assertEquals(3, agg.getCount());
+        assertEquals(2, agg.getCount(RollupIndex.HEART_RATE));
+        assertEquals(70f, agg.getMin(RollupIndex.HEART_RATE), 0f);
+        assertEquals(75.0, agg.getMean(RollupIndex.HEART_RATE), 1e-9);
+        assertEquals(97.0, agg.getMean(RollupIndex.SPO2), 1e-6);
+        assertTrue(Float.isNaN(agg.getMin(RollupIndex.TEMPERATURE)));
+        assertEquals(0f, agg.getMin(RollupIndex.STEPS), 0f); // zero steps is a measurement
+        assertEquals(50.0, agg.getMean(RollupIndex.STEPS), 1e-9);
+
+        SmartWatchSeries means = index.means(RollupIndex.Level.MINUTE, minute, minute + 60_000);
+        assertEquals(75, means.getHeartRate(0));
+        assertEquals(0f, means.getTemperature(0), 0f);
+    }
+
+    @Test
+    public void levelForPicksCoarsestThatFillsTheWidth() {
+        assertEquals(RollupIndex.Level.HOUR, RollupIndex.levelFor(365L * 86_400_000L, 1080));
+        assertEquals(RollupIndex.Level.MINUTE, RollupIndex.levelFor(7L * 86_400_000L, 1080));
+        assertNull(RollupIndex.levelFor(3_600_000L, 1080));
+    }
+}
@@ -0,0 +1,23 @@
+package com.vxsudev.androidsdk;
+
+import static org.junit.Assert.assertEquals;
+
+/** Assertions shared by the series codec tests. */
+final class SeriesAssert {
+
+    private SeriesAssert() {}
+
+    /** Same size and all five columns equal bit for bit (NaN, -0f and infinities included). */
+    static void assertSameRows(SmartWatchSeries expected, SmartWatchSeries actual) {
+        assertEquals("size", expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals("timestamp at " + i, expected.getTimestamp(i), actual.getTimestamp(i));
+            assertEquals("heart rate at " + i, expected.getHeartRate(i), actual.getHeartRate(i));
+            assertEquals("SpO2 at " + i,
+                    Float.floatToIntBits(expected.getSpO2(i)), Float.floatToIntBits(actual.getSpO2(i)));
+            assertEquals("temperature at " + i,
+                    Float.floatToIntBits(expected.getTemperature(i)), Float.floatToIntBits(actual.getTemperature(i)));
+            assertEquals("steps at " + i, expected.getSteps(i), actual.getSteps(i));
+        }
+    }
+}
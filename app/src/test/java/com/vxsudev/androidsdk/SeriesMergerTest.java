@@ -0,0 +1,108 @@
+package com.vxsudev.androidsdk;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class SeriesMergerTest {
+
+    @Test
+    public void mergeMatchesStableSort() {
+        assertMergeMatchesStableSort(500);   // small enough for one concatenated sort
+        assertMergeMatchesStableSort(5000);  // merged per source
+    }
+
+    private static void assertMergeMatchesStableSort(int perSource) {
+        Random random = new Random(42);
+        List<List<SmartWatchData>> sources = new ArrayList<>();
+        List<SmartWatchData> all = new ArrayList<>();
+        for (int s = 0; s < 4; s++) {
+            List<SmartWatchData> src = new ArrayList<>();
+            long t = random.nextInt(100);
+            for (int i = 0; i < perSource; i++) {
+                // Mostly ascending with occasional back-steps and duplicates
+                t += random.nextInt(10) < 8 ? random.nextInt(3) : -random.nextInt(20);
+                src.add(new SmartWatchData(t, s, 0f, 0f, i));
+            }
+            if (s == 3) Collections.reverse(src);
+            sources.add(src);
+            all.addAll(src);
+        }
+        all.sort(Comparator.comparingLong(SmartWatchData::getTimestamp));
+
+        List<SmartWatchData> merged = SeriesMerger.mergeLists(sources, false);
+
+        assertEquals(all.size(), merged.size());
+        for (int i = 0; i < all.size(); i++) assertSame(all.get(i), merged.get(i));
+    }
+
+    @Test
+    public void seriesMergeMatchesListMerge() {
+        Random random = new Random(7);
+        List<List<SmartWatchData>> lists = new ArrayList<>();
+        List<SmartWatchSeries> series = new ArrayList<>();
+        for (int s = 0; s < 3; s++) {
+            List<SmartWatchData> src = new ArrayList<>();
+            for (int i = 0; i < 2000; i++) {
+                // s=0 sorted, s=1 a few late points, s=2 shuffled
+                long t = s == 2 ? random.nextInt(5000) : i * 2L - (s == 1 && i % 100 == 99 ? 15 : 0);
+                src.add(new SmartWatchData(t, s * 10000 + i, 0f, 0f, i));
+            }
+            lists.add(src);
+            series.add(SmartWatchSeries.fromList(src));
+        }
+
+        List<SmartWatchData> expected = SeriesMerger.mergeLists(lists, false);
+        SmartWatchSeries merged = SeriesMerger.merge(series, false);
+
+        assertEquals(expected.size(), merged.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).getTimestamp(), merged.getTimestamp(i));
+            assertEquals(expected.get(i).getHeartRate(), merged.getHeartRate(i));
+        }
+    }
+
+    @Test
+    public void mergeAndSortKeepsCsvFirstOnTies() {
+        SmartWatchData csv = new SmartWatchData(10, 70, 97f, 36.5f, 100);
+        SmartWatchData fit = new SmartWatchData(10, 80, 0f, 0f, 0);
+        List<SmartWatchData> merged = SmartWatchData.mergeAndSort(
+                Arrays.asList(new SmartWatchData(5, 1, 1f, 1f, 1), csv), Collections.singletonList(fit));
+
+        assertEquals(3, merged.size());
+        assertSame(csv, merged.get(1));
+        assertSame(fit, merged.get(2));
+    }
+
+    @Test
+    public void collapseJoinsFieldsPerTimestamp() {
+        SmartWatchSeries csv = new SmartWatchSeries();
+        csv.append(1000, 0, 97f, 36.5f, 0);
+        csv.append(2000, 70, 98f, 36.6f, 0);
+        SmartWatchSeries fitHr = new SmartWatchSeries();
+        fitHr.append(1000, 75, 0f, 0f, 0);
+        SmartWatchSeries fitSteps = new SmartWatchSeries();
+        fitSteps.append(1000, 0, 0f, 0f, 40);
+        fitSteps.append(3000, 0, 0f, 0f, 12);
+
+        SmartWatchSeries merged = SeriesMerger.merge(true, csv, fitHr, fitSteps);
+
+        assertEquals(3, merged.size());
+        assertTrue(merged.isSortedByTime());
+        assertEquals(75, merged.getHeartRate(0));
+        assertEquals(97f, merged.getSpO2(0), 0f);
+        assertEquals(40, merged.getSteps(0));
+        assertEquals(12, merged.getSteps(2));
+        // Inputs untouched
+        assertEquals(0, csv.getHeartRate(0));
+    }
+}
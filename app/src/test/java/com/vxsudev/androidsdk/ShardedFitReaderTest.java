@@ -0,0 +1,193 @@
+package com.vxsudev.androidsdk;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ShardedFitReaderTest {
+
+    /** Holds requests until the test completes or fails them, in issue order. */
+    static class FakeSource implements FitHistorySource {
+        final List<long[]> windows = new ArrayList<>();
+        final List<Callback> pending = new ArrayList<>();
+        final List<long[]> pendingWindows = new ArrayList<>();
+        int maxPending;
+
+        @Override
+        public void read(long startMillis, long endMillis, long bucketMillis, Callback callback) {
+            windows.add(new long[]{startMillis, endMillis});
+            pending.add(callback);
+            pendingWindows.add(new long[]{startMillis, endMillis});
+            maxPending = Math.max(maxPending, pending.size());
+        }
+
+        void succeedNext() {
+            Callback c = pending.remove(0);
+            long[] w = pendingWindows.remove(0);
+            c.onSuccess(Collections.singletonList(new SmartWatchData(w[0], 70, 0f, 0f, 0)));
+        }
+
+        void failNext() {
+            pendingWindows.remove(0);
+            pending.remove(0).onFailure(new Exception("boom"));
+        }
+    }
+
+    /** Holds scheduled retries until the test runs them; records their delays. */
+    static class ManualTimer extends ScheduledThreadPoolExecutor {
+        final List<Runnable> tasks = new ArrayList<>();
+        final List<Long> delays = new ArrayList<>();
+
+        ManualTimer() {
+            super(1);
+        }
+
+        @Override
+        public ScheduledFuture<?> schedule(Runnable command, long delay, TimeUnit unit) {
+            tasks.add(command);
+            delays.add(unit.toMillis(delay));
+            return null;
+        }
+
+        void runNext() {
+            tasks.remove(0).run();
+        }
+    }
+
+    static class Recorder implements ShardedFitReader.Listener {
+        final List<long[]> shards = new ArrayList<>();
+        int failedCallbacks;
+        int completions;
+        int readings;
+        int failedShards;
+        boolean cancelled;
+
+        @Override
+        public void onShard(long startMillis, long endMillis, List<SmartWatchData> r) {
+            shards.add(new long[]{startMillis, endMillis});
+        }
+
+        @Override
+        public void onShardFailed(long startMillis, long endMillis, Exception e) {
+            failedCallbacks++;
+        }
+
+        @Override
+        public void onComplete(int readings, int failedShards, boolean cancelled) {
+            completions++;
+            this.readings = readings;
+            this.failedShards = failedShards;
+            this.cancelled = cancelled;
+        }
+    }
+
+    @Test
+    public void shardsCoverRangeNewestFirstWithBoundedConcurrency() {
+        FakeSource source = new FakeSource();
+        Recorder rec = new Recorder();
+        ShardedFitReader.Read read = new ShardedFitReader(source, 2).read(0, 95, 10, 0, rec);
+
+        assertEquals(10, read.getShardCount());
+        while (!source.pending.isEmpty()) source.succeedNext();
+
+        assertEquals(2, source.maxPending);
+        assertEquals(10, source.windows.size());
+        assertEquals(85, source.windows.get(0)[0]);
+        assertEquals(95, source.windows.get(0)[1]);
+        long covered = 0;
+        for (long[] w : source.windows) covered += w[1] - w[0];
+        assertEquals(95, covered);
+        assertEquals(0, source.windows.get(9)[0]);
+        assertEquals(5, source.windows.get(9)[1]);
+
+        assertEquals(1, rec.completions);
+        assertEquals(10, rec.readings);
+        assertEquals(0, rec.failedShards);
+        assertTrue(read.isDone());
+    }
+
+    @Test
+    public void bucketedWindowsAreWholeBuckets() {
+        FakeSource source = new FakeSource();
+        ShardedFitReader.Read read = new ShardedFitReader(source, 1).read(0, 100, 25, 10, new Recorder());
+        assertEquals(5, read.getShardCount()); // window rounded down to 20
+        assertEquals(80, source.windows.get(0)[0]);
+    }
+
+    @Test
+    public void failedShardIsRetriedOnceAfterABackoffThenReported() {
+        FakeSource source = new FakeSource();
+        ManualTimer timer = new ManualTimer();
+        Recorder rec = new Recorder();
+        new ShardedFitReader(source, 1, timer).read(0, 20, 10, 0, rec);
+
+        source.failNext();                 // first attempt of [10, 20)
+        assertEquals(1, source.windows.size()); // not re-requested from inside the failure
+        assertEquals(1, timer.tasks.size());
+        assertTrue(timer.delays.get(0) >= 0 && timer.delays.get(0) <= 1000);
+
+        timer.runNext();
+        assertEquals(2, source.windows.size());
+        assertEquals(10, source.windows.get(1)[0]);
+        source.failNext();                 // retry fails too
+        assertTrue(timer.tasks.isEmpty());
+        assertEquals(1, rec.failedCallbacks);
+        source.succeedNext();              // [0, 10) still runs
+
+        assertEquals(1, rec.completions);
+        assertEquals(1, rec.failedShards);
+        assertEquals(1, rec.readings);
+    }
+
+    @Test
+    public void shardWaitingToRetryIsReportedOnceCancelled() {
+        FakeSource source = new FakeSource();
+        ManualTimer timer = new ManualTimer();
+        Recorder rec = new Recorder();
+        ShardedFitReader.Read read = new ShardedFitReader(source, 1, timer).read(0, 20, 10, 0, rec);
+
+        source.failNext();
+        read.cancel();
+        timer.runNext();
+
+        assertEquals(1, source.windows.size());
+        assertEquals(1, rec.failedCallbacks);
+        assertEquals(1, rec.completions);
+        assertTrue(rec.cancelled);
+    }
+
+    @Test
+    public void cancelStopsIssuingAndCompletesAfterInFlight() {
+        FakeSource source = new FakeSource();
+        Recorder rec = new Recorder();
+        ShardedFitReader.Read read = new ShardedFitReader(source, 2).read(0, 100, 10, 0, rec);
+
+        read.cancel();
+        source.succeedNext();
+        assertEquals(0, rec.completions);
+        source.succeedNext();
+
+        assertEquals(2, source.windows.size());
+        assertEquals(1, rec.completions);
+        assertTrue(rec.cancelled);
+        assertEquals(2, rec.shards.size());
+    }
+
+    @Test
+    public void emptyRangeCompletesImmediately() {
+        Recorder rec = new Recorder();
+        ShardedFitReader.Read read = new ShardedFitReader(new FakeSource()).read(10, 10, 5, 0, rec);
+        assertEquals(1, rec.completions);
+        assertFalse(rec.cancelled);
+        assertTrue(read.isDone());
+    }
+}
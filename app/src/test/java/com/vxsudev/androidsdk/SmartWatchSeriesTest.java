@@ -0,0 +1,108 @@
+package com.vxsudev.androidsdk;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static com.vxsudev.androidsdk.SeriesAssert.assertSameRows;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class SmartWatchSeriesTest {
+
+    private static SmartWatchSeries rows(int n) {
+        SmartWatchSeries s = new SmartWatchSeries(0); // capacity 1, so every column grows
+        for (int i = 0; i < n; i++) {
+            s.append(1_000L * i, 60 + i % 50, 90f + i % 10, 36f + i % 20 / 10f, i);
+        }
+        return s;
+    }
+
+    @Test
+    public void appendGrowsEveryColumnAndKeepsEarlierRows() {
+        SmartWatchSeries s = rows(1000);
+
+        assertEquals(1000, s.size());
+        assertTrue(s.timestamps().length >= 1000);
+        for (int i = 0; i < 1000; i += 99) {
+            assertEquals(1_000L * i, s.getTimestamp(i));
+            assertEquals(60 + i % 50, s.getHeartRate(i));
+            assertEquals(90f + i % 10, s.getSpO2(i), 0f);
+            assertEquals(36f + i % 20 / 10f, s.getTemperature(i), 0f);
+            assertEquals(i, s.getSteps(i));
+        }
+        try {
+            s.getHeartRate(1000); // within capacity, past the size
+            fail("Expected an index past the size to be rejected");
+        } catch (IndexOutOfBoundsException expected) {
+            // rows past size() are not readable
+        }
+
+        s.trimToSize();
+        assertEquals(1000, s.heartRates().length);
+        assertSameRows(rows(1000), s);
+    }
+
+    @Test
+    public void rawColumnsFilledAfterEnsureCapacityBecomeRowsWithSetSize() {
+        SmartWatchSeries s = rows(3);
+        s.ensureCapacity(10);
+        assertTrue(s.stepCounts().length >= 10);
+        for (int i = 3; i < 10; i++) {
+            s.timestamps()[i] = 1_000L * i;
+            s.heartRates()[i] = 60 + i;
+            s.spO2Values()[i] = 90f + i;
+            s.temperatures()[i] = 36f + i / 10f;
+            s.stepCounts()[i] = i;
+        }
+        s.setSize(10);
+        assertEquals(10, s.size());
+        assertEquals(69, s.getHeartRate(9));
+
+        try {
+            s.setSize(s.timestamps().length + 1);
+            fail("Expected a size past the capacity to be rejected");
+        } catch (IndexOutOfBoundsException expected) {
+            assertEquals(10, s.size());
+        }
+        s.clear();
+        assertTrue(s.isEmpty());
+        s.append(5L, 1, 2f, 3f, 4);
+        assertEquals(5L, s.getFirstTimestamp());
+    }
+
+    @Test
+    public void listRoundTripKeepsValuesAndSkipsNulls() {
+        SmartWatchSeries s = rows(500);
+        s.append(Long.MAX_VALUE, Integer.MIN_VALUE, Float.NaN, -0f, Integer.MAX_VALUE);
+
+        List<SmartWatchData> list = s.toList();
+        assertEquals(501, list.size());
+        list.add(250, null);
+
+        assertSameRows(s, SmartWatchSeries.fromList(list));
+        assertEquals(0, SmartWatchSeries.fromList(null).size());
+    }
+
+    @Test
+    public void fromListDropsSourceAndDevice() {
+        SmartWatchData csv = new SmartWatchData(1_000L, 70, 98f, 36.5f, 10);
+        csv.setSource(SmartWatchData.SOURCE_CSV);
+        SmartWatchData fit = new SmartWatchData(2_000L, 75, 0f, 0f, 20);
+        fit.setSource(SmartWatchData.SOURCE_FIT);
+        fit.setDeviceId("partner");
+
+        // The series has no source or device column; callers that need them keep them apart
+        List<SmartWatchData> back = SmartWatchSeries.fromList(Arrays.asList(csv, fit)).toList();
+        assertEquals(2, back.size());
+        assertEquals(75, back.get(1).getHeartRate());
+        for (SmartWatchData d : back) {
+            assertNull(d.getSource());
+            assertNull(d.getDeviceId());
+        }
+        assertEquals(SmartWatchData.SOURCE_CSV, csv.getSource()); // inputs untouched
+    }
+}
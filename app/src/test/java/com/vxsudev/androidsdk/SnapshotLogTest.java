@@ -0,0 +1,189 @@
+package com.vxsudev.androidsdk;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SnapshotLogTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private static JSONObject record(long ts) throws Exception {
+        return new JSONObject().put("timestamp", ts).put("heartRate", 70 + ts % 20);
+    }
+
+    private static List<Long> timestamps(SnapshotLog log) throws IOException {
+        List<Long> out = new ArrayList<>();
+        log.replay((timestamp, payload) -> out.add(timestamp));
+        return out;
+    }
+
+    @Test
+    public void appendsRollOverAndReplayInOrder() throws Exception {
+        File dir = tmp.newFolder();
+        try (SnapshotLog log = SnapshotLog.open(dir, 256)) {
+            for (int i = 0; i < 50; i++) log.append(record(i));
+            assertTrue(log.getSegmentCount() > 1);
+        }
+        try (SnapshotLog log = SnapshotLog.open(dir, 256)) {
+            List<Long> ts = timestamps(log);
+            assertEquals(50, ts.size());
+            for (int i = 0; i < 50; i++) assertEquals(i, (long) ts.get(i));
+            assertEquals(70 + 7, log.readAll().getJSONObject(7).getInt("heartRate"));
+        }
+    }
+
+    @Test
+    public void tornTailIsTruncatedAndCorruptRecordsCounted() throws Exception {
+        File dir = tmp.newFolder();
+        try (SnapshotLog log = SnapshotLog.open(dir)) {
+            for (int i = 0; i < 3; i++) log.append(record(i));
+        }
+        File segment = dir.listFiles()[0];
+        long goodLength = segment.length();
+        try (RandomAccessFile raf = new RandomAccessFile(segment, "rw")) {
+            raf.seek(goodLength);
+            raf.write(new byte[]{0, 0, 0, 40, 1, 2, 3}); // half-written record
+        }
+
+        try (SnapshotLog log = SnapshotLog.open(dir)) {
+            assertEquals(goodLength, segment.length());
+            log.append(record(3));
+            assertEquals(4, timestamps(log).size());
+        }
+
+        // Flip a payload byte in the second record: replay stops there
+        long second = SnapshotLog.SEGMENT_HEADER_BYTES + SnapshotLog.RECORD_HEADER_BYTES
+                + record(0).toString().length() + SnapshotLog.RECORD_HEADER_BYTES;
+        try (RandomAccessFile raf = new RandomAccessFile(segment, "rw")) {
+            raf.seek(second);
+            raf.write('X');
+        }
+        try (SnapshotLog log = SnapshotLog.open(dir, 64)) {
+            assertEquals(Collections.singletonList(0L), timestamps(log));
+            assertTrue(log.getCorruptRecords() > 0);
+        }
+    }
+
+    @Test
+    public void compactDropsOldRecordsAndKeepsActiveSegment() throws Exception {
+        File dir = tmp.newFolder();
+        try (SnapshotLog log = SnapshotLog.open(dir, 256)) {
+            for (int i = 0; i < 40; i++) log.append(record(i));
+            int before = log.getSegmentCount();
+            log.compact(20);
+            assertTrue(log.getSegmentCount() < before);
+            log.append(record(40));
+
+            List<Long> ts = timestamps(log);
+            assertEquals(20L, (long) ts.get(0));
+            assertEquals(40L, (long) ts.get(ts.size() - 1));
+            assertEquals(21, ts.size());
+        }
+        try (SnapshotLog log = SnapshotLog.open(dir, 256)) {
+            assertEquals(21, timestamps(log).size());
+        }
+    }
+
+    @Test
+    public void migratesLegacyJsonOnceAndFinishesInterruptedRewrite() throws Exception {
+        File dir = tmp.newFolder();
+        File legacy = tmp.newFile("secure_store.json");
+        JSONArray array = new JSONArray().put(record(1)).put(record(2));
+        Files.write(legacy.toPath(), array.toString().getBytes(StandardCharsets.UTF_8));
+
+        try (SnapshotLog log = SnapshotLog.open(dir)) {
+            log.append(record(0)); // replaced by the migration
+            assertEquals(2, log.migrateFrom(legacy));
+            assertFalse(legacy.exists());
+            assertEquals(-1, log.migrateFrom(legacy));
+            assertEquals(2, log.readAll().length());
+        }
+
+        // Simulate a crash after a rewrite was installed but before old segments were deleted
+        File[] segments = dir.listFiles();
+        assertEquals(1, segments.length);
+        File stale = new File(dir, "0000000000000000.log");
+        try (SnapshotLog other = SnapshotLog.open(tmp.newFolder())) {
+            other.append(record(99));
+            Files.copy(new File(other.getDirectory(), "0000000000000000.log").toPath(), stale.toPath());
+        }
+        try (SnapshotLog log = SnapshotLog.open(dir)) {
+            assertFalse(stale.exists());
+            assertEquals(2, timestamps(log).size());
+        }
+    }
+
+    @Test
+    public void failedReplaceAllLeavesTheLogWritable() throws Exception {
+        File dir = tmp.newFolder();
+        try (SnapshotLog log = SnapshotLog.open(dir)) {
+            log.append(record(1));
+
+            // A record source that breaks halfway through the rewrite
+            Iterable<JSONObject> broken = () -> new Iterator<JSONObject>() {
+                int n;
+
+                @Override
+                public boolean hasNext() {
+                    return true;
+                }
+
+                @Override
+                public JSONObject next() {
+                    if (n++ == 3) throw new IllegalStateException("source failed");
+                    try {
+                        return record(100 + n);
+                    } catch (Exception e) {
+                        throw new AssertionError(e);
+                    }
+                }
+            };
+            try {
+                log.replaceAll(broken);
+                throw new AssertionError("expected the rewrite to fail");
+            } catch (IllegalStateException expected) {
+                // history unchanged
+            }
+
+            // The rename into place fails: something already occupies the target name
+            File blocker = new File(dir, "0000000000000001.log");
+            assertTrue(blocker.mkdir());
+            assertTrue(new File(blocker, "x").createNewFile());
+            try {
+                log.replaceAll(Collections.singletonList(record(200)));
+                throw new AssertionError("expected the install to fail");
+            } catch (IOException expected) {
+                // history unchanged
+            }
+
+            log.append(record(2));
+            assertEquals(Arrays.asList(1L, 2L), timestamps(log));
+            for (String name : dir.list()) assertFalse(name, name.endsWith(".tmp"));
+
+            new File(blocker, "x").delete();
+            blocker.delete();
+            log.replaceAll(Collections.singletonList(record(300)));
+            log.append(record(301));
+            assertEquals(Arrays.asList(300L, 301L), timestamps(log));
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.vxsudev.androidsdk;
+
+import org.junit.Test;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+
+import static org.junit.Assert.assertEquals;
+
+public class TimestampParserTest {
+
+    private final TimestampParser parser = new TimestampParser();
+
+    @Test
+    public void parsesEpochMillisAndIsoForms() {
+        assertEquals(1_700_000_000_123L, parser.parse("1700000000123"));
+        assertEquals(Instant.parse("2024-03-01T00:00:00Z").toEpochMilli(), parser.parse("2024-03-01"));
+        assertEquals(Instant.parse("2024-03-01T07:30:00Z").toEpochMilli(), parser.parse("2024-03-01T07:30"));
+        assertEquals(Instant.parse("2024-03-01T07:30:15.250Z").toEpochMilli(), parser.parse("2024-03-01 07:30:15.25"));
+        assertEquals(Instant.parse("2024-03-01T07:30:15.123Z").toEpochMilli(), parser.parse("2024-03-01T07:30:15.123456Z"));
+        assertEquals(OffsetDateTime.parse("2024-03-01T07:30:15+05:30").toInstant().toEpochMilli(),
+                parser.parse("2024-03-01T07:30:15+05:30"));
+        assertEquals(OffsetDateTime.parse("2024-02-29T23:00:00-08:00").toInstant().toEpochMilli(),
+                parser.parse("2024-02-29T23:00:00-0800"));
+        assertEquals(Instant.parse("1969-12-31T23:59:59Z").toEpochMilli(), parser.parse("1969-12-31T23:59:59Z"));
+    }
+
+    @Test
+    public void cachedDateMatchesFreshParsesAcrossDayChanges() {
+        long day = 86_400_000L;
+        for (int d = 0; d < 800; d++) {
+            Instant midnight = Instant.ofEpochMilli(Instant.parse("2023-01-01T00:00:00Z").toEpochMilli() + d * day);
+            String date = midnight.toString().substring(0, 10);
+            assertEquals(midnight.toEpochMilli() + 3_600_000L, parser.parse(date + "T01:00:00Z"));
+            assertEquals(midnight.toEpochMilli() + 7_200_000L, parser.parse(date + "T02:00:00Z"));
+        }
+    }
+
+    @Test
+    public void rejectsMalformedFields() {
+        String[] bad = {"", "abc", "2024-13-01", "2024-02-30", "2024-03-01T25:00", "2024-03-01T07:3",
+                "2024-03-01X07:30", "2024-03-01T07:30:15.", "2024-03-01T07:30+5", "2024/03/01", "12a4"};
+        for (String s : bad) assertEquals(s, TimestampParser.INVALID, parser.parse(s));
+    }
+}
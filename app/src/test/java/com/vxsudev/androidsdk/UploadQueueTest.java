@@ -0,0 +1,226 @@
+package com.vxsudev.androidsdk;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class UploadQueueTest {
+
+    /** Stand-in for Firestore: records chunks and completes them when told to. */
+    static class FakeBatchWriter implements BatchWriter {
+        final List<List<SmartWatchData>> committed = new ArrayList<>();
+        final List<Callback> waiting = new ArrayList<>();
+        boolean autoComplete = true;
+        int failuresLeft;
+        int throwsLeft;
+        int maxConcurrent;
+
+        @Override
+        public synchronized void commit(List<SmartWatchData> chunk, Callback callback) {
+            if (chunk.size() > MAX_BATCH_SIZE) throw new AssertionError("chunk too large: " + chunk.size());
+            if (throwsLeft > 0) {
+                throwsLeft--;
+                throw new IllegalArgumentException("invalid document");
+            }
+            if (failuresLeft > 0) {
+                failuresLeft--;
+                callback.onFailure(new Exception("unavailable"));
+                return;
+            }
+            committed.add(chunk);
+            if (autoComplete) {
+                callback.onSuccess();
+            } else {
+                waiting.add(callback);
+                maxConcurrent = Math.max(maxConcurrent, waiting.size());
+            }
+        }
+
+        void completeAll() {
+            List<Callback> done;
+            synchronized (this) {
+                done = new ArrayList<>(waiting);
+                waiting.clear();
+            }
+            for (Callback c : done) c.onSuccess();
+        }
+
+        void failAll() {
+            List<Callback> done;
+            synchronized (this) {
+                done = new ArrayList<>(waiting);
+                waiting.clear();
+            }
+            for (Callback c : done) c.onFailure(new Exception("unavailable"));
+        }
+    }
+
+    private static List<SmartWatchData> readings(int n) {
+        List<SmartWatchData> list = new ArrayList<>();
+        for (int i = 0; i < n; i++) list.add(new SmartWatchData(i, 70, 98f, 36.5f, i));
+        return list;
+    }
+
+    @Test
+    public void commitAllSplitsIntoChunksWithBoundedConcurrency() {
+        FakeBatchWriter writer = new FakeBatchWriter();
+        writer.autoComplete = false;
+        AtomicInteger successes = new AtomicInteger();
+        UploadQueue.commitAll(writer, readings(1234), 500, 2, new BatchWriter.Callback() {
+            @Override
+            public void onSuccess() {
+                successes.incrementAndGet();
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                throw new AssertionError(e);
+            }
+        });
+
+        while (writer.waiting.size() > 0) writer.completeAll();
+
+        assertEquals(1, successes.get());
+        assertEquals(3, writer.committed.size());
+        assertEquals(500, writer.committed.get(0).size());
+        assertEquals(234, writer.committed.get(2).size());
+        assertEquals(2, writer.maxConcurrent);
+    }
+
+    @Test
+    public void commitAllReportsAWriterThatThrows() {
+        FakeBatchWriter writer = new FakeBatchWriter();
+        writer.throwsLeft = 1;
+        AtomicReference<Exception> failure = new AtomicReference<>();
+        AtomicInteger successes = new AtomicInteger();
+        UploadQueue.commitAll(writer, readings(1200), 500, 1, new BatchWriter.Callback() {
+            @Override
+            public void onSuccess() {
+                successes.incrementAndGet();
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                failure.set(e);
+            }
+        });
+
+        assertEquals("invalid document", failure.get().getMessage());
+        assertEquals(0, successes.get());
+        assertEquals(0, writer.committed.size());
+    }
+
+    @Test
+    public void queueFlushesByAgeAndAppliesBackpressure() throws Exception {
+        FakeBatchWriter writer = new FakeBatchWriter();
+        writer.autoComplete = false;
+        try (UploadQueue queue = new UploadQueue(writer, 20, 10, 1, 50, 1)) {
+            for (SmartWatchData d : readings(20)) assertTrue(queue.offer(d, null));
+            // Full: first chunk committing, second buffered
+            assertFalse(queue.offer(new SmartWatchData(), null));
+            assertEquals(1, writer.committed.size());
+
+            writer.completeAll();
+            assertTrue(queue.offer(new SmartWatchData(99, 0, 0f, 0f, 0), null));
+
+            // The partial chunk goes out once it is older than 50 ms
+            long deadline = System.currentTimeMillis() + 2000;
+            while (System.currentTimeMillis() < deadline) {
+                writer.completeAll();
+                if (queue.size() == 0) break;
+                Thread.sleep(10);
+            }
+            assertEquals(0, queue.size());
+            assertEquals(3, writer.committed.size());
+            assertEquals(1, writer.committed.get(2).size());
+        }
+    }
+
+    @Test
+    public void failedChunksAreRetriedThenReported() throws Exception {
+        FakeBatchWriter writer = new FakeBatchWriter();
+        writer.failuresLeft = 1;
+        AtomicReference<Exception> failure = new AtomicReference<>();
+        AtomicInteger ok = new AtomicInteger();
+        try (UploadQueue queue = new UploadQueue(writer, 100, 5, 1, 10_000, 2)) {
+            for (SmartWatchData d : readings(5)) {
+                queue.offer(d, new BatchWriter.Callback() {
+                    @Override
+                    public void onSuccess() {
+                        ok.incrementAndGet();
+                    }
+
+                    @Override
+                    public void onFailure(Exception e) {
+                        failure.set(e);
+                    }
+                });
+            }
+            assertTrue(queue.awaitIdle(5, TimeUnit.SECONDS));
+            assertEquals(5, ok.get());
+
+            writer.failuresLeft = 2;
+            queue.offer(new SmartWatchData(), new BatchWriter.Callback() {
+                @Override
+                public void onSuccess() {
+                }
+
+                @Override
+                public void onFailure(Exception e) {
+                    failure.set(e);
+                }
+            });
+            queue.flush();
+            assertTrue(queue.awaitIdle(5, TimeUnit.SECONDS));
+            assertEquals("unavailable", failure.get().getMessage());
+        }
+    }
+
+    @Test
+    public void closeLetsACommitFailingMeanwhileRetry() throws Exception {
+        FakeBatchWriter writer = new FakeBatchWriter();
+        writer.autoComplete = false;
+        AtomicInteger ok = new AtomicInteger();
+        AtomicReference<Exception> failure = new AtomicReference<>();
+        UploadQueue queue = new UploadQueue(writer, 100, 5, 1, 10_000, 3);
+        for (SmartWatchData d : readings(8)) {
+            queue.offer(d, new BatchWriter.Callback() {
+                @Override
+                public void onSuccess() {
+                    ok.incrementAndGet();
+                }
+
+                @Override
+                public void onFailure(Exception e) {
+                    failure.set(e);
+                }
+            });
+        }
+        assertEquals(1, writer.committed.size()); // a full chunk committing, three buffered
+
+        queue.close();
+        assertFalse(queue.offer(new SmartWatchData(), null));
+        writer.autoComplete = true;
+        writer.failAll(); // transient failure after close: retried, not dropped
+        assertTrue(queue.awaitIdle(5, TimeUnit.SECONDS));
+
+        assertEquals(null, failure.get());
+        assertEquals(8, ok.get());
+        assertEquals(Arrays.asList(5, 5, 3), sizes(writer.committed));
+    }
+
+    private static List<Integer> sizes(List<List<SmartWatchData>> chunks) {
+        List<Integer> out = new ArrayList<>();
+        for (List<SmartWatchData> c : chunks) out.add(c.size());
+        return out;
+    }
+}
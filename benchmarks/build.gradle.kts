@@ -0,0 +1,73 @@
+// Pure-JVM JMH benchmarks for the app's Android-free hot paths.
+// Run: ./gradlew :benchmarks:jmh [-PjmhLabel=name] [-PjmhIncludes=CsvParse]
+// Results: benchmarks/results/jmh-<label>.json (label defaults to the git short hash)
+// Compare: python3 scripts/jmh-compare.py benchmarks/results/jmh-<old>.json benchmarks/results/jmh-<new>.json
+plugins {
+    java
+    alias(libs.plugins.jmh)
+}
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_17
+    targetCompatibility = JavaVersion.VERSION_17
+}
+
+// Core classes are compiled straight from the app module; every file listed
+// here must stay free of android.* / Play Services / Firebase imports.
+val appCoreSources = listOf(
+    "SmartWatchData.java",
+    "SmartWatchSeries.java",
+    "SeriesMerger.java",
+    "CsvStreamParser.java",
+    "MockDataGenerator.java",
+    "ReadingPipeline.java",
+    "SnapshotLog.java",
+    "SnapshotLogReader.java",
+    "RollupIndex.java",
+    "SyncedIdSet.java",
+    "DocumentIds.java",
+    "LoadGenerator.java",
+    "ParallelCsvParser.java",
+    "CsvSchema.java",
+    "TimestampParser.java",
+    "GorillaCodec.java",
+    "CompressedSeries.java",
+    "ColumnarBlob.java",
+)
+
+sourceSets {
+    main {
+        java {
+            setSrcDirs(listOf("../app/src/main/java"))
+            appCoreSources.forEach { include("com/vxsudev/androidsdk/$it") }
+        }
+    }
+}
+
+dependencies {
+    // Provided by the Android framework on device
+    implementation(libs.org.json)
+}
+
+tasks.withType<JavaCompile>().configureEach {
+    options.encoding = "UTF-8"
+}
+
+val gitHash = providers.exec {
+    commandLine("git", "rev-parse", "--short", "HEAD")
+    isIgnoreExitValue = true
+}.standardOutput.asText.map { it.trim() }
+
+val jmhLabel = providers.gradleProperty("jmhLabel")
+    .orElse(gitHash.map { it.ifEmpty { "local" } })
+
+jmh {
+    jmhVersion.set(libs.versions.jmh)
+    warmupIterations.set(2)
+    iterations.set(5)
+    fork.set(1)
+    jvmArgsAppend.add("-Xmx6g")
+    resultFormat.set("JSON")
+    resultsFile.set(layout.projectDirectory.file(jmhLabel.map { "results/jmh-$it.json" }))
+    providers.gradleProperty("jmhIncludes").orNull?.let { includes.add(it) }
+}
@@ -0,0 +1,111 @@
+package com.vxsudev.androidsdk.benchmark;
+
+import com.vxsudev.androidsdk.CsvStreamParser;
+import com.vxsudev.androidsdk.ParallelCsvParser;
+import com.vxsudev.androidsdk.SmartWatchData;
+import com.vxsudev.androidsdk.SmartWatchSeries;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CSVDataLoader parsing paths on an in-memory asset: the original
+ * readLine/split/trim loop vs. the streaming byte parser into a list or columns,
+ * plus the same rows as a file on disk parsed in parallel chunks.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class CsvParseBenchmark {
+
+    @Param({"10000", "1000000"})
+    public int rows;
+
+    private byte[] csv;
+    private CsvStreamParser parser;
+    private File file;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        csv = Datasets.csv(Datasets.readings(rows, 11, Datasets.START, 1000));
+        parser = new CsvStreamParser();
+        file = File.createTempFile("bench", ".csv");
+        file.deleteOnExit();
+        Files.write(file.toPath(), csv);
+    }
+
+    @Benchmark
+    public List<SmartWatchData> legacySplitParse() throws IOException {
+        List<SmartWatchData> dataList = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new ByteArrayInputStream(csv)))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] tokens = line.split(",");
+                if (tokens.length < 4) continue;
+                try {
+                    int heartRate = Integer.parseInt(tokens[0].trim());
+                    float spO2 = Float.parseFloat(tokens[1].trim());
+                    float temperature = Float.parseFloat(tokens[2].trim());
+                    int steps = Integer.parseInt(tokens[3].trim());
+                    dataList.add(new SmartWatchData(System.currentTimeMillis(), heartRate, spO2, temperature, steps));
+                } catch (NumberFormatException e) {
+                    // header row
+                }
+            }
+        }
+        return dataList;
+    }
+
+    @Benchmark
+    public void streamToBlackhole(Blackhole bh) throws IOException {
+        parser.parse(new ByteArrayInputStream(csv), Datasets.START,
+                (timestamp, heartRate, spO2, temperature, steps) -> {
+                    bh.consume(timestamp);
+                    bh.consume(heartRate);
+                    bh.consume(spO2);
+                    bh.consume(temperature);
+                    bh.consume(steps);
+                }, null);
+    }
+
+    @Benchmark
+    public List<SmartWatchData> streamToList() throws IOException {
+        List<SmartWatchData> dataList = new ArrayList<>();
+        parser.parse(new ByteArrayInputStream(csv), Datasets.START,
+                (timestamp, heartRate, spO2, temperature, steps) ->
+                        dataList.add(new SmartWatchData(timestamp, heartRate, spO2, temperature, steps)), null);
+        return dataList;
+    }
+
+    @Benchmark
+    public SmartWatchSeries streamToSeries() throws IOException {
+        SmartWatchSeries series = new SmartWatchSeries(1024);
+        parser.parse(new ByteArrayInputStream(csv), Datasets.START, series::append, null);
+        return series;
+    }
+
+    @Benchmark
+    public SmartWatchSeries parallelFileToSeries() throws IOException {
+        SmartWatchSeries series = new SmartWatchSeries(1024);
+        new ParallelCsvParser().parse(file, Datasets.START, series, null);
+        return series;
+    }
+}
@@ -0,0 +1,69 @@
+package com.vxsudev.androidsdk.benchmark;
+
+import com.vxsudev.androidsdk.MockDataGenerator;
+import com.vxsudev.androidsdk.SmartWatchData;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reproducible synthetic inputs for the suites. Values come from {@link MockDataGenerator}
+ * (fixed seed); timestamps are laid out explicitly so every suite controls ordering.
+ */
+final class Datasets {
+
+    static final long START = 1_700_000_000_000L;
+
+    private Datasets() {}
+
+    /** count readings, one every intervalMs starting at startMs, in ascending order. */
+    static List<SmartWatchData> readings(int count, long seed, long startMs, long intervalMs) {
+        MockDataGenerator generator = new MockDataGenerator(seed);
+        List<SmartWatchData> list = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            SmartWatchData d = generator.generateData();
+            d.setTimestamp(startMs + i * intervalMs);
+            list.add(d);
+        }
+        return list;
+    }
+
+    /** Asset-style CSV export (header + heartRate,spO2,temperature,steps with one decimal). */
+    static byte[] csv(List<SmartWatchData> readings) {
+        StringBuilder sb = new StringBuilder(readings.size() * 20 + 40);
+        sb.append("heartRate,spO2,temperature,steps\n");
+        for (SmartWatchData d : readings) {
+            sb.append(d.getHeartRate()).append(',');
+            appendOneDecimal(sb, d.getSpO2()).append(',');
+            appendOneDecimal(sb, d.getTemperature()).append(',');
+            sb.append(d.getSteps()).append('\n');
+        }
+        return sb.toString().getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Maps shaped like decoded Firestore documents: integral fields come back
+     * as Long and floating fields as Double, not the types toMap() wrote.
+     */
+    static List<Map<String, Object>> documents(List<SmartWatchData> readings) {
+        List<Map<String, Object>> docs = new ArrayList<>(readings.size());
+        for (SmartWatchData d : readings) {
+            Map<String, Object> doc = new HashMap<>();
+            doc.put("timestamp", d.getTimestamp());
+            doc.put("heartRate", (long) d.getHeartRate());
+            doc.put("spO2", (double) d.getSpO2());
+            doc.put("temperature", (double) d.getTemperature());
+            doc.put("steps", (long) d.getSteps());
+            docs.add(doc);
+        }
+        return docs;
+    }
+
+    private static StringBuilder appendOneDecimal(StringBuilder sb, float value) {
+        int tenths = Math.round(value * 10f);
+        return sb.append(tenths / 10).append('.').append(tenths % 10);
+    }
+}
@@ -0,0 +1,57 @@
+package com.vxsudev.androidsdk.benchmark;
+
+import com.vxsudev.androidsdk.CompressedSeries;
+import com.vxsudev.androidsdk.LoadGenerator;
+import com.vxsudev.androidsdk.SmartWatchSeries;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A week of one-minute readings from one simulated watch: compressing into a
+ * CompressedSeries, decoding it back to columns, and a one-day range read that
+ * skips blocks by their headers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class GorillaBenchmark {
+
+    private static final int ROWS = 7 * 1440;
+
+    private SmartWatchSeries week;
+    private CompressedSeries compressed;
+    private long dayFrom;
+    private long dayTo;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        week = LoadGenerator.builder().start(Datasets.START).samplesPerDevice(ROWS).seed(5).build().device(0);
+        compressed = CompressedSeries.fromSeries(week);
+        dayFrom = week.getTimestamp(3 * 1440);
+        dayTo = week.getTimestamp(4 * 1440);
+    }
+
+    @Benchmark
+    public CompressedSeries encode() {
+        return CompressedSeries.fromSeries(week);
+    }
+
+    @Benchmark
+    public SmartWatchSeries decodeAll() {
+        return compressed.toSeries();
+    }
+
+    @Benchmark
+    public SmartWatchSeries decodeOneDay() {
+        return compressed.range(dayFrom, dayTo);
+    }
+}
@@ -0,0 +1,54 @@
+package com.vxsudev.androidsdk.benchmark;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+/**
+ * SecureStore's history before {@link com.vxsudev.androidsdk.SnapshotLog}, kept only as a
+ * benchmark baseline: one JSON array per file, so every append parses and rewrites it all.
+ */
+final class LegacyJsonHistory {
+
+    private final File file;
+
+    LegacyJsonHistory(File file) {
+        this.file = file;
+    }
+
+    /**
+     * The legacy append, except that the grown history is written to target rather than
+     * back over the file. The file therefore keeps its size and every call repeats the same
+     * read, parse, serialize and full rewrite without a reset between calls.
+     */
+    void appendTo(JSONObject record, File target) throws IOException {
+        JSONArray history = readArray();
+        history.put(record);
+        write(target, history.toString());
+    }
+
+    /** Full history, or an empty array when the file is missing or unreadable. */
+    JSONArray readArray() {
+        try {
+            return new JSONArray(new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8));
+        } catch (IOException | JSONException e) {
+            return new JSONArray();
+        }
+    }
+
+    void writeArray(JSONArray data) throws IOException {
+        write(file, data.toString());
+    }
+
+    private static void write(File target, String json) throws IOException {
+        try (FileOutputStream fos = new FileOutputStream(target)) {
+            fos.write(json.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+}
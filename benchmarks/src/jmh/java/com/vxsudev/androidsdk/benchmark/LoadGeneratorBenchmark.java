@@ -0,0 +1,52 @@
+package com.vxsudev.androidsdk.benchmark;
+
+import com.vxsudev.androidsdk.LoadGenerator;
+import com.vxsudev.androidsdk.MockDataGenerator;
+import com.vxsudev.androidsdk.SmartWatchData;
+import com.vxsudev.androidsdk.SmartWatchSeries;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One million synthetic readings: MockDataGenerator's object-per-reading batch vs.
+ * LoadGenerator writing columns, on one thread and on all cores.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class LoadGeneratorBenchmark {
+
+    private static final int TOTAL = 1_000_000;
+    private static final int DEVICES = 64;
+
+    @Param({"1", "0"}) // 0 = all cores
+    public int threads;
+
+    @Benchmark
+    public List<SmartWatchData> mockBatch() {
+        return new MockDataGenerator(17).generateBatch(TOTAL);
+    }
+
+    @Benchmark
+    public SmartWatchSeries[] loadGenerator() {
+        return LoadGenerator.builder()
+                .devices(DEVICES)
+                .samplesPerDevice(TOTAL / DEVICES)
+                .jitter(2_000)
+                .gaps(0.001, 30)
+                .anomalies(0.001)
+                .seed(17)
+                .parallelism(threads > 0 ? threads : Runtime.getRuntime().availableProcessors())
+                .build()
+                .generate();
+    }
+}
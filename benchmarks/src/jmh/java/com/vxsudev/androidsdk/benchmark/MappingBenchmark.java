@@ -0,0 +1,50 @@
+package com.vxsudev.androidsdk.benchmark;
+
+import com.vxsudev.androidsdk.SmartWatchData;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Firestore (de)serialization per batch: SmartWatchData.toMap on upload and
+ * SmartWatchData.fromMap, the body of FirestoreManager.mapToSmartWatchData, on fetch.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MappingBenchmark {
+
+    @Param({"500", "10000"})
+    public int documents;
+
+    private List<SmartWatchData> readings;
+    private List<Map<String, Object>> docs;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        readings = Datasets.readings(documents, 13, Datasets.START, 60_000);
+        docs = Datasets.documents(readings);
+    }
+
+    @Benchmark
+    public void toMap(Blackhole bh) {
+        for (SmartWatchData d : readings) bh.consume(d.toMap());
+    }
+
+    @Benchmark
+    public void mapToSmartWatchData(Blackhole bh) {
+        for (Map<String, Object> doc : docs) bh.consume(SmartWatchData.fromMap(doc));
+    }
+}
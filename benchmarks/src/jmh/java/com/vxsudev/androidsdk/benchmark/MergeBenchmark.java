@@ -0,0 +1,77 @@
+package com.vxsudev.androidsdk.benchmark;
+
+import com.vxsudev.androidsdk.SeriesMerger;
+import com.vxsudev.androidsdk.SmartWatchData;
+import com.vxsudev.androidsdk.SmartWatchSeries;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Legacy concatenate + comparator sort vs. the run-aware k-way merge.
+ * Inputs mimic production: CSV sorted, Fit almost sorted (late points every ~1k samples).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class MergeBenchmark {
+
+    @Param({"10000", "1000000", "10000000"})
+    public int samples;
+
+    private List<SmartWatchData> csvList;
+    private List<SmartWatchData> fitList;
+    private SmartWatchSeries csvSeries;
+    private SmartWatchSeries fitSeries;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        int half = samples / 2;
+        csvList = Datasets.readings(half, 7, Datasets.START, 1000);
+        fitList = Datasets.readings(half, 8, Datasets.START + 500, 1000);
+        for (int i = 0; i < half; i++) {
+            SmartWatchData d = fitList.get(i);
+            d.setSpO2(0f);       // Fit only reports heart rate and steps
+            d.setTemperature(0f);
+            if (i % 1000 == 999) d.setTimestamp(d.getTimestamp() - 5000); // late-arriving point
+        }
+        csvSeries = SmartWatchSeries.fromList(csvList);
+        fitSeries = SmartWatchSeries.fromList(fitList);
+    }
+
+    @Benchmark
+    public List<SmartWatchData> legacyConcatSort() {
+        List<SmartWatchData> merged = new ArrayList<>();
+        merged.addAll(csvList);
+        merged.addAll(fitList);
+        merged.sort(Comparator.comparingLong(SmartWatchData::getTimestamp));
+        return merged;
+    }
+
+    @Benchmark
+    public List<SmartWatchData> mergeAndSort() {
+        return SmartWatchData.mergeAndSort(csvList, fitList);
+    }
+
+    @Benchmark
+    public SmartWatchSeries seriesMerge() {
+        return SeriesMerger.merge(false, csvSeries, fitSeries);
+    }
+
+    @Benchmark
+    public SmartWatchSeries seriesMergeCollapsed() {
+        return SeriesMerger.merge(true, csvSeries, fitSeries);
+    }
+}
@@ -0,0 +1,70 @@
+package com.vxsudev.androidsdk.benchmark;
+
+import com.vxsudev.androidsdk.RollupIndex;
+import com.vxsudev.androidsdk.SmartWatchData;
+import com.vxsudev.androidsdk.SmartWatchSeries;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mean heart rate over a 30-day window: scanning raw columns vs. summing RollupIndex
+ * buckets. The raw scan is the best case for samples (primitive arrays, no objects).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RollupBenchmark {
+
+    private static final long DAY = 86_400_000L;
+
+    // 60 days of readings at this interval
+    @Param({"10000", "60000"})
+    public long intervalMs;
+
+    private SmartWatchSeries series;
+    private RollupIndex rollups;
+    private long from;
+    private long to;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        int count = (int) (60 * DAY / intervalMs);
+        List<SmartWatchData> readings = Datasets.readings(count, 17, Datasets.START, intervalMs);
+        series = SmartWatchSeries.fromList(readings);
+        rollups = new RollupIndex();
+        rollups.add(readings);
+        from = Datasets.START + 15 * DAY + 7_380_000L; // not day- or hour-aligned
+        to = from + 30 * DAY;
+    }
+
+    @Benchmark
+    public double rawScan() {
+        long[] ts = series.timestamps();
+        int[] hr = series.heartRates();
+        long sum = 0;
+        int n = 0;
+        for (int i = 0; i < series.size(); i++) {
+            if (ts[i] >= from && ts[i] < to) {
+                sum += hr[i];
+                n++;
+            }
+        }
+        return (double) sum / n;
+    }
+
+    @Benchmark
+    public double rollupAggregate() {
+        return rollups.aggregate(from, to).getMean(RollupIndex.HEART_RATE);
+    }
+}
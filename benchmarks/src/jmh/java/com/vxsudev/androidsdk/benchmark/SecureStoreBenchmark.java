@@ -0,0 +1,128 @@
+package com.vxsudev.androidsdk.benchmark;
+
+import com.vxsudev.androidsdk.SmartWatchData;
+import com.vxsudev.androidsdk.SnapshotLog;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of SecureStore.appendRecord for one record against an existing history of the
+ * given size: the legacy rewrite-the-whole-JSON-file path ({@link LegacyJsonHistory},
+ * which rewrites into a scratch file so the history keeps its size) vs. the segmented
+ * SnapshotLog append. Also loading the last hour
+ * of that history: full JSON parse vs. the mapped SnapshotLogReader range view.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SecureStoreBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    public int history;
+
+    private File dir;
+    private LegacyJsonHistory store;
+    private File rewritten;
+    private JSONObject record;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("securestore-bench").toFile();
+        List<SmartWatchData> readings = Datasets.readings(history + 1, 17, Datasets.START, 60_000);
+
+        JSONArray array = new JSONArray();
+        for (int i = 0; i < history; i++) array.put(new JSONObject(readings.get(i).toMap()));
+        store = new LegacyJsonHistory(new File(dir, "secure_store.json"));
+        store.writeArray(array);
+        rewritten = new File(dir, "secure_store.rewritten.json");
+        record = new JSONObject(readings.get(history).toMap());
+    }
+
+    @Benchmark
+    public File legacyJsonAppend() throws IOException {
+        store.appendTo(record, rewritten);
+        return rewritten;
+    }
+
+    @Benchmark
+    public SnapshotLog logAppend(LogState state) throws IOException {
+        state.log.append(record);
+        return state.log;
+    }
+
+    /** Last hour of history (60 records) the legacy way: parse everything, then filter. */
+    @Benchmark
+    public int legacyLoadLastHour() {
+        JSONArray all = store.readArray();
+        int matched = 0;
+        for (int i = 0; i < all.length(); i++) {
+            if (all.getJSONObject(i).getLong("timestamp") >= lastHourStart()) matched++;
+        }
+        return matched;
+    }
+
+    /** Same query through the memory-mapped index, decoding only the matches. */
+    @Benchmark
+    public int logLoadLastHour(LogState state) throws IOException {
+        int matched = 0;
+        for (JSONObject o : state.log.reader().range(lastHourStart(), Long.MAX_VALUE)) {
+            if (o != null) matched++;
+        }
+        return matched;
+    }
+
+    private long lastHourStart() {
+        return Datasets.START + (history - 60) * 60_000L;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        deleteRecursively(dir);
+    }
+
+    /** Log pre-filled with the same history; appends only grow the active segment. */
+    @State(Scope.Benchmark)
+    public static class LogState {
+        File dir;
+        SnapshotLog log;
+
+        @Setup(Level.Trial)
+        public void setUp(SecureStoreBenchmark bench) throws IOException {
+            dir = Files.createTempDirectory("snapshotlog-bench").toFile();
+            log = SnapshotLog.open(dir);
+            JSONArray history = bench.store.readArray();
+            for (int i = 0; i < history.length(); i++) log.append(history.getJSONObject(i));
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            log.close();
+            deleteRecursively(dir);
+        }
+    }
+
+    private static void deleteRecursively(File f) {
+        File[] children = f.listFiles();
+        if (children != null) {
+            for (File c : children) deleteRecursively(c);
+        }
+        f.delete();
+    }
+}
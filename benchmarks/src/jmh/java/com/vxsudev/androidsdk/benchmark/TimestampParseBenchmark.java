@@ -0,0 +1,60 @@
+package com.vxsudev.androidsdk.benchmark;
+
+import com.vxsudev.androidsdk.TimestampParser;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A day of per-second ISO-8601 timestamps (as in a historical export): java.time
+ * parsing from Strings vs. TimestampParser on the raw bytes with its cached date.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class TimestampParseBenchmark {
+
+    private static final int COUNT = 86_400;
+    private static final int LENGTH = "2024-03-01T00:00:00.000+01:00".length();
+
+    private byte[] bytes;
+    private TimestampParser parser;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        StringBuilder sb = new StringBuilder(COUNT * LENGTH);
+        DateTimeFormatter format = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSSxxx");
+        OffsetDateTime t = OffsetDateTime.parse("2024-03-01T00:00:00.000+01:00");
+        for (int i = 0; i < COUNT; i++) sb.append(format.format(t.plusSeconds(i)));
+        bytes = sb.toString().getBytes(StandardCharsets.US_ASCII);
+        parser = new TimestampParser();
+    }
+
+    @Benchmark
+    public long javaTime() {
+        long sum = 0;
+        for (int i = 0; i < COUNT; i++) {
+            String field = new String(bytes, i * LENGTH, LENGTH, StandardCharsets.US_ASCII);
+            sum += OffsetDateTime.parse(field).toInstant().toEpochMilli();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long timestampParser() {
+        long sum = 0;
+        for (int i = 0; i < COUNT; i++) sum += parser.parse(bytes, i * LENGTH, i * LENGTH + LENGTH);
+        return sum;
+    }
+}
@@ -0,0 +1,108 @@
+package com.vxsudev.androidsdk.benchmark;
+
+import com.vxsudev.androidsdk.ColumnarBlob;
+import com.vxsudev.androidsdk.CsvStreamParser;
+import com.vxsudev.androidsdk.LoadGenerator;
+import com.vxsudev.androidsdk.SmartWatchSeries;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A week of one-minute readings as an upload payload: the JSON array CloudStorageManager
+ * used to send and the CSV that LoadGenerator writes, versus a ColumnarBlob, encoded and
+ * decoded. Each encode reports its payload size as the payloadBytes counter. The CSV
+ * rounds SpO2 and temperature to one decimal; JSON and the blob are exact.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class UploadPayloadBenchmark {
+
+    private static final int ROWS = 7 * 1440;
+
+    private LoadGenerator generator;
+    private SmartWatchSeries week;
+    private byte[] json;
+    private byte[] csv;
+    private byte[] blob;
+    private CsvStreamParser parser;
+
+    /** Size of the payload last encoded on this thread. */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Payload {
+        public long payloadBytes;
+
+        byte[] record(byte[] payload) {
+            payloadBytes = payload.length;
+            return payload;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        generator = LoadGenerator.builder().start(Datasets.START).samplesPerDevice(ROWS).seed(5).build();
+        week = generator.device(0);
+        Payload unused = new Payload();
+        json = encodeJson(unused);
+        csv = encodeCsv(unused);
+        blob = encodeBlob(unused);
+        parser = new CsvStreamParser();
+    }
+
+    @Benchmark
+    public byte[] encodeJson(Payload payload) {
+        JSONArray array = new JSONArray();
+        for (int i = 0; i < week.size(); i++) array.put(new JSONObject(week.get(i).toMap()));
+        return payload.record(array.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Benchmark
+    public byte[] encodeCsv(Payload payload) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(512 * 1024);
+        generator.writeCsv(week, out);
+        return payload.record(out.toByteArray());
+    }
+
+    @Benchmark
+    public byte[] encodeBlob(Payload payload) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(64 * 1024);
+        try (ColumnarBlob.Writer writer = new ColumnarBlob.Writer(out, "mock-0")) {
+            writer.addAll(week);
+        }
+        return payload.record(out.toByteArray());
+    }
+
+    @Benchmark
+    public int decodeJson() throws Exception {
+        return new JSONArray(new String(json, StandardCharsets.UTF_8)).length();
+    }
+
+    @Benchmark
+    public SmartWatchSeries decodeCsv() throws IOException {
+        SmartWatchSeries series = new SmartWatchSeries(ROWS);
+        parser.parse(new ByteArrayInputStream(csv), Datasets.START, series::append, null);
+        return series;
+    }
+
+    @Benchmark
+    public SmartWatchSeries decodeBlob() throws IOException {
+        return ColumnarBlob.read(new ByteArrayInputStream(blob));
+    }
+}
@@ -0,0 +1,47 @@
+#!/usr/bin/env python3
+"""
+jmh-compare.py
+Side-by-side diff of two JMH JSON result files (./gradlew :benchmarks:jmh output).
+
+Usage (from repo root):
+  python3 scripts/jmh-compare.py benchmarks/results/jmh-<old>.json benchmarks/results/jmh-<new>.json
+
+Prints one row per benchmark + params with both scores and the relative change.
+For time-per-op modes a negative change is an improvement.
+"""
+import json
+import sys
+
+
+def load(path):
+    with open(path) as f:
+        runs = json.load(f)
+    results = {}
+    for run in runs:
+        params = ",".join(f"{k}={v}" for k, v in sorted((run.get("params") or {}).items()))
+        name = run["benchmark"].rsplit(".", 2)
+        key = (".".join(name[-2:]), params, run["mode"])
+        metric = run["primaryMetric"]
+        results[key] = (metric["score"], metric.get("scoreError") or 0.0, metric["scoreUnit"])
+    return results
+
+
+def main():
+    if len(sys.argv) != 3:
+        print(__doc__.strip())
+        sys.exit(2)
+
+    old, new = load(sys.argv[1]), load(sys.argv[2])
+    width = max((len(k[0]) + len(k[1]) + 3 for k in old.keys() | new.keys()), default=20)
+    print(f"{'benchmark':<{width}} {'old':>18} {'new':>18} {'change':>9}")
+    for key in sorted(old.keys() | new.keys()):
+        label = f"{key[0]} [{key[1]}]" if key[1] else key[0]
+        o, n = old.get(key), new.get(key)
+        fmt = lambda r: f"{r[0]:.3f}±{r[1]:.3f}" if r else "-"
+        change = f"{(n[0] - o[0]) / o[0] * 100:+.1f}%" if o and n and o[0] else ""
+        unit = (n or o)[2]
+        print(f"{label:<{width}} {fmt(o):>18} {fmt(n):>18} {change:>9}  {unit}")
+
+
+if __name__ == "__main__":
+    main()
@@ -24,3 +24,4 @@ dependencyResolutionManagement {
 
 rootProject.name = "sdk4" // ✅ Use your actual project folder name
 include(":app")
+include(":benchmarks")